@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: time-to-first-redirect and RSS of the default jar
+# versus the fast-startup build (AppCDS, plus Spring AOT with AOT=1).
+#
+# Usage: scripts/startup-benchmark.sh [runs] [port]
+# Set SKIP_BUILD=1 to reuse the jars already in target/, AOT=1 to build and run with Spring AOT.
+#
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${2:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+TARGET="$ROOT/target"
+VERSION=$(sed -n 's:^    <version>\(.*\)</version>:\1:p' "$ROOT/pom.xml" | head -1)
+FAT_JAR="url-shortener-$VERSION.jar"
+APP_JAR="url-shortener-$VERSION-app.jar"
+PROFILES=fast-startup
+FAST_FLAGS=(-XX:SharedArchiveFile=application.jsa)
+if [ "${AOT:-0}" = "1" ]; then
+  PROFILES=fast-startup,aot
+  FAST_FLAGS+=(-Dspring.aot.enabled=true)
+fi
+
+if [ "${SKIP_BUILD:-0}" != "1" ]; then
+  (cd "$ROOT" && ./mvnw -B -q -P"$PROFILES" package -DskipTests)
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+# Start the app, create a link once the app answers, follow it, then report
+# milliseconds from launch to the first 302 and the RSS at that moment.
+measure() {
+  local label=$1
+  shift
+  local start pid code status rss
+  start=$(now_ms)
+  (cd "$TARGET" && exec java "$@" --server.port="$PORT" --app.failover.probe-interval-ms=60000) \
+    > "$TARGET/startup-$label.log" 2>&1 &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  code=""
+  while [ -z "$code" ]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$label: application exited, see target/startup-$label.log" >&2
+      return 1
+    fi
+    code=$(curl -s -L -c /tmp/startup-bench.cookies -b /tmp/startup-bench.cookies \
+        -d "url=https://example.com/startup" "http://localhost:$PORT/shorten" 2>/dev/null \
+      | sed -n 's:.*data-url="[^"]*/\([A-Za-z0-9]*\)".*:\1:p' | head -1) || true
+    [ -n "$code" ] || sleep 0.05
+  done
+
+  status=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/$code")
+  local elapsed=$(( $(now_ms) - start ))
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+  echo "$elapsed $rss $status"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+report() {
+  local label=$1
+  shift
+  local total_ms=0 total_rss=0 best=""
+  for i in $(seq 1 "$RUNS"); do
+    read -r ms rss status < <(measure "$label" "$@")
+    if [ "$status" != "302" ]; then
+      echo "$label run $i: expected 302, got $status" >&2
+    fi
+    total_ms=$((total_ms + ms))
+    total_rss=$((total_rss + rss))
+    if [ -z "$best" ] || [ "$ms" -lt "$best" ]; then
+      best=$ms
+    fi
+  done
+  printf "%-14s first redirect avg %6d ms  best %6d ms  RSS avg %6d MiB\n" \
+    "$label" $((total_ms / RUNS)) "$best" $((total_rss / RUNS / 1024))
+}
+
+echo "Runs per build: $RUNS"
+report default -jar "$FAT_JAR"
+report fast-startup "${FAST_FLAGS[@]}" -jar "$APP_JAR"
@@ -0,0 +1,280 @@
+package com.urlshortener.accesslog;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access and audit log of every request. Request threads put fixed-layout records
+ * into a lock-free ring without allocating or touching the disk; a background
+ * writer formats them as tab-separated lines into rolling memory-mapped files:
+ *
+ * <pre>time  class  method  status  micros  client  path  code  destination</pre>
+ *
+ * with the time in UTC and "-" for empty fields. Creates carry the short code they
+ * created, or none if rejected, and the destination; redirects carry the destination
+ * they sent the client to.
+ *
+ * @author URL Shortener Team
+ */
+public class AccessLog implements Closeable {
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH", "OTHER"};
+    private static final byte[][] METHOD_BYTES = new byte[METHODS.length][];
+    private static final byte[][] CLASS_BYTES = new byte[TrafficClass.values().length][];
+    private static final int MAX_LINE = 512;
+    private static final int DRAIN_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_BYTES[i] = METHODS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            CLASS_BYTES[trafficClass.ordinal()] =
+                trafficClass.name().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final AccessLogRing ring;
+    private final RollingMappedFile file;
+    private final long flushIntervalNanos;
+    private final LongAdder recorded = new LongAdder();
+    private final byte[] line = new byte[MAX_LINE];
+    private volatile long written;
+    private volatile long writeFailures;
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * @param directory where the log segments go
+     * @param bufferSize records the ring holds while the writer catches up
+     * @param segmentBytes size of each memory-mapped segment
+     * @param maxFiles segments kept
+     * @param flushIntervalMillis how often written pages are forced to disk
+     */
+    public AccessLog(Path directory, int bufferSize, int segmentBytes, int maxFiles, long flushIntervalMillis,
+                     MeterRegistry meterRegistry) throws IOException {
+        this.ring = new AccessLogRing(bufferSize);
+        this.file = new RollingMappedFile(directory, "access", Math.max(MAX_LINE, segmentBytes), maxFiles);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        if (meterRegistry != null) {
+            FunctionCounter.builder("accesslog.recorded", recorded, LongAdder::sum)
+                .description("Access log records accepted").register(meterRegistry);
+            FunctionCounter.builder("accesslog.dropped", ring, AccessLogRing::getDropped)
+                .description("Access log records dropped because the writer fell behind").register(meterRegistry);
+            FunctionCounter.builder("accesslog.written", this, AccessLog::getWritten)
+                .description("Access log records written to file").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Start the background writer
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Record one request; never blocks and allocates nothing
+     *
+     * @param durationNanos time spent on the request
+     * @param code short code created or looked up, or null
+     * @param destination destination created or redirected to, or null
+     * @return false if the record was dropped because the ring is full
+     */
+    public boolean record(long timeMillis, TrafficClass trafficClass, String method, int status, long durationNanos,
+                          String client, String path, String code, String destination) {
+        boolean accepted = ring.offer(timeMillis, trafficClass.ordinal(), methodIndex(method), status,
+            (int) Math.min(Integer.MAX_VALUE, durationNanos / 1000), client, path, code, destination);
+        if (accepted) {
+            recorded.increment();
+        }
+        return accepted;
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    Path getCurrentFile() {
+        return file.getCurrent();
+    }
+
+    /**
+     * Stop the writer after it has written every record already accepted
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (running) {
+            running = false;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain(Integer.MAX_VALUE);
+        file.close();
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        while (running) {
+            int drained = drain(DRAIN_BATCH);
+            long now = System.nanoTime();
+            if (now - lastForce >= flushIntervalNanos) {
+                file.force();
+                lastForce = now;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Write up to max records on the calling thread; the writer thread, or tests
+     * before it is started
+     */
+    int drain(int max) {
+        int total = 0;
+        int drained;
+        do {
+            drained = ring.drain(this::write, Math.min(DRAIN_BATCH, max - total));
+            total += drained;
+        } while (drained > 0 && total < max);
+        return total;
+    }
+
+    private void write(int slot) {
+        int position = formatTimestamp(ring.getTime(slot), line, 0);
+        line[position++] = '\t';
+        position = append(CLASS_BYTES[ring.getTrafficClass(slot)], position);
+        line[position++] = '\t';
+        position = append(METHOD_BYTES[ring.getMethod(slot)], position);
+        line[position++] = '\t';
+        position = appendNumber(ring.getStatus(slot), position);
+        line[position++] = '\t';
+        position = appendNumber(ring.getMicros(slot), position);
+        for (int field = AccessLogRing.CLIENT; field <= AccessLogRing.DESTINATION; field++) {
+            line[position++] = '\t';
+            position = ring.length(slot, field) == 0 ? append('-', position) : ring.copy(slot, field, line, position);
+        }
+        line[position++] = '\n';
+        try {
+            file.write(line, position);
+            written++;
+        } catch (IOException e) {
+            if (writeFailures++ == 0) {
+                System.out.println("❌ Access log write failed, dropping records: " + e.getMessage());
+            }
+        }
+    }
+
+    private int append(byte[] bytes, int position) {
+        System.arraycopy(bytes, 0, line, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private int append(char c, int position) {
+        line[position] = (byte) c;
+        return position + 1;
+    }
+
+    private int appendNumber(int value, int position) {
+        if (value < 0) {
+            line[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            line[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * Write epoch millis as yyyy-MM-ddTHH:mm:ss.SSSZ in UTC without allocating,
+     * converting days to a civil date with Howard Hinnant's algorithm
+     *
+     * @return position after the timestamp
+     */
+    static int formatTimestamp(long epochMillis, byte[] out, int position) {
+        long seconds = Math.floorDiv(epochMillis, 1000);
+        int millis = Math.floorMod(epochMillis, 1000);
+        long days = Math.floorDiv(seconds, 86400);
+        int secondOfDay = Math.floorMod(seconds, 86400);
+
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        position = digits(year, 4, out, position);
+        out[position++] = '-';
+        position = digits(month, 2, out, position);
+        out[position++] = '-';
+        position = digits(day, 2, out, position);
+        out[position++] = 'T';
+        position = digits(secondOfDay / 3600, 2, out, position);
+        out[position++] = ':';
+        position = digits(secondOfDay / 60 % 60, 2, out, position);
+        out[position++] = ':';
+        position = digits(secondOfDay % 60, 2, out, position);
+        out[position++] = '.';
+        position = digits(millis, 3, out, position);
+        out[position++] = 'Z';
+        return position;
+    }
+
+    private static int digits(int value, int width, byte[] out, int position) {
+        for (int i = position + width - 1; i >= position; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + width;
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length - 1; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return METHODS.length - 1;
+    }
+}
@@ -0,0 +1,176 @@
+package com.urlshortener.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded ring of fixed-layout access records, written by many request threads and
+ * read by one writer thread. A producer claims a sequence number with a CAS, copies
+ * its fields into the slot's preallocated arrays and publishes the slot by storing
+ * the sequence; nothing is allocated and nobody waits. When the writer falls a full
+ * ring behind, new records are dropped and counted instead of blocking requests.
+ *
+ * Text fields keep printable ASCII only, anything else becomes '?', so a record
+ * cannot forge or break lines of the log. They are cut to their field width.
+ *
+ * @author URL Shortener Team
+ */
+final class AccessLogRing {
+
+    static final int CLIENT = 0;
+    static final int PATH = 1;
+    static final int CODE = 2;
+    static final int DESTINATION = 3;
+
+    /** Bytes kept per text field: an IPv6 address, a path, a short code, a destination */
+    private static final int[] WIDTHS = {45, 64, 32, 192};
+    private static final int[] OFFSETS = {0, 45, 109, 141};
+    private static final int TEXT_BYTES = 333;
+    private static final int FIELDS = WIDTHS.length;
+
+    private final int mask;
+    private final long[] times;
+    private final int[] statuses;
+    private final int[] micros;
+    private final byte[] trafficClasses;
+    private final byte[] methods;
+    private final byte[] text;
+    private final byte[] lengths;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param capacity records held; rounded up to a power of two
+     */
+    AccessLogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.statuses = new int[size];
+        this.micros = new int[size];
+        this.trafficClasses = new byte[size];
+        this.methods = new byte[size];
+        this.text = new byte[size * TEXT_BYTES];
+        this.lengths = new byte[size * FIELDS];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, i - size);
+        }
+    }
+
+    /**
+     * Add a record, or drop it if the ring is full
+     *
+     * @return false if the record was dropped
+     */
+    boolean offer(long timeMillis, int trafficClass, int method, int status, int durationMicros,
+                  String client, String path, String code, String destination) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        times[slot] = timeMillis;
+        trafficClasses[slot] = (byte) trafficClass;
+        methods[slot] = (byte) method;
+        statuses[slot] = status;
+        micros[slot] = durationMicros;
+        put(slot, CLIENT, client);
+        put(slot, PATH, path);
+        put(slot, CODE, code);
+        put(slot, DESTINATION, destination);
+        published.setRelease(slot, sequence);
+        return true;
+    }
+
+    /**
+     * Hand published records to the reader in order, then free their slots.
+     * Only the writer thread may call this.
+     *
+     * @param max most records to hand over
+     * @return records handed over
+     */
+    int drain(Reader reader, int max) {
+        long next = consumed.get();
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) next & mask;
+            if (published.getAcquire(slot) != next) {
+                break;
+            }
+            reader.read(slot);
+            next++;
+            drained++;
+            consumed.setRelease(next);
+        }
+        return drained;
+    }
+
+    long getTime(int slot) {
+        return times[slot];
+    }
+
+    int getTrafficClass(int slot) {
+        return trafficClasses[slot];
+    }
+
+    int getMethod(int slot) {
+        return methods[slot];
+    }
+
+    int getStatus(int slot) {
+        return statuses[slot];
+    }
+
+    int getMicros(int slot) {
+        return micros[slot];
+    }
+
+    /**
+     * Copy a text field of a slot
+     *
+     * @return position after the copied bytes
+     */
+    int copy(int slot, int field, byte[] out, int position) {
+        int length = lengths[slot * FIELDS + field] & 0xFF;
+        System.arraycopy(text, slot * TEXT_BYTES + OFFSETS[field], out, position, length);
+        return position + length;
+    }
+
+    int length(int slot, int field) {
+        return lengths[slot * FIELDS + field] & 0xFF;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private void put(int slot, int field, String value) {
+        int base = slot * TEXT_BYTES + OFFSETS[field];
+        int length = value == null ? 0 : Math.min(value.length(), WIDTHS[field]);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            text[base + i] = (byte) (c > ' ' && c < 0x7F ? c : '?');
+        }
+        lengths[slot * FIELDS + field] = (byte) length;
+    }
+
+    /**
+     * Receives the slot of each drained record; its fields are valid until it returns
+     */
+    interface Reader {
+        void read(int slot);
+    }
+}
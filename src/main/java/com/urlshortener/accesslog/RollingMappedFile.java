@@ -0,0 +1,124 @@
+package com.urlshortener.accesslog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Log file written through a memory mapping, one segment at a time. Writes are plain
+ * memory copies; the kernel writes the pages back, and force() makes them durable.
+ * When a segment is full it is cut to the bytes written and a new one is started;
+ * only the newest segments are kept. Not thread-safe: one writer thread owns it.
+ *
+ * @author URL Shortener Team
+ */
+final class RollingMappedFile implements Closeable {
+
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final String prefix;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Path current;
+    private int segments;
+
+    /**
+     * @param prefix file name prefix; segments are named prefix-time-nnnn.log
+     * @param segmentBytes size of each segment, at least one record
+     * @param maxSegments segments kept, including the current one
+     */
+    RollingMappedFile(Path directory, String prefix, int segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(directory);
+        roll();
+    }
+
+    void write(byte[] bytes, int length) throws IOException {
+        if (buffer.remaining() < length) {
+            roll();
+        }
+        buffer.put(bytes, 0, length);
+    }
+
+    /**
+     * Write the pages of the current segment back to disk
+     */
+    void force() {
+        buffer.force();
+    }
+
+    Path getCurrent() {
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void roll() throws IOException {
+        finish();
+        current = directory.resolve(String.format("%s-%s-%04d.log", prefix, LocalDateTime.now().format(SEGMENT_TIME),
+            ++segments));
+        channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        deleteOldSegments();
+    }
+
+    /**
+     * Flush the current segment and cut the unused, zeroed tail off the file
+     */
+    private void finish() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.force();
+        int written = buffer.position();
+        buffer = null;
+        try {
+            channel.truncate(written);
+        } catch (IOException e) {
+            // Some platforms refuse while the mapping is alive; readers then stop at the first zero byte
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().startsWith(prefix + "-")
+                    && path.getFileName().toString().endsWith(".log"))
+                .forEach(files::add);
+        }
+        if (files.size() <= maxSegments) {
+            return;
+        }
+        // Names sort by creation: start time, then sequence
+        Collections.sort(files);
+        for (Path file : files.subList(0, files.size() - maxSegments)) {
+            if (!file.equals(current)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
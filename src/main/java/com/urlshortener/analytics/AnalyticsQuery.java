@@ -0,0 +1,119 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Top-N query over link analytics: order by clicks, creation or last access, keep
+ * only links created or accessed at or after the given times.
+ *
+ * Timestamps are stored as ISO-8601 local date-times written by LocalDateTime.toString,
+ * which sort as strings in time order, so filters compare strings and parse nothing.
+ *
+ * @author URL Shortener Team
+ */
+public class AnalyticsQuery {
+
+    /** Most links one query returns */
+    public static final int MAX_LIMIT = 1000;
+
+    public enum Order {
+        /** Most clicked first */
+        CLICKS,
+        /** Newest first */
+        CREATED,
+        /** Most recently clicked first; links never clicked are left out */
+        ACCESSED;
+
+        /**
+         * Parse a query parameter such as "clicks", "created" or "accessed"
+         *
+         * @throws IllegalArgumentException for unknown orders
+         */
+        public static Order fromParameter(String value) {
+            if (value != null) {
+                switch (value.toLowerCase()) {
+                    case "clicks":
+                    case "top":
+                        return CLICKS;
+                    case "created":
+                    case "recent":
+                        return CREATED;
+                    case "accessed":
+                    case "last-accessed":
+                        return ACCESSED;
+                    default:
+                        break;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sort order: " + value);
+        }
+    }
+
+    private final Order order;
+    private final int limit;
+    private final String createdAfter;
+    private final String accessedAfter;
+
+    /**
+     * @param createdAfter keep links created at or after this time, or null for all
+     * @param accessedAfter keep links last clicked at or after this time, or null for all
+     * @throws IllegalArgumentException if limit is not between 1 and MAX_LIMIT
+     */
+    public AnalyticsQuery(Order order, int limit, LocalDateTime createdAfter, LocalDateTime accessedAfter) {
+        if (order == null || limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        this.order = order;
+        this.limit = limit;
+        this.createdAfter = createdAfter == null ? null : createdAfter.toString();
+        this.accessedAfter = accessedAfter == null ? null : accessedAfter.toString();
+    }
+
+    public AnalyticsQuery(Order order, int limit) {
+        this(order, limit, null, null);
+    }
+
+    /**
+     * Whether the link passes the filters and has a value to be ordered by
+     */
+    public boolean matches(UrlAnalytics analytics) {
+        if (analytics == null) {
+            return false;
+        }
+        if (createdAfter != null && !atOrAfter(analytics.getCreatedAt(), createdAfter)) {
+            return false;
+        }
+        if (accessedAfter != null && !atOrAfter(analytics.getLastAccessedAt(), accessedAfter)) {
+            return false;
+        }
+        return order == Order.CLICKS || timeKey(analytics) != null;
+    }
+
+    /**
+     * Timestamp the query orders by, for the CREATED and ACCESSED orders
+     */
+    String timeKey(UrlAnalytics analytics) {
+        switch (order) {
+            case CREATED:
+                return analytics.getCreatedAt();
+            case ACCESSED:
+                return analytics.getLastAccessedAt();
+            default:
+                return null;
+        }
+    }
+
+    static boolean atOrAfter(String timestamp, String bound) {
+        return timestamp != null && timestamp.compareTo(bound) >= 0;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
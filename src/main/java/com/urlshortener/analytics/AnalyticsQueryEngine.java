@@ -0,0 +1,128 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Runs top-N queries and the dashboard summary in one pass over link analytics.
+ * Large collections are traversed in parallel on the fork-join pool: each fork
+ * fills its own bounded heap and the heaps are merged as the forks join, so the
+ * work is O(n log K) spread over the cores and nothing is copied or sorted in full.
+ *
+ * @author URL Shortener Team
+ */
+public final class AnalyticsQueryEngine {
+
+    /** Links in the summary's top and recent tables */
+    public static final int SUMMARY_TABLE_SIZE = 5;
+
+    /** Below this many links a sequential pass is faster than forking */
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final AnalyticsQuery SUMMARY_TOP = new AnalyticsQuery(AnalyticsQuery.Order.CLICKS,
+        SUMMARY_TABLE_SIZE);
+    private static final AnalyticsQuery SUMMARY_RECENT = new AnalyticsQuery(AnalyticsQuery.Order.CREATED,
+        SUMMARY_TABLE_SIZE);
+
+    private AnalyticsQueryEngine() {
+    }
+
+    /**
+     * Best links of the query, best first
+     *
+     * @param analytics links to search; must tolerate concurrent traversal
+     */
+    public static List<UrlAnalytics> query(Collection<? extends UrlAnalytics> analytics, AnalyticsQuery query) {
+        TopK top = stream(analytics).collect(Collector.of(
+            () -> new TopK(query), TopK::offer, TopK::merge, Collector.Characteristics.UNORDERED));
+        return top.drain();
+    }
+
+    /**
+     * Totals, today's activity and the top and recent tables, in one pass
+     *
+     * @param today day the "today" counts are for
+     */
+    public static AnalyticsSummary summarize(Collection<? extends UrlAnalytics> analytics, LocalDate today) {
+        String startOfDay = today.atStartOfDay().toString();
+        return stream(analytics).collect(Collector.of(
+            () -> new SummaryAccumulator(startOfDay), SummaryAccumulator::add, SummaryAccumulator::merge,
+            SummaryAccumulator::toSummary, Collector.Characteristics.UNORDERED));
+    }
+
+    private static Stream<? extends UrlAnalytics> stream(Collection<? extends UrlAnalytics> analytics) {
+        return analytics.size() >= PARALLEL_THRESHOLD ? analytics.parallelStream() : analytics.stream();
+    }
+
+    /**
+     * Summary of the links added so far; backends that page through their links
+     * add each page to one accumulator
+     */
+    public static final class SummaryAccumulator {
+
+        private final String startOfDay;
+        private final TopK top = new TopK(SUMMARY_TOP);
+        private final TopK recent = new TopK(SUMMARY_RECENT);
+        private long totalUrls;
+        private long totalClicks;
+        private long todayUrls;
+        private long todayClicks;
+
+        public SummaryAccumulator(LocalDate today) {
+            this(today.atStartOfDay().toString());
+        }
+
+        private SummaryAccumulator(String startOfDay) {
+            this.startOfDay = startOfDay;
+        }
+
+        public void add(UrlAnalytics analytics) {
+            if (analytics == null) {
+                return;
+            }
+            int clicks = analytics.getClickCount();
+            totalUrls++;
+            totalClicks += clicks;
+            if (AnalyticsQuery.atOrAfter(analytics.getCreatedAt(), startOfDay)) {
+                todayUrls++;
+            }
+            if (AnalyticsQuery.atOrAfter(analytics.getLastAccessedAt(), startOfDay)) {
+                todayClicks += clicks;
+            }
+            top.offer(analytics);
+            recent.offer(analytics);
+        }
+
+        SummaryAccumulator merge(SummaryAccumulator other) {
+            totalUrls += other.totalUrls;
+            totalClicks += other.totalClicks;
+            todayUrls += other.todayUrls;
+            todayClicks += other.todayClicks;
+            top.merge(other.top);
+            recent.merge(other.recent);
+            return this;
+        }
+
+        /**
+         * The summary; links in its tables are the ones added, not copies
+         */
+        public AnalyticsSummary toSummary() {
+            AnalyticsSummary summary = new AnalyticsSummary();
+            summary.setTotalUrls(totalUrls);
+            summary.setTotalClicks(totalClicks);
+            summary.setTodayUrls(todayUrls);
+            summary.setTodayClicks(todayClicks);
+            summary.setTopUrls(top.drain());
+            summary.setRecentUrls(recent.drain());
+            summary.setLastUpdated(LocalDateTime.now().toString());
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.ClickContext;
+
+import java.util.Arrays;
+
+/**
+ * Clicks of one hour in columnar form. Each click is two ints: the dictionary id
+ * of its short code and the packed dictionary ids of its dimensions. Rows are split
+ * into segments by short code id, so a query for one link scans one segment only.
+ *
+ * @author URL Shortener Team
+ */
+class ClickBucket {
+
+    static final int SEGMENTS = 64;
+
+    static final String UNKNOWN = "unknown";
+
+    private static final ClickDimension[] DIMENSIONS = ClickDimension.values();
+
+    private final long hour;
+    private final ClickDictionary shortCodes = new ClickDictionary(Integer.MAX_VALUE - 8);
+    private final ClickDictionary[] dictionaries;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    ClickBucket(long hour) {
+        this.hour = hour;
+        this.dictionaries = new ClickDictionary[DIMENSIONS.length];
+        for (ClickDimension dimension : DIMENSIONS) {
+            dictionaries[dimension.ordinal()] = new ClickDictionary(dimension.maxId());
+        }
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    long getHour() {
+        return hour;
+    }
+
+    void append(String shortCode, ClickContext context) {
+        int codeId = shortCodes.encode(shortCode);
+        int packed = 0;
+        for (ClickDimension dimension : DIMENSIONS) {
+            String value = dimension.valueOf(context);
+            if (value == null || value.isEmpty()) {
+                value = UNKNOWN;
+            }
+            packed |= dimension.pack(dictionaries[dimension.ordinal()].encode(value));
+        }
+        segments[codeId & (SEGMENTS - 1)].append(codeId, packed);
+    }
+
+    /**
+     * Count this bucket's clicks of one link by the values of one dimension
+     *
+     * @return counts indexed by dictionary id, or null if the link has no clicks here
+     */
+    long[] count(String shortCode, ClickDimension dimension) {
+        int codeId = shortCodes.lookup(shortCode);
+        if (codeId < 0) {
+            return null;
+        }
+        Segment segment = segments[codeId & (SEGMENTS - 1)];
+        int rows = segment.size;
+        int[] codes = segment.codes;
+        int[] packed = segment.packed;
+        // Ids in the scanned rows were all added before the rows were published
+        long[] counts = new long[dictionaries[dimension.ordinal()].size()];
+        for (int i = 0; i < rows; i++) {
+            if (codes[i] == codeId) {
+                counts[dimension.unpack(packed[i])]++;
+            }
+        }
+        return counts;
+    }
+
+    String decode(ClickDimension dimension, int id) {
+        return dictionaries[dimension.ordinal()].decode(id);
+    }
+
+    long rowCount() {
+        long rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.size;
+        }
+        return rows;
+    }
+
+    long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += 8L * segment.codes.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Append-only pair of int columns. Arrays are written before the volatile size,
+     * and grown arrays are published before it too, so readers that read the size
+     * first always see complete rows.
+     */
+    private static final class Segment {
+        private volatile int[] codes = new int[64];
+        private volatile int[] packed = new int[64];
+        private volatile int size;
+
+        synchronized void append(int codeId, int dimensions) {
+            int row = size;
+            int[] codeColumn = codes;
+            int[] packedColumn = packed;
+            if (row == codeColumn.length) {
+                codeColumn = Arrays.copyOf(codeColumn, row * 2);
+                packedColumn = Arrays.copyOf(packedColumn, row * 2);
+            }
+            codeColumn[row] = codeId;
+            packedColumn[row] = dimensions;
+            codes = codeColumn;
+            packed = packedColumn;
+            size = row + 1;
+        }
+    }
+}
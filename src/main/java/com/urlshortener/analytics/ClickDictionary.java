@@ -0,0 +1,75 @@
+package com.urlshortener.analytics;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only string dictionary of one time bucket. Ids are dense and never change,
+ * so readers can index arrays by id. Once only one id is left it is taken by
+ * {@link #OTHER} and every further new value maps to it.
+ *
+ * @author URL Shortener Team
+ */
+class ClickDictionary {
+
+    static final String OTHER = "(other)";
+
+    private final int maxId;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    ClickDictionary(int maxId) {
+        this.maxId = maxId;
+    }
+
+    /**
+     * Id of a value, adding it if it is new
+     */
+    int encode(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : add(value);
+    }
+
+    /**
+     * Id of a value, or -1 if it was never added
+     */
+    int lookup(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    String decode(int id) {
+        return values[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        if (id >= maxId) {
+            // Full: the last id is "(other)" and absorbs all new values
+            Integer other = ids.get(OTHER);
+            if (other != null) {
+                return other;
+            }
+            value = OTHER;
+        }
+        String[] current = values;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, Math.min(current.length * 2, maxId + 1));
+        }
+        current[id] = value;
+        values = current;
+        ids.put(value, id);
+        size = id + 1;
+        return id;
+    }
+}
@@ -0,0 +1,84 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.ClickContext;
+
+/**
+ * Click dimensions kept by the columnar store. All four dictionary ids of a click
+ * are packed into one int, so each dimension owns a fixed bit range; a dimension's
+ * dictionary holds at most 2^bits values per time bucket, the last one being "(other)".
+ *
+ * @author URL Shortener Team
+ */
+public enum ClickDimension {
+
+    REFERRER(0, 16),
+    COUNTRY(16, 8),
+    USER_AGENT(24, 5),
+    DEVICE(29, 3);
+
+    private final int shift;
+    private final int mask;
+
+    ClickDimension(int shift, int bits) {
+        this.shift = shift;
+        this.mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Largest dictionary id of this dimension
+     */
+    int maxId() {
+        return mask;
+    }
+
+    int pack(int id) {
+        return id << shift;
+    }
+
+    int unpack(int packed) {
+        return (packed >>> shift) & mask;
+    }
+
+    /**
+     * Read this dimension's value from a click context
+     */
+    String valueOf(ClickContext context) {
+        switch (this) {
+            case REFERRER:
+                return context.getReferrer();
+            case COUNTRY:
+                return context.getCountry();
+            case USER_AGENT:
+                return context.getUserAgentFamily();
+            default:
+                return context.getDevice();
+        }
+    }
+
+    /**
+     * Parse a query parameter such as "referrer", "country", "ua" or "device"
+     *
+     * @throws IllegalArgumentException for unknown dimensions
+     */
+    public static ClickDimension fromParameter(String value) {
+        if (value != null) {
+            switch (value.toLowerCase()) {
+                case "referrer":
+                case "referer":
+                    return REFERRER;
+                case "country":
+                    return COUNTRY;
+                case "ua":
+                case "browser":
+                case "user-agent":
+                case "user_agent":
+                    return USER_AGENT;
+                case "device":
+                    return DEVICE;
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unknown click dimension: " + value);
+    }
+}
@@ -0,0 +1,107 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.ClickContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Columnar in-memory store of click dimensions, bucketed by hour.
+ * Each bucket dictionary-encodes referrer, country, user-agent family and device,
+ * so a group-by over a time range scans two compact int arrays per bucket and
+ * never touches per-click objects. Buckets older than the retention are dropped whole.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class ClickDimensionStore {
+
+    static final long BUCKET_MILLIS = 3_600_000L;
+
+    private final ConcurrentMap<Long, ClickBucket> buckets = new ConcurrentHashMap<>();
+    private final int retentionHours;
+
+    public ClickDimensionStore(@Value("${app.analytics.dimensions.retention-hours:168}") int retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Record one click in the bucket of its timestamp
+     */
+    public void record(String shortCode, ClickContext context) {
+        long hour = context.getTimestamp() / BUCKET_MILLIS;
+        ClickBucket bucket = buckets.get(hour);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(hour, ClickBucket::new);
+        }
+        bucket.append(shortCode, context);
+    }
+
+    /**
+     * Count clicks of one link by the values of a dimension
+     *
+     * @param shortCode The short code
+     * @param dimension Dimension to group by
+     * @param hours Number of hourly buckets to scan, ending with the current hour
+     * @param limit Maximum number of groups to return
+     * @return click counts per value, highest first
+     */
+    public Map<String, Long> groupBy(String shortCode, ClickDimension dimension, int hours, int limit) {
+        if (hours < 1 || hours > retentionHours) {
+            throw new IllegalArgumentException("hours must be between 1 and " + retentionHours);
+        }
+        long currentHour = System.currentTimeMillis() / BUCKET_MILLIS;
+        Map<String, Long> totals = new HashMap<>();
+        for (long hour = currentHour - hours + 1; hour <= currentHour; hour++) {
+            ClickBucket bucket = buckets.get(hour);
+            if (bucket == null) {
+                continue;
+            }
+            long[] counts = bucket.count(shortCode, dimension);
+            if (counts == null) {
+                continue;
+            }
+            for (int id = 0; id < counts.length; id++) {
+                if (counts[id] > 0) {
+                    totals.merge(bucket.decode(dimension, id), counts[id], Long::sum);
+                }
+            }
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(totals.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            result.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Drop buckets that fell out of the retention window
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long oldest = System.currentTimeMillis() / BUCKET_MILLIS - retentionHours;
+        buckets.keySet().removeIf(hour -> hour < oldest);
+    }
+
+    public long getRowCount() {
+        return buckets.values().stream().mapToLong(ClickBucket::rowCount).sum();
+    }
+
+    public long getColumnBytes() {
+        return buckets.values().stream().mapToLong(ClickBucket::memoryBytes).sum();
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,481 @@
+package com.urlshortener.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.DashboardDelta;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.service.UrlShortenerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared fan-out publisher behind the live analytics dashboard.
+ * Creates and clicks are only counted while someone is watching. Once per tick they
+ * are coalesced into one delta that is serialized once and queued to every subscriber,
+ * so the cost per tick does not grow with the number of viewers. The full summary is
+ * recomputed at most once per summary interval. Each subscriber has a bounded queue;
+ * a subscriber that falls behind is resynchronized with a snapshot instead.
+ *
+ * <p>Writes to a viewer block while its socket is full. A write still blocked after
+ * send-timeout-ms drops that viewer, and the sender pool gets a replacement thread
+ * until the write gives up, so slow viewers cannot stall everyone else.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class DashboardFeed {
+
+    private static final int TABLE_SIZE = 5;
+    private static final int HEARTBEAT_TICKS = 15;
+
+    private final ObjectProvider<UrlShortenerService> urlShortenerService;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int maxNewUrlsPerTick;
+    private final long summaryIntervalMillis;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+
+    private final ConcurrentHashMap<String, LongAdder> pendingClicks = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<UrlAnalytics> pendingUrls = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingUrlCount = new AtomicInteger();
+    private final AtomicLong pendingUrlTotal = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final Counter resyncs;
+    private final Counter sendTimeouts;
+
+    // Current view, guarded by this
+    private long sequence;
+    private long totalUrls;
+    private long totalClicks;
+    private long todayUrls;
+    private long todayClicks;
+    private List<UrlAnalytics> topUrls = new ArrayList<>();
+    private List<UrlAnalytics> recentUrls = new ArrayList<>();
+    private long summaryAt;
+    private int idleTicks;
+    private String snapshotJson;
+
+    public DashboardFeed(ObjectProvider<UrlShortenerService> urlShortenerService,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.dashboard.buffer-size:32}") int bufferSize,
+                         @Value("${app.dashboard.max-subscribers:10000}") int maxSubscribers,
+                         @Value("${app.dashboard.max-new-urls-per-tick:50}") int maxNewUrlsPerTick,
+                         @Value("${app.dashboard.summary-interval-ms:10000}") long summaryIntervalMillis,
+                         @Value("${app.dashboard.timeout-ms:1800000}") long timeoutMillis,
+                         @Value("${app.dashboard.sender-threads:2}") int senderThreads,
+                         @Value("${app.dashboard.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.urlShortenerService = urlShortenerService;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.maxNewUrlsPerTick = maxNewUrlsPerTick;
+        this.summaryIntervalMillis = summaryIntervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "dashboard-sse");
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.resyncs = meterRegistry.counter("dashboard.subscriber.resyncs");
+        this.sendTimeouts = meterRegistry.counter("dashboard.subscriber.send-timeouts");
+        Gauge.builder("dashboard.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Record a link created on this pod
+     */
+    public void recordUrl(ShortenUrlResponse response) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        pendingUrlTotal.incrementAndGet();
+        if (pendingUrlCount.incrementAndGet() <= maxNewUrlsPerTick) {
+            UrlAnalytics analytics = new UrlAnalytics();
+            analytics.setShortCode(response.getShortCode());
+            analytics.setOriginalUrl(response.getOriginalUrl());
+            analytics.setShortUrl(response.getShortUrl());
+            analytics.setCreatedAt(response.getCreatedAt() == null ? null : response.getCreatedAt().toString());
+            analytics.setActive(response.isActive());
+            pendingUrls.add(analytics);
+        }
+    }
+
+    /**
+     * Record a click served by this pod
+     */
+    public void recordClick(String shortCode) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        LongAdder adder = pendingClicks.get(shortCode);
+        if (adder == null) {
+            adder = pendingClicks.computeIfAbsent(shortCode, code -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * Open a feed for one viewer; the first event is a snapshot
+     *
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many dashboard subscribers");
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        synchronized (this) {
+            if (System.currentTimeMillis() - summaryAt >= summaryIntervalMillis) {
+                refreshSummary();
+            }
+        }
+        subscribers.add(subscriber);
+        subscriber.resync();
+        return emitter;
+    }
+
+    /**
+     * Coalesce everything recorded since the previous tick into one event for all subscribers
+     */
+    @Scheduled(fixedRateString = "${app.dashboard.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        subscribers.forEach(subscriber -> subscriber.dropIfStuck(now));
+        if (subscribers.isEmpty()) {
+            pendingClicks.clear();
+            drainUrls();
+            return;
+        }
+        String event;
+        String json;
+        synchronized (this) {
+            if (System.currentTimeMillis() - summaryAt >= summaryIntervalMillis) {
+                // The summary already includes what was recorded, so pending deltas are dropped
+                pendingClicks.clear();
+                drainUrls();
+                refreshSummary();
+                event = "snapshot";
+                json = snapshot();
+            } else {
+                DashboardDelta delta = applyPending();
+                if (delta == null) {
+                    if (++idleTicks >= HEARTBEAT_TICKS) {
+                        idleTicks = 0;
+                        subscribers.forEach(Subscriber::heartbeat);
+                    }
+                    return;
+                }
+                event = "delta";
+                json = toJson(delta);
+            }
+            idleTicks = 0;
+        }
+        Message message = new Message(event, json);
+        subscribers.forEach(subscriber -> subscriber.enqueue(message));
+    }
+
+    /**
+     * Fold pending creates and clicks into the view
+     *
+     * @return the delta to publish, or null if nothing happened
+     */
+    private DashboardDelta applyPending() {
+        Map<String, Long> clicks = new HashMap<>();
+        pendingClicks.forEach((shortCode, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                clicks.put(shortCode, count);
+            }
+        });
+        pendingClicks.values().removeIf(adder -> adder.sum() == 0);
+        List<UrlAnalytics> newUrls = drainUrls();
+        long newUrlTotal = pendingUrlTotal.getAndSet(0);
+        if (clicks.isEmpty() && newUrlTotal == 0) {
+            return null;
+        }
+
+        long clickTotal = clicks.values().stream().mapToLong(Long::longValue).sum();
+        totalUrls += newUrlTotal;
+        todayUrls += newUrlTotal;
+        totalClicks += clickTotal;
+        todayClicks += clickTotal;
+        List<String> topBefore = shortCodes(topUrls);
+        for (UrlAnalytics analytics : topUrls) {
+            Long added = clicks.get(analytics.getShortCode());
+            if (added != null) {
+                analytics.setClickCount((int) (analytics.getClickCount() + added));
+            }
+        }
+        topUrls.sort(Comparator.comparingInt(UrlAnalytics::getClickCount).reversed());
+        // Newest first, ahead of the previous recent links
+        List<UrlAnalytics> recent = new ArrayList<>(newUrls);
+        recent.sort(Comparator.comparing(UrlAnalytics::getCreatedAt,
+            Comparator.nullsLast(Comparator.reverseOrder())));
+        recent.addAll(recentUrls);
+        recentUrls = new ArrayList<>(recent.subList(0, Math.min(TABLE_SIZE, recent.size())));
+        sequence++;
+        snapshotJson = null;
+
+        DashboardDelta delta = new DashboardDelta();
+        delta.setSequence(sequence);
+        delta.setTotalUrls(totalUrls);
+        delta.setTotalClicks(totalClicks);
+        delta.setTodayUrls(todayUrls);
+        delta.setTodayClicks(todayClicks);
+        delta.setNewUrls(newUrls.isEmpty() ? null : newUrls);
+        delta.setClicks(clicks.isEmpty() ? null : clicks);
+        if (!topBefore.equals(shortCodes(topUrls))) {
+            delta.setTopUrls(topUrls);
+        }
+        delta.setLastUpdated(LocalDateTime.now().toString());
+        return delta;
+    }
+
+    private void refreshSummary() {
+        UrlShortenerService service = urlShortenerService.getIfAvailable();
+        if (service == null) {
+            return;
+        }
+        AnalyticsSummary summary = service.getAnalyticsSummary();
+        totalUrls = summary.getTotalUrls();
+        totalClicks = summary.getTotalClicks();
+        todayUrls = summary.getTodayUrls();
+        todayClicks = summary.getTodayClicks();
+        topUrls = copyOf(summary.getTopUrls());
+        recentUrls = copyOf(summary.getRecentUrls());
+        summaryAt = System.currentTimeMillis();
+        sequence++;
+        snapshotJson = null;
+    }
+
+    /**
+     * Full view as JSON, serialized at most once per sequence number
+     */
+    private synchronized String snapshot() {
+        if (snapshotJson == null) {
+            DashboardDelta snapshot = new DashboardDelta();
+            snapshot.setSequence(sequence);
+            snapshot.setTotalUrls(totalUrls);
+            snapshot.setTotalClicks(totalClicks);
+            snapshot.setTodayUrls(todayUrls);
+            snapshot.setTodayClicks(todayClicks);
+            snapshot.setTopUrls(topUrls);
+            snapshot.setRecentUrls(recentUrls);
+            snapshot.setLastUpdated(LocalDateTime.now().toString());
+            snapshotJson = toJson(snapshot);
+        }
+        return snapshotJson;
+    }
+
+    private List<UrlAnalytics> drainUrls() {
+        List<UrlAnalytics> urls = new ArrayList<>();
+        UrlAnalytics analytics;
+        while ((analytics = pendingUrls.poll()) != null) {
+            urls.add(analytics);
+        }
+        pendingUrlCount.set(0);
+        return urls;
+    }
+
+    /**
+     * Copies, so click increments never touch the backend's own objects
+     */
+    private static List<UrlAnalytics> copyOf(List<UrlAnalytics> source) {
+        List<UrlAnalytics> copies = new ArrayList<>();
+        if (source == null) {
+            return copies;
+        }
+        for (UrlAnalytics analytics : source) {
+            copies.add(new UrlAnalytics(analytics.getShortCode(), analytics.getOriginalUrl(),
+                analytics.getShortUrl(), analytics.getCreatedAt(), analytics.getClickCount(),
+                analytics.getLastAccessedAt(), analytics.isActive()));
+        }
+        return copies;
+    }
+
+    private static List<String> shortCodes(List<UrlAnalytics> urls) {
+        List<String> codes = new ArrayList<>(urls.size());
+        urls.forEach(analytics -> codes.add(analytics.getShortCode()));
+        return codes;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize dashboard event", e);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Stand in for a sender thread blocked on a dropped viewer
+     */
+    private void addSender() {
+        synchronized (senders) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + 1);
+            senders.setCorePoolSize(senders.getCorePoolSize() + 1);
+        }
+    }
+
+    private void removeSender() {
+        synchronized (senders) {
+            senders.setCorePoolSize(senders.getCorePoolSize() - 1);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() - 1);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private static final class Message {
+        private final String event;
+        private final String data;
+
+        private Message(String event, String data) {
+            this.event = event;
+            this.data = data;
+        }
+    }
+
+    /**
+     * One viewer: a bounded queue drained by the shared sender pool
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Message> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+        private volatile long sendingSince;
+        private volatile boolean resync;
+        private volatile boolean heartbeat;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(Message message) {
+            if (!queue.offer(message)) {
+                // Too far behind: drop the backlog and start again from a snapshot
+                queue.clear();
+                resync = true;
+                resyncs.increment();
+            }
+            schedule();
+        }
+
+        void resync() {
+            resync = true;
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeat = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        /**
+         * Drop the viewer if one write has been blocked for longer than the send timeout
+         */
+        void dropIfStuck(long now) {
+            long since = sendingSince;
+            if (since != 0 && now - since >= sendTimeoutMillis && abandoned.compareAndSet(false, true)) {
+                closed = true;
+                subscribers.remove(this);
+                sendTimeouts.increment();
+                addSender();
+            }
+        }
+
+        private void drain() {
+            try {
+                if (resync) {
+                    resync = false;
+                    queue.clear();
+                    send(SseEmitter.event().name("snapshot").data(snapshot()));
+                }
+                Message message;
+                while (!closed && (message = queue.poll()) != null) {
+                    send(SseEmitter.event().name(message.event).data(message.data));
+                }
+                if (heartbeat && !closed) {
+                    heartbeat = false;
+                    send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                subscribers.remove(this);
+            } finally {
+                sendingSince = 0;
+                scheduled.set(false);
+            }
+            if (abandoned.get()) {
+                // The blocked write gave up or finished; hand its stand-in thread back
+                removeSender();
+                emitter.completeWithError(new IOException("Dashboard write timed out"));
+            } else if (!closed && (!queue.isEmpty() || resync || heartbeat)) {
+                schedule();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.currentTimeMillis();
+            emitter.send(event);
+            sendingSince = 0;
+        }
+    }
+}
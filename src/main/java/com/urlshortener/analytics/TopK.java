@@ -0,0 +1,154 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded heap that keeps the best K links of a query, worst at the root, so each
+ * offer costs O(log K) and the heap never grows past K. Sort keys are captured when
+ * a link is offered: clicks keep arriving while a query runs, and a key changing
+ * under the heap would break its order.
+ *
+ * Not thread-safe; parallel queries give each fork its own heap and merge them.
+ *
+ * @author URL Shortener Team
+ */
+public class TopK {
+
+    private final AnalyticsQuery query;
+    private final boolean byClicks;
+    private final UrlAnalytics[] items;
+    private final long[] counts;
+    private final String[] times;
+    private int size;
+
+    public TopK(AnalyticsQuery query) {
+        this.query = query;
+        this.byClicks = query.getOrder() == AnalyticsQuery.Order.CLICKS;
+        this.items = new UrlAnalytics[query.getLimit()];
+        this.counts = new long[query.getLimit()];
+        this.times = new String[query.getLimit()];
+    }
+
+    /**
+     * Consider a link, keeping it if it matches the query and ranks in the top K
+     */
+    public void offer(UrlAnalytics analytics) {
+        if (query.matches(analytics)) {
+            insert(analytics, analytics.getClickCount(), query.timeKey(analytics));
+        }
+    }
+
+    /**
+     * Fold another heap of the same query into this one
+     *
+     * @return this heap
+     */
+    public TopK merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            insert(other.items[i], other.counts[i], other.times[i]);
+        }
+        return this;
+    }
+
+    /**
+     * The kept links, best first. Empties the heap.
+     */
+    public List<UrlAnalytics> drain() {
+        UrlAnalytics[] sorted = new UrlAnalytics[size];
+        while (size > 0) {
+            sorted[size - 1] = items[0];
+            size--;
+            move(size, 0);
+            items[size] = null;
+            times[size] = null;
+            siftDown(0);
+        }
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(UrlAnalytics analytics, long count, String time) {
+        if (size < items.length) {
+            set(size, analytics, count, time);
+            siftUp(size++);
+        } else if (size > 0 && compare(count, time, analytics.getShortCode(), 0) > 0) {
+            set(0, analytics, count, time);
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (compare(slot, parent) >= 0) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int worst = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && compare(left, worst) < 0) {
+                worst = left;
+            }
+            if (right < size && compare(right, worst) < 0) {
+                worst = right;
+            }
+            if (worst == slot) {
+                return;
+            }
+            swap(slot, worst);
+            slot = worst;
+        }
+    }
+
+    /**
+     * Positive if the first link ranks above the second
+     */
+    private int compare(int a, int b) {
+        return compare(counts[a], times[a], items[a].getShortCode(), b);
+    }
+
+    private int compare(long count, String time, String shortCode, int slot) {
+        int order = byClicks ? Long.compare(count, counts[slot]) : time.compareTo(times[slot]);
+        if (order != 0) {
+            return order;
+        }
+        // Equal keys: the smaller short code ranks higher, so results do not depend on traversal order
+        String other = items[slot].getShortCode();
+        if (shortCode == null || other == null) {
+            return shortCode == null ? (other == null ? 0 : -1) : 1;
+        }
+        return other.compareTo(shortCode);
+    }
+
+    private void set(int slot, UrlAnalytics analytics, long count, String time) {
+        items[slot] = analytics;
+        counts[slot] = count;
+        times[slot] = time;
+    }
+
+    private void move(int from, int to) {
+        set(to, items[from], counts[from], times[from]);
+    }
+
+    private void swap(int a, int b) {
+        UrlAnalytics item = items[a];
+        long count = counts[a];
+        String time = times[a];
+        move(b, a);
+        set(b, item, count, time);
+    }
+}
@@ -0,0 +1,245 @@
+package com.urlshortener.blocklist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped blocklist index.
+ *
+ * <p>File layout (big endian):
+ * <pre>
+ * int magic, int version
+ * section domains:  int count, int[count + 1] offsets, byte[] entries
+ * section prefixes: int count, int[count + 1] offsets, byte[] entries
+ * </pre>
+ * Domain entries are lower-case domains written back to front ("moc.live" for evil.com)
+ * so that every label-boundary suffix of a host is a prefix of the reversed host.
+ * Prefix entries are lower-case "host/path" strings without scheme. Both sections are
+ * sorted by unsigned byte order, so lookups are binary searches reading straight from
+ * the mapping: opening an index costs a header read and lookups allocate nothing.
+ *
+ * @author URL Shortener Team
+ */
+public final class BlocklistIndex {
+
+    static final int MAGIC = 0x424c4b31;
+    static final int VERSION = 1;
+
+    public static final BlocklistIndex EMPTY = new BlocklistIndex(emptyBuffer());
+
+    private final ByteBuffer buffer;
+    private final int domainCount;
+    private final int domainOffsets;
+    private final int domainData;
+    private final int prefixCount;
+    private final int prefixOffsets;
+    private final int prefixData;
+
+    private BlocklistIndex(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a blocklist index");
+        }
+        this.buffer = buffer;
+        this.domainCount = buffer.getInt(8);
+        this.domainOffsets = 12;
+        this.domainData = domainOffsets + (domainCount + 1) * 4;
+        int prefixSection = domainData + buffer.getInt(domainOffsets + domainCount * 4);
+        this.prefixCount = buffer.getInt(prefixSection);
+        this.prefixOffsets = prefixSection + 4;
+        this.prefixData = prefixOffsets + (prefixCount + 1) * 4;
+    }
+
+    /**
+     * Map an index file into memory
+     *
+     * @param path index file written by BlocklistIndexBuilder
+     * @return the mapped index
+     * @throws IOException if the file cannot be mapped
+     */
+    public static BlocklistIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BlocklistIndex(buffer);
+        }
+    }
+
+    static BlocklistIndex wrap(ByteBuffer buffer) {
+        return new BlocklistIndex(buffer);
+    }
+
+    /**
+     * Check a URL's host and path against the index
+     *
+     * @param url absolute http(s) URL
+     * @return true if the host, a parent domain or a URL prefix is blocked
+     */
+    public boolean isBlocked(String url) {
+        if (url == null) {
+            return false;
+        }
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            return false;
+        }
+        int hostStart = schemeEnd + 3;
+        int authorityEnd = hostStart;
+        while (authorityEnd < url.length()) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                hostStart = authorityEnd + 1;
+            }
+            authorityEnd++;
+        }
+        int hostEnd = hostStart;
+        while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+            hostEnd++;
+        }
+        if (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') {
+            hostEnd--;
+        }
+        return isDomainBlocked(url, hostStart, hostEnd) || isPrefixBlocked(url, hostStart, hostEnd, authorityEnd);
+    }
+
+    public int getDomainCount() {
+        return domainCount;
+    }
+
+    public int getPrefixCount() {
+        return prefixCount;
+    }
+
+    private boolean isDomainBlocked(String url, int hostStart, int hostEnd) {
+        if (domainCount == 0 || hostEnd <= hostStart) {
+            return false;
+        }
+        // Every label boundary, from the top-level domain down to the full host
+        for (int start = hostEnd - 1; start >= hostStart; start--) {
+            if (start == hostStart || url.charAt(start - 1) == '.') {
+                if (searchReversed(url, start, hostEnd)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isPrefixBlocked(String url, int hostStart, int hostEnd, int authorityEnd) {
+        if (prefixCount == 0) {
+            return false;
+        }
+        int end = url.length();
+        for (int i = authorityEnd; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        // Host-relative prefixes ending at each '/' and the full path
+        for (int i = authorityEnd; i <= end; i++) {
+            if (i == end || url.charAt(i) == '/') {
+                int candidateEnd = i < end ? i + 1 : end;
+                if (searchForward(url, hostStart, hostEnd, authorityEnd, candidateEnd)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean searchReversed(String url, int from, int to) {
+        int low = 0;
+        int high = domainCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entryStart = domainData + buffer.getInt(domainOffsets + mid * 4);
+            int entryEnd = domainData + buffer.getInt(domainOffsets + (mid + 1) * 4);
+            int cmp = compareReversed(entryStart, entryEnd, url, from, to);
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    private int compareReversed(int entryStart, int entryEnd, String url, int from, int to) {
+        int entryLength = entryEnd - entryStart;
+        int keyLength = to - from;
+        int n = Math.min(entryLength, keyLength);
+        for (int i = 0; i < n; i++) {
+            int a = buffer.get(entryStart + i) & 0xff;
+            int b = lower(url.charAt(to - 1 - i));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return entryLength - keyLength;
+    }
+
+    private boolean searchForward(String url, int hostStart, int hostEnd, int pathStart, int pathEnd) {
+        int low = 0;
+        int high = prefixCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entryStart = prefixData + buffer.getInt(prefixOffsets + mid * 4);
+            int entryEnd = prefixData + buffer.getInt(prefixOffsets + (mid + 1) * 4);
+            int cmp = compareForward(entryStart, entryEnd, url, hostStart, hostEnd, pathStart, pathEnd);
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare an entry with host + path, skipping any port between them
+     */
+    private int compareForward(int entryStart, int entryEnd, String url,
+                               int hostStart, int hostEnd, int pathStart, int pathEnd) {
+        int hostLength = hostEnd - hostStart;
+        int keyLength = hostLength + (pathEnd - pathStart);
+        int entryLength = entryEnd - entryStart;
+        int n = Math.min(entryLength, keyLength);
+        for (int i = 0; i < n; i++) {
+            int a = buffer.get(entryStart + i) & 0xff;
+            int b = lower(i < hostLength ? url.charAt(hostStart + i) : url.charAt(pathStart + i - hostLength));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return entryLength - keyLength;
+    }
+
+    private static int lower(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c + ('a' - 'A');
+        }
+        return c > 0xff ? 0xff : c;
+    }
+
+    private static ByteBuffer emptyBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(0).putInt(0);
+        buffer.putInt(0).putInt(0);
+        buffer.flip();
+        return buffer;
+    }
+}
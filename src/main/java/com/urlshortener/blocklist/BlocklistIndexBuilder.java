@@ -0,0 +1,142 @@
+package com.urlshortener.blocklist;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiles plain-text blocklists into a BlocklistIndex file.
+ * Each line is either a domain (blocks it and all subdomains) or a URL prefix
+ * containing a '/'. Blank lines and lines starting with '#' are ignored.
+ * The index is written to a temporary file and moved into place atomically,
+ * so a running BlocklistService never maps a half-written file.
+ *
+ * <p>Usage: {@code java -cp app.jar com.urlshortener.blocklist.BlocklistIndexBuilder out.idx list1.txt [list2.txt ...]}
+ *
+ * @author URL Shortener Team
+ */
+public final class BlocklistIndexBuilder {
+
+    private final List<byte[]> domains = new ArrayList<>();
+    private final List<byte[]> prefixes = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BlocklistIndexBuilder <output.idx> <list.txt>...");
+            System.exit(1);
+        }
+        BlocklistIndexBuilder builder = new BlocklistIndexBuilder();
+        for (int i = 1; i < args.length; i++) {
+            builder.addFile(Path.of(args[i]));
+        }
+        long start = System.nanoTime();
+        builder.write(Path.of(args[0]));
+        System.out.printf("Wrote %d domains and %d prefixes to %s in %d ms%n",
+            builder.domains.size(), builder.prefixes.size(), args[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public BlocklistIndexBuilder addFile(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                add(line);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add one domain or URL prefix
+     */
+    public BlocklistIndexBuilder add(String entry) {
+        String value = entry.trim().toLowerCase(Locale.ROOT);
+        if (value.isEmpty() || value.startsWith("#")) {
+            return this;
+        }
+        int scheme = value.indexOf("://");
+        if (scheme >= 0) {
+            value = value.substring(scheme + 3);
+        }
+        if (value.indexOf('/') >= 0) {
+            prefixes.add(value.getBytes(StandardCharsets.ISO_8859_1));
+        } else {
+            if (value.startsWith("*.")) {
+                value = value.substring(2);
+            }
+            if (value.endsWith(".")) {
+                value = value.substring(0, value.length() - 1);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+                byte tmp = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = tmp;
+            }
+            domains.add(bytes);
+        }
+        return this;
+    }
+
+    /**
+     * Write the index atomically
+     *
+     * @param target index file to create or replace
+     */
+    public void write(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            writeTo(out);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Build the index into a byte array, mainly for tests
+     */
+    byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(BlocklistIndex.MAGIC);
+        out.writeInt(BlocklistIndex.VERSION);
+        writeSection(out, domains);
+        writeSection(out, prefixes);
+    }
+
+    private static void writeSection(DataOutputStream out, List<byte[]> entries) throws IOException {
+        byte[][] sorted = entries.toArray(new byte[0][]);
+        Arrays.sort(sorted, Arrays::compareUnsigned);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || !Arrays.equals(sorted[i], sorted[i - 1])) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        out.writeInt(count);
+        int offset = 0;
+        out.writeInt(offset);
+        for (int i = 0; i < count; i++) {
+            offset += sorted[i].length;
+            out.writeInt(offset);
+        }
+        for (int i = 0; i < count; i++) {
+            out.write(sorted[i]);
+        }
+    }
+}
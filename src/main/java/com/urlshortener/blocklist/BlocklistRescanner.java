@@ -0,0 +1,88 @@
+package com.urlshortener.blocklist;
+
+import com.urlshortener.service.UrlShortenerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-checks existing links against the blocklist in the background.
+ * A scan runs whenever a new index has been swapped in and at least once per
+ * rescan interval; links that are now blocked stop redirecting.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@ConditionalOnProperty(name = "app.blocklist.rescan-enabled", havingValue = "true", matchIfMissing = true)
+public class BlocklistRescanner {
+
+    private final BlocklistService blocklistService;
+    private final UrlShortenerService urlShortenerService;
+    private final long rescanIntervalMillis;
+
+    private long scannedGeneration = -1;
+    private long lastScanAt;
+    private volatile long lastScanned;
+    private volatile long lastDeactivated;
+
+    public BlocklistRescanner(BlocklistService blocklistService,
+                              UrlShortenerService urlShortenerService,
+                              @Value("${app.blocklist.rescan-interval-ms:86400000}") long rescanIntervalMillis) {
+        this.blocklistService = blocklistService;
+        this.urlShortenerService = urlShortenerService;
+        this.rescanIntervalMillis = rescanIntervalMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.blocklist.reload-interval-ms:30000}",
+               initialDelayString = "${app.blocklist.reload-interval-ms:30000}")
+    public void rescanIfNeeded() {
+        long generation = blocklistService.getGeneration();
+        boolean due = System.currentTimeMillis() - lastScanAt >= rescanIntervalMillis;
+        if (generation == 0 || (generation == scannedGeneration && !due)) {
+            return;
+        }
+        scannedGeneration = generation;
+        lastScanAt = System.currentTimeMillis();
+        rescan();
+    }
+
+    /**
+     * Scan every link once and deactivate the blocked ones
+     *
+     * @return number of links deactivated
+     */
+    public int rescan() {
+        List<String> blocked = new ArrayList<>();
+        long[] scanned = new long[1];
+        urlShortenerService.forEachUrl((shortCode, originalUrl) -> {
+            scanned[0]++;
+            if (blocklistService.isBlocked(originalUrl)) {
+                blocked.add(shortCode);
+            }
+        });
+        int deactivated = 0;
+        for (String shortCode : blocked) {
+            if (urlShortenerService.deactivateUrl(shortCode)) {
+                deactivated++;
+            }
+        }
+        lastScanned = scanned[0];
+        lastDeactivated = deactivated;
+        if (deactivated > 0) {
+            System.out.println("🚫 Blocklist rescan deactivated " + deactivated + " of " + scanned[0] + " links");
+        }
+        return deactivated;
+    }
+
+    public long getLastScanned() {
+        return lastScanned;
+    }
+
+    public long getLastDeactivated() {
+        return lastDeactivated;
+    }
+}
@@ -0,0 +1,91 @@
+package com.urlshortener.blocklist;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the active blocklist index and swaps in new versions of the index file.
+ * Lookups read a volatile reference, so a reload never pauses request threads;
+ * the previous mapping is released once no lookup uses it.
+ *
+ * @author URL Shortener Team
+ */
+@Service
+public class BlocklistService {
+
+    private final Path indexPath;
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile BlocklistIndex index = BlocklistIndex.EMPTY;
+    private volatile FileTime loadedModifiedTime;
+
+    public BlocklistService(@Value("${app.blocklist.index-path:}") String indexPath) {
+        this.indexPath = indexPath == null || indexPath.isEmpty() ? null : Path.of(indexPath);
+        reloadIfChanged();
+    }
+
+    /**
+     * Check a destination URL against the active blocklist
+     *
+     * @param url destination URL
+     * @return true if the URL must not be shortened or served
+     */
+    public boolean isBlocked(String url) {
+        return index.isBlocked(url);
+    }
+
+    /**
+     * Map the index file again if it was replaced since the last load
+     *
+     * @return true if a new index was swapped in
+     */
+    @Scheduled(fixedDelayString = "${app.blocklist.reload-interval-ms:30000}")
+    public synchronized boolean reloadIfChanged() {
+        if (indexPath == null || !Files.isReadable(indexPath)) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(indexPath);
+            if (modified.equals(loadedModifiedTime)) {
+                return false;
+            }
+            index = BlocklistIndex.open(indexPath);
+            loadedModifiedTime = modified;
+            generation.incrementAndGet();
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("❌ Failed to load blocklist index " + indexPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Swap in an index directly, e.g. one built in memory
+     */
+    public void setIndex(BlocklistIndex index) {
+        this.index = index;
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Increases every time a new index is swapped in
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public int getDomainCount() {
+        return index.getDomainCount();
+    }
+
+    public int getPrefixCount() {
+        return index.getPrefixCount();
+    }
+}
@@ -0,0 +1,174 @@
+package com.urlshortener.bots;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classifies redirect requests as human clicks, bots or prefetches. The verdict
+ * for a user agent is kept in a direct-mapped cache, since a few hundred distinct
+ * user agents make up nearly all traffic: a hit costs one hash and one string
+ * comparison, and only a miss runs the automaton. Rules are swapped in through a
+ * volatile reference like the blocklist index; cached verdicts remember the rules
+ * they came from, so a reload invalidates them without clearing the cache.
+ *
+ * @author URL Shortener Team
+ */
+@Service
+@ConditionalOnProperty(name = "app.bot-filter.enabled", havingValue = "true", matchIfMissing = true)
+public class BotClassifier {
+
+    private final Path rulesPath;
+    private final Verdict[] cache;
+    private final int cacheMask;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder[] classified = new LongAdder[ClickSource.values().length];
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private volatile BotRules rules;
+    private volatile FileTime loadedModifiedTime;
+
+    public BotClassifier(@Value("${app.bot-filter.rules-path:}") String rulesPath,
+                         @Value("${app.bot-filter.cache-size:4096}") int cacheSize,
+                         MeterRegistry meterRegistry) {
+        this.rulesPath = rulesPath == null || rulesPath.isEmpty() ? null : Path.of(rulesPath);
+        this.cache = new Verdict[Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1];
+        this.cacheMask = cache.length - 1;
+        this.rules = BotRules.defaults();
+        for (ClickSource source : ClickSource.values()) {
+            classified[source.ordinal()] = new LongAdder();
+            if (meterRegistry != null) {
+                FunctionCounter.builder("botfilter.classified", classified[source.ordinal()], LongAdder::sum)
+                    .tag("source", source.name().toLowerCase())
+                    .description("Redirects classified by who made them").register(meterRegistry);
+            }
+        }
+        if (meterRegistry != null) {
+            FunctionCounter.builder("botfilter.cache.misses", cacheMisses, LongAdder::sum)
+                .description("User agents classified by running the rules").register(meterRegistry);
+        }
+        reloadIfChanged();
+    }
+
+    /**
+     * Classify a redirect request by its prefetch headers and user agent
+     */
+    public ClickSource classify(HttpServletRequest request) {
+        BotRules current = rules;
+        ClickSource source = ClickSource.HUMAN;
+        for (int rule = 0; rule < current.getHeaderRuleCount(); rule++) {
+            String value = request.getHeader(current.getHeaderName(rule));
+            if (value != null && current.matchesHeader(rule, value)) {
+                source = ClickSource.PREFETCH;
+                break;
+            }
+        }
+        if (source == ClickSource.HUMAN && isBot(request.getHeader("User-Agent"), current)) {
+            source = ClickSource.BOT;
+        }
+        classified[source.ordinal()].increment();
+        return source;
+    }
+
+    /**
+     * Whether the user agent belongs to a bot under the active rules
+     */
+    public boolean isBot(String userAgent) {
+        return isBot(userAgent, rules);
+    }
+
+    private boolean isBot(String userAgent, BotRules current) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return false;
+        }
+        int slot = spread(userAgent.hashCode()) & cacheMask;
+        Verdict verdict = cache[slot];
+        if (verdict != null && verdict.rules == current && verdict.userAgent.equals(userAgent)) {
+            return verdict.bot;
+        }
+        cacheMisses.increment();
+        boolean bot = current.matchesUserAgent(userAgent);
+        // Racing writers may overwrite each other's verdicts; either one is correct
+        cache[slot] = new Verdict(userAgent, bot, current);
+        return bot;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Load the rules file again if it was replaced since the last load
+     *
+     * @return true if new rules were swapped in
+     */
+    @Scheduled(fixedDelayString = "${app.bot-filter.reload-interval-ms:30000}")
+    public synchronized boolean reloadIfChanged() {
+        if (rulesPath == null || !Files.isReadable(rulesPath)) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(rulesPath);
+            if (modified.equals(loadedModifiedTime)) {
+                return false;
+            }
+            BotRules loaded = BotRules.parse(Files.readAllLines(rulesPath, StandardCharsets.UTF_8));
+            setRules(loaded);
+            loadedModifiedTime = modified;
+            System.out.println("✅ Loaded " + loaded.getUserAgentPatternCount() + " bot user-agent patterns from "
+                + rulesPath);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("❌ Failed to load bot rules " + rulesPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Swap in rules directly, e.g. ones built in memory
+     */
+    public void setRules(BotRules rules) {
+        this.rules = rules;
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Increases every time new rules are swapped in
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public long getClassified(ClickSource source) {
+        return classified[source.ordinal()].sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    private static final class Verdict {
+
+        final String userAgent;
+        final boolean bot;
+        final BotRules rules;
+
+        Verdict(String userAgent, boolean bot, BotRules rules) {
+            this.userAgent = userAgent;
+            this.bot = bot;
+            this.rules = rules;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.urlshortener.bots;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiled rules telling automated clicks from human ones. Rule files have one
+ * rule per line; blank lines and lines starting with '#' are ignored:
+ *
+ * <pre>
+ * ua facebookexternalhit        user agents containing this are bots
+ * header Sec-Purpose prefetch   requests with this header value are prefetches
+ * </pre>
+ *
+ * Both match case-insensitively anywhere in the value. All user-agent patterns
+ * are compiled into one Aho-Corasick automaton, flattened into a transition table
+ * over ASCII, so a user agent is checked against every pattern in a single pass
+ * of one array read per character.
+ *
+ * @author URL Shortener Team
+ */
+public final class BotRules {
+
+    private static final int ALPHABET = 128;
+    private static final String DEFAULT_RULES = "/bot-rules.txt";
+
+    /** Matches nothing */
+    public static final BotRules EMPTY = new BotRules(List.of(), List.of());
+
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final String[] headerNames;
+    private final String[] headerValues;
+    private final int patternCount;
+
+    private BotRules(List<String> userAgentPatterns, List<String[]> headerRules) {
+        this.patternCount = userAgentPatterns.size();
+        this.headerNames = new String[headerRules.size()];
+        this.headerValues = new String[headerRules.size()];
+        for (int i = 0; i < headerRules.size(); i++) {
+            headerNames[i] = headerRules.get(i)[0];
+            headerValues[i] = headerRules.get(i)[1];
+        }
+
+        // Trie of the patterns
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        children.add(newNode());
+        terminal.add(false);
+        for (String pattern : userAgentPatterns) {
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (children.get(state)[c] < 0) {
+                    children.get(state)[c] = children.size();
+                    children.add(newNode());
+                    terminal.add(false);
+                }
+                state = children.get(state)[c];
+            }
+            terminal.set(state, true);
+        }
+
+        // Breadth-first, so each state's failure link is complete before its children's
+        int states = children.size();
+        this.transitions = new int[states * ALPHABET];
+        this.accepting = new boolean[states];
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int child = children.get(0)[c];
+            if (child > 0) {
+                queue.add(child);
+            }
+            transitions[c] = Math.max(child, 0);
+        }
+        accepting[0] = terminal.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] = terminal.get(state) || accepting[failure[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = children.get(state)[c];
+                int fallback = transitions[failure[state] * ALPHABET + c];
+                if (child > 0) {
+                    failure[child] = fallback;
+                    queue.add(child);
+                    transitions[state * ALPHABET + c] = child;
+                } else {
+                    transitions[state * ALPHABET + c] = fallback;
+                }
+            }
+        }
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[ALPHABET];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    /**
+     * Compile rules from the lines of a rule file
+     *
+     * @throws IllegalArgumentException on a malformed rule
+     */
+    public static BotRules parse(List<String> lines) {
+        List<String> userAgentPatterns = new ArrayList<>();
+        List<String[]> headerRules = new ArrayList<>();
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+", 3);
+            if ("ua".equals(parts[0]) && parts.length >= 2) {
+                userAgentPatterns.add(pattern(line.substring(2).trim(), number));
+            } else if ("header".equals(parts[0]) && parts.length == 3) {
+                headerRules.add(new String[] {parts[1], pattern(parts[2], number)});
+            } else {
+                throw new IllegalArgumentException("Line " + number + ": expected 'ua <pattern>' or "
+                    + "'header <name> <pattern>': " + line);
+            }
+        }
+        return new BotRules(userAgentPatterns, headerRules);
+    }
+
+    private static String pattern(String value, int number) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= ALPHABET || value.charAt(i) < ' ') {
+                throw new IllegalArgumentException("Line " + number + ": patterns must be printable ASCII: " + value);
+            }
+        }
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The rules shipped with the application
+     */
+    public static BotRules defaults() {
+        try (InputStream in = BotRules.class.getResourceAsStream(DEFAULT_RULES)) {
+            if (in == null) {
+                return EMPTY;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return parse(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether the user agent contains any of the patterns, ignoring case
+     */
+    public boolean matchesUserAgent(String userAgent) {
+        int state = 0;
+        for (int i = 0; i < userAgent.length(); i++) {
+            int c = userAgent.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c >= ALPHABET) {
+                // No pattern holds it, so it breaks every partial match like a control character
+                c = 0;
+            }
+            state = transitions[state * ALPHABET + c];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getHeaderRuleCount() {
+        return headerNames.length;
+    }
+
+    String getHeaderName(int rule) {
+        return headerNames[rule];
+    }
+
+    /**
+     * Whether a value of the rule's header contains its pattern, ignoring case
+     */
+    boolean matchesHeader(int rule, String value) {
+        String pattern = headerValues[rule];
+        for (int i = 0, last = value.length() - pattern.length(); i <= last; i++) {
+            if (value.regionMatches(true, i, pattern, 0, pattern.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getUserAgentPatternCount() {
+        return patternCount;
+    }
+
+    public int getStateCount() {
+        return accepting.length;
+    }
+}
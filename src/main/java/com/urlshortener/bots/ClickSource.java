@@ -0,0 +1,16 @@
+package com.urlshortener.bots;
+
+/**
+ * Who is behind a redirect, as far as its headers tell
+ *
+ * @author URL Shortener Team
+ */
+public enum ClickSource {
+
+    /** A person following the link */
+    HUMAN,
+    /** Crawlers, link unfurlers and mail scanners, recognised by their user agent */
+    BOT,
+    /** Browsers fetching the link speculatively, before or without a click */
+    PREFETCH
+}
@@ -0,0 +1,131 @@
+package com.urlshortener.bulkhead;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many worker threads one traffic class may hold at once. Requests over
+ * the cap wait in a bounded queue for up to the class's wait time; when the queue
+ * is full or the wait runs out they are rejected, so a slow class backs up on its
+ * own bulkhead instead of taking the threads other classes need.
+ *
+ * @author URL Shortener Team
+ */
+public class Bulkhead {
+
+    private final TrafficClass trafficClass;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final int redisConnections;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+    private final Timer waits;
+
+    /**
+     * @param maxConcurrent requests of the class running at once
+     * @param maxQueue requests that may wait for a permit; 0 rejects as soon as the class is full
+     * @param maxWaitMillis longest a queued request waits before it is rejected
+     * @param redisConnections size of the class's own Redis connection pool
+     */
+    public Bulkhead(TrafficClass trafficClass, int maxConcurrent, int maxQueue, long maxWaitMillis,
+                    int redisConnections, MeterRegistry meterRegistry) {
+        if (maxConcurrent < 1 || maxQueue < 0 || redisConnections < 1) {
+            throw new IllegalArgumentException("Invalid bulkhead settings for " + trafficClass);
+        }
+        this.trafficClass = trafficClass;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.redisConnections = redisConnections;
+        this.permits = new Semaphore(maxConcurrent);
+
+        Tags tags = Tags.of("class", trafficClass.name().toLowerCase(Locale.ROOT));
+        this.rejected = meterRegistry.counter("bulkhead.rejected", tags);
+        this.waits = Timer.builder("bulkhead.wait").tags(tags).register(meterRegistry);
+        meterRegistry.gauge("bulkhead.active", tags, this, Bulkhead::getActive);
+        meterRegistry.gauge("bulkhead.queued", tags, queued);
+        meterRegistry.gauge("bulkhead.saturation", tags, this, Bulkhead::getSaturation);
+    }
+
+    /**
+     * Take a permit, waiting in the queue if the class is full
+     *
+     * @return false if the request must be rejected; otherwise the caller must call exit
+     */
+    public boolean tryEnter() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (maxQueue == 0 || maxWaitNanos == 0) {
+            rejected.increment();
+            return false;
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Return the permit taken by a successful tryEnter
+     */
+    public void exit() {
+        permits.release();
+    }
+
+    public TrafficClass getTrafficClass() {
+        return trafficClass;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getRedisConnections() {
+        return redisConnections;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Share of the class's permits in use, 1.0 when it is full
+     */
+    public double getSaturation() {
+        return (double) getActive() / maxConcurrent;
+    }
+
+    public long getRejections() {
+        return (long) rejected.count();
+    }
+}
@@ -0,0 +1,52 @@
+package com.urlshortener.bulkhead;
+
+import com.urlshortener.util.TrafficClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs each request inside the bulkhead of its traffic class and binds the class to
+ * the thread for Redis pool routing. Requests the bulkhead rejects get 503 with
+ * Retry-After. Classes without a bulkhead pass straight through.
+ *
+ * @author URL Shortener Team
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Bulkheads bulkheads;
+    private final String retryAfterSeconds;
+
+    public BulkheadFilter(Bulkheads bulkheads, long retryAfterSeconds) {
+        this.bulkheads = bulkheads;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfterSeconds));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        TrafficClass trafficClass = TrafficClass.classify(request);
+        Bulkhead bulkhead = bulkheads.get(trafficClass);
+        if (bulkhead == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!bulkhead.tryEnter()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", retryAfterSeconds);
+            return;
+        }
+        TrafficClass previous = Bulkheads.bind(trafficClass);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Bulkheads.restore(previous);
+            bulkhead.exit();
+        }
+    }
+}
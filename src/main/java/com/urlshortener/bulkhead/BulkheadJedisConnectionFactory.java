@@ -0,0 +1,50 @@
+package com.urlshortener.bulkhead;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.util.Pool;
+
+/**
+ * Jedis connection factory of one bulkhead that keeps hold of its pool, so the
+ * pool's usage can be reported per traffic class
+ *
+ * @author URL Shortener Team
+ */
+public class BulkheadJedisConnectionFactory extends JedisConnectionFactory {
+
+    private volatile Pool<Jedis> pool;
+
+    public BulkheadJedisConnectionFactory(RedisStandaloneConfiguration standaloneConfig,
+                                          JedisClientConfiguration clientConfig) {
+        super(standaloneConfig, clientConfig);
+    }
+
+    @Override
+    protected Pool<Jedis> createRedisPool() {
+        Pool<Jedis> created = super.createRedisPool();
+        this.pool = created;
+        return created;
+    }
+
+    /**
+     * Connections borrowed from the pool
+     */
+    public int getActive() {
+        Pool<Jedis> current = pool;
+        return current == null ? 0 : current.getNumActive();
+    }
+
+    /**
+     * Threads blocked waiting for a connection
+     */
+    public int getWaiting() {
+        Pool<Jedis> current = pool;
+        return current == null ? 0 : current.getNumWaiters();
+    }
+
+    public int getMaxTotal() {
+        return getPoolConfig() == null ? 0 : getPoolConfig().getMaxTotal();
+    }
+}
@@ -0,0 +1,75 @@
+package com.urlshortener.bulkhead;
+
+import com.urlshortener.util.TrafficClass;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the traffic class the current thread is
+ * serving, so a class that holds all of its connections only stalls itself.
+ * Scheduled jobs, other threads and classes without a pool use the shared factory.
+ *
+ * @author URL Shortener Team
+ */
+public class BulkheadRedisConnectionFactory implements RedisConnectionFactory, DisposableBean {
+
+    private final Map<TrafficClass, RedisConnectionFactory> pools;
+    private final RedisConnectionFactory shared;
+
+    public BulkheadRedisConnectionFactory(Map<TrafficClass, ? extends RedisConnectionFactory> pools,
+                                          RedisConnectionFactory shared) {
+        this.pools = new EnumMap<>(TrafficClass.class);
+        this.pools.putAll(pools);
+        this.shared = shared;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        return route().getConnection();
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        return shared.getClusterConnection();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return shared.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return shared.getSentinelConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return shared.translateExceptionIfPossible(ex);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (RedisConnectionFactory pool : pools.values()) {
+            if (pool instanceof DisposableBean) {
+                ((DisposableBean) pool).destroy();
+            }
+        }
+        if (shared instanceof DisposableBean) {
+            ((DisposableBean) shared).destroy();
+        }
+    }
+
+    RedisConnectionFactory route() {
+        TrafficClass trafficClass = Bulkheads.current();
+        RedisConnectionFactory pool = trafficClass == null ? null : pools.get(trafficClass);
+        return pool != null ? pool : shared;
+    }
+}
@@ -0,0 +1,81 @@
+package com.urlshortener.bulkhead;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The bulkheads of the isolated traffic classes, and the class of the request the
+ * current thread is serving, which routes its Redis commands to the class's pool
+ *
+ * @author URL Shortener Team
+ */
+public class Bulkheads {
+
+    private static final ThreadLocal<TrafficClass> CURRENT = new ThreadLocal<>();
+
+    private final Map<TrafficClass, Bulkhead> bulkheads = new EnumMap<>(TrafficClass.class);
+    private final MeterRegistry meterRegistry;
+
+    public Bulkheads(Collection<Bulkhead> bulkheads, MeterRegistry meterRegistry) {
+        for (Bulkhead bulkhead : bulkheads) {
+            this.bulkheads.put(bulkhead.getTrafficClass(), bulkhead);
+        }
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the class's bulkhead, or null if the class is not isolated
+     */
+    public Bulkhead get(TrafficClass trafficClass) {
+        return bulkheads.get(trafficClass);
+    }
+
+    public Collection<Bulkhead> all() {
+        return Collections.unmodifiableCollection(bulkheads.values());
+    }
+
+    /**
+     * Publish the usage of a class's Redis connection pool
+     *
+     * @param node Redis node the pool connects to, as host:port
+     */
+    public void monitorPool(TrafficClass trafficClass, String node, BulkheadJedisConnectionFactory factory) {
+        Tags tags = Tags.of("class", trafficClass.name().toLowerCase(Locale.ROOT), "node", node);
+        meterRegistry.gauge("bulkhead.redis.active", tags, factory, BulkheadJedisConnectionFactory::getActive);
+        meterRegistry.gauge("bulkhead.redis.waiting", tags, factory, BulkheadJedisConnectionFactory::getWaiting);
+        meterRegistry.gauge("bulkhead.redis.max", tags, factory, BulkheadJedisConnectionFactory::getMaxTotal);
+    }
+
+    /**
+     * Class of the request being served on this thread, or null outside a request
+     */
+    public static TrafficClass current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Mark this thread as serving a request of the class
+     *
+     * @return the class it served before, to pass to restore
+     */
+    static TrafficClass bind(TrafficClass trafficClass) {
+        TrafficClass previous = CURRENT.get();
+        CURRENT.set(trafficClass);
+        return previous;
+    }
+
+    static void restore(TrafficClass previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.urlshortener.capacity;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting link counts, entry sizes, TTLs and growth at /actuator/capacity
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "capacity")
+public class CapacityEndpoint {
+
+    private final CapacityMonitor capacityMonitor;
+
+    public CapacityEndpoint(CapacityMonitor capacityMonitor) {
+        this.capacityMonitor = capacityMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> capacity() {
+        return capacityMonitor.report();
+    }
+}
@@ -0,0 +1,256 @@
+package com.urlshortener.capacity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a capacity picture of every backend in small background steps: each tick
+ * samples a few entries per backend into a rolling window, and every history interval
+ * the link count and memory use are recorded to fit the growth rate. Nothing runs on
+ * the request path, and no step touches more than sample-size entries.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class CapacityMonitor {
+
+    private static final long[] TTL_BOUNDS = {
+        TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(6), TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(7)
+    };
+    private static final String[] TTL_BUCKETS = {"under1h", "1hTo6h", "6hTo1d", "1dTo7d", "over7d"};
+    private static final double MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final ObjectProvider<CapacitySource> sources;
+    private final boolean enabled;
+    private final int sampleSize;
+    private final int windowSize;
+    private final long historyIntervalMillis;
+    private final int historySize;
+
+    private final Map<String, SourceState> states = new ConcurrentHashMap<>();
+
+    public CapacityMonitor(ObjectProvider<CapacitySource> sources,
+                           @Value("${app.capacity.enabled:true}") boolean enabled,
+                           @Value("${app.capacity.sample-size:20}") int sampleSize,
+                           @Value("${app.capacity.window-size:5000}") int windowSize,
+                           @Value("${app.capacity.history-interval-ms:300000}") long historyIntervalMillis,
+                           @Value("${app.capacity.history-size:2016}") int historySize) {
+        this.sources = sources;
+        this.enabled = enabled;
+        this.sampleSize = sampleSize;
+        this.windowSize = windowSize;
+        this.historyIntervalMillis = historyIntervalMillis;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Take one sampling step on every backend
+     */
+    @Scheduled(fixedDelayString = "${app.capacity.sample-interval-ms:1000}",
+               initialDelayString = "${app.capacity.sample-interval-ms:1000}")
+    public void sample() {
+        sample(System.currentTimeMillis());
+    }
+
+    void sample(long now) {
+        if (!enabled) {
+            return;
+        }
+        sources.orderedStream().forEach(source -> {
+            SourceState state = states.computeIfAbsent(source.getCapacityName(), name -> new SourceState());
+            try {
+                state.record(source.sampleCapacity(sampleSize), now);
+            } catch (RuntimeException e) {
+                state.fail(e);
+            }
+        });
+    }
+
+    /**
+     * Capacity report per backend for the actuator endpoint
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        Map<String, Object> backends = new LinkedHashMap<>();
+        new ArrayList<>(states.keySet()).stream().sorted()
+            .forEach(name -> backends.put(name, states.get(name).report()));
+        report.put("backends", backends);
+        return report;
+    }
+
+    /**
+     * Rolling sample window and growth history of one backend
+     */
+    private final class SourceState {
+
+        private final Deque<CapacitySample.Entry> window = new ArrayDeque<>();
+        private final Deque<long[]> history = new ArrayDeque<>();
+        private CapacitySample latest;
+        private long updatedAt;
+        private String error;
+
+        synchronized void record(CapacitySample sample, long now) {
+            for (CapacitySample.Entry entry : sample.getEntries()) {
+                if (window.size() == windowSize) {
+                    window.removeFirst();
+                }
+                window.addLast(entry);
+            }
+            latest = sample;
+            updatedAt = now;
+            error = null;
+            if (history.isEmpty() || now - history.peekLast()[0] >= historyIntervalMillis) {
+                if (history.size() == historySize) {
+                    history.removeFirst();
+                }
+                history.addLast(new long[] {now, linkCount(), sample.getUsedBytes()});
+            }
+        }
+
+        synchronized void fail(RuntimeException e) {
+            error = e.getMessage();
+        }
+
+        synchronized Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            if (latest == null) {
+                report.put("error", error);
+                return report;
+            }
+            long links = linkCount();
+            report.put("links", links);
+            report.put("analytics", latest.getAnalyticsCount() >= 0
+                ? latest.getAnalyticsCount() : estimate(CapacitySample.Kind.ANALYTICS));
+            report.put("totalKeys", latest.getTotalKeys());
+            report.put("estimatedCounts", latest.getLinkCount() < 0);
+            report.put("sampledEntries", window.size());
+
+            Map<String, Object> urlSizes = sizes(CapacitySample.Kind.URL);
+            Map<String, Object> analyticsSizes = sizes(CapacitySample.Kind.ANALYTICS);
+            report.put("bytesPerUrl", urlSizes);
+            report.put("bytesPerAnalytics", analyticsSizes);
+            long bytesPerLink = (long) urlSizes.getOrDefault("mean", 0L) + (long) analyticsSizes.getOrDefault("mean", 0L);
+            report.put("bytesPerLink", bytesPerLink);
+            report.put("ttl", ttlDistribution());
+
+            long used = latest.getUsedBytes();
+            long max = latest.getMaxBytes();
+            report.put("usedBytes", used);
+            report.put("maxBytes", max);
+            report.put("utilizationPercent", max > 0 ? Math.round(1000.0 * used / max) / 10.0 : null);
+            report.put("projection", projection(links, bytesPerLink, used, max));
+            report.put("updatedAt", updatedAt);
+            if (error != null) {
+                report.put("error", error);
+            }
+            return report;
+        }
+
+        private long linkCount() {
+            return latest.getLinkCount() >= 0 ? latest.getLinkCount() : estimate(CapacitySample.Kind.URL);
+        }
+
+        /**
+         * Store-wide count of a kind from its share of the sampled keys
+         */
+        private long estimate(CapacitySample.Kind kind) {
+            if (window.isEmpty()) {
+                return 0;
+            }
+            long matching = window.stream().filter(entry -> entry.getKind() == kind).count();
+            return Math.round((double) latest.getTotalKeys() * matching / window.size());
+        }
+
+        private Map<String, Object> sizes(CapacitySample.Kind kind) {
+            long[] bytes = window.stream().filter(entry -> entry.getKind() == kind)
+                .mapToLong(CapacitySample.Entry::getBytes).toArray();
+            Map<String, Object> sizes = new LinkedHashMap<>();
+            if (bytes.length == 0) {
+                return sizes;
+            }
+            Arrays.sort(bytes);
+            sizes.put("mean", Math.round(Arrays.stream(bytes).average().orElse(0)));
+            sizes.put("p50", bytes[bytes.length / 2]);
+            sizes.put("p95", bytes[Math.min(bytes.length - 1, (int) (bytes.length * 0.95))]);
+            sizes.put("max", bytes[bytes.length - 1]);
+            return sizes;
+        }
+
+        /**
+         * Share of sampled links per remaining-TTL bucket, in percent
+         */
+        private Map<String, Object> ttlDistribution() {
+            long[] counts = new long[TTL_BUCKETS.length + 1];
+            long total = 0;
+            for (CapacitySample.Entry entry : window) {
+                if (entry.getKind() != CapacitySample.Kind.URL) {
+                    continue;
+                }
+                total++;
+                if (entry.getTtlMillis() == CapacitySample.NO_TTL) {
+                    counts[TTL_BUCKETS.length]++;
+                    continue;
+                }
+                int bucket = 0;
+                while (bucket < TTL_BOUNDS.length && entry.getTtlMillis() >= TTL_BOUNDS[bucket]) {
+                    bucket++;
+                }
+                counts[bucket]++;
+            }
+            Map<String, Object> distribution = new LinkedHashMap<>();
+            for (int i = 0; i < TTL_BUCKETS.length; i++) {
+                distribution.put(TTL_BUCKETS[i], percent(counts[i], total));
+            }
+            distribution.put("noExpiry", percent(counts[TTL_BUCKETS.length], total));
+            return distribution;
+        }
+
+        /**
+         * Growth as the least-squares slope of the link count history, and when the
+         * memory limit is reached at that rate
+         */
+        private Map<String, Object> projection(long links, long bytesPerLink, long used, long max) {
+            Map<String, Object> projection = new LinkedHashMap<>();
+            List<long[]> points = new ArrayList<>(history);
+            projection.put("historyPoints", points.size());
+            if (points.size() < 2 || points.get(points.size() - 1)[0] == points.get(0)[0]) {
+                return projection;
+            }
+            double meanT = points.stream().mapToDouble(p -> p[0]).average().orElse(0);
+            double meanN = points.stream().mapToDouble(p -> p[1]).average().orElse(0);
+            double covariance = 0;
+            double variance = 0;
+            for (long[] point : points) {
+                covariance += (point[0] - meanT) * (point[1] - meanN);
+                variance += (point[0] - meanT) * (point[0] - meanT);
+            }
+            double linksPerDay = covariance / variance * MILLIS_PER_DAY;
+            projection.put("linksPerDay", Math.round(linksPerDay));
+            projection.put("bytesPerDay", Math.round(linksPerDay * bytesPerLink));
+            if (max > 0 && bytesPerLink > 0) {
+                long headroom = Math.max(0, max - used);
+                projection.put("linksAtLimit", links + headroom / bytesPerLink);
+                projection.put("daysUntilFull", linksPerDay > 0
+                    ? Math.round(10.0 * headroom / (linksPerDay * bytesPerLink)) / 10.0 : null);
+            }
+            return projection;
+        }
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : Math.round(1000.0 * count / total) / 10.0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.urlshortener.capacity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One sampling step of a backend: store totals plus sizes of a few entries
+ *
+ * @author URL Shortener Team
+ */
+public class CapacitySample {
+
+    /** Kinds of sampled entries */
+    public enum Kind { URL, ANALYTICS, OTHER }
+
+    /** TTL of an entry that does not expire */
+    public static final long NO_TTL = -1;
+
+    private final long totalKeys;
+    private final long linkCount;
+    private final long analyticsCount;
+    private final long usedBytes;
+    private final long maxBytes;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @param totalKeys entries of all kinds in the store
+     * @param linkCount exact number of links, or -1 to estimate it from the sampled kinds
+     * @param analyticsCount exact number of analytics entries, or -1 to estimate it
+     * @param usedBytes memory the store uses now
+     * @param maxBytes memory limit of the store, 0 if none
+     */
+    public CapacitySample(long totalKeys, long linkCount, long analyticsCount, long usedBytes, long maxBytes) {
+        this.totalKeys = totalKeys;
+        this.linkCount = linkCount;
+        this.analyticsCount = analyticsCount;
+        this.usedBytes = usedBytes;
+        this.maxBytes = maxBytes;
+    }
+
+    public CapacitySample add(Kind kind, long bytes, long ttlMillis) {
+        entries.add(new Entry(kind, bytes, ttlMillis));
+        return this;
+    }
+
+    public long getTotalKeys() {
+        return totalKeys;
+    }
+
+    public long getLinkCount() {
+        return linkCount;
+    }
+
+    public long getAnalyticsCount() {
+        return analyticsCount;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Size and remaining TTL of one sampled entry
+     */
+    public static final class Entry {
+
+        private final Kind kind;
+        private final long bytes;
+        private final long ttlMillis;
+
+        public Entry(Kind kind, long bytes, long ttlMillis) {
+            this.kind = kind;
+            this.bytes = bytes;
+            this.ttlMillis = ttlMillis;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+    }
+}
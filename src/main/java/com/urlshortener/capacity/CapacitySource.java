@@ -0,0 +1,22 @@
+package com.urlshortener.capacity;
+
+/**
+ * Backend that can report its size for capacity planning. Each call samples a few
+ * entries only, so the monitor builds its picture over many small steps.
+ *
+ * @author URL Shortener Team
+ */
+public interface CapacitySource {
+
+    /**
+     * Name the backend is reported under
+     */
+    String getCapacityName();
+
+    /**
+     * Current totals and the sizes of up to count entries
+     *
+     * @param count entries to sample
+     */
+    CapacitySample sampleCapacity(int count);
+}
@@ -0,0 +1,48 @@
+package com.urlshortener.capacity;
+
+/**
+ * Shallow heap sizes from the HotSpot object layout of a 64-bit JVM with compressed
+ * references: 12-byte object headers, 4-byte references, 8-byte alignment
+ *
+ * @author URL Shortener Team
+ */
+public final class HeapSize {
+
+    /** ConcurrentHashMap node: header, hash, key, value and next */
+    public static final long MAP_NODE = 32;
+    /** Table slot per map entry at the default load factor */
+    public static final long MAP_SLOT = 6;
+    /** UrlAnalytics: header, five references, an int and a boolean */
+    public static final long URL_ANALYTICS = 40;
+    /**
+     * In-memory analytics entry: UrlAnalytics plus a counter reference, a last-access long
+     * and a stamp reference, and its LongAdder before contention adds cells
+     */
+    public static final long COUNTING_URL_ANALYTICS = 56 + 32;
+
+    private static final long STRING = 24;
+    private static final long ARRAY_HEADER = 16;
+
+    private HeapSize() {}
+
+    /**
+     * String object plus its compact Latin-1 or UTF-16 byte array; 0 for null
+     */
+    public static long of(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long bytes = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytes = 2L * value.length();
+                break;
+            }
+        }
+        return STRING + align(ARRAY_HEADER + bytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
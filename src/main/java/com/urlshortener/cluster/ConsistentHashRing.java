@@ -0,0 +1,128 @@
+package com.urlshortener.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring with virtual nodes.
+ * Used to decide which nodes own a short code.
+ *
+ * @author URL Shortener Team
+ */
+public final class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final long[] points;
+    private final String[] pointNodes;
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        TreeMap<Long, String> ring = new TreeMap<>();
+        List<String> distinct = new ArrayList<>();
+        for (String node : nodes) {
+            if (node == null || node.isBlank() || distinct.contains(node)) {
+                continue;
+            }
+            distinct.add(node);
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+        this.nodes = Collections.unmodifiableList(distinct);
+        this.points = new long[ring.size()];
+        this.pointNodes = new String[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            points[i] = entry.getKey();
+            pointNodes[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Get the distinct nodes owning a key, primary owner first
+     *
+     * @param key the key to place
+     * @param count number of owners wanted
+     * @return up to count distinct nodes
+     */
+    public List<String> owners(String key, int count) {
+        int wanted = Math.min(count, nodes.size());
+        if (wanted <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> owners = new ArrayList<>(wanted);
+        int start = indexFor(hash(key));
+        for (int i = 0; i < points.length && owners.size() < wanted; i++) {
+            String node = pointNodes[(start + i) % points.length];
+            if (!owners.contains(node)) {
+                owners.add(node);
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Get the primary owner of a key
+     *
+     * @param key the key to place
+     * @return primary node or null if the ring is empty
+     */
+    public String primary(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        return pointNodes[indexFor(hash(key))];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    private int indexFor(long hash) {
+        int low = 0;
+        int high = points.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low == points.length ? 0 : low;
+    }
+
+    /**
+     * 64-bit FNV-1a with a murmur finalizer, stable across JVMs
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
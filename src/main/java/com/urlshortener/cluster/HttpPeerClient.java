@@ -0,0 +1,113 @@
+package com.urlshortener.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * PeerClient over plain HTTP, talking to ClusterController on the peer
+ *
+ * @author URL Shortener Team
+ */
+public class HttpPeerClient implements PeerClient {
+
+    static final String BASE_PATH = "/internal/cluster/links/";
+    static final String TOKEN_HEADER = "X-Cluster-Token";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final String token;
+
+    public HttpPeerClient(ObjectMapper objectMapper, Duration requestTimeout, String token) {
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(requestTimeout)
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+        this.objectMapper = objectMapper;
+        this.requestTimeout = requestTimeout;
+        this.token = token;
+    }
+
+    @Override
+    public String fetchUrl(String peer, String shortCode) {
+        HttpResponse<String> response = send(request(peer, shortCode).GET().build());
+        return response != null && response.statusCode() == 200 ? response.body() : null;
+    }
+
+    @Override
+    public UrlAnalytics fetchAnalytics(String peer, String shortCode) {
+        HttpResponse<String> response = send(request(peer, shortCode + "/analytics").GET().build());
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response.body(), UrlAnalytics.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replicate(String peer, UrlAnalytics analytics) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(analytics);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        HttpRequest request = request(peer, analytics.getShortCode())
+            .header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(response -> response.statusCode() / 100 == 2)
+            .exceptionally(e -> false);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deactivate(String peer, String shortCode) {
+        HttpRequest request = request(peer, shortCode + "/deactivate")
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(response -> response.statusCode() == 204)
+            .exceptionally(e -> false);
+    }
+
+    @Override
+    public void forwardClick(String peer, String shortCode) {
+        HttpRequest request = request(peer, shortCode + "/clicks")
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private HttpRequest.Builder request(String peer, String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(peer + BASE_PATH + path))
+            .timeout(requestTimeout);
+        if (token != null && !token.isEmpty()) {
+            builder.header(TOKEN_HEADER, token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
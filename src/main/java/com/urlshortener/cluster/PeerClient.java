@@ -0,0 +1,57 @@
+package com.urlshortener.cluster;
+
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport used by cluster nodes to talk to their peers
+ *
+ * @author URL Shortener Team
+ */
+public interface PeerClient {
+
+    /**
+     * Look up a short code on a peer's local partition
+     *
+     * @param peer peer base URL
+     * @param shortCode the short code
+     * @return original URL or null if the peer does not hold it
+     */
+    String fetchUrl(String peer, String shortCode);
+
+    /**
+     * Get analytics held by a peer
+     *
+     * @param peer peer base URL
+     * @param shortCode the short code
+     * @return UrlAnalytics or null if the peer does not hold it
+     */
+    UrlAnalytics fetchAnalytics(String peer, String shortCode);
+
+    /**
+     * Store a replica of a link on a peer
+     *
+     * @param peer peer base URL
+     * @param analytics link to replicate
+     * @return future completing with true once the peer acknowledged
+     */
+    CompletableFuture<Boolean> replicate(String peer, UrlAnalytics analytics);
+
+    /**
+     * Deactivate a link on a peer, which also drops its cached remote copy
+     *
+     * @param peer peer base URL
+     * @param shortCode the short code
+     * @return future completing with true if the peer held the link and deactivated it
+     */
+    CompletableFuture<Boolean> deactivate(String peer, String shortCode);
+
+    /**
+     * Forward a click to the owning peer, fire and forget
+     *
+     * @param peer peer base URL
+     * @param shortCode the short code that was clicked
+     */
+    void forwardClick(String peer, String shortCode);
+}
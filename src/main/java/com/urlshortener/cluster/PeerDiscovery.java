@@ -0,0 +1,67 @@
+package com.urlshortener.cluster;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Discovers cluster peers and keeps the hash ring up to date.
+ * Peers come from a static list and, on Kubernetes, from the A records
+ * of a headless service.
+ *
+ * @author URL Shortener Team
+ */
+public class PeerDiscovery {
+
+    private final String selfUrl;
+    private final Set<String> staticPeers;
+    private final String dnsName;
+    private final int peerPort;
+
+    private volatile ConsistentHashRing ring;
+
+    public PeerDiscovery(String selfUrl, Set<String> staticPeers, String dnsName, int peerPort) {
+        this.selfUrl = selfUrl;
+        this.staticPeers = staticPeers;
+        this.dnsName = dnsName;
+        this.peerPort = peerPort;
+        refresh();
+    }
+
+    /**
+     * Re-resolve peers, rebuilding the ring only when membership changed
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.discovery-interval-ms:10000}")
+    public void refresh() {
+        Set<String> members = new LinkedHashSet<>();
+        members.add(selfUrl);
+        members.addAll(staticPeers);
+        if (dnsName != null && !dnsName.isEmpty()) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(dnsName)) {
+                    members.add("http://" + address.getHostAddress() + ":" + peerPort);
+                }
+            } catch (UnknownHostException e) {
+                // Keep the current ring until DNS answers again
+                if (ring != null) {
+                    return;
+                }
+            }
+        }
+        ConsistentHashRing current = ring;
+        if (current == null || !new LinkedHashSet<>(current.getNodes()).equals(members)) {
+            ring = new ConsistentHashRing(members);
+        }
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+}
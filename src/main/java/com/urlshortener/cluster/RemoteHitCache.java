@@ -0,0 +1,103 @@
+package com.urlshortener.cluster;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Small bounded cache of links resolved from remote owners or Redis.
+ * Entries expire after a fixed TTL, or earlier when the link itself expires;
+ * when full, arbitrary entries are evicted.
+ *
+ * @author URL Shortener Team
+ */
+public class RemoteHitCache {
+
+    /** Expiry of a link cached without knowing when it expires */
+    public static final long UNKNOWN_EXPIRY = -1;
+    /** Expiry of a link that never expires */
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    public RemoteHitCache(int maxSize, long ttlNanos) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public String get(String shortCode) {
+        Entry entry = entries.get(shortCode);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            entries.remove(shortCode, entry);
+            return null;
+        }
+        return entry.url;
+    }
+
+    /**
+     * When the cached link expires
+     *
+     * @return epoch millis, NO_EXPIRY, or UNKNOWN_EXPIRY if not cached or cached without expiry
+     */
+    public long getExpiresAt(String shortCode) {
+        Entry entry = entries.get(shortCode);
+        if (entry == null || isExpired(entry)) {
+            return UNKNOWN_EXPIRY;
+        }
+        return entry.expiresAt;
+    }
+
+    public void put(String shortCode, String url) {
+        put(shortCode, url, UNKNOWN_EXPIRY);
+    }
+
+    /**
+     * Cache a link together with its own expiry in epoch millis
+     */
+    public void put(String shortCode, String url, long expiresAt) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            Iterator<String> it = entries.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        entries.put(shortCode, new Entry(url, System.nanoTime(), expiresAt));
+    }
+
+    public void invalidate(String shortCode) {
+        entries.remove(shortCode);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry) {
+        if (System.nanoTime() - entry.storedAt > ttlNanos) {
+            return true;
+        }
+        return entry.expiresAt != UNKNOWN_EXPIRY && entry.expiresAt != NO_EXPIRY
+            && System.currentTimeMillis() >= entry.expiresAt;
+    }
+
+    private static final class Entry {
+        final String url;
+        final long storedAt;
+        final long expiresAt;
+
+        Entry(String url, long storedAt, long expiresAt) {
+            this.url = url;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
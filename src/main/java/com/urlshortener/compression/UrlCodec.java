@@ -0,0 +1,261 @@
+package com.urlshortener.compression;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compresses stored destination URLs with the shared, versioned URL dictionary.
+ * New links are encoded with the active dictionary; every version ever activated stays
+ * registered, so links written with an older one still decode. Dictionaries are kept in
+ * Redis, and a pod that meets a version it does not know reloads them.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class UrlCodec {
+
+    private static final String DICTIONARIES_KEY = "urlcodec:dictionaries";
+    private static final String ACTIVE_KEY = "urlcodec:active";
+
+    private final ObjectProvider<RedisTemplate<String, Object>> redisTemplate;
+    private final boolean enabled;
+    private final long reloadBackoffMillis;
+
+    private volatile UrlDictionary[] dictionaries = new UrlDictionary[UrlDictionary.MAX_VERSION + 1];
+    private volatile UrlDictionary active;
+    private volatile long lastReloadAt;
+
+    private final LongAdder encodedUrls = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+
+    public UrlCodec(ObjectProvider<RedisTemplate<String, Object>> redisTemplate,
+                    @Value("${app.url-compression.enabled:false}") boolean enabled,
+                    @Value("${app.url-compression.reload-backoff-ms:5000}") long reloadBackoffMillis) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.reloadBackoffMillis = reloadBackoffMillis;
+        UrlDictionary defaults = UrlDictionary.defaults();
+        dictionaries[defaults.getVersion()] = defaults;
+        active = defaults;
+    }
+
+    /**
+     * Encode a URL for storage with the active dictionary, or keep it as is when disabled
+     */
+    public String encode(String url) {
+        if (!enabled || url == null) {
+            return url;
+        }
+        String stored = active.encode(url);
+        encodedUrls.increment();
+        rawBytes.add(utf8Length(url));
+        storedBytes.add(utf8Length(stored));
+        return stored;
+    }
+
+    /**
+     * Decode a stored URL; values stored before compression come back unchanged
+     *
+     * @throws IllegalStateException if its dictionary version is unknown even after a reload
+     */
+    public String decode(String stored) {
+        if (stored == null || !UrlDictionary.isEncoded(stored)) {
+            return stored;
+        }
+        int version = UrlDictionary.versionOf(stored);
+        UrlDictionary dictionary = version > 0 && version < dictionaries.length ? dictionaries[version] : null;
+        if (dictionary == null) {
+            reloadIfStale();
+            dictionary = version > 0 && version < dictionaries.length ? dictionaries[version] : null;
+            if (dictionary == null) {
+                throw new IllegalStateException("Unknown URL dictionary version " + version);
+            }
+        }
+        return dictionary.decode(stored);
+    }
+
+    /**
+     * Pick up dictionaries trained and activated by other pods
+     */
+    @Scheduled(fixedDelayString = "${app.url-compression.reload-interval-ms:60000}")
+    public void scheduledReload() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Load every stored dictionary version and the active one from Redis
+     *
+     * @return false if Redis could not be read
+     */
+    public synchronized boolean reload() {
+        lastReloadAt = System.currentTimeMillis();
+        RedisTemplate<String, Object> template = redisTemplate.getIfAvailable();
+        if (template == null) {
+            return false;
+        }
+        try {
+            Map<Object, Object> stored = template.opsForHash().entries(DICTIONARIES_KEY);
+            UrlDictionary[] loaded = dictionaries.clone();
+            for (Map.Entry<Object, Object> entry : stored.entrySet()) {
+                int version = Integer.parseInt(String.valueOf(entry.getKey()));
+                if (version > 0 && version < loaded.length && loaded[version] == null) {
+                    @SuppressWarnings("unchecked")
+                    List<String> entries = (List<String>) entry.getValue();
+                    loaded[version] = new UrlDictionary(version, entries);
+                }
+            }
+            dictionaries = loaded;
+            Object activeVersion = template.opsForValue().get(ACTIVE_KEY);
+            if (activeVersion != null) {
+                int version = Integer.parseInt(String.valueOf(activeVersion));
+                UrlDictionary dictionary = version > 0 && version < loaded.length ? loaded[version] : null;
+                if (dictionary != null) {
+                    active = dictionary;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // Redis unreachable, keep the dictionaries already known
+            return false;
+        }
+    }
+
+    /**
+     * Train the next dictionary version from a sample of URLs; it is not used until activated
+     */
+    public synchronized UrlDictionary train(Collection<String> sample, int maxEntries) {
+        reload();
+        int version = 1;
+        for (int v = 1; v < dictionaries.length; v++) {
+            if (dictionaries[v] != null) {
+                version = v + 1;
+            }
+        }
+        if (version > UrlDictionary.MAX_VERSION) {
+            throw new IllegalStateException("All " + UrlDictionary.MAX_VERSION + " URL dictionary versions are used");
+        }
+        return UrlDictionary.train(version, sample, maxEntries);
+    }
+
+    /**
+     * Store a dictionary in Redis and encode new links with it
+     *
+     * @throws IllegalStateException if it could not be stored, since other pods could not decode it,
+     *         or another pod stored the same version first
+     */
+    public synchronized void activate(UrlDictionary dictionary) {
+        RedisTemplate<String, Object> template = redisTemplate.getIfAvailable();
+        if (template == null) {
+            throw new IllegalStateException("No Redis to share the URL dictionary through");
+        }
+        Boolean stored = template.opsForHash().putIfAbsent(DICTIONARIES_KEY,
+            Integer.toString(dictionary.getVersion()), new ArrayList<>(dictionary.getEntries()));
+        if (!Boolean.TRUE.equals(stored)) {
+            throw new IllegalStateException("URL dictionary version " + dictionary.getVersion()
+                + " was stored by another pod, train again");
+        }
+        template.opsForValue().set(ACTIVE_KEY, dictionary.getVersion());
+        UrlDictionary[] updated = dictionaries.clone();
+        updated[dictionary.getVersion()] = dictionary;
+        dictionaries = updated;
+        active = dictionary;
+    }
+
+    /**
+     * Measure what a dictionary saves on a sample, per stored copy of each URL: UTF-8 bytes
+     * as held by Redis and Java string bytes as held by the in-memory backend
+     */
+    public static Map<String, Object> measure(UrlDictionary dictionary, Collection<String> sample) {
+        long rawUtf8 = 0;
+        long storedUtf8 = 0;
+        long rawHeap = 0;
+        long storedHeap = 0;
+        for (String url : sample) {
+            String stored = dictionary.encode(url);
+            rawUtf8 += utf8Length(url);
+            storedUtf8 += utf8Length(stored);
+            rawHeap += heapLength(url);
+            storedHeap += heapLength(stored);
+        }
+        Map<String, Object> savings = new LinkedHashMap<>();
+        savings.put("version", dictionary.getVersion());
+        savings.put("urls", sample.size());
+        savings.put("redisBytes", rawUtf8);
+        savings.put("redisCompressedBytes", storedUtf8);
+        savings.put("redisSavedPercent", percentSaved(rawUtf8, storedUtf8));
+        savings.put("heapBytes", rawHeap);
+        savings.put("heapCompressedBytes", storedHeap);
+        savings.put("heapSavedPercent", percentSaved(rawHeap, storedHeap));
+        return savings;
+    }
+
+    /**
+     * Codec state and the savings on links encoded since startup
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("activeVersion", active.getVersion());
+        stats.put("activeEntries", active.getEntries().size());
+        List<Integer> versions = new ArrayList<>();
+        for (int v = 1; v < dictionaries.length; v++) {
+            if (dictionaries[v] != null) {
+                versions.add(v);
+            }
+        }
+        stats.put("versions", versions);
+        stats.put("encodedUrls", encodedUrls.sum());
+        stats.put("rawBytes", rawBytes.sum());
+        stats.put("storedBytes", storedBytes.sum());
+        stats.put("savedPercent", percentSaved(rawBytes.sum(), storedBytes.sum()));
+        return stats;
+    }
+
+    public UrlDictionary getActive() {
+        return active;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void reloadIfStale() {
+        if (System.currentTimeMillis() - lastReloadAt >= reloadBackoffMillis) {
+            reload();
+        }
+    }
+
+    private static double percentSaved(long raw, long stored) {
+        return raw == 0 ? 0 : Math.round(1000.0 * (raw - stored) / raw) / 10.0;
+    }
+
+    private static long utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Bytes of a compact string's array: one per char in Latin-1, two otherwise
+     */
+    private static long heapLength(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return 2L * value.length();
+            }
+        }
+        return value.length();
+    }
+}
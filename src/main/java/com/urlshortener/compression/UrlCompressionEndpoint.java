@@ -0,0 +1,85 @@
+package com.urlshortener.compression;
+
+import com.urlshortener.service.UrlShortenerService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Actuator endpoint for URL compression at /actuator/urlcompression: GET reports the
+ * dictionaries and savings so far, POST trains a new dictionary from a random sample of
+ * stored links, reports its savings next to the active one and activates it if asked to
+ * and it saves more
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "urlcompression")
+public class UrlCompressionEndpoint {
+
+    private final UrlCodec urlCodec;
+    private final ObjectProvider<UrlShortenerService> urlShortenerService;
+    private final int defaultSampleSize;
+
+    public UrlCompressionEndpoint(UrlCodec urlCodec,
+                                  ObjectProvider<UrlShortenerService> urlShortenerService,
+                                  @Value("${app.url-compression.sample-size:10000}") int defaultSampleSize) {
+        this.urlCodec = urlCodec;
+        this.urlShortenerService = urlShortenerService;
+        this.defaultSampleSize = defaultSampleSize;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return urlCodec.getStats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> train(@CheckForNull Integer sampleSize, @CheckForNull Boolean activate) {
+        List<String> sample = sample(sampleSize == null ? defaultSampleSize : sampleSize);
+        UrlDictionary trained = urlCodec.train(sample, UrlDictionary.MAX_ENTRIES);
+        Map<String, Object> current = UrlCodec.measure(urlCodec.getActive(), sample);
+        Map<String, Object> candidate = UrlCodec.measure(trained, sample);
+        boolean better = (long) candidate.get("redisCompressedBytes") < (long) current.get("redisCompressedBytes");
+        boolean activated = Boolean.TRUE.equals(activate) && better;
+        if (activated) {
+            urlCodec.activate(trained);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("active", current);
+        report.put("trained", candidate);
+        report.put("activated", activated);
+        return report;
+    }
+
+    /**
+     * Reservoir sample of stored destination URLs, one pass over all links
+     */
+    private List<String> sample(int size) {
+        List<String> sample = new ArrayList<>(size);
+        long[] seen = new long[1];
+        urlShortenerService.getObject().forEachUrl((shortCode, originalUrl) -> {
+            long index = seen[0]++;
+            if (sample.size() < size) {
+                sample.add(originalUrl);
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(index + 1);
+                if (slot < size) {
+                    sample.set((int) slot, originalUrl);
+                }
+            }
+        });
+        return sample;
+    }
+}
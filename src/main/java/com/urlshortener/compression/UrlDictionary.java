@@ -0,0 +1,302 @@
+package com.urlshortener.compression;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One version of the shared URL dictionary. Encoding replaces the longest dictionary
+ * entry at each position with a single token character, so common prefixes, hosts and
+ * UTM boilerplate cost one character each.
+ * <p>
+ * Encoded form: {@code MARK}, a version character, then the body. Tokens are the
+ * characters U+0080..U+00FD; a literal character in U+0080..U+00FF is written after
+ * {@code ESCAPE}. Everything stays within Latin-1, so an encoded URL is a compact Java
+ * string, a plain JSON string and safe to pass through the Redis Lua scripts. Stored
+ * URLs always start with "http", so values without the mark are left as they are.
+ *
+ * @author URL Shortener Team
+ */
+public final class UrlDictionary {
+
+    static final char MARK = '\u00FF';
+    static final char ESCAPE = '\u00FE';
+    static final char FIRST_TOKEN = '\u0080';
+    private static final char VERSION_BASE = ' ';
+
+    /** Most entries one dictionary can hold */
+    public static final int MAX_ENTRIES = ESCAPE - FIRST_TOKEN;
+    /** Highest dictionary version; versions start at 1 */
+    public static final int MAX_VERSION = '~' - VERSION_BASE;
+
+    private static final int MIN_ENTRY_LENGTH = 4;
+    private static final int MAX_ENTRY_LENGTH = 64;
+    private static final int MAX_PIECES = 6;
+    private static final String BOUNDARIES = "/?&=.#-_";
+
+    private static final List<String> DEFAULT_ENTRIES = List.of(
+        "https://www.", "http://www.", "https://", "http://", "www.",
+        ".com/", ".org/", ".net/", ".io/", ".co.uk/", ".com", ".html", ".php", ".aspx",
+        "?utm_source=", "&utm_source=", "&utm_medium=", "?utm_medium=", "&utm_campaign=",
+        "?utm_campaign=", "&utm_content=", "&utm_term=", "utm_source", "utm_medium", "utm_campaign",
+        "newsletter", "campaign", "social", "email", "facebook", "twitter", "linkedin", "instagram",
+        "google", "youtube", "https://www.youtube.com/watch?v=", "https://youtu.be/",
+        "https://github.com/", "https://docs.google.com/", "https://www.amazon.", "https://www.google.com/",
+        "?ref=", "&ref=", "?id=", "&id=", "?page=", "&page=", "?lang=", "&lang=", "?q=", "&q=",
+        "/blog/", "/news/", "/article/", "/articles/", "/products/", "/product/", "/category/",
+        "/search?", "/index", "/en-us/", "/en/", "/docs/", "/static/", "/images/", "/watch?v=",
+        "/2024/", "/2025/", "/2026/", "/2027/");
+
+    private final int version;
+    private final List<String> entries;
+    private final byte[][] expansions;
+    private final int[][] byFirstChar;
+
+    public UrlDictionary(int version, List<String> entries) {
+        if (version < 1 || version > MAX_VERSION) {
+            throw new IllegalArgumentException("Dictionary version must be between 1 and " + MAX_VERSION);
+        }
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Dictionary holds at most " + MAX_ENTRIES + " entries");
+        }
+        this.version = version;
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.expansions = new byte[entries.size()][];
+        List<List<Integer>> candidates = new ArrayList<>(Collections.nCopies(128, null));
+        for (int i = 0; i < entries.size(); i++) {
+            String entry = entries.get(i);
+            if (entry.isEmpty() || !isAscii(entry)) {
+                throw new IllegalArgumentException("Dictionary entries must be non-empty ASCII: " + entry);
+            }
+            expansions[i] = entry.getBytes(StandardCharsets.US_ASCII);
+            int first = entry.charAt(0);
+            if (candidates.get(first) == null) {
+                candidates.set(first, new ArrayList<>());
+            }
+            candidates.get(first).add(i);
+        }
+        // Longest entry first, so encoding takes the longest match
+        this.byFirstChar = new int[128][];
+        for (int c = 0; c < 128; c++) {
+            List<Integer> list = candidates.get(c);
+            if (list != null) {
+                list.sort((a, b) -> entries.get(b).length() - entries.get(a).length());
+                byFirstChar[c] = list.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    /**
+     * Built-in dictionary of common URL parts, always present as version 1
+     */
+    public static UrlDictionary defaults() {
+        return new UrlDictionary(1, DEFAULT_ENTRIES);
+    }
+
+    /**
+     * Whether a stored value is in encoded form
+     */
+    public static boolean isEncoded(String stored) {
+        return stored.length() >= 2 && stored.charAt(0) == MARK;
+    }
+
+    /**
+     * Dictionary version an encoded value was written with
+     */
+    public static int versionOf(String stored) {
+        return stored.charAt(1) - VERSION_BASE;
+    }
+
+    /**
+     * Encode a URL with this dictionary
+     *
+     * @return the encoded form, or the URL itself when encoding would not make it shorter
+     */
+    public String encode(String url) {
+        int length = url.length();
+        StringBuilder encoded = new StringBuilder(length + 2);
+        encoded.append(MARK).append((char) (VERSION_BASE + version));
+        int i = 0;
+        next:
+        while (i < length) {
+            char c = url.charAt(i);
+            if (c < 128) {
+                int[] candidates = byFirstChar[c];
+                if (candidates != null) {
+                    for (int index : candidates) {
+                        if (url.startsWith(entries.get(index), i)) {
+                            encoded.append((char) (FIRST_TOKEN + index));
+                            i += expansions[index].length;
+                            continue next;
+                        }
+                    }
+                }
+            } else if (c >= FIRST_TOKEN && c <= MARK) {
+                encoded.append(ESCAPE);
+            }
+            encoded.append(c);
+            i++;
+        }
+        if (encoded.length() >= length && (length == 0 || url.charAt(0) != MARK)) {
+            return url;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Decode a value encoded with this dictionary: one pass to size the result,
+     * one to fill a Latin-1 buffer that becomes the string, nothing else allocated
+     */
+    public String decode(String stored) {
+        int length = stored.length();
+        int size = 0;
+        boolean latin1 = true;
+        for (int i = 2; i < length; i++) {
+            char c = stored.charAt(i);
+            if (c >= FIRST_TOKEN && c < ESCAPE) {
+                size += expansion(c).length;
+            } else {
+                if (c == ESCAPE && i + 1 < length) {
+                    c = stored.charAt(++i);
+                }
+                latin1 &= c <= 0xFF;
+                size++;
+            }
+        }
+        if (!latin1) {
+            return decodeWide(stored, size);
+        }
+        byte[] url = new byte[size];
+        int at = 0;
+        for (int i = 2; i < length; i++) {
+            char c = stored.charAt(i);
+            if (c >= FIRST_TOKEN && c < ESCAPE) {
+                byte[] expansion = expansions[c - FIRST_TOKEN];
+                System.arraycopy(expansion, 0, url, at, expansion.length);
+                at += expansion.length;
+            } else {
+                if (c == ESCAPE && i + 1 < length) {
+                    c = stored.charAt(++i);
+                }
+                url[at++] = (byte) c;
+            }
+        }
+        return new String(url, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decode a URL holding characters beyond Latin-1
+     */
+    private String decodeWide(String stored, int size) {
+        StringBuilder url = new StringBuilder(size);
+        for (int i = 2; i < stored.length(); i++) {
+            char c = stored.charAt(i);
+            if (c >= FIRST_TOKEN && c < ESCAPE) {
+                url.append(entries.get(c - FIRST_TOKEN));
+            } else {
+                if (c == ESCAPE && i + 1 < stored.length()) {
+                    c = stored.charAt(++i);
+                }
+                url.append(c);
+            }
+        }
+        return url.toString();
+    }
+
+    /**
+     * Build a dictionary from a sample of URLs. Candidates are runs of up to six
+     * pieces split after URL delimiters; they are ranked by the characters they would
+     * save over the sample, skipping pieces that mostly occur inside a longer entry.
+     */
+    public static UrlDictionary train(int version, Collection<String> sample, int maxEntries) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String url : sample) {
+            List<String> pieces = split(url);
+            for (int start = 0; start < pieces.size(); start++) {
+                StringBuilder candidate = new StringBuilder();
+                for (int n = start; n < pieces.size() && n - start < MAX_PIECES; n++) {
+                    candidate.append(pieces.get(n));
+                    if (candidate.length() > MAX_ENTRY_LENGTH) {
+                        break;
+                    }
+                    if (candidate.length() >= MIN_ENTRY_LENGTH && isAscii(candidate)) {
+                        counts.merge(candidate.toString(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            if (count.getValue() >= 2) {
+                ranked.add(count);
+            }
+        }
+        ranked.sort((a, b) -> Long.compare(score(b), score(a)));
+        List<String> selected = new ArrayList<>();
+        List<Integer> selectedCounts = new ArrayList<>();
+        int limit = Math.min(maxEntries, MAX_ENTRIES);
+        for (Map.Entry<String, Integer> candidate : ranked) {
+            if (selected.size() == limit) {
+                break;
+            }
+            boolean covered = false;
+            for (int i = 0; i < selected.size() && !covered; i++) {
+                covered = selected.get(i).contains(candidate.getKey())
+                    && candidate.getValue() < selectedCounts.get(i) * 3 / 2;
+            }
+            if (!covered) {
+                selected.add(candidate.getKey());
+                selectedCounts.add(candidate.getValue());
+            }
+        }
+        return new UrlDictionary(version, selected);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<String> getEntries() {
+        return entries;
+    }
+
+    private byte[] expansion(char token) {
+        int index = token - FIRST_TOKEN;
+        if (index >= expansions.length) {
+            throw new IllegalStateException("Token " + index + " is not in URL dictionary version " + version);
+        }
+        return expansions[index];
+    }
+
+    private static long score(Map.Entry<String, Integer> candidate) {
+        return (long) (candidate.getKey().length() - 1) * candidate.getValue();
+    }
+
+    private static List<String> split(String url) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < url.length(); i++) {
+            if (BOUNDARIES.indexOf(url.charAt(i)) >= 0) {
+                pieces.add(url.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < url.length()) {
+            pieces.add(url.substring(start));
+        }
+        return pieces;
+    }
+
+    private static boolean isAscii(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
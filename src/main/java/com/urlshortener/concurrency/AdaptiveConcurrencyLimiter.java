@@ -0,0 +1,172 @@
+package com.urlshortener.concurrency;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient-style adaptive concurrency limit shared by the limited traffic classes.
+ * Each update interval compares the interval's mean latency with a slow moving
+ * average of it: while latency stays near its long-term level the limit grows by
+ * about its square root, and as queueing pushes latency up the limit shrinks by up
+ * to half. Classes get a share of the limit, so lower-priority traffic is shed
+ * while the higher-priority classes still have room.
+ *
+ * @author URL Shortener Team
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final Map<TrafficClass, Double> shares;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final int longWindow;
+    private final long updateIntervalNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder rttCount = new LongAdder();
+    private final AtomicLong nextUpdate;
+    private final Map<TrafficClass, Counter> rejections = new EnumMap<>(TrafficClass.class);
+
+    private volatile double limit;
+    private volatile double longRtt;
+    private volatile double shortRtt;
+
+    /**
+     * @param shares share of the limit each limited class may fill; other classes are not limited
+     * @param rttTolerance latency growth over the long-term average tolerated before the limit shrinks
+     * @param longWindow update intervals averaged into the long-term latency
+     */
+    public AdaptiveConcurrencyLimiter(Map<TrafficClass, Double> shares, int initialLimit, int minLimit,
+                                      int maxLimit, double smoothing, double rttTolerance, int longWindow,
+                                      long updateIntervalMillis, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        this.shares = new EnumMap<>(shares);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.longWindow = longWindow;
+        this.updateIntervalNanos = TimeUnit.MILLISECONDS.toNanos(updateIntervalMillis);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.nextUpdate = new AtomicLong(System.nanoTime() + updateIntervalNanos);
+        for (TrafficClass trafficClass : this.shares.keySet()) {
+            rejections.put(trafficClass, meterRegistry.counter("concurrency.rejected",
+                "class", trafficClass.name().toLowerCase(Locale.ROOT)));
+        }
+        meterRegistry.gauge("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("concurrency.inflight", inFlight);
+        meterRegistry.gauge("concurrency.rtt.short.ms", this, limiter -> limiter.shortRtt / 1e6);
+        meterRegistry.gauge("concurrency.rtt.long.ms", this, limiter -> limiter.longRtt / 1e6);
+    }
+
+    /**
+     * Whether requests of the class count against the limit
+     */
+    public boolean isLimited(TrafficClass trafficClass) {
+        return shares.containsKey(trafficClass);
+    }
+
+    /**
+     * Admit a request if its class has room under the current limit
+     *
+     * @return false if it must be shed; otherwise the caller must call release
+     */
+    public boolean tryAcquire(TrafficClass trafficClass) {
+        Double share = shares.get(trafficClass);
+        if (share == null) {
+            return true;
+        }
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejections.get(trafficClass).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > maxInFlight.get()) {
+                    maxInFlight.accumulateAndGet(current + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Complete an admitted request and feed its latency into the limit
+     *
+     * @param rttNanos time the request took
+     */
+    public void release(long rttNanos) {
+        release(rttNanos, System.nanoTime());
+    }
+
+    void release(long rttNanos, long now) {
+        inFlight.decrementAndGet();
+        rttSum.add(rttNanos);
+        rttCount.increment();
+        long next = nextUpdate.get();
+        if (now >= next && nextUpdate.compareAndSet(next, now + updateIntervalNanos)) {
+            update();
+        }
+    }
+
+    /**
+     * Fold the latencies seen since the last update into a new limit
+     */
+    synchronized void update() {
+        long count = rttCount.sumThenReset();
+        long sum = rttSum.sumThenReset();
+        int peak = maxInFlight.getAndSet(inFlight.get());
+        if (count == 0) {
+            return;
+        }
+        double sample = (double) sum / count;
+        shortRtt = sample;
+        double average = longRtt == 0 ? sample : longRtt + (sample - longRtt) / longWindow;
+        if (average > 2 * sample) {
+            // Latency fell well below its average, e.g. after an outage; forget the slow past faster
+            average = Math.max(sample, average * 0.95);
+        }
+        longRtt = average;
+        double current = limit;
+        if (peak < current / 2) {
+            // Not enough load to tell whether a higher limit would queue
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * average / sample));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Requests of the class shed so far
+     */
+    public long getRejections(TrafficClass trafficClass) {
+        Counter counter = rejections.get(trafficClass);
+        return counter == null ? 0 : (long) counter.count();
+    }
+}
@@ -0,0 +1,50 @@
+package com.urlshortener.concurrency;
+
+import com.urlshortener.util.TrafficClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds redirects, creates and analytics requests beyond the adaptive concurrency
+ * limit with 503 and Retry-After, before they take a worker thread into the
+ * controller and Redis. Admin and page traffic is never shed.
+ *
+ * @author URL Shortener Team
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, long retryAfterSeconds) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfterSeconds));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        TrafficClass trafficClass = TrafficClass.classify(request);
+        if (!limiter.isLimited(trafficClass)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquire(trafficClass)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", retryAfterSeconds);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.urlshortener.config;
+
+import com.urlshortener.accesslog.AccessLog;
+import com.urlshortener.accesslog.AccessLogFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Access and audit log of every request, written off the request threads
+ * into rolling memory-mapped files
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+    /** Runs right inside the tracing filter, so requests rejected by any later filter are logged too */
+    public static final int FILTER_ORDER = TracingConfig.FILTER_ORDER + 1;
+
+    @Value("${app.access-log.directory:logs/access}")
+    private String directory;
+
+    @Value("${app.access-log.buffer-size:16384}")
+    private int bufferSize;
+
+    @Value("${app.access-log.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${app.access-log.max-files:20}")
+    private int maxFiles;
+
+    @Value("${app.access-log.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Bean(destroyMethod = "close")
+    public AccessLog accessLog(MeterRegistry meterRegistry) throws IOException {
+        AccessLog accessLog = new AccessLog(Paths.get(directory), bufferSize, segmentSizeMb * 1024 * 1024, maxFiles,
+            flushIntervalMs, meterRegistry);
+        accessLog.start();
+        System.out.println("✅ Access log writing to " + Paths.get(directory).toAbsolutePath());
+        return accessLog;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLog accessLog) {
+        FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(new AccessLogFilter(accessLog));
+        registration.setOrder(FILTER_ORDER);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
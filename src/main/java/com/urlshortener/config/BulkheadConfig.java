@@ -0,0 +1,101 @@
+package com.urlshortener.config;
+
+import com.urlshortener.bulkhead.Bulkhead;
+import com.urlshortener.bulkhead.BulkheadFilter;
+import com.urlshortener.bulkhead.Bulkheads;
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Bulkheads for the redirect, create, analytics and admin traffic classes: each
+ * gets its own cap on worker threads, its own queue and its own Redis pool
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+
+    /** Runs after the rate limiter, and ahead of the adaptive limit so queued requests hold none of it */
+    public static final int FILTER_ORDER = RateLimitConfig.FILTER_ORDER + 5;
+
+    @Value("${app.bulkhead.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${app.bulkhead.redirect.max-concurrent:160}")
+    private int redirectMaxConcurrent;
+
+    @Value("${app.bulkhead.redirect.max-queue:40}")
+    private int redirectMaxQueue;
+
+    @Value("${app.bulkhead.redirect.max-wait-ms:50}")
+    private long redirectMaxWaitMs;
+
+    @Value("${app.bulkhead.redirect.redis-connections:32}")
+    private int redirectRedisConnections;
+
+    @Value("${app.bulkhead.create.max-concurrent:40}")
+    private int createMaxConcurrent;
+
+    @Value("${app.bulkhead.create.max-queue:20}")
+    private int createMaxQueue;
+
+    @Value("${app.bulkhead.create.max-wait-ms:200}")
+    private long createMaxWaitMs;
+
+    @Value("${app.bulkhead.create.redis-connections:8}")
+    private int createRedisConnections;
+
+    @Value("${app.bulkhead.analytics.max-concurrent:10}")
+    private int analyticsMaxConcurrent;
+
+    @Value("${app.bulkhead.analytics.max-queue:5}")
+    private int analyticsMaxQueue;
+
+    @Value("${app.bulkhead.analytics.max-wait-ms:1000}")
+    private long analyticsMaxWaitMs;
+
+    @Value("${app.bulkhead.analytics.redis-connections:4}")
+    private int analyticsRedisConnections;
+
+    @Value("${app.bulkhead.admin.max-concurrent:10}")
+    private int adminMaxConcurrent;
+
+    @Value("${app.bulkhead.admin.max-queue:10}")
+    private int adminMaxQueue;
+
+    @Value("${app.bulkhead.admin.max-wait-ms:500}")
+    private long adminMaxWaitMs;
+
+    @Value("${app.bulkhead.admin.redis-connections:2}")
+    private int adminRedisConnections;
+
+    @Bean
+    public Bulkheads bulkheads(MeterRegistry meterRegistry) {
+        return new Bulkheads(List.of(
+            new Bulkhead(TrafficClass.REDIRECT, redirectMaxConcurrent, redirectMaxQueue, redirectMaxWaitMs,
+                redirectRedisConnections, meterRegistry),
+            new Bulkhead(TrafficClass.CREATE, createMaxConcurrent, createMaxQueue, createMaxWaitMs,
+                createRedisConnections, meterRegistry),
+            new Bulkhead(TrafficClass.ANALYTICS, analyticsMaxConcurrent, analyticsMaxQueue, analyticsMaxWaitMs,
+                analyticsRedisConnections, meterRegistry),
+            new Bulkhead(TrafficClass.ADMIN, adminMaxConcurrent, adminMaxQueue, adminMaxWaitMs,
+                adminRedisConnections, meterRegistry)), meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(Bulkheads bulkheads) {
+        FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(
+            new BulkheadFilter(bulkheads, retryAfterSeconds));
+        registration.setOrder(FILTER_ORDER);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -0,0 +1,108 @@
+package com.urlshortener.config;
+
+import com.urlshortener.events.ClickAggregator;
+import com.urlshortener.events.ClickCounterStore;
+import com.urlshortener.events.ClickEventPublisher;
+import com.urlshortener.events.ClickEventStream;
+import com.urlshortener.events.ClickStreamMonitor;
+import com.urlshortener.events.LocalClickEventStream;
+import com.urlshortener.events.RedisClickEventStream;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.RedisLinkService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Configuration for the click event stream and its aggregator.
+ * Redirect pods publish clicks; pods with the aggregator enabled fold them into counters.
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.events.enabled", havingValue = "true")
+public class ClickEventConfig {
+
+    @Value("${app.events.store:redis}")
+    private String store;
+
+    @Value("${app.events.stream-key:clicks:stream}")
+    private String streamKey;
+
+    @Value("${app.events.group:aggregators}")
+    private String group;
+
+    @Value("${app.events.max-length:1000000}")
+    private long maxLength;
+
+    @Value("${app.events.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${app.events.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.events.aggregator.consumer:}")
+    private String consumer;
+
+    @Value("${app.events.aggregator.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Value("${app.events.aggregator.claim-idle-ms:30000}")
+    private long claimIdleMs;
+
+    @Bean
+    public ClickEventStream clickEventStream(RedisTemplate<String, Object> redisTemplate) {
+        if ("local".equals(store)) {
+            System.out.println("✅ Click events use the local in-memory log");
+            return new LocalClickEventStream(bufferSize * 16);
+        }
+        System.out.println("✅ Click events use Redis stream " + streamKey + ", group " + group);
+        return new RedisClickEventStream(redisTemplate, streamKey, group, maxLength);
+    }
+
+    @Bean
+    public ClickEventPublisher clickEventPublisher(ClickEventStream clickEventStream, MeterRegistry meterRegistry) {
+        return new ClickEventPublisher(clickEventStream, bufferSize, batchSize, meterRegistry);
+    }
+
+    @Bean
+    public ClickStreamMonitor clickStreamMonitor(ClickEventStream clickEventStream,
+                                                 ClickEventPublisher clickEventPublisher,
+                                                 MeterRegistry meterRegistry) {
+        return new ClickStreamMonitor(clickEventStream, clickEventPublisher, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.events.aggregator.enabled", havingValue = "true", matchIfMissing = true)
+    public ClickAggregator clickAggregator(ClickEventStream clickEventStream,
+                                           ObjectProvider<RedisLinkService> redisUrlShortenerService,
+                                           InMemoryUrlShortenerService inMemoryUrlShortenerService,
+                                           MeterRegistry meterRegistry) {
+        ClickCounterStore counterStore = "local".equals(store)
+            ? inMemoryUrlShortenerService
+            : redisUrlShortenerService.getObject();
+        String name = consumer == null || consumer.isEmpty() ? localHostName() : consumer;
+        return new ClickAggregator(clickEventStream, counterStore, name, batchSize, maxBatchesPerPoll,
+            claimIdleMs, meterRegistry);
+    }
+
+    /**
+     * Consumer name that survives restarts on the same host, so a restarted worker
+     * picks up its own pending entries instead of leaving them to be claimed
+     */
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "aggregator-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+}
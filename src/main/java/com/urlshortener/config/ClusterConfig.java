@@ -0,0 +1,94 @@
+package com.urlshortener.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.cluster.HttpPeerClient;
+import com.urlshortener.cluster.PeerClient;
+import com.urlshortener.cluster.PeerDiscovery;
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.service.ClusteredUrlShortenerService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Configuration for the peer-to-peer cluster mode used when Redis is not available
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Value("${app.cluster.self-url:http://localhost:8080}")
+    private String selfUrl;
+
+    @Value("${app.cluster.peers:}")
+    private String peers;
+
+    @Value("${app.cluster.dns-name:}")
+    private String dnsName;
+
+    @Value("${app.cluster.peer-port:8080}")
+    private int peerPort;
+
+    @Value("${app.cluster.replication-factor:2}")
+    private int replicationFactor;
+
+    @Value("${app.cluster.request-timeout-ms:500}")
+    private long requestTimeoutMs;
+
+    @Value("${app.cluster.remote-cache-size:10000}")
+    private int remoteCacheSize;
+
+    @Value("${app.cluster.remote-cache-ttl-seconds:60}")
+    private long remoteCacheTtlSeconds;
+
+    @Value("${app.cluster.token:}")
+    private String token;
+
+    /**
+     * Peers accept links and clicks from anyone holding the token, so the cluster mode
+     * does not start without one
+     */
+    @PostConstruct
+    public void requireToken() {
+        if (token == null || token.isBlank()) {
+            throw new IllegalStateException("app.cluster.token (CLUSTER_TOKEN) must be set when the cluster mode "
+                + "is enabled");
+        }
+    }
+
+    @Bean
+    public PeerDiscovery peerDiscovery() {
+        Set<String> staticPeers = Arrays.stream(peers.split(","))
+            .map(String::trim)
+            .filter(peer -> !peer.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new PeerDiscovery(selfUrl, staticPeers, dnsName, peerPort);
+    }
+
+    @Bean
+    public PeerClient peerClient(ObjectMapper objectMapper) {
+        return new HttpPeerClient(objectMapper, Duration.ofMillis(requestTimeoutMs), token);
+    }
+
+    @Bean
+    public ClusteredUrlShortenerService clusteredUrlShortenerService(InMemoryUrlShortenerService inMemoryUrlShortenerService,
+                                                                     PeerDiscovery peerDiscovery,
+                                                                     PeerClient peerClient) {
+        RemoteHitCache remoteHitCache = new RemoteHitCache(remoteCacheSize,
+            TimeUnit.SECONDS.toNanos(remoteCacheTtlSeconds));
+        return new ClusteredUrlShortenerService(inMemoryUrlShortenerService, peerDiscovery, peerClient,
+            remoteHitCache, replicationFactor, requestTimeoutMs);
+    }
+}
@@ -0,0 +1,78 @@
+package com.urlshortener.config;
+
+import com.urlshortener.concurrency.AdaptiveConcurrencyLimiter;
+import com.urlshortener.concurrency.ConcurrencyLimitFilter;
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Adaptive concurrency limiting for the redirect, shorten and analytics endpoints.
+ * Redirects may fill the whole limit; creates and analytics only their share of it.
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    /** Runs after the rate limiter, so clients over their rate do not take up the limit */
+    public static final int FILTER_ORDER = RateLimitConfig.FILTER_ORDER + 10;
+
+    @Value("${app.concurrency-limit.initial-limit:100}")
+    private int initialLimit;
+
+    @Value("${app.concurrency-limit.min-limit:20}")
+    private int minLimit;
+
+    @Value("${app.concurrency-limit.max-limit:800}")
+    private int maxLimit;
+
+    @Value("${app.concurrency-limit.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${app.concurrency-limit.rtt-tolerance:1.5}")
+    private double rttTolerance;
+
+    @Value("${app.concurrency-limit.long-window:600}")
+    private int longWindow;
+
+    @Value("${app.concurrency-limit.update-interval-ms:100}")
+    private long updateIntervalMs;
+
+    @Value("${app.concurrency-limit.create-share:0.7}")
+    private double createShare;
+
+    @Value("${app.concurrency-limit.analytics-share:0.5}")
+    private double analyticsShare;
+
+    @Value("${app.concurrency-limit.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        Map<TrafficClass, Double> shares = new EnumMap<>(TrafficClass.class);
+        shares.put(TrafficClass.REDIRECT, 1.0);
+        shares.put(TrafficClass.CREATE, createShare);
+        shares.put(TrafficClass.ANALYTICS, analyticsShare);
+        return new AdaptiveConcurrencyLimiter(shares, initialLimit, minLimit, maxLimit, smoothing, rttTolerance,
+            longWindow, updateIntervalMs, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+            new ConcurrencyLimitFilter(adaptiveConcurrencyLimiter, retryAfterSeconds));
+        registration.setOrder(FILTER_ORDER);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -0,0 +1,71 @@
+package com.urlshortener.config;
+
+import com.urlshortener.failover.CircuitBreaker;
+import com.urlshortener.failover.WriteJournal;
+import com.urlshortener.service.FailoverUrlShortenerService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.RedisLinkService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the runtime failover between Redis and the in-memory store
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.failover.enabled", havingValue = "true", matchIfMissing = true)
+public class FailoverConfig {
+
+    @Value("${app.failover.window-size:100}")
+    private int failoverWindowSize;
+
+    @Value("${app.failover.minimum-calls:20}")
+    private int failoverMinimumCalls;
+
+    @Value("${app.failover.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${app.failover.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+
+    @Value("${app.failover.slow-call-ms:250}")
+    private long slowCallMs;
+
+    @Value("${app.failover.consecutive-failures:5}")
+    private int consecutiveFailures;
+
+    @Value("${app.failover.max-probe-ms:100}")
+    private long maxProbeMs;
+
+    @Value("${app.failover.recovery-probes:3}")
+    private int recoveryProbes;
+
+    @Value("${app.failover.journal-size:100000}")
+    private int journalSize;
+
+    @Value("${app.failover.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    /**
+     * Router between Redis and the in-memory store. A bean of its own, so its health
+     * probe is scheduled; lazy, so nothing probes Redis unless the service chain
+     * actually routes through it.
+     */
+    @Bean
+    @Lazy
+    public FailoverUrlShortenerService failoverUrlShortenerService(RedisLinkService redisUrlShortenerService,
+                                                                   InMemoryUrlShortenerService inMemoryUrlShortenerService) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(failoverWindowSize, failoverMinimumCalls,
+            failureRateThreshold, slowCallRateThreshold, TimeUnit.MILLISECONDS.toNanos(slowCallMs),
+            consecutiveFailures);
+        return new FailoverUrlShortenerService(redisUrlShortenerService, inMemoryUrlShortenerService,
+            circuitBreaker, new WriteJournal(journalSize), TimeUnit.MILLISECONDS.toNanos(maxProbeMs),
+            recoveryProbes, replayBatchSize);
+    }
+}
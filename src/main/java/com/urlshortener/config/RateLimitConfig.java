@@ -0,0 +1,85 @@
+package com.urlshortener.config;
+
+import com.urlshortener.ratelimit.RateLimitFilter;
+import com.urlshortener.ratelimit.RedisSlidingWindowRateLimiter;
+import com.urlshortener.ratelimit.StripedTokenBucket;
+import com.urlshortener.ratelimit.TokenBucketTable;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Rate limiting configuration for the shorten and redirect endpoints
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    /** Runs ahead of the Spring Security filter chain */
+    public static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    @Value("${app.rate-limit.table-size:1048576}")
+    private int tableSize;
+
+    @Value("${app.rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Value("${app.rate-limit.redirect.per-client-rate:50}")
+    private double redirectClientRate;
+
+    @Value("${app.rate-limit.redirect.per-client-burst:100}")
+    private int redirectClientBurst;
+
+    @Value("${app.rate-limit.redirect.global-rate:20000}")
+    private double redirectGlobalRate;
+
+    @Value("${app.rate-limit.redirect.global-burst:40000}")
+    private int redirectGlobalBurst;
+
+    @Value("${app.rate-limit.shorten.per-client-rate:1}")
+    private double shortenClientRate;
+
+    @Value("${app.rate-limit.shorten.per-client-burst:20}")
+    private int shortenClientBurst;
+
+    @Value("${app.rate-limit.shorten.global-rate:500}")
+    private double shortenGlobalRate;
+
+    @Value("${app.rate-limit.shorten.global-burst:1000}")
+    private int shortenGlobalBurst;
+
+    @Value("${app.rate-limit.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.rate-limit.redis.shorten-limit:100}")
+    private long redisShortenLimit;
+
+    @Value("${app.rate-limit.redis.window-ms:60000}")
+    private long redisWindowMs;
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RedisTemplate<String, Object> redisTemplate,
+                                                                   MeterRegistry meterRegistry) {
+        RedisSlidingWindowRateLimiter shortenCluster = redisEnabled
+            ? new RedisSlidingWindowRateLimiter(redisTemplate, "shorten", redisShortenLimit, redisWindowMs)
+            : null;
+        RateLimitFilter filter = new RateLimitFilter(
+            new TokenBucketTable(tableSize, redirectClientRate, redirectClientBurst),
+            new StripedTokenBucket(redirectGlobalRate, redirectGlobalBurst),
+            new TokenBucketTable(tableSize / 4, shortenClientRate, shortenClientBurst),
+            new StripedTokenBucket(shortenGlobalRate, shortenGlobalBurst),
+            shortenCluster, trustForwardedFor, meterRegistry);
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(FILTER_ORDER);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -1,22 +1,49 @@
 package com.urlshortener.config;
 
+import com.urlshortener.bulkhead.Bulkhead;
+import com.urlshortener.bulkhead.BulkheadJedisConnectionFactory;
+import com.urlshortener.bulkhead.BulkheadRedisConnectionFactory;
+import com.urlshortener.bulkhead.Bulkheads;
+import com.urlshortener.service.RedisLinkService;
+import com.urlshortener.service.RedisUrlShortenerService;
+import com.urlshortener.service.ShardedRedisUrlShortenerService;
+import com.urlshortener.tracing.Tracer;
+import com.urlshortener.tracing.TracingRedisConnectionFactory;
+import com.urlshortener.util.ShortCodeGenerator;
+import com.urlshortener.util.TrafficClass;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Redis configuration for URL Shortener
+ * Redis configuration for URL Shortener.
+ * Connection factories for shards and bulkhead pools are built here rather than
+ * declared as beans, so they are closed here when the context shuts down.
  * 
  * @author URL Shortener Team
  */
 @Configuration
-public class RedisConfig {
+public class RedisConfig implements DisposableBean {
 
     @Value("${spring.redis.host:localhost}")
     private String redisHost;
@@ -30,11 +57,68 @@ public class RedisConfig {
     @Value("${spring.redis.timeout:2000}")
     private int redisTimeout;
 
+    @Value("${app.redis.shards:}")
+    private String shards;
+
+    @Value("${app.redis.previous-shards:}")
+    private String previousShards;
+
+    @Value("${app.redis.shard-parallelism:8}")
+    private int shardParallelism;
+
+    @Autowired(required = false)
+    private Tracer tracer;
+
+    @Autowired(required = false)
+    private Bulkheads bulkheads;
+
+    private final List<JedisConnectionFactory> ownedFactories = new CopyOnWriteArrayList<>();
+
     @Bean
     public JedisConnectionFactory jedisConnectionFactory() {
+        return connectionFactory(redisHost, redisPort);
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+        return template(isolate(connectionFactory, redisHost, redisPort));
+    }
+
+    /**
+     * Redis-backed service: the single Redis node, or links sharded over the nodes
+     * listed in app.redis.shards (host:port, comma-separated)
+     */
+    @Bean
+    public RedisLinkService redisUrlShortenerService(RedisTemplate<String, Object> redisTemplate,
+                                                     ShortCodeGenerator shortCodeGenerator) {
+        List<String> nodes = parseNodes(shards);
+        if (nodes.isEmpty()) {
+            return new RedisUrlShortenerService(redisTemplate, shortCodeGenerator);
+        }
+        List<String> previousNodes = parseNodes(previousShards);
+        Set<String> allNodes = new LinkedHashSet<>(nodes);
+        allNodes.addAll(previousNodes);
+        Map<String, RedisTemplate<String, Object>> templates = new LinkedHashMap<>();
+        for (String node : allNodes) {
+            int colon = node.lastIndexOf(':');
+            String host = colon < 0 ? node : node.substring(0, colon);
+            int port = colon < 0 ? 6379 : Integer.parseInt(node.substring(colon + 1));
+            JedisConnectionFactory factory = connectionFactory(host, port);
+            factory.afterPropertiesSet();
+            factory.start();
+            ownedFactories.add(factory);
+            templates.put(node, template(isolate(factory, host, port)));
+        }
+        System.out.println("✅ Sharding links across " + nodes.size() + " Redis nodes"
+            + (previousNodes.isEmpty() ? "" : ", migrating from " + previousNodes.size()));
+        return ShardedRedisUrlShortenerService.create(templates, nodes, previousNodes, shortCodeGenerator,
+            shardParallelism);
+    }
+
+    private JedisConnectionFactory connectionFactory(String host, int port) {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redisHost);
-        config.setPort(redisPort);
+        config.setHostName(host);
+        config.setPort(port);
         config.setDatabase(redisDatabase);
         
         JedisConnectionFactory factory = new JedisConnectionFactory(config);
@@ -42,10 +126,61 @@ public class RedisConfig {
         return factory;
     }
 
-    @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    /**
+     * Give each bulkheaded traffic class its own pool of connections to the node;
+     * the shared factory serves everything else
+     */
+    private RedisConnectionFactory isolate(RedisConnectionFactory shared, String host, int port) {
+        if (bulkheads == null) {
+            return shared;
+        }
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
+        config.setHostName(host);
+        config.setPort(port);
+        config.setDatabase(redisDatabase);
+
+        Map<TrafficClass, RedisConnectionFactory> pools = new EnumMap<>(TrafficClass.class);
+        for (Bulkhead bulkhead : bulkheads.all()) {
+            JedisPoolConfig poolConfig = new JedisPoolConfig();
+            poolConfig.setMaxTotal(bulkhead.getRedisConnections());
+            poolConfig.setMaxIdle(bulkhead.getRedisConnections());
+            poolConfig.setMinIdle(0);
+            poolConfig.setMaxWait(Duration.ofMillis(redisTimeout));
+            BulkheadJedisConnectionFactory factory = new BulkheadJedisConnectionFactory(config,
+                JedisClientConfiguration.builder()
+                    .connectTimeout(Duration.ofMillis(redisTimeout))
+                    .readTimeout(Duration.ofMillis(redisTimeout))
+                    .usePooling().poolConfig(poolConfig)
+                    .build());
+            factory.afterPropertiesSet();
+            factory.start();
+            ownedFactories.add(factory);
+            bulkheads.monitorPool(bulkhead.getTrafficClass(), host + ":" + port, factory);
+            pools.put(bulkhead.getTrafficClass(), factory);
+        }
+        return new BulkheadRedisConnectionFactory(pools, shared);
+    }
+
+    /**
+     * Close the shard and bulkhead pools, newest first; the beans using them are gone by now
+     */
+    @Override
+    public void destroy() {
+        for (int i = ownedFactories.size() - 1; i >= 0; i--) {
+            try {
+                ownedFactories.get(i).destroy();
+            } catch (RuntimeException e) {
+                System.out.println("❌ Failed to close a Redis connection pool: " + e.getMessage());
+            }
+        }
+        ownedFactories.clear();
+    }
+
+    private RedisTemplate<String, Object> template(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
+        // Record a span per Redis command of traced requests
+        template.setConnectionFactory(tracer != null && tracer.isEnabled()
+            ? new TracingRedisConnectionFactory(connectionFactory, tracer) : connectionFactory);
         
         // Use String serializer for keys
         template.setKeySerializer(new StringRedisSerializer());
@@ -58,4 +193,14 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    private static List<String> parseNodes(String value) {
+        List<String> nodes = new ArrayList<>();
+        for (String node : value.split(",")) {
+            if (!node.isBlank() && !nodes.contains(node.trim())) {
+                nodes.add(node.trim());
+            }
+        }
+        return nodes;
+    }
 }
@@ -1,7 +1,10 @@
 package com.urlshortener.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -19,6 +22,10 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(authz -> authz
+                // Probes and metrics scraping stay public
+                .requestMatchers(EndpointRequest.to("health", "info", "prometheus")).permitAll()
+                // Other actuator endpoints start imports, migrations and exports: admin only
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
                 // Allow public access to web pages
                 .requestMatchers("/", "/about", "/analytics", "/info/**").permitAll()
                 // Allow public access to shorten URLs
@@ -33,14 +40,26 @@ public class SecurityConfig {
                 .requestMatchers("/api/urls/**").permitAll()
                 // Allow public access to static resources
                 .requestMatchers("/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
-                // Allow public access to actuator endpoints
-                .requestMatchers("/actuator/**").permitAll()
+                // Cluster peer traffic goes pod to pod; anything that came through
+                // the ingress or another proxy is refused
+                .requestMatchers(SecurityConfig::isProxiedInternalRequest).denyAll()
+                // Peer calls, guarded by the shared cluster token
+                .requestMatchers("/internal/cluster/**").permitAll()
                 // All other requests need authentication
                 .anyRequest().authenticated()
             )
+            .httpBasic(Customizer.withDefaults()) // Admin calls to actuator endpoints
             .csrf(csrf -> csrf.disable()) // Disable CSRF for API endpoints
             .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable())); // Allow iframe for embedding
         
         return http.build();
     }
+
+    /**
+     * Whether a request for an internal path carries the headers a proxy adds
+     */
+    static boolean isProxiedInternalRequest(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/internal/")
+            && (request.getHeader("X-Forwarded-For") != null || request.getHeader("Forwarded") != null);
+    }
 }
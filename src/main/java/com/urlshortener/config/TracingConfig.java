@@ -0,0 +1,114 @@
+package com.urlshortener.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.tracing.FileTraceSink;
+import com.urlshortener.tracing.InMemoryTraceSink;
+import com.urlshortener.tracing.TraceSink;
+import com.urlshortener.tracing.Tracer;
+import com.urlshortener.tracing.TracingFilter;
+import com.urlshortener.tracing.TracingHandlerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Paths;
+
+/**
+ * Request tracing configuration: the tracer and its sink, the filters that open the
+ * request and dispatch spans, and the controller interceptor. Service and Redis spans
+ * are wired by UrlShortenerConfig and RedisConfig when tracing is enabled.
+ *
+ * @author URL Shortener Team
+ */
+@Configuration
+public class TracingConfig {
+
+    /** Runs ahead of every other filter, so the root span covers them all */
+    public static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    @Value("${app.tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.tracing.head-sample-rate:0.01}")
+    private double headSampleRate;
+
+    @Value("${app.tracing.tail-latency-ms:250}")
+    private long tailLatencyMs;
+
+    @Value("${app.tracing.tail-on-error:true}")
+    private boolean tailOnError;
+
+    @Value("${app.tracing.max-spans:64}")
+    private int maxSpans;
+
+    @Value("${app.tracing.queue-size:1024}")
+    private int queueSize;
+
+    @Value("${app.tracing.sink:memory}")
+    private String sink;
+
+    @Value("${app.tracing.memory.capacity:200}")
+    private int memoryCapacity;
+
+    @Value("${app.tracing.file.path:traces.jsonl}")
+    private String filePath;
+
+    /**
+     * Tracer exporting to a TraceSink bean if one is declared, otherwise to the
+     * sink named by app.tracing.sink: memory or file
+     */
+    @Bean
+    public Tracer tracer(ObjectProvider<TraceSink> traceSinks, ObjectProvider<ObjectMapper> objectMapper,
+                         MeterRegistry meterRegistry) {
+        TraceSink traceSink = traceSinks.getIfAvailable(() -> "file".equals(sink)
+            ? new FileTraceSink(Paths.get(filePath), objectMapper.getIfAvailable(ObjectMapper::new))
+            : new InMemoryTraceSink(memoryCapacity));
+        if (enabled) {
+            System.out.println("✅ Tracing requests: head sample rate " + headSampleRate + ", tail latency "
+                + tailLatencyMs + " ms, sink " + traceSink.getClass().getSimpleName());
+        }
+        return new Tracer(traceSink, meterRegistry, enabled, headSampleRate, tailLatencyMs, tailOnError,
+            maxSpans, queueSize);
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.setOrder(FILTER_ORDER);
+        registration.addUrlPatterns("/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * Runs right after the Spring Security filter chain
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter.DispatchFilter> tracingDispatchFilter(Tracer tracer) {
+        FilterRegistrationBean<TracingFilter.DispatchFilter> registration =
+            new FilterRegistrationBean<>(new TracingFilter.DispatchFilter(tracer));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.addUrlPatterns("/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Bean
+    public WebMvcConfigurer tracingInterceptorConfigurer(Tracer tracer) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                if (tracer.isEnabled()) {
+                    registry.addInterceptor(new TracingHandlerInterceptor(tracer));
+                }
+            }
+        };
+    }
+}
@@ -1,14 +1,36 @@
 package com.urlshortener.config;
 
+import com.urlshortener.analytics.ClickDimensionStore;
+import com.urlshortener.analytics.DashboardFeed;
+import com.urlshortener.bots.BotClassifier;
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.edge.EdgeMapExporter;
+import com.urlshortener.events.ClickEventPublisher;
+import com.urlshortener.service.BotFilteringUrlShortenerService;
+import com.urlshortener.service.ClusteredUrlShortenerService;
+import com.urlshortener.service.DashboardFeedUrlShortenerService;
+import com.urlshortener.service.DimensionTrackingUrlShortenerService;
+import com.urlshortener.service.EdgeMapEvictingUrlShortenerService;
+import com.urlshortener.service.FailoverUrlShortenerService;
 import com.urlshortener.service.InMemoryUrlShortenerService;
-import com.urlshortener.service.RedisUrlShortenerService;
+import com.urlshortener.service.NearCachingUrlShortenerService;
+import com.urlshortener.service.RedisLinkService;
+import com.urlshortener.service.StorageUrlShortenerService;
+import com.urlshortener.service.StreamingUrlShortenerService;
+import com.urlshortener.service.TracingUrlShortenerService;
 import com.urlshortener.service.UrlShortenerService;
+import com.urlshortener.storage.StorageBackend;
+import com.urlshortener.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Configuration for URL Shortener Service selection
  * 
@@ -18,32 +40,140 @@ import org.springframework.context.annotation.Primary;
 public class UrlShortenerConfig {
 
     @Autowired(required = false)
-    private RedisUrlShortenerService redisUrlShortenerService;
+    private RedisLinkService redisUrlShortenerService;
 
     @Autowired
     private InMemoryUrlShortenerService inMemoryUrlShortenerService;
 
+    @Autowired(required = false)
+    private ClusteredUrlShortenerService clusteredUrlShortenerService;
+
+    @Autowired
+    private ObjectProvider<FailoverUrlShortenerService> failoverUrlShortenerService;
+
+    @Autowired(required = false)
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private ClickDimensionStore clickDimensionStore;
+
+    @Autowired(required = false)
+    private ClickEventPublisher clickEventPublisher;
+
+    @Autowired
+    private DashboardFeed dashboardFeed;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired(required = false)
+    private BotClassifier botClassifier;
+
+    @Autowired(required = false)
+    private EdgeMapExporter edgeMapExporter;
+
+    @Value("${app.bot-filter.max-tracked-links:100000}")
+    private int botFilterMaxTrackedLinks;
+
+    @Value("${app.analytics.dimensions.enabled:true}")
+    private boolean dimensionsEnabled;
+
+    @Value("${app.near-cache.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    @Value("${app.near-cache.size:100000}")
+    private int nearCacheSize;
+
+    @Value("${app.near-cache.ttl-seconds:120}")
+    private long nearCacheTtlSeconds;
+
     /**
      * Primary URL Shortener Service
-     * Uses Redis if available, otherwise falls back to In-Memory
+     * Uses a custom storage backend if one is declared, then Redis if available,
+     * otherwise falls back to the peer cluster
+     * when enabled, or to a single-node In-Memory store.
+     * Clicks go through the event stream when enabled, and click dimensions
+     * are recorded in front of whichever store is chosen. The live dashboard
+     * feed sees every create and click on the way out. Clicks from bots and
+     * prefetches are served without being counted as any of these. Deactivated
+     * links leave the edge redirect map at once, and traced requests get a span
+     * around each service call.
      */
     @Bean
     @Primary
     public UrlShortenerService urlShortenerService() {
+        UrlShortenerService backend = backendUrlShortenerService();
+        if (nearCacheEnabled && isRemote(backend)) {
+            backend = new NearCachingUrlShortenerService(backend, linkNearCache());
+        }
+        if (clickEventPublisher != null) {
+            backend = new StreamingUrlShortenerService(backend, clickEventPublisher);
+        }
+        if (dimensionsEnabled) {
+            backend = new DimensionTrackingUrlShortenerService(backend, clickDimensionStore);
+        }
+        backend = new DashboardFeedUrlShortenerService(backend, dashboardFeed);
+        if (botClassifier != null) {
+            backend = new BotFilteringUrlShortenerService(backend, botFilterMaxTrackedLinks);
+        }
+        if (edgeMapExporter != null) {
+            backend = new EdgeMapEvictingUrlShortenerService(backend, edgeMapExporter);
+        }
+        return tracer.isEnabled() ? new TracingUrlShortenerService(backend, tracer) : backend;
+    }
+
+    /**
+     * Local cache of links resolved from Redis or a remote storage backend, filled at startup by the link warm-up
+     */
+    @Bean
+    public RemoteHitCache linkNearCache() {
+        return new RemoteHitCache(nearCacheEnabled ? nearCacheSize : 0,
+            TimeUnit.SECONDS.toNanos(nearCacheTtlSeconds));
+    }
+
+    private static boolean isRemote(UrlShortenerService backend) {
+        if (backend instanceof StorageUrlShortenerService) {
+            return ((StorageUrlShortenerService) backend).getBackend().isRemote();
+        }
+        return backend instanceof FailoverUrlShortenerService || backend instanceof RedisLinkService;
+    }
+
+    private UrlShortenerService backendUrlShortenerService() {
+        if (storageBackend != null) {
+            System.out.println("✅ Using storage backend " + storageBackend.getName());
+            return new StorageUrlShortenerService(storageBackend);
+        }
+        // Route between Redis and In-Memory at runtime
+        FailoverUrlShortenerService failover =
+            redisUrlShortenerService == null ? null : failoverUrlShortenerService.getIfAvailable();
+        if (failover != null) {
+            failover.probe();
+            System.out.println("✅ Using FailoverUrlShortenerService, Redis circuit "
+                + failover.getCircuitBreaker().getState());
+            return failover;
+        }
         // Try Redis first, fallback to In-Memory
         if (redisUrlShortenerService != null) {
             try {
                 // Test Redis connection
                 redisUrlShortenerService.getOriginalUrl("test");
-                System.out.println("✅ Using RedisUrlShortenerService");
+                System.out.println("✅ Using " + redisUrlShortenerService.getClass().getSimpleName());
                 return redisUrlShortenerService;
             } catch (Exception e) {
                 // Redis not available, use In-Memory
-                System.out.println("❌ Redis failed, using InMemoryUrlShortenerService: " + e.getMessage());
+                System.out.println("❌ Redis failed, using local fallback: " + e.getMessage());
                 e.printStackTrace();
-                return inMemoryUrlShortenerService;
+                return localUrlShortenerService();
             }
         }
+        return localUrlShortenerService();
+    }
+
+    private UrlShortenerService localUrlShortenerService() {
+        if (clusteredUrlShortenerService != null) {
+            System.out.println("✅ Using ClusteredUrlShortenerService");
+            return clusteredUrlShortenerService;
+        }
         return inMemoryUrlShortenerService;
     }
 }
@@ -1,15 +1,28 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.analytics.ClickDimension;
+import com.urlshortener.analytics.ClickDimensionStore;
+import com.urlshortener.analytics.DashboardFeed;
 import com.urlshortener.dto.AnalyticsSummary;
 import com.urlshortener.dto.UrlAnalytics;
 import com.urlshortener.service.UrlShortenerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for Analytics functionality
@@ -22,6 +35,12 @@ public class AnalyticsController {
     @Autowired
     private UrlShortenerService urlShortenerService;
 
+    @Autowired
+    private ClickDimensionStore clickDimensionStore;
+
+    @Autowired
+    private DashboardFeed dashboardFeed;
+
     /**
      * Analytics Dashboard
      */
@@ -42,6 +61,39 @@ public class AnalyticsController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Live dashboard updates as server-sent events: a snapshot, then deltas
+     */
+    @GetMapping(value = "/api/analytics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> streamAnalytics() {
+        try {
+            return ResponseEntity.ok(dashboardFeed.subscribe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Top links by clicks, creation or last access, optionally only those created
+     * or accessed at or after an ISO date-time such as 2024-01-31T00:00
+     */
+    @GetMapping("/api/analytics/urls")
+    @ResponseBody
+    public ResponseEntity<List<UrlAnalytics>> queryUrls(@RequestParam(defaultValue = "clicks") String sort,
+                                                        @RequestParam(defaultValue = "10") int limit,
+                                                        @RequestParam(required = false) String createdAfter,
+                                                        @RequestParam(required = false) String accessedAfter) {
+        try {
+            AnalyticsQuery query = new AnalyticsQuery(AnalyticsQuery.Order.fromParameter(sort), limit,
+                createdAfter == null ? null : LocalDateTime.parse(createdAfter),
+                accessedAfter == null ? null : LocalDateTime.parse(accessedAfter));
+            return ResponseEntity.ok(urlShortenerService.queryUrls(query));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Get analytics for specific URL
      */
@@ -55,6 +107,23 @@ public class AnalyticsController {
         return ResponseEntity.ok(analytics);
     }
 
+    /**
+     * Break down recent clicks of a URL by referrer, country, ua or device
+     */
+    @GetMapping("/api/analytics/{shortCode}/clicks")
+    @ResponseBody
+    public ResponseEntity<Map<String, Long>> getClickBreakdown(@PathVariable String shortCode,
+                                                               @RequestParam(defaultValue = "referrer") String by,
+                                                               @RequestParam(defaultValue = "24") int hours,
+                                                               @RequestParam(defaultValue = "50") int limit) {
+        try {
+            ClickDimension dimension = ClickDimension.fromParameter(by);
+            return ResponseEntity.ok(clickDimensionStore.groupBy(shortCode, dimension, hours, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Track click for analytics
      */
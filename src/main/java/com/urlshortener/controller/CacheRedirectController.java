@@ -1,6 +1,10 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.bots.BotClassifier;
+import com.urlshortener.dto.ClickContext;
 import com.urlshortener.service.UrlShortenerService;
+import com.urlshortener.util.ClickContextExtractor;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,24 +21,29 @@ public class CacheRedirectController {
     @Autowired
     private UrlShortenerService urlShortenerService;
 
+    @Autowired(required = false)
+    private BotClassifier botClassifier;
+
     /**
      * Redirect short URL to original URL
      * Returns HTTP 302 (Temporary Redirect) with Location header
      * 
      * @param shortCode The short code from the URL
+     * @param request The redirect request, source of the click context
      * @return Redirect response to original URL
      */
     @GetMapping("/{shortCode}")
-    public ResponseEntity<Void> redirectToOriginalUrl(@PathVariable String shortCode) {
+    public ResponseEntity<Void> redirectToOriginalUrl(@PathVariable String shortCode,
+                                                      HttpServletRequest request) {
         
         try {
-            // Get original URL from cache
-            String originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+            // Get original URL from cache and track the click for analytics
+            ClickContext context = botClassifier != null
+                ? ClickContextExtractor.extract(request, botClassifier.classify(request))
+                : ClickContextExtractor.extract(request);
+            String originalUrl = urlShortenerService.redirect(shortCode, context);
             
             if (originalUrl != null) {
-                // Track click for analytics
-                urlShortenerService.trackClick(shortCode);
-                
                 // Return HTTP 302 redirect with Location header
                 return ResponseEntity.status(HttpStatus.FOUND)
                         .header("Location", originalUrl)
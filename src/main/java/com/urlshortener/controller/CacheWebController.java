@@ -1,8 +1,10 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.accesslog.AccessLogFilter;
 import com.urlshortener.dto.ShortenUrlRequest;
 import com.urlshortener.dto.ShortenUrlResponse;
 import com.urlshortener.service.UrlShortenerService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -41,11 +43,13 @@ public class CacheWebController {
      */
     @PostMapping("/shorten")
     public String shortenUrl(@ModelAttribute ShortenUrlRequest request, 
-                           RedirectAttributes redirectAttributes) {
-        System.out.println("🔍 DEBUG: shortenUrl method called with URL: " + request.getUrl());
+                           RedirectAttributes redirectAttributes,
+                           HttpServletRequest httpRequest) {
+        // Recorded by the access log as the audit trail of creates
+        httpRequest.setAttribute(AccessLogFilter.DESTINATION_ATTRIBUTE, request.getUrl());
         try {
             ShortenUrlResponse response = urlShortenerService.shortenUrl(request);
-            System.out.println("🔍 DEBUG: URL shortened successfully: " + response.getShortUrl());
+            httpRequest.setAttribute(AccessLogFilter.SHORT_CODE_ATTRIBUTE, response.getShortCode());
             // addFlashAttribute for get result from /
             redirectAttributes.addFlashAttribute("successMessage", "URL shortened successfully!");
             redirectAttributes.addFlashAttribute("shortUrl", response);
@@ -0,0 +1,126 @@
+package com.urlshortener.controller;
+
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.service.ClusteredUrlShortenerService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Internal endpoints used by cluster peers to reach this node's partition.
+ * Every call must carry the shared cluster token; ClusterConfig refuses to start
+ * the cluster mode without one.
+ *
+ * @author URL Shortener Team
+ */
+@RestController
+@RequestMapping("/internal/cluster/links")
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterController {
+
+    private final InMemoryUrlShortenerService localStore;
+    private final ClusteredUrlShortenerService clusteredService;
+
+    @Value("${app.cluster.token:}")
+    private String token;
+
+    public ClusterController(InMemoryUrlShortenerService localStore, ClusteredUrlShortenerService clusteredService) {
+        this.localStore = localStore;
+        this.clusteredService = clusteredService;
+    }
+
+    /**
+     * Look up a short code in the local partition
+     */
+    @GetMapping("/{shortCode}")
+    public ResponseEntity<String> getUrl(@PathVariable String shortCode,
+                                         @RequestHeader(value = "X-Cluster-Token", required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String originalUrl = localStore.getOriginalUrl(shortCode);
+        if (originalUrl == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(originalUrl);
+    }
+
+    /**
+     * Get analytics held by the local partition
+     */
+    @GetMapping("/{shortCode}/analytics")
+    public ResponseEntity<UrlAnalytics> getAnalytics(@PathVariable String shortCode,
+                                                     @RequestHeader(value = "X-Cluster-Token", required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        UrlAnalytics analytics = localStore.getUrlAnalytics(shortCode);
+        if (analytics == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(analytics);
+    }
+
+    /**
+     * Store a replica sent by the creating peer. Invalid or blocked destinations are
+     * rejected, and a code that already holds another destination is left alone.
+     */
+    @PutMapping("/{shortCode}")
+    public ResponseEntity<Void> storeReplica(@PathVariable String shortCode,
+                                             @RequestBody UrlAnalytics analytics,
+                                             @RequestHeader(value = "X-Cluster-Token", required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!shortCode.equals(analytics.getShortCode()) || analytics.getOriginalUrl() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (!localStore.storeReplica(analytics)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Count a click forwarded by the peer that served the redirect
+     */
+    @PostMapping("/{shortCode}/clicks")
+    public ResponseEntity<Void> trackClick(@PathVariable String shortCode,
+                                           @RequestHeader(value = "X-Cluster-Token", required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        localStore.trackClick(shortCode);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Deactivate a link deactivated on another peer, dropping any cached copy here
+     */
+    @PostMapping("/{shortCode}/deactivate")
+    public ResponseEntity<Void> deactivate(@PathVariable String shortCode,
+                                           @RequestHeader(value = "X-Cluster-Token", required = false) String requestToken) {
+        if (!authorized(requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return clusteredService.deactivateLocal(shortCode)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    private boolean authorized(String requestToken) {
+        return token != null && !token.isEmpty() && requestToken != null
+            && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                requestToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package com.urlshortener.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.service.UrlShortenerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Controller for resolving many short codes in one request
+ *
+ * @author URL Shortener Team
+ */
+@RestController
+public class ResolveController {
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.resolve.max-codes:5000}")
+    private int maxCodes;
+
+    @Value("${app.resolve.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Resolve a JSON array of short codes to their destinations without tracking clicks.
+     * Codes are resolved a chunk at a time and each chunk is written out before the next
+     * is fetched, so the response is never buffered whole.
+     *
+     * @param shortCodes Short codes; duplicates are answered once
+     * @return JSON array with one entry per distinct short code, in request order
+     */
+    @PostMapping(value = "/api/urls/resolve", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> resolveUrls(@RequestBody List<String> shortCodes) {
+        if (shortCodes == null || shortCodes.isEmpty() || shortCodes.size() > maxCodes) {
+            return ResponseEntity.badRequest().build();
+        }
+        Set<String> distinct = new LinkedHashSet<>(shortCodes);
+        distinct.remove(null);
+        List<String> codes = new ArrayList<>(distinct);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (int from = 0; from < codes.size(); from += chunkSize) {
+                    List<String> chunk = codes.subList(from, Math.min(codes.size(), from + chunkSize));
+                    for (ResolvedLink link : urlShortenerService.resolveUrls(chunk)) {
+                        generator.writeObject(link);
+                    }
+                    generator.flush();
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,91 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.bots.ClickSource;
+
+/**
+ * DTO for the request context of a click
+ *
+ * @author URL Shortener Team
+ */
+public class ClickContext {
+
+    private long timestamp;
+    private String referrer;
+    private String userAgentFamily;
+    private String country;
+    private String device;
+    private ClickSource source = ClickSource.HUMAN;
+
+    // Constructors
+    public ClickContext() {}
+
+    public ClickContext(long timestamp, String referrer, String userAgentFamily,
+                        String country, String device) {
+        this.timestamp = timestamp;
+        this.referrer = referrer;
+        this.userAgentFamily = userAgentFamily;
+        this.country = country;
+        this.device = device;
+    }
+
+    // Getters and Setters
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getReferrer() {
+        return referrer;
+    }
+
+    public void setReferrer(String referrer) {
+        this.referrer = referrer;
+    }
+
+    public String getUserAgentFamily() {
+        return userAgentFamily;
+    }
+
+    public void setUserAgentFamily(String userAgentFamily) {
+        this.userAgentFamily = userAgentFamily;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public String getDevice() {
+        return device;
+    }
+
+    public void setDevice(String device) {
+        this.device = device;
+    }
+
+    public ClickSource getSource() {
+        return source;
+    }
+
+    public void setSource(ClickSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public String toString() {
+        return "ClickContext{" +
+                "timestamp=" + timestamp +
+                ", referrer='" + referrer + '\'' +
+                ", userAgentFamily='" + userAgentFamily + '\'' +
+                ", country='" + country + '\'' +
+                ", device='" + device + '\'' +
+                ", source=" + source +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package com.urlshortener.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the live analytics dashboard feed. A snapshot carries the full view;
+ * a delta carries absolute totals, links created and click increments per short code
+ * since the previous tick, and the top URLs only when they changed.
+ * 
+ * @author URL Shortener Team
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardDelta {
+
+    private long sequence;
+    private long totalUrls;
+    private long totalClicks;
+    private long todayUrls;
+    private long todayClicks;
+    private List<UrlAnalytics> newUrls;
+    private Map<String, Long> clicks;
+    private List<UrlAnalytics> topUrls;
+    private List<UrlAnalytics> recentUrls;
+    private String lastUpdated;
+
+    // Constructors
+    public DashboardDelta() {}
+
+    // Getters and Setters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getTotalUrls() {
+        return totalUrls;
+    }
+
+    public void setTotalUrls(long totalUrls) {
+        this.totalUrls = totalUrls;
+    }
+
+    public long getTotalClicks() {
+        return totalClicks;
+    }
+
+    public void setTotalClicks(long totalClicks) {
+        this.totalClicks = totalClicks;
+    }
+
+    public long getTodayUrls() {
+        return todayUrls;
+    }
+
+    public void setTodayUrls(long todayUrls) {
+        this.todayUrls = todayUrls;
+    }
+
+    public long getTodayClicks() {
+        return todayClicks;
+    }
+
+    public void setTodayClicks(long todayClicks) {
+        this.todayClicks = todayClicks;
+    }
+
+    public List<UrlAnalytics> getNewUrls() {
+        return newUrls;
+    }
+
+    public void setNewUrls(List<UrlAnalytics> newUrls) {
+        this.newUrls = newUrls;
+    }
+
+    public Map<String, Long> getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(Map<String, Long> clicks) {
+        this.clicks = clicks;
+    }
+
+    /**
+     * Only set when the top URLs changed since the previous tick
+     */
+    public List<UrlAnalytics> getTopUrls() {
+        return topUrls;
+    }
+
+    public void setTopUrls(List<UrlAnalytics> topUrls) {
+        this.topUrls = topUrls;
+    }
+
+    /**
+     * Only set in snapshots
+     */
+    public List<UrlAnalytics> getRecentUrls() {
+        return recentUrls;
+    }
+
+    public void setRecentUrls(List<UrlAnalytics> recentUrls) {
+        this.recentUrls = recentUrls;
+    }
+
+    public String getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(String lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * DTO for one short code of a batch resolve: its destination, whether it
+ * still redirects and when it expires. Unknown short codes are not found.
+ *
+ * @author URL Shortener Team
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResolvedLink {
+
+    private String shortCode;
+    private boolean found;
+    private boolean active;
+    private String originalUrl;
+    private Instant expiresAt;
+
+    // Constructors
+    public ResolvedLink() {}
+
+    public ResolvedLink(String shortCode, boolean found, boolean active,
+                        String originalUrl, Instant expiresAt) {
+        this.shortCode = shortCode;
+        this.found = found;
+        this.active = active;
+        this.originalUrl = originalUrl;
+        this.expiresAt = expiresAt;
+    }
+
+    // Static factory methods
+    public static ResolvedLink active(String shortCode, String originalUrl, Instant expiresAt) {
+        return new ResolvedLink(shortCode, true, true, originalUrl, expiresAt);
+    }
+
+    public static ResolvedLink inactive(String shortCode) {
+        return new ResolvedLink(shortCode, true, false, null, null);
+    }
+
+    public static ResolvedLink notFound(String shortCode) {
+        return new ResolvedLink(shortCode, false, false, null, null);
+    }
+
+    // Getters and Setters
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public void setShortCode(String shortCode) {
+        this.shortCode = shortCode;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public void setOriginalUrl(String originalUrl) {
+        this.originalUrl = originalUrl;
+    }
+
+    /**
+     * Null if the link never expires or the backend does not track expiry
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,5 +1,7 @@
 package com.urlshortener.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.io.Serializable;
 
 /**
@@ -18,6 +20,9 @@ public class UrlAnalytics implements Serializable {
     private int clickCount;
     private String lastAccessedAt;
     private boolean isActive;
+    // Redirects served to bots and prefetches on this pod, never stored, so left out while zero
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long botClickCount;
     
     // Constructors
     public UrlAnalytics() {}
@@ -83,6 +88,14 @@ public class UrlAnalytics implements Serializable {
         this.lastAccessedAt = lastAccessedAt;
     }
     
+    public long getBotClickCount() {
+        return botClickCount;
+    }
+    
+    public void setBotClickCount(long botClickCount) {
+        this.botClickCount = botClickCount;
+    }
+    
     public boolean isActive() {
         return isActive;
     }
@@ -101,6 +114,7 @@ public class UrlAnalytics implements Serializable {
                 ", clickCount=" + clickCount +
                 ", lastAccessedAt=" + lastAccessedAt +
                 ", isActive=" + isActive +
+                ", botClickCount=" + botClickCount +
                 '}';
     }
 }
@@ -0,0 +1,151 @@
+package com.urlshortener.edge;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One version of the edge redirect map: short codes the ingress answers itself,
+ * hottest first, rendered as an nginx map block and as a ConfigMap holding it
+ *
+ * @author URL Shortener Team
+ */
+public final class EdgeMap {
+
+    /** File name of the map, also its key in the ConfigMap */
+    public static final String MAP_FILE = "edge-map.conf";
+
+    static final String VERSION_PREFIX = "# version ";
+    static final String VERSION_ANNOTATION = "url-shortener/edge-map-version";
+    static final String GENERATED_AT_ANNOTATION = "url-shortener/edge-map-generated-at";
+
+    private final long version;
+    private final Instant generatedAt;
+    private final Map<String, Entry> entries;
+    private final double clickShare;
+
+    EdgeMap(long version, Instant generatedAt, LinkedHashMap<String, Entry> entries, double clickShare) {
+        this.version = version;
+        this.generatedAt = generatedAt;
+        this.entries = Collections.unmodifiableMap(entries);
+        this.clickShare = clickShare;
+    }
+
+    /**
+     * Whether both maps send the same codes to the same destinations
+     */
+    boolean sameRedirects(Map<String, Entry> other) {
+        if (entries.size() != other.size()) {
+            return false;
+        }
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry candidate = other.get(entry.getKey());
+            if (candidate == null || !candidate.originalUrl.equals(entry.getValue().originalUrl)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The map as an nginx map block for the http context, setting the variable to
+     * the destination of a mapped path and to "" for any other
+     */
+    public String toNginx(String variable) {
+        StringBuilder out = new StringBuilder(128 + entries.size() * 96);
+        out.append(VERSION_PREFIX).append(version).append('\n');
+        out.append("# Generated ").append(generatedAt).append(": ").append(entries.size()).append(" links carrying ")
+            .append(String.format(Locale.ROOT, "%.1f", clickShare * 100))
+            .append("% of the clicks the application recorded (an estimate: edge redirects are not counted)\n");
+        out.append("map $uri $").append(variable).append(" {\n");
+        out.append("    default \"\";\n");
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry link = entry.getValue();
+            out.append("    /").append(entry.getKey()).append(" \"").append(link.originalUrl).append("\";");
+            out.append(" # ").append(link.clicks).append(" clicks");
+            if (link.expiresAt != null) {
+                out.append(", expires ").append(link.expiresAt);
+            }
+            out.append('\n');
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * A ConfigMap manifest holding the map under {@link #MAP_FILE}, versioned by annotation
+     */
+    public String toConfigMap(String name, String namespace, String variable) {
+        StringBuilder out = new StringBuilder(256 + entries.size() * 100);
+        out.append("apiVersion: v1\n");
+        out.append("kind: ConfigMap\n");
+        out.append("metadata:\n");
+        out.append("  name: ").append(name).append('\n');
+        out.append("  namespace: ").append(namespace).append('\n');
+        out.append("  labels:\n");
+        out.append("    app: url-shortener\n");
+        out.append("    component: edge-map\n");
+        out.append("  annotations:\n");
+        out.append("    ").append(VERSION_ANNOTATION).append(": \"").append(version).append("\"\n");
+        out.append("    ").append(GENERATED_AT_ANNOTATION).append(": \"").append(generatedAt).append("\"\n");
+        out.append("data:\n");
+        out.append("  ").append(MAP_FILE).append(": |\n");
+        for (String line : toNginx(variable).split("\n")) {
+            out.append("    ").append(line).append('\n');
+        }
+        return out.toString();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public Map<String, Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Share of the clicks the application recorded that went to the mapped links;
+     * an estimate, since redirects answered at the edge are not counted
+     */
+    public double getClickShare() {
+        return clickShare;
+    }
+
+    /**
+     * A mapped link
+     */
+    public static final class Entry {
+
+        private final String originalUrl;
+        private final long clicks;
+        private final Instant expiresAt;
+
+        Entry(String originalUrl, long clicks, Instant expiresAt) {
+            this.originalUrl = originalUrl;
+            this.clicks = clicks;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getOriginalUrl() {
+            return originalUrl;
+        }
+
+        public long getClicks() {
+            return clicks;
+        }
+
+        /**
+         * When the link expires in the backend, or null if it never does
+         */
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
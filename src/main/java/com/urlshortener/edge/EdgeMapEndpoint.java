@@ -0,0 +1,39 @@
+package com.urlshortener.edge;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the edge redirect map at /actuator/edgemap: GET shows the
+ * version and its coverage of redirect traffic, POST exports a new version now
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "edgemap")
+@ConditionalOnProperty(name = "app.edge-map.enabled", havingValue = "true")
+public class EdgeMapEndpoint {
+
+    private final EdgeMapExporter edgeMapExporter;
+
+    public EdgeMapEndpoint(EdgeMapExporter edgeMapExporter) {
+        this.edgeMapExporter = edgeMapExporter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return edgeMapExporter.getStatus();
+    }
+
+    @WriteOperation
+    public Map<String, Object> export() throws IOException {
+        edgeMapExporter.export();
+        return edgeMapExporter.getStatus();
+    }
+}
@@ -0,0 +1,442 @@
+package com.urlshortener.edge;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.compression.UrlCodec;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.expiry.SlidingExpiration;
+import com.urlshortener.service.UrlShortenerService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the hottest links as a redirect map the nginx ingress answers itself,
+ * so their redirects never reach the JVM. Each run ranks links by clicks, resolves
+ * the top ones in one batch and keeps those that are active, not blocked and not
+ * expiring within min-remaining-ttl-seconds: a link is evicted from the map while
+ * it still exists, so the edge never serves a link the backend has dropped. A new
+ * version is written only when a code or destination changes, so the ingress is
+ * not reloaded for click counts alone. Destinations nginx would interpolate or
+ * misparse are left to the application.
+ *
+ * <p>With an {@link EdgeMapPublisher} only the replica holding its lease exports, and
+ * each version is handed to the ingress as it is written; the others stand by and
+ * take over when the lease runs out. Without one, the map is only written to files
+ * for a manual apply, which suits a single instance.
+ *
+ * <p>Between runs the map is kept from going stale: a link deactivated on the
+ * exporting instance, blocked links included, is dropped at once, and every check
+ * resolves the mapped links again, so a link deactivated on another replica starts
+ * an early run. So does a change of the blocklist or the active URL dictionary.
+ *
+ * <p>Redirects served at the edge are not counted by the application, so click
+ * counts and coverage are estimates: mapped links keep the counts they had when they
+ * entered the map and fall out of it as other links overtake them. Nor do they slide
+ * their expiry, so each run touches the mapped links for sliding expiration as if
+ * they had been clicked.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@ConditionalOnProperty(name = "app.edge-map.enabled", havingValue = "true")
+public class EdgeMapExporter {
+
+    /** File name of the ConfigMap manifest */
+    public static final String CONFIG_MAP_FILE = "edge-map-configmap.yaml";
+
+    private final ObjectProvider<UrlShortenerService> urlShortenerService;
+    private final ObjectProvider<BlocklistService> blocklistService;
+    private final ObjectProvider<UrlCodec> urlCodec;
+    private final ObjectProvider<SlidingExpiration> slidingExpiration;
+    private final ObjectProvider<EdgeMapPublisher> edgeMapPublisher;
+    private final Path directory;
+    private final int size;
+    private final int minClicks;
+    private final long minRemainingTtlMillis;
+    private final String configMapName;
+    private final String namespace;
+    private final String variable;
+
+    private volatile EdgeMap current;
+    private volatile long version;
+    private volatile long exports;
+    private volatile long lastExportAt;
+    private volatile long lastExportMillis;
+    private volatile long mappedClicks;
+    private volatile long totalClicks;
+    private volatile int added;
+    private volatile int removed;
+    private volatile Map<String, Integer> skipped = Map.of();
+    private volatile long evictions;
+    private volatile long exportedBlocklistGeneration;
+    private volatile int exportedDictionaryVersion;
+    private volatile String error;
+    private volatile boolean leaseHeld;
+
+    public EdgeMapExporter(ObjectProvider<UrlShortenerService> urlShortenerService,
+                           ObjectProvider<BlocklistService> blocklistService,
+                           ObjectProvider<UrlCodec> urlCodec,
+                           ObjectProvider<SlidingExpiration> slidingExpiration,
+                           ObjectProvider<EdgeMapPublisher> edgeMapPublisher,
+                           @Value("${app.edge-map.directory:edge-map}") String directory,
+                           @Value("${app.edge-map.size:1000}") int size,
+                           @Value("${app.edge-map.min-clicks:10}") int minClicks,
+                           @Value("${app.edge-map.min-remaining-ttl-seconds:3600}") long minRemainingTtlSeconds,
+                           @Value("${app.edge-map.config-map-name:url-shortener-edge-map}") String configMapName,
+                           @Value("${app.edge-map.namespace:ingress-nginx}") String namespace,
+                           @Value("${app.edge-map.variable:url_shortener_edge_target}") String variable) {
+        this.urlShortenerService = urlShortenerService;
+        this.blocklistService = blocklistService;
+        this.urlCodec = urlCodec;
+        this.slidingExpiration = slidingExpiration;
+        this.edgeMapPublisher = edgeMapPublisher;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.size = Math.max(1, Math.min(AnalyticsQuery.MAX_LIMIT, size));
+        this.minClicks = minClicks;
+        this.minRemainingTtlMillis = minRemainingTtlSeconds * 1000;
+        this.configMapName = configMapName;
+        this.namespace = namespace;
+        this.variable = variable;
+        this.version = readVersion(this.directory.resolve(EdgeMap.MAP_FILE));
+    }
+
+    /**
+     * Export on schedule if this instance exports; failures are reported and retried
+     * on the next run
+     */
+    @Scheduled(initialDelayString = "${app.edge-map.initial-delay-ms:60000}",
+               fixedDelayString = "${app.edge-map.export-interval-ms:300000}")
+    public void scheduledExport() {
+        if (claimOrReport()) {
+            exportOrReport();
+        }
+    }
+
+    /**
+     * Renew the lease, and export ahead of schedule when this instance just took it
+     * over, when a mapped link was deactivated anywhere, or when the blocklist or the
+     * active URL dictionary changed since the map was built
+     */
+    @Scheduled(initialDelayString = "${app.edge-map.check-interval-ms:30000}",
+               fixedDelayString = "${app.edge-map.check-interval-ms:30000}")
+    public void exportIfStale() {
+        boolean held = leaseHeld;
+        if (!claimOrReport()) {
+            return;
+        }
+        EdgeMap map = current;
+        try {
+            if (leaseHeld && !held || map != null && (blocklistGeneration() != exportedBlocklistGeneration
+                    || dictionaryVersion() != exportedDictionaryVersion || hasInactiveLinks(map))) {
+                exportOrReport();
+            }
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            System.out.println("❌ Edge map check failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop a link from the map now, writing a new version if it was mapped; called
+     * when the link is deactivated. A failed write is retried by the next run, which
+     * still finds the link in the map.
+     *
+     * @return true if the link was mapped and a version without it was written
+     */
+    public synchronized boolean evict(String shortCode) {
+        EdgeMap previous = current;
+        if (previous == null || !previous.getEntries().containsKey(shortCode)) {
+            return false;
+        }
+        LinkedHashMap<String, EdgeMap.Entry> entries = new LinkedHashMap<>(previous.getEntries());
+        long clicks = mappedClicks - entries.remove(shortCode).getClicks();
+        long total = totalClicks;
+        double share = total <= 0 ? 0 : Math.min(1.0, (double) clicks / total);
+        EdgeMap map = new EdgeMap(version + 1, Instant.now(), entries, share);
+        try {
+            write(map);
+        } catch (IOException e) {
+            error = e.getMessage();
+            System.out.println("❌ Edge map eviction of " + shortCode + " failed: " + e.getMessage());
+            return false;
+        }
+        version = map.getVersion();
+        mappedClicks = clicks;
+        evictions++;
+        current = map;
+        return true;
+    }
+
+    /**
+     * Rank, filter and write the map if it changed
+     *
+     * @return the map now in effect, or null if none was ever written
+     */
+    public synchronized EdgeMap export() throws IOException {
+        if (!claim()) {
+            throw new IllegalStateException("Another instance holds the edge map lease and exports the map");
+        }
+        return exportClaimed();
+    }
+
+    private synchronized EdgeMap exportClaimed() throws IOException {
+        long start = System.currentTimeMillis();
+        UrlShortenerService service = urlShortenerService.getIfAvailable();
+        if (service == null) {
+            throw new IllegalStateException("No URL shortener service to export from");
+        }
+        BlocklistService blocklist = blocklistService.getIfAvailable();
+        long blocklistGeneration = blocklistGeneration();
+        int dictionaryVersion = dictionaryVersion();
+        Instant keepUntil = Instant.ofEpochMilli(start + minRemainingTtlMillis);
+
+        List<UrlAnalytics> hot = new ArrayList<>();
+        for (UrlAnalytics analytics : service.queryUrls(new AnalyticsQuery(AnalyticsQuery.Order.CLICKS, size))) {
+            if (analytics.getClickCount() >= minClicks) {
+                hot.add(analytics);
+            }
+        }
+        List<String> shortCodes = new ArrayList<>(hot.size());
+        hot.forEach(analytics -> shortCodes.add(analytics.getShortCode()));
+        List<ResolvedLink> links = shortCodes.isEmpty() ? List.of() : service.resolveUrls(shortCodes);
+
+        LinkedHashMap<String, EdgeMap.Entry> entries = new LinkedHashMap<>();
+        int inactive = 0;
+        int expiring = 0;
+        int unsafe = 0;
+        int blocked = 0;
+        long clicks = 0;
+        for (int i = 0; i < links.size(); i++) {
+            ResolvedLink link = links.get(i);
+            String originalUrl = link.getOriginalUrl();
+            if (!link.isActive() || originalUrl == null) {
+                inactive++;
+            } else if (link.getExpiresAt() != null && link.getExpiresAt().isBefore(keepUntil)) {
+                expiring++;
+            } else if (!isSafe(link.getShortCode()) || !isSafe(originalUrl)) {
+                unsafe++;
+            } else if (blocklist != null && blocklist.isBlocked(originalUrl)) {
+                blocked++;
+            } else {
+                long linkClicks = hot.get(i).getClickCount();
+                entries.put(link.getShortCode(), new EdgeMap.Entry(originalUrl, linkClicks, link.getExpiresAt()));
+                clicks += linkClicks;
+            }
+        }
+        long total = service.getAnalyticsSummary().getTotalClicks();
+        double share = total <= 0 ? 0 : Math.min(1.0, (double) clicks / total);
+
+        EdgeMap previous = current;
+        if (previous == null || !previous.sameRedirects(entries)) {
+            EdgeMap map = new EdgeMap(version + 1, Instant.ofEpochMilli(start), entries, share);
+            write(map);
+            version = map.getVersion();
+            added = countMissing(entries, previous == null ? Map.of() : previous.getEntries());
+            removed = previous == null ? 0 : countMissing(previous.getEntries(), entries);
+            current = map;
+        } else {
+            added = 0;
+            removed = 0;
+        }
+        SlidingExpiration sliding = slidingExpiration.getIfAvailable();
+        if (sliding != null) {
+            entries.keySet().forEach(sliding::touch);
+        }
+        Map<String, Integer> skippedNow = new LinkedHashMap<>();
+        skippedNow.put("inactive", inactive);
+        skippedNow.put("expiring", expiring);
+        skippedNow.put("unsafe", unsafe);
+        skippedNow.put("blocked", blocked);
+        skipped = skippedNow;
+        mappedClicks = clicks;
+        totalClicks = total;
+        exportedBlocklistGeneration = blocklistGeneration;
+        exportedDictionaryVersion = dictionaryVersion;
+        exports++;
+        lastExportAt = start;
+        lastExportMillis = System.currentTimeMillis() - start;
+        error = null;
+        return current;
+    }
+
+    /**
+     * Version, contents and coverage of the map: the share of recorded clicks that
+     * went to mapped links, which is the share of redirects the edge absorbs if
+     * traffic keeps its shape
+     */
+    public Map<String, Object> getStatus() {
+        EdgeMap map = current;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("version", version);
+        status.put("generatedAt", map == null ? null : map.getGeneratedAt().toString());
+        status.put("links", map == null ? 0 : map.getEntries().size());
+        status.put("size", size);
+        status.put("exporter", edgeMapPublisher.getIfAvailable() == null ? "local" : leaseHeld ? "leader" : "standby");
+        Map<String, Object> coverage = new LinkedHashMap<>();
+        coverage.put("clickShare", totalClicks == 0 ? 0.0 : Math.round(10000.0 * mappedClicks / totalClicks) / 10000.0);
+        coverage.put("mappedClicks", mappedClicks);
+        coverage.put("totalClicks", totalClicks);
+        // Edge redirects never reach the application, so these are click counts from before mapping
+        status.put("estimatedCoverage", coverage);
+        Map<String, Object> lastExport = new LinkedHashMap<>();
+        lastExport.put("at", lastExportAt == 0 ? null : Instant.ofEpochMilli(lastExportAt).toString());
+        lastExport.put("durationMs", lastExportMillis);
+        lastExport.put("added", added);
+        lastExport.put("removed", removed);
+        lastExport.put("skipped", skipped);
+        status.put("lastExport", lastExport);
+        status.put("exports", exports);
+        status.put("evictions", evictions);
+        status.put("files", List.of(directory.resolve(EdgeMap.MAP_FILE).toString(),
+            directory.resolve(CONFIG_MAP_FILE).toString()));
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+
+    public EdgeMap getCurrent() {
+        return current;
+    }
+
+    private void exportOrReport() {
+        try {
+            exportClaimed();
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+            System.out.println("❌ Edge map export failed: " + e.getMessage());
+        }
+    }
+
+    private boolean claimOrReport() {
+        try {
+            return claim();
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+            System.out.println("❌ Edge map lease check failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Take or renew the publisher's lease; always true without a publisher. An
+     * instance that loses the lease forgets its map, so it no longer evicts from it.
+     */
+    private boolean claim() throws IOException {
+        EdgeMapPublisher publisher = edgeMapPublisher.getIfAvailable();
+        if (publisher == null) {
+            return true;
+        }
+        boolean claimed = publisher.claim();
+        if (claimed != leaseHeld) {
+            System.out.println("🔀 Edge map exporter lease " + (claimed ? "taken" : "lost"));
+            if (!claimed) {
+                current = null;
+            }
+        }
+        leaseHeld = claimed;
+        return claimed;
+    }
+
+    /**
+     * Whether a mapped link was deactivated, on any instance, since the map was built
+     */
+    private boolean hasInactiveLinks(EdgeMap map) {
+        UrlShortenerService service = urlShortenerService.getIfAvailable();
+        if (service == null || map.getEntries().isEmpty()) {
+            return false;
+        }
+        for (ResolvedLink link : service.resolveUrls(new ArrayList<>(map.getEntries().keySet()))) {
+            if (!link.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long blocklistGeneration() {
+        BlocklistService blocklist = blocklistService.getIfAvailable();
+        return blocklist == null ? 0 : blocklist.getGeneration();
+    }
+
+    private int dictionaryVersion() {
+        UrlCodec codec = urlCodec.getIfAvailable();
+        return codec == null ? 0 : codec.getActive().getVersion();
+    }
+
+    private void write(EdgeMap map) throws IOException {
+        Files.createDirectories(directory);
+        replace(directory.resolve(EdgeMap.MAP_FILE), map.toNginx(variable));
+        replace(directory.resolve(CONFIG_MAP_FILE), map.toConfigMap(configMapName, namespace, variable));
+        EdgeMapPublisher publisher = edgeMapPublisher.getIfAvailable();
+        if (publisher != null) {
+            publisher.publish(map, variable);
+        }
+        System.out.println("✅ Edge map version " + map.getVersion() + ": " + map.getEntries().size() + " links");
+    }
+
+    /**
+     * Write through a temporary file, so a reader never sees half a map
+     */
+    private static void replace(Path file, String content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, content, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Continue the version sequence of a map written before a restart
+     */
+    private static long readVersion(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith(EdgeMap.VERSION_PREFIX)) {
+                return Long.parseLong(line.substring(EdgeMap.VERSION_PREFIX.length()).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            // No readable map yet; start from the first version
+        }
+        return 0;
+    }
+
+    private static int countMissing(Map<String, EdgeMap.Entry> from, Map<String, EdgeMap.Entry> in) {
+        int missing = 0;
+        for (String shortCode : from.keySet()) {
+            if (!in.containsKey(shortCode)) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Whether nginx takes the value literally inside double quotes: printable
+     * ASCII without quotes, backslashes or the '$' that starts a variable
+     */
+    static boolean isSafe(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c >= 127 || c == '"' || c == '\\' || c == '$' || c == '\'') {
+                return false;
+            }
+        }
+        return !value.isEmpty();
+    }
+}
@@ -0,0 +1,29 @@
+package com.urlshortener.edge;
+
+import java.io.IOException;
+
+/**
+ * Hands edge map versions to the ingress and elects the one instance that
+ * exports them, so replicas do not overwrite each other's versions
+ *
+ * @author URL Shortener Team
+ */
+public interface EdgeMapPublisher {
+
+    /**
+     * Take or renew the exporter lease
+     *
+     * @return true while this instance holds it and should export
+     * @throws IOException if the lease could not be read or written
+     */
+    boolean claim() throws IOException;
+
+    /**
+     * Make a version the one the ingress serves
+     *
+     * @param map the version to serve
+     * @param variable nginx variable the map sets
+     * @throws IOException if the ingress did not take it
+     */
+    void publish(EdgeMap map, String variable) throws IOException;
+}
@@ -0,0 +1,235 @@
+package com.urlshortener.edge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Publishes the edge map through the Kubernetes API with the pod's service account.
+ * The map goes into the ingress-nginx controller ConfigMap under its http-snippet
+ * key; the controller watches that ConfigMap and reloads nginx on every change, so
+ * evictions and early exports reach the edge within seconds, without a manual apply
+ * or reload. The exporter then owns that key.
+ *
+ * <p>One replica exports: the holder of a coordination.k8s.io Lease in the pod's own
+ * namespace. The holder renews it on every check; when it stops, another replica
+ * takes it over once the lease has run out. Writes carry the lease's resourceVersion,
+ * so two replicas can never both win it.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@ConditionalOnProperty(name = {"app.edge-map.enabled", "app.edge-map.kubernetes.enabled"}, havingValue = "true")
+public class KubernetesEdgeMapPublisher implements EdgeMapPublisher {
+
+    static final Path SERVICE_ACCOUNT = Paths.get("/var/run/secrets/kubernetes.io/serviceaccount");
+
+    /** Lease times are MicroTime: RFC 3339 with exactly six fraction digits */
+    private static final DateTimeFormatter MICRO_TIME =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSX").withZone(ZoneOffset.UTC);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI apiServer;
+    private final Path tokenFile;
+    private final String leaseNamespace;
+    private final String leaseName;
+    private final int leaseSeconds;
+    private final String identity;
+    private final String namespace;
+    private final String configMap;
+    private final String snippetKey;
+
+    public KubernetesEdgeMapPublisher(ObjectMapper objectMapper,
+                                      @Value("${app.edge-map.kubernetes.lease-name:url-shortener-edge-map-exporter}") String leaseName,
+                                      @Value("${app.edge-map.kubernetes.lease-seconds:90}") int leaseSeconds,
+                                      @Value("${HOSTNAME:}") String identity,
+                                      @Value("${app.edge-map.namespace:ingress-nginx}") String namespace,
+                                      @Value("${app.edge-map.kubernetes.config-map:ingress-nginx-controller}") String configMap,
+                                      @Value("${app.edge-map.kubernetes.snippet-key:http-snippet}") String snippetKey)
+            throws IOException, GeneralSecurityException {
+        this(HttpClient.newBuilder()
+                .sslContext(trusting(SERVICE_ACCOUNT.resolve("ca.crt")))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build(),
+            objectMapper, inClusterApiServer(), SERVICE_ACCOUNT.resolve("token"),
+            Files.readString(SERVICE_ACCOUNT.resolve("namespace"), StandardCharsets.UTF_8).trim(),
+            leaseName, leaseSeconds, identity, namespace, configMap, snippetKey);
+    }
+
+    KubernetesEdgeMapPublisher(HttpClient httpClient, ObjectMapper objectMapper, URI apiServer, Path tokenFile,
+                               String leaseNamespace, String leaseName, int leaseSeconds, String identity,
+                               String namespace, String configMap, String snippetKey) {
+        if (identity == null || identity.isBlank()) {
+            throw new IllegalStateException("Publishing the edge map needs HOSTNAME to tell replicas apart");
+        }
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.apiServer = apiServer;
+        this.tokenFile = tokenFile;
+        this.leaseNamespace = leaseNamespace;
+        this.leaseName = leaseName;
+        this.leaseSeconds = leaseSeconds;
+        this.identity = identity;
+        this.namespace = namespace;
+        this.configMap = configMap;
+        this.snippetKey = snippetKey;
+    }
+
+    @Override
+    public boolean claim() throws IOException {
+        String leases = "/apis/coordination.k8s.io/v1/namespaces/" + leaseNamespace + "/leases";
+        HttpResponse<String> current = send(request(leases + "/" + leaseName).GET());
+        String now = MICRO_TIME.format(Instant.now());
+        if (current.statusCode() == 404) {
+            ObjectNode lease = objectMapper.createObjectNode();
+            lease.put("apiVersion", "coordination.k8s.io/v1");
+            lease.put("kind", "Lease");
+            lease.putObject("metadata").put("name", leaseName);
+            ObjectNode spec = lease.putObject("spec");
+            spec.put("holderIdentity", identity);
+            spec.put("leaseDurationSeconds", leaseSeconds);
+            spec.put("acquireTime", now);
+            spec.put("renewTime", now);
+            return accepted(send(json(request(leases), "POST", lease)), "Lease " + leaseName);
+        }
+        expect(current, "Lease " + leaseName);
+
+        ObjectNode lease = (ObjectNode) objectMapper.readTree(current.body());
+        ObjectNode spec = lease.has("spec") ? (ObjectNode) lease.get("spec") : lease.putObject("spec");
+        String holder = spec.path("holderIdentity").asText("");
+        boolean held = identity.equals(holder);
+        if (!held && !holder.isEmpty() && !expired(spec)) {
+            return false;
+        }
+        if (!held) {
+            spec.put("holderIdentity", identity);
+            spec.put("acquireTime", now);
+            spec.put("leaseTransitions", spec.path("leaseTransitions").asInt(0) + 1);
+        }
+        spec.put("leaseDurationSeconds", leaseSeconds);
+        spec.put("renewTime", now);
+        // The body keeps metadata.resourceVersion, so a replica that took the lease first wins
+        return accepted(send(json(request(leases + "/" + leaseName), "PUT", lease)), "Lease " + leaseName);
+    }
+
+    @Override
+    public void publish(EdgeMap map, String variable) throws IOException {
+        ObjectNode patch = objectMapper.createObjectNode();
+        ObjectNode annotations = patch.putObject("metadata").putObject("annotations");
+        annotations.put(EdgeMap.VERSION_ANNOTATION, Long.toString(map.getVersion()));
+        annotations.put(EdgeMap.GENERATED_AT_ANNOTATION, map.getGeneratedAt().toString());
+        patch.putObject("data").put(snippetKey, map.toNginx(variable));
+        HttpRequest.Builder request = request("/api/v1/namespaces/" + namespace + "/configmaps/" + configMap)
+            .header("Content-Type", "application/merge-patch+json");
+        expect(send(request.method("PATCH", HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(patch)))),
+            "ConfigMap " + namespace + "/" + configMap);
+    }
+
+    /**
+     * Whether the holder let the lease run out; an unreadable renew time counts as run out
+     */
+    private static boolean expired(JsonNode spec) {
+        try {
+            Instant renewed = OffsetDateTime.parse(spec.path("renewTime").asText()).toInstant();
+            return renewed.plusSeconds(spec.path("leaseDurationSeconds").asLong(0)).isBefore(Instant.now());
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
+
+    /**
+     * True for a write the API server took, false for one a concurrent writer beat
+     */
+    private static boolean accepted(HttpResponse<String> response, String what) throws IOException {
+        if (response.statusCode() == 409) {
+            return false;
+        }
+        expect(response, what);
+        return true;
+    }
+
+    private static void expect(HttpResponse<String> response, String what) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Kubernetes API answered " + response.statusCode() + " for " + what
+                + ": " + response.body());
+        }
+    }
+
+    private HttpRequest.Builder request(String path) throws IOException {
+        // Projected service account tokens rotate, so read it for every call
+        String token = Files.readString(tokenFile, StandardCharsets.UTF_8).trim();
+        return HttpRequest.newBuilder(apiServer.resolve(path))
+            .timeout(Duration.ofSeconds(10))
+            .header("Authorization", "Bearer " + token)
+            .header("Accept", "application/json");
+    }
+
+    private HttpRequest.Builder json(HttpRequest.Builder request, String method, JsonNode body) throws IOException {
+        return request.header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException {
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling the Kubernetes API", e);
+        }
+    }
+
+    private static URI inClusterApiServer() {
+        String host = System.getenv("KUBERNETES_SERVICE_HOST");
+        String port = System.getenv("KUBERNETES_SERVICE_PORT");
+        if (host == null || port == null) {
+            throw new IllegalStateException("Publishing the edge map needs to run in a Kubernetes pod");
+        }
+        return URI.create("https://" + (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port);
+    }
+
+    /**
+     * TLS that trusts the cluster CA the service account comes with
+     */
+    private static SSLContext trusting(Path caFile) throws IOException, GeneralSecurityException {
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        try (InputStream in = Files.newInputStream(caFile)) {
+            int i = 0;
+            for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(in)) {
+                trustStore.setCertificateEntry("ca-" + i++, certificate);
+            }
+        }
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagers.getTrustManagers(), null);
+        return context;
+    }
+}
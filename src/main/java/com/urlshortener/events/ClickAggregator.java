@@ -0,0 +1,124 @@
+package com.urlshortener.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer-group worker that folds click events into stored click counts.
+ * Each batch is committed under an id derived from its first and last entry ids,
+ * then acknowledged. A batch that was committed but not acknowledged is delivered
+ * again as the same batch, from this consumer's pending entries after a restart or
+ * claimed whole by another consumer, so the commit is skipped instead of counted twice.
+ * Consumers left idle with nothing pending, like those of replaced pods, are removed
+ * from the group once per claim interval.
+ *
+ * @author URL Shortener Team
+ */
+public class ClickAggregator {
+
+    private final ClickEventStream stream;
+    private final ClickCounterStore counterStore;
+    private final String consumer;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final long claimIdleMillis;
+    private final Counter aggregated;
+    private final Counter duplicates;
+
+    private boolean recovering = true;
+    private long lastConsumerSweep;
+
+    public ClickAggregator(ClickEventStream stream, ClickCounterStore counterStore, String consumer,
+                           int batchSize, int maxBatchesPerPoll, long claimIdleMillis,
+                           MeterRegistry meterRegistry) {
+        this.stream = stream;
+        this.counterStore = counterStore;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.claimIdleMillis = claimIdleMillis;
+        this.aggregated = meterRegistry.counter("clicks.aggregated");
+        this.duplicates = meterRegistry.counter("clicks.aggregated.duplicate.batches");
+    }
+
+    /**
+     * Process up to maxBatchesPerPoll batches
+     *
+     * @return number of events processed
+     */
+    @Scheduled(fixedDelayString = "${app.events.aggregator.poll-interval-ms:200}")
+    public synchronized int poll() {
+        int processed = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                List<ClickEvent> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                commit(batch);
+                processed += batch.size();
+            }
+        } catch (RuntimeException e) {
+            // Re-read this consumer's pending batch on the next poll
+            recovering = true;
+        }
+        sweepConsumers();
+        return processed;
+    }
+
+    private void sweepConsumers() {
+        long now = System.currentTimeMillis();
+        if (now - lastConsumerSweep < claimIdleMillis) {
+            return;
+        }
+        lastConsumerSweep = now;
+        try {
+            int removed = stream.removeIdleConsumers(consumer, claimIdleMillis);
+            if (removed > 0) {
+                System.out.println("✅ Removed " + removed + " idle click stream consumers");
+            }
+        } catch (RuntimeException e) {
+            // Stream unreachable, sweep again on the next interval
+        }
+    }
+
+    private List<ClickEvent> nextBatch() {
+        if (recovering) {
+            List<ClickEvent> batch = stream.readPending(consumer, batchSize);
+            if (!batch.isEmpty()) {
+                return batch;
+            }
+            recovering = false;
+        }
+        List<ClickEvent> batch = stream.claimStale(consumer, claimIdleMillis, batchSize);
+        if (!batch.isEmpty()) {
+            return batch;
+        }
+        return stream.readNew(consumer, batchSize);
+    }
+
+    private void commit(List<ClickEvent> batch) {
+        Map<String, ClickTally> tallies = new LinkedHashMap<>();
+        for (ClickEvent event : batch) {
+            if (event.getShortCode() != null) {
+                tallies.computeIfAbsent(event.getShortCode(), code -> new ClickTally()).add(event.getTimestamp());
+            }
+        }
+        String batchId = batch.get(0).getId() + "-" + batch.get(batch.size() - 1).getId() + "-" + batch.size();
+        if (counterStore.applyClicks(batchId, tallies)) {
+            aggregated.increment(batch.size());
+        } else {
+            duplicates.increment();
+        }
+        stream.acknowledge(batch);
+    }
+
+    public String getConsumer() {
+        return consumer;
+    }
+}
@@ -0,0 +1,21 @@
+package com.urlshortener.events;
+
+import java.util.Map;
+
+/**
+ * Storage that click counts are committed to by the aggregator
+ *
+ * @author URL Shortener Team
+ */
+public interface ClickCounterStore {
+
+    /**
+     * Add a batch of folded clicks to the stored analytics, at most once per batch id.
+     * Committing a batch id again, e.g. after a crash before acknowledging, is a no-op.
+     *
+     * @param batchId id derived from the events of the batch
+     * @param tallies clicks per short code
+     * @return false if the batch had already been committed
+     */
+    boolean applyClicks(String batchId, Map<String, ClickTally> tallies);
+}
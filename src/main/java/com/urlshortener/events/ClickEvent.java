@@ -0,0 +1,81 @@
+package com.urlshortener.events;
+
+import com.urlshortener.dto.ClickContext;
+
+/**
+ * One click as it travels through the event stream. Dimension values are the
+ * low-cardinality ones of {@link ClickContext} and may be null for clicks
+ * tracked without request context.
+ *
+ * @author URL Shortener Team
+ */
+public final class ClickEvent {
+
+    private final String id;
+    private final String shortCode;
+    private final long timestamp;
+    private final String referrer;
+    private final String country;
+    private final String userAgentFamily;
+    private final String device;
+
+    public ClickEvent(String id, String shortCode, long timestamp, String referrer,
+                      String country, String userAgentFamily, String device) {
+        this.id = id;
+        this.shortCode = shortCode;
+        this.timestamp = timestamp;
+        this.referrer = referrer;
+        this.country = country;
+        this.userAgentFamily = userAgentFamily;
+        this.device = device;
+    }
+
+    /**
+     * New event, not yet appended to a stream
+     */
+    public static ClickEvent of(String shortCode, ClickContext context) {
+        if (context == null) {
+            return new ClickEvent(null, shortCode, System.currentTimeMillis(), null, null, null, null);
+        }
+        return new ClickEvent(null, shortCode, context.getTimestamp(), context.getReferrer(),
+            context.getCountry(), context.getUserAgentFamily(), context.getDevice());
+    }
+
+    /**
+     * Same event carrying the id the stream assigned to it
+     */
+    ClickEvent withId(String streamId) {
+        return new ClickEvent(streamId, shortCode, timestamp, referrer, country, userAgentFamily, device);
+    }
+
+    /**
+     * Stream entry id, or null before the event was appended
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getReferrer() {
+        return referrer;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getUserAgentFamily() {
+        return userAgentFamily;
+    }
+
+    public String getDevice() {
+        return device;
+    }
+}
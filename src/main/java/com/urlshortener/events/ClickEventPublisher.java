@@ -0,0 +1,99 @@
+package com.urlshortener.events;
+
+import com.urlshortener.service.UrlShortenerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Buffers click events on the request path and appends them to the stream in
+ * pipelined batches from a background thread. Events that cannot be buffered or
+ * appended are counted inline by the fallback service instead of being lost.
+ *
+ * @author URL Shortener Team
+ */
+public class ClickEventPublisher {
+
+    private final ClickEventStream stream;
+    private final BlockingQueue<ClickEvent> buffer;
+    private final int batchSize;
+    private final Counter published;
+    private final Counter fellBack;
+
+    private volatile UrlShortenerService fallback;
+
+    public ClickEventPublisher(ClickEventStream stream, int bufferSize, int batchSize, MeterRegistry meterRegistry) {
+        this.stream = stream;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.published = meterRegistry.counter("clicks.stream.published");
+        this.fellBack = meterRegistry.counter("clicks.stream.fallback");
+    }
+
+    /**
+     * Service that counts clicks directly when the stream cannot take them
+     */
+    public void setFallback(UrlShortenerService fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Queue a click for the next flush without blocking
+     *
+     * @return false if the buffer is full and the caller must count the click itself
+     */
+    public boolean publish(ClickEvent event) {
+        return buffer.offer(event);
+    }
+
+    /**
+     * Append buffered events in batches until the buffer is empty
+     */
+    @Scheduled(fixedDelayString = "${app.events.flush-interval-ms:50}")
+    public synchronized void flush() {
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            int accepted = 0;
+            try {
+                accepted = stream.append(batch);
+            } catch (RuntimeException e) {
+                // Stream unreachable, count the batch inline below
+            }
+            published.increment(accepted);
+            if (accepted < batch.size()) {
+                fallBack(batch.subList(accepted, batch.size()));
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    public int getBuffered() {
+        return buffer.size();
+    }
+
+    private void fallBack(List<ClickEvent> events) {
+        UrlShortenerService service = fallback;
+        if (service == null) {
+            return;
+        }
+        for (ClickEvent event : events) {
+            try {
+                service.trackClick(event.getShortCode());
+            } catch (RuntimeException e) {
+                // Nothing left to count the click with
+            }
+        }
+        fellBack.increment(events.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.urlshortener.events;
+
+import java.util.List;
+
+/**
+ * Append-only click log read by one consumer group. Entries stay pending for
+ * the consumer they were delivered to until acknowledged, so a crashed consumer's
+ * batch can be read again or claimed by another consumer.
+ *
+ * @author URL Shortener Team
+ */
+public interface ClickEventStream {
+
+    /**
+     * Append events in one round trip
+     *
+     * @param events events without ids
+     * @return number of leading events accepted; the rest were refused
+     * @throws RuntimeException if the stream is unreachable
+     */
+    int append(List<ClickEvent> events);
+
+    /**
+     * Deliver events no consumer has seen yet
+     */
+    List<ClickEvent> readNew(String consumer, int count);
+
+    /**
+     * Deliver again the events this consumer has not acknowledged yet, oldest first
+     */
+    List<ClickEvent> readPending(String consumer, int count);
+
+    /**
+     * Take over the pending events of another consumer that has been idle
+     * for at least minIdleMillis
+     *
+     * @return the claimed events, or an empty list if no consumer is stale
+     */
+    List<ClickEvent> claimStale(String consumer, long minIdleMillis, int count);
+
+    /**
+     * Forget the other consumers that have no pending events and have been idle for
+     * at least minIdleMillis, such as those of replaced workers
+     *
+     * @return number of consumers removed
+     */
+    int removeIdleConsumers(String consumer, long minIdleMillis);
+
+    /**
+     * Mark delivered events as processed
+     */
+    void acknowledge(List<ClickEvent> events);
+
+    /**
+     * Number of events appended but not yet delivered to the group
+     *
+     * @return the lag, or -1 if the stream cannot tell
+     */
+    long lag();
+
+    /**
+     * Number of delivered events not acknowledged yet
+     */
+    long pending();
+}
@@ -0,0 +1,50 @@
+package com.urlshortener.events;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Samples consumer group lag and pending entries for autoscaling. Redirect pods
+ * scale on request load; aggregator workers scale on clicks.stream.lag.
+ *
+ * @author URL Shortener Team
+ */
+public class ClickStreamMonitor {
+
+    private final ClickEventStream stream;
+
+    private volatile long lag;
+    private volatile long pending;
+
+    public ClickStreamMonitor(ClickEventStream stream, ClickEventPublisher publisher, MeterRegistry meterRegistry) {
+        this.stream = stream;
+        Gauge.builder("clicks.stream.lag", this, ClickStreamMonitor::getLag)
+            .description("Click events not yet delivered to the aggregator group")
+            .register(meterRegistry);
+        Gauge.builder("clicks.stream.pending", this, ClickStreamMonitor::getPending)
+            .description("Click events delivered but not yet acknowledged")
+            .register(meterRegistry);
+        Gauge.builder("clicks.stream.buffered", publisher, ClickEventPublisher::getBuffered)
+            .description("Click events buffered on this pod awaiting append")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.lag-sample-interval-ms:5000}")
+    public void sample() {
+        try {
+            lag = stream.lag();
+            pending = stream.pending();
+        } catch (RuntimeException e) {
+            lag = -1;
+        }
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+}
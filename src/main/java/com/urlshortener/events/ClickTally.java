@@ -0,0 +1,37 @@
+package com.urlshortener.events;
+
+/**
+ * Clicks of one link folded from a batch of events
+ *
+ * @author URL Shortener Team
+ */
+public final class ClickTally {
+
+    private long count;
+    private long lastClickAt;
+
+    /**
+     * Tally of clicks folded elsewhere, e.g. by a storage backend or a test
+     *
+     * @param lastClickAt epoch millis of the latest click
+     */
+    public static ClickTally of(long count, long lastClickAt) {
+        ClickTally tally = new ClickTally();
+        tally.count = count;
+        tally.lastClickAt = lastClickAt;
+        return tally;
+    }
+
+    void add(long timestamp) {
+        count++;
+        lastClickAt = Math.max(lastClickAt, timestamp);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getLastClickAt() {
+        return lastClickAt;
+    }
+}
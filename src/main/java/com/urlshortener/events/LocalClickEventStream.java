@@ -0,0 +1,135 @@
+package com.urlshortener.events;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-memory stand-in for the Redis stream on single-node deployments.
+ * It has the same delivery semantics within the process, but events do not
+ * survive a restart.
+ *
+ * @author URL Shortener Team
+ */
+public class LocalClickEventStream implements ClickEventStream {
+
+    private final int capacity;
+    private final ArrayDeque<ClickEvent> undelivered = new ArrayDeque<>();
+    private final LinkedHashMap<String, Delivery> pending = new LinkedHashMap<>();
+    private long sequence;
+
+    public LocalClickEventStream(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized int append(List<ClickEvent> events) {
+        int accepted = 0;
+        for (ClickEvent event : events) {
+            if (undelivered.size() + pending.size() >= capacity) {
+                break;
+            }
+            undelivered.addLast(event.withId(Long.toString(++sequence)));
+            accepted++;
+        }
+        return accepted;
+    }
+
+    @Override
+    public synchronized List<ClickEvent> readNew(String consumer, int count) {
+        List<ClickEvent> events = new ArrayList<>(Math.min(count, undelivered.size()));
+        long now = System.currentTimeMillis();
+        while (events.size() < count && !undelivered.isEmpty()) {
+            ClickEvent event = undelivered.pollFirst();
+            pending.put(event.getId(), new Delivery(event, consumer, now));
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Override
+    public synchronized List<ClickEvent> readPending(String consumer, int count) {
+        List<ClickEvent> events = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Delivery delivery : pending.values()) {
+            if (events.size() == count) {
+                break;
+            }
+            if (delivery.consumer.equals(consumer)) {
+                delivery.deliveredAt = now;
+                events.add(delivery.event);
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public synchronized List<ClickEvent> claimStale(String consumer, long minIdleMillis, int count) {
+        long now = System.currentTimeMillis();
+        Map<String, Boolean> staleConsumers = new LinkedHashMap<>();
+        for (Delivery delivery : pending.values()) {
+            if (!delivery.consumer.equals(consumer)) {
+                boolean idle = now - delivery.deliveredAt >= minIdleMillis;
+                staleConsumers.merge(delivery.consumer, idle, Boolean::logicalAnd);
+            }
+        }
+        for (Map.Entry<String, Boolean> entry : staleConsumers.entrySet()) {
+            if (!entry.getValue()) {
+                continue;
+            }
+            List<ClickEvent> events = new ArrayList<>();
+            Iterator<Delivery> deliveries = pending.values().iterator();
+            while (deliveries.hasNext() && events.size() < count) {
+                Delivery delivery = deliveries.next();
+                if (delivery.consumer.equals(entry.getKey())) {
+                    delivery.consumer = consumer;
+                    delivery.deliveredAt = now;
+                    events.add(delivery.event);
+                }
+            }
+            return events;
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Consumers are only known through their pending deliveries, so there is
+     * nothing to remove
+     */
+    @Override
+    public int removeIdleConsumers(String consumer, long minIdleMillis) {
+        return 0;
+    }
+
+    @Override
+    public synchronized void acknowledge(List<ClickEvent> events) {
+        for (ClickEvent event : events) {
+            pending.remove(event.getId());
+        }
+    }
+
+    @Override
+    public synchronized long lag() {
+        return undelivered.size();
+    }
+
+    @Override
+    public synchronized long pending() {
+        return pending.size();
+    }
+
+    private static final class Delivery {
+        private final ClickEvent event;
+        private String consumer;
+        private long deliveredAt;
+
+        private Delivery(ClickEvent event, String consumer, long deliveredAt) {
+            this.event = event;
+            this.consumer = consumer;
+            this.deliveredAt = deliveredAt;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.urlshortener.events;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Click stream on a Redis Stream with one consumer group. Appends are pipelined
+ * XADDs trimmed to an approximate maximum length; consumers use XREADGROUP, XACK
+ * and XCLAIM, lag comes from XINFO GROUPS, and consumers left behind by replaced
+ * workers are dropped with XGROUP DELCONSUMER.
+ *
+ * @author URL Shortener Team
+ */
+public class RedisClickEventStream implements ClickEventStream {
+
+    private static final byte[] SHORT_CODE = bytes("c");
+    private static final byte[] TIMESTAMP = bytes("t");
+    private static final byte[] REFERRER = bytes("r");
+    private static final byte[] COUNTRY = bytes("g");
+    private static final byte[] USER_AGENT = bytes("u");
+    private static final byte[] DEVICE = bytes("d");
+
+    private static final byte[] GROUP_INFO_SCRIPT = bytes(
+        "local pending, lag = 0, -1 "
+            + "for _, group in ipairs(redis.call('XINFO', 'GROUPS', KEYS[1])) do "
+            + "  local name, p, l "
+            + "  for i = 1, #group, 2 do "
+            + "    if group[i] == 'name' then name = group[i + 1] "
+            + "    elseif group[i] == 'pending' then p = group[i + 1] "
+            + "    elseif group[i] == 'lag' then l = group[i + 1] end "
+            + "  end "
+            + "  if name == ARGV[1] then "
+            + "    pending = p "
+            + "    if type(l) == 'number' then lag = l end "
+            + "  end "
+            + "end "
+            + "return {pending, lag}");
+
+    private static final byte[] REMOVE_IDLE_CONSUMERS_SCRIPT = bytes(
+        "local removed = 0 "
+            + "for _, consumer in ipairs(redis.call('XINFO', 'CONSUMERS', KEYS[1], ARGV[1])) do "
+            + "  local name, pending, idle "
+            + "  for i = 1, #consumer, 2 do "
+            + "    if consumer[i] == 'name' then name = consumer[i + 1] "
+            + "    elseif consumer[i] == 'pending' then pending = consumer[i + 1] "
+            + "    elseif consumer[i] == 'idle' then idle = consumer[i + 1] end "
+            + "  end "
+            + "  if name ~= ARGV[2] and pending == 0 and idle >= tonumber(ARGV[3]) then "
+            + "    redis.call('XGROUP', 'DELCONSUMER', KEYS[1], ARGV[1], name) "
+            + "    removed = removed + 1 "
+            + "  end "
+            + "end "
+            + "return removed");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final byte[] rawKey;
+    private final String group;
+    private final long maxLength;
+
+    private volatile boolean groupReady;
+
+    public RedisClickEventStream(RedisTemplate<String, Object> redisTemplate, String key,
+                                 String group, long maxLength) {
+        this.redisTemplate = redisTemplate;
+        this.rawKey = bytes(key);
+        this.group = group;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public int append(List<ClickEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        XAddOptions options = XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (ClickEvent event : events) {
+                connection.streamCommands().xAdd(MapRecord.create(rawKey, encode(event)), options);
+            }
+            return null;
+        });
+        return events.size();
+    }
+
+    @Override
+    public List<ClickEvent> readNew(String consumer, int count) {
+        return read(consumer, count, ReadOffset.lastConsumed());
+    }
+
+    @Override
+    public List<ClickEvent> readPending(String consumer, int count) {
+        return read(consumer, count, ReadOffset.from("0-0"));
+    }
+
+    @Override
+    public List<ClickEvent> claimStale(String consumer, long minIdleMillis, int count) {
+        ensureGroup();
+        return redisTemplate.execute((RedisCallback<List<ClickEvent>>) connection -> {
+            PendingMessagesSummary summary = connection.streamCommands().xPending(rawKey, group);
+            if (summary == null || summary.getTotalPendingMessages() == 0) {
+                return Collections.emptyList();
+            }
+            for (String owner : summary.getPendingMessagesPerConsumer().keySet()) {
+                if (owner.equals(consumer)) {
+                    continue;
+                }
+                PendingMessages messages = connection.streamCommands()
+                    .xPending(rawKey, group, owner, Range.unbounded(), (long) count);
+                if (messages == null || messages.isEmpty()) {
+                    continue;
+                }
+                List<RecordId> ids = new ArrayList<>(messages.size());
+                boolean stale = true;
+                for (PendingMessage message : messages) {
+                    stale &= message.getElapsedTimeSinceLastDelivery().toMillis() >= minIdleMillis;
+                    ids.add(message.getId());
+                }
+                if (!stale) {
+                    continue;
+                }
+                // Claim the owner's whole batch so it is committed under the same batch id
+                List<ByteRecord> records = connection.streamCommands().xClaim(rawKey, group, consumer,
+                    XClaimOptions.minIdleMs(minIdleMillis).ids(ids.toArray(new RecordId[0])));
+                return decode(records);
+            }
+            return Collections.emptyList();
+        });
+    }
+
+    /**
+     * Checks and deletes in one script, so a consumer that reads in between is
+     * never deleted with entries pending
+     */
+    @Override
+    public int removeIdleConsumers(String consumer, long minIdleMillis) {
+        ensureGroup();
+        Long removed = redisTemplate.execute((RedisCallback<Long>) connection ->
+            connection.scriptingCommands().eval(REMOVE_IDLE_CONSUMERS_SCRIPT, ReturnType.INTEGER, 1,
+                rawKey, bytes(group), bytes(consumer), bytes(Long.toString(minIdleMillis))));
+        return removed == null ? 0 : removed.intValue();
+    }
+
+    @Override
+    public void acknowledge(List<ClickEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        String[] ids = events.stream().map(ClickEvent::getId).toArray(String[]::new);
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+            connection.streamCommands().xAck(rawKey, group, ids));
+    }
+
+    @Override
+    public long lag() {
+        return groupInfo().get(1);
+    }
+
+    @Override
+    public long pending() {
+        return groupInfo().get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> groupInfo() {
+        ensureGroup();
+        List<Long> info = redisTemplate.execute((RedisCallback<List<Long>>) connection ->
+            connection.scriptingCommands().eval(GROUP_INFO_SCRIPT, ReturnType.MULTI, 1, rawKey, bytes(group)));
+        return info == null || info.size() < 2 ? List.of(0L, -1L) : info;
+    }
+
+    private List<ClickEvent> read(String consumer, int count, ReadOffset offset) {
+        ensureGroup();
+        @SuppressWarnings("unchecked")
+        StreamOffset<byte[]>[] streams = (StreamOffset<byte[]>[]) new StreamOffset<?>[] {
+            StreamOffset.create(rawKey, offset)};
+        try {
+            return redisTemplate.execute((RedisCallback<List<ClickEvent>>) connection -> decode(
+                connection.streamCommands().xReadGroup(Consumer.from(group, consumer),
+                    StreamReadOptions.empty().count(count), streams)));
+        } catch (RuntimeException e) {
+            if (e.getMessage() != null && e.getMessage().contains("NOGROUP")) {
+                // The stream was deleted, recreate it on the next read
+                groupReady = false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Create the stream and the consumer group if they do not exist yet
+     */
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                connection.streamCommands().xGroupCreate(rawKey, group, ReadOffset.from("0-0"), true));
+        } catch (RuntimeException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private static Map<byte[], byte[]> encode(ClickEvent event) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        fields.put(SHORT_CODE, bytes(event.getShortCode()));
+        fields.put(TIMESTAMP, bytes(Long.toString(event.getTimestamp())));
+        putIfPresent(fields, REFERRER, event.getReferrer());
+        putIfPresent(fields, COUNTRY, event.getCountry());
+        putIfPresent(fields, USER_AGENT, event.getUserAgentFamily());
+        putIfPresent(fields, DEVICE, event.getDevice());
+        return fields;
+    }
+
+    private static void putIfPresent(Map<byte[], byte[]> fields, byte[] field, String value) {
+        if (value != null) {
+            fields.put(field, bytes(value));
+        }
+    }
+
+    private static List<ClickEvent> decode(List<ByteRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ClickEvent> events = new ArrayList<>(records.size());
+        for (ByteRecord record : records) {
+            String shortCode = null;
+            long timestamp = 0;
+            String referrer = null;
+            String country = null;
+            String userAgent = null;
+            String device = null;
+            for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+                String value = new String(field.getValue(), StandardCharsets.UTF_8);
+                switch (new String(field.getKey(), StandardCharsets.UTF_8)) {
+                    case "c": shortCode = value; break;
+                    case "t": timestamp = Long.parseLong(value); break;
+                    case "r": referrer = value; break;
+                    case "g": country = value; break;
+                    case "u": userAgent = value; break;
+                    case "d": device = value; break;
+                    default: break;
+                }
+            }
+            events.add(new ClickEvent(record.getId().getValue(), shortCode, timestamp,
+                referrer, country, userAgent, device));
+        }
+        return events;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package com.urlshortener.expiry;
+
+import com.urlshortener.service.RedisLinkService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding expiration for Redis links: a link that is used keeps living.
+ * Lookups only note the short code in memory; a background flush sends the noted codes
+ * to Redis as batched EXPIRE script calls. A code is extended at most once per refresh
+ * interval, however often it is clicked, so the redirect path gains no Redis write.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@ConditionalOnProperty(name = "app.redis.sliding-expiration.enabled", havingValue = "true")
+public class SlidingExpiration {
+
+    private final ObjectProvider<RedisLinkService> redisUrlShortenerService;
+    private final long ttlSeconds;
+    private final long refreshIntervalMillis;
+    private final int batchSize;
+    private final int maxPending;
+    private final Counter extended;
+    private final Counter dropped;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastExtendedAt = new ConcurrentHashMap<>();
+    private long lastPrunedAt;
+
+    public SlidingExpiration(ObjectProvider<RedisLinkService> redisUrlShortenerService,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.redis.sliding-expiration.ttl-seconds:86400}") long ttlSeconds,
+                             @Value("${app.redis.sliding-expiration.refresh-interval-ms:600000}") long refreshIntervalMillis,
+                             @Value("${app.redis.sliding-expiration.batch-size:500}") int batchSize,
+                             @Value("${app.redis.sliding-expiration.max-pending:100000}") int maxPending) {
+        this.redisUrlShortenerService = redisUrlShortenerService;
+        this.ttlSeconds = ttlSeconds;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.extended = meterRegistry.counter("links.expiry.extended");
+        this.dropped = meterRegistry.counter("links.expiry.dropped");
+        meterRegistry.gauge("links.expiry.pending", pending, Set::size);
+    }
+
+    /**
+     * Note that a link was used; its TTL is extended on the next flush unless that
+     * already happened within the refresh interval
+     */
+    public void touch(String shortCode) {
+        Long last = lastExtendedAt.get(shortCode);
+        if (last != null && System.currentTimeMillis() - last < refreshIntervalMillis) {
+            return;
+        }
+        if (pending.size() >= maxPending) {
+            dropped.increment();
+            return;
+        }
+        pending.add(shortCode);
+    }
+
+    /**
+     * Extend the TTLs of the links used since the last flush, one script call per batch
+     *
+     * @return number of keys whose TTL was extended
+     */
+    @Scheduled(fixedDelayString = "${app.redis.sliding-expiration.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        long now = System.currentTimeMillis();
+        prune(now);
+        RedisLinkService service = redisUrlShortenerService.getIfAvailable();
+        if (service == null || pending.isEmpty()) {
+            return 0;
+        }
+        List<String> batch = new ArrayList<>(batchSize);
+        int extendedKeys = 0;
+        Iterator<String> codes = pending.iterator();
+        while (codes.hasNext()) {
+            String shortCode = codes.next();
+            codes.remove();
+            lastExtendedAt.put(shortCode, now);
+            batch.add(shortCode);
+            if (batch.size() == batchSize || !codes.hasNext()) {
+                try {
+                    extendedKeys += service.extendExpiry(batch, ttlSeconds);
+                } catch (RuntimeException e) {
+                    // Redis unreachable, the next touch notes these codes again
+                    batch.forEach(lastExtendedAt::remove);
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        extended.increment(extendedKeys);
+        return extendedKeys;
+    }
+
+    /**
+     * Forget codes whose refresh interval has passed, once per interval
+     */
+    private void prune(long now) {
+        if (now - lastPrunedAt < refreshIntervalMillis) {
+            return;
+        }
+        lastPrunedAt = now;
+        lastExtendedAt.values().removeIf(at -> now - at >= refreshIntervalMillis);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+}
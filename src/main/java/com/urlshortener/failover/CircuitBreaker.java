@@ -0,0 +1,144 @@
+package com.urlshortener.failover;
+
+import java.util.Arrays;
+
+/**
+ * Count-based circuit breaker fed by live call outcomes.
+ * Trips when the failure rate or the slow-call rate over the last calls
+ * crosses a threshold, or after a run of consecutive failures. Once open
+ * it stays open until the health prober reports the backend healthy again.
+ *
+ * @author URL Shortener Team
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN }
+
+    private static final byte EMPTY = 0;
+    private static final byte SUCCESS = 1;
+    private static final byte SLOW = 2;
+    private static final byte FAILURE = 3;
+
+    private final byte[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int consecutiveFailureThreshold;
+
+    private int index;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private int consecutiveFailures;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private volatile long tripCount;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallNanos, int consecutiveFailureThreshold) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.consecutiveFailureThreshold = consecutiveFailureThreshold;
+    }
+
+    /**
+     * Whether calls may go to the protected backend
+     */
+    public boolean allowsCalls() {
+        return state == State.CLOSED;
+    }
+
+    public void recordSuccess(long elapsedNanos) {
+        record(elapsedNanos >= slowCallNanos ? SLOW : SUCCESS);
+    }
+
+    public void recordFailure() {
+        record(FAILURE);
+    }
+
+    /**
+     * Trip the breaker regardless of the window, e.g. when a probe fails
+     */
+    public synchronized void open() {
+        if (state != State.OPEN) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            tripCount++;
+        }
+    }
+
+    /**
+     * Close the breaker and forget the outcomes that made it trip
+     */
+    public synchronized void close() {
+        Arrays.fill(window, EMPTY);
+        index = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    public long getTripCount() {
+        return tripCount;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : (double) slowCalls / recorded;
+    }
+
+    private synchronized void record(byte outcome) {
+        if (state == State.OPEN) {
+            return;
+        }
+        byte previous = window[index];
+        if (previous == EMPTY) {
+            recorded++;
+        } else if (previous == FAILURE) {
+            failures--;
+        } else if (previous == SLOW) {
+            slowCalls--;
+        }
+        window[index] = outcome;
+        index = (index + 1) % window.length;
+
+        if (outcome == FAILURE) {
+            failures++;
+            consecutiveFailures++;
+        } else {
+            consecutiveFailures = 0;
+            if (outcome == SLOW) {
+                slowCalls++;
+            }
+        }
+
+        if (consecutiveFailures >= consecutiveFailureThreshold) {
+            open();
+        } else if (recorded >= minimumCalls
+            && ((double) failures / recorded >= failureRateThreshold
+                || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.urlshortener.failover;
+
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded journal of writes accepted while the primary backend was degraded.
+ * Created links are kept in arrival order; clicks are folded into per-code counts,
+ * updated and taken under the map's per-key lock so a drain never misses a click.
+ * Deactivations of links stored in the primary backend are kept as a set of codes.
+ *
+ * @author URL Shortener Team
+ */
+public class WriteJournal {
+
+    private final ConcurrentLinkedQueue<UrlAnalytics> createdLinks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, Long> clicks = new ConcurrentHashMap<>();
+    private final Set<String> deactivations = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int maxEntries;
+
+    public WriteJournal(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Journal a link created on the fallback store
+     *
+     * @return false if the journal is full and the write was dropped
+     */
+    public boolean recordCreate(UrlAnalytics analytics) {
+        if (size.incrementAndGet() > maxEntries) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        createdLinks.add(analytics);
+        return true;
+    }
+
+    /**
+     * Journal a click on a link stored in the primary backend
+     */
+    public boolean recordClick(String shortCode) {
+        boolean[] full = new boolean[1];
+        clicks.compute(shortCode, (code, count) -> {
+            if (count != null) {
+                return count + 1;
+            }
+            if (size.incrementAndGet() > maxEntries) {
+                size.decrementAndGet();
+                full[0] = true;
+                return null;
+            }
+            return 1L;
+        });
+        if (full[0]) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Journal clicks already counted elsewhere, e.g. on a link being moved; never dropped
+     */
+    public void recordClicks(String shortCode, long count) {
+        clicks.compute(shortCode, (code, journaled) -> {
+            if (journaled != null) {
+                return journaled + count;
+            }
+            size.incrementAndGet();
+            return count;
+        });
+    }
+
+    /**
+     * Journal the deactivation of a link stored in the primary backend; never dropped,
+     * since a blocked link must not come back when the primary recovers
+     */
+    public void recordDeactivation(String shortCode) {
+        if (deactivations.add(shortCode)) {
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Take up to batchSize created links off the journal, oldest first
+     */
+    public List<UrlAnalytics> drainCreates(int batchSize) {
+        List<UrlAnalytics> batch = new ArrayList<>(Math.min(batchSize, size.get()));
+        UrlAnalytics next;
+        while (batch.size() < batchSize && (next = createdLinks.poll()) != null) {
+            batch.add(next);
+            size.decrementAndGet();
+        }
+        return batch;
+    }
+
+    /**
+     * Take up to batchSize click counters off the journal
+     */
+    public Map<String, Long> drainClicks(int batchSize) {
+        Map<String, Long> batch = new HashMap<>();
+        for (String shortCode : clicks.keySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            Long count = clicks.remove(shortCode);
+            if (count != null) {
+                size.decrementAndGet();
+                batch.put(shortCode, count);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Take up to batchSize deactivated codes off the journal
+     */
+    public List<String> drainDeactivations(int batchSize) {
+        List<String> batch = new ArrayList<>();
+        for (String shortCode : deactivations) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            if (deactivations.remove(shortCode)) {
+                size.decrementAndGet();
+                batch.add(shortCode);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Put back links whose replay failed so they are retried on the next recovery
+     */
+    public void requeueCreates(List<UrlAnalytics> links) {
+        for (UrlAnalytics link : links) {
+            size.incrementAndGet();
+            createdLinks.add(link);
+        }
+    }
+
+    /**
+     * Put back click counters whose replay failed
+     */
+    public void requeueClicks(Map<String, Long> batch) {
+        batch.forEach(this::recordClicks);
+    }
+
+    /**
+     * Put back deactivations whose replay failed
+     */
+    public void requeueDeactivations(List<String> shortCodes) {
+        shortCodes.forEach(this::recordDeactivation);
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
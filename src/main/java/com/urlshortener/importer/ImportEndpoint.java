@@ -0,0 +1,52 @@
+package com.urlshortener.importer;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for link imports at /actuator/import: GET shows progress,
+ * POST {"file": "...", "mode": "write|resp"} starts or resumes an import, DELETE stops it
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "import")
+public class ImportEndpoint {
+
+    private final LinkImporter linkImporter;
+
+    public ImportEndpoint(LinkImporter linkImporter) {
+        this.linkImporter = linkImporter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return linkImporter.getProgress();
+    }
+
+    @WriteOperation
+    public Map<String, Object> start(String file, @CheckForNull String mode) {
+        LinkImporter.Mode importMode;
+        try {
+            importMode = mode == null ? LinkImporter.Mode.WRITE : LinkImporter.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Map.of("error", "Unknown mode: " + mode + " (expected write or resp)");
+        }
+        linkImporter.start(file, importMode);
+        return linkImporter.getProgress();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        linkImporter.stop();
+        return linkImporter.getProgress();
+    }
+}
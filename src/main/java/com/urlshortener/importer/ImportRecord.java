@@ -0,0 +1,47 @@
+package com.urlshortener.importer;
+
+/**
+ * One link to import, keeping the short code it had in the system it comes from
+ *
+ * @author URL Shortener Team
+ */
+public class ImportRecord {
+
+    private final String shortCode;
+    private final String originalUrl;
+    private final String createdAt;
+    private final int clickCount;
+    private final long ttlSeconds;
+
+    /**
+     * @param createdAt ISO-8601 local date-time, as stored for links created here
+     * @param ttlSeconds seconds until the link expires; 0 or less keeps it forever
+     */
+    public ImportRecord(String shortCode, String originalUrl, String createdAt, int clickCount, long ttlSeconds) {
+        this.shortCode = shortCode;
+        this.originalUrl = originalUrl;
+        this.createdAt = createdAt;
+        this.clickCount = clickCount;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getClickCount() {
+        return clickCount;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+}
@@ -0,0 +1,149 @@
+package com.urlshortener.importer;
+
+import com.urlshortener.blocklist.BlocklistService;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses and validates import lines of the form
+ * {@code code,destination,createdAt,clicks,ttlSeconds}, tab- or comma-separated.
+ * The destination is everything between the first field and the last three, so
+ * URLs with commas need no quoting. Empty createdAt, clicks and ttl default to
+ * now, 0 and no expiry. A first line without a URL is taken as a header.
+ * Safe to use from many threads.
+ *
+ * @author URL Shortener Team
+ */
+public class ImportRecordParser {
+
+    private static final int MAX_CODE_LENGTH = 32;
+
+    private final BlocklistService blocklistService;
+
+    /**
+     * @param blocklistService rejects blocked destinations, or null to skip the check
+     */
+    public ImportRecordParser(BlocklistService blocklistService) {
+        this.blocklistService = blocklistService;
+    }
+
+    /**
+     * Outcome of parsing one line: a record, an error, or neither for lines to skip
+     */
+    public static final class Result {
+
+        private final long lineNumber;
+        private final ImportRecord record;
+        private final String error;
+
+        Result(long lineNumber, ImportRecord record, String error) {
+            this.lineNumber = lineNumber;
+            this.record = record;
+            this.error = error;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public ImportRecord getRecord() {
+            return record;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSkipped() {
+            return record == null && error == null;
+        }
+    }
+
+    public Result parse(String line, long lineNumber) {
+        String trimmed = line.strip();
+        if (trimmed.isEmpty() || trimmed.startsWith("#") || (lineNumber == 1 && !trimmed.contains("://"))) {
+            return new Result(lineNumber, null, null);
+        }
+        try {
+            return new Result(lineNumber, toRecord(line), null);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return new Result(lineNumber, null, e.getMessage());
+        }
+    }
+
+    private ImportRecord toRecord(String line) {
+        char separator = line.indexOf('\t') >= 0 ? '\t' : ',';
+        int first = line.indexOf(separator);
+        int third = line.lastIndexOf(separator);
+        int second = third <= 0 ? -1 : line.lastIndexOf(separator, third - 1);
+        int last = second <= 0 ? -1 : line.lastIndexOf(separator, second - 1);
+        if (first < 0 || last <= first) {
+            throw new IllegalArgumentException("Expected code, destination, createdAt, clicks and ttl");
+        }
+        String shortCode = line.substring(0, first).strip();
+        String originalUrl = line.substring(first + 1, last).strip();
+        String createdAt = line.substring(last + 1, second).strip();
+        String clicks = line.substring(second + 1, third).strip();
+        String ttl = line.substring(third + 1).strip();
+
+        if (!isValidCode(shortCode)) {
+            throw new IllegalArgumentException("Invalid short code");
+        }
+        if (!isValidUrl(originalUrl)) {
+            throw new IllegalArgumentException("Invalid URL format");
+        }
+        if (blocklistService != null && blocklistService.isBlocked(originalUrl)) {
+            throw new IllegalArgumentException("URL is blocked");
+        }
+        int clickCount = clicks.isEmpty() ? 0 : Integer.parseInt(clicks);
+        if (clickCount < 0) {
+            throw new IllegalArgumentException("Negative click count");
+        }
+        long ttlSeconds = ttl.isEmpty() ? 0 : Math.max(0, Long.parseLong(ttl));
+        return new ImportRecord(shortCode, originalUrl, parseCreatedAt(createdAt), clickCount, ttlSeconds);
+    }
+
+    /**
+     * Codes must be reachable as /{code}: letters and digits, not a page path
+     */
+    static boolean isValidCode(String shortCode) {
+        if (shortCode.isEmpty() || shortCode.length() > MAX_CODE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < shortCode.length(); i++) {
+            char c = shortCode.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return !"about".equals(shortCode) && !"analytics".equals(shortCode) && !"shorten".equals(shortCode);
+    }
+
+    private static boolean isValidUrl(String url) {
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return false;
+        }
+        for (int i = 0; i < url.length(); i++) {
+            if (Character.isWhitespace(url.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keep local date-times as they are; convert ones with an offset to local time
+     */
+    private static String parseCreatedAt(String value) {
+        if (value.isEmpty()) {
+            return LocalDateTime.now().toString();
+        }
+        if (value.endsWith("Z") || value.lastIndexOf('+') > 0 || value.lastIndexOf('-') > 9) {
+            return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime().toString();
+        }
+        return LocalDateTime.parse(value).toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.urlshortener.importer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Backend that can store imported links under their existing short codes
+ *
+ * @author URL Shortener Team
+ */
+public interface LinkImportTarget {
+
+    /** What happened to one imported link */
+    enum Outcome {
+        /** Stored */
+        IMPORTED,
+        /** The code already points at the same destination, e.g. from an interrupted run */
+        ALREADY_PRESENT,
+        /** The code is taken by another link; nothing was written */
+        CONFLICT
+    }
+
+    /**
+     * Name shown in import progress
+     */
+    String getImportTargetName();
+
+    /**
+     * Store a batch of links, never overwriting an existing code.
+     * Backends with a remote store write the batch in one pipelined round trip.
+     *
+     * @param records links to store, already validated
+     * @return one outcome per record, in the same order
+     */
+    List<Outcome> importLinks(List<ImportRecord> records);
+
+    /**
+     * Write the batch as Redis protocol commands, for loading with redis-cli --pipe,
+     * instead of storing it
+     *
+     * @throws UnsupportedOperationException if the backend cannot be loaded this way
+     */
+    default void writeMassInsert(List<ImportRecord> records, OutputStream out) throws IOException {
+        throw new UnsupportedOperationException(getImportTargetName() + " does not support mass-insert files");
+    }
+
+    /**
+     * Nodes the mass-insert is split over, one file each, since redis-cli --pipe loads
+     * a single node
+     *
+     * @return the nodes, or an empty list when the whole batch goes to one file
+     */
+    default List<String> getMassInsertNodes() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Write the records of the batch that the given node owns, as writeMassInsert does
+     *
+     * @param node one of getMassInsertNodes
+     */
+    default void writeMassInsert(List<ImportRecord> records, String node, OutputStream out) throws IOException {
+        throw new UnsupportedOperationException(getImportTargetName() + " does not split mass-insert files");
+    }
+}
@@ -0,0 +1,501 @@
+package com.urlshortener.importer;
+
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.service.DelegatingUrlShortenerService;
+import com.urlshortener.service.FailoverUrlShortenerService;
+import com.urlshortener.service.UrlShortenerService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads links exported from another shortener, keeping their short codes.
+ * The file is read in chunks; each chunk is validated in parallel while the one
+ * before it is written to the backend in a single pipelined batch. After every
+ * chunk the byte offset and counters are checkpointed next to the file, so an
+ * import stopped or killed part way resumes where it left off. A code that already
+ * holds the same destination counts as already present rather than a conflict,
+ * which makes replaying the chunk in flight at a crash harmless.
+ *
+ * Invalid lines and conflicting codes are written to {@code <file>.rejects}.
+ * In RESP mode nothing is stored: the links are written to {@code <file>.resp}
+ * for loading with {@code redis-cli --pipe}, which does not report conflicts.
+ * A sharded backend gets one {@code <file>.<node>.resp} per node instead, each
+ * holding the links that node owns.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class LinkImporter {
+
+    /** Import states reported through actuator */
+    public enum State { IDLE, RUNNING, COMPLETED, STOPPED, FAILED }
+
+    /** Where imported links go */
+    public enum Mode {
+        /** Store through the configured backend */
+        WRITE,
+        /** Write a Redis protocol file for redis-cli --pipe */
+        RESP
+    }
+
+    private final ObjectProvider<UrlShortenerService> urlShortenerService;
+    private final ObjectProvider<BlocklistService> blocklistService;
+    private final Path directory;
+    private final int batchSize;
+    private final int parallelism;
+
+    private volatile State state = State.IDLE;
+    private volatile boolean stopRequested;
+    private volatile Path file;
+    private volatile Mode mode;
+    private volatile String targetName;
+    private volatile String error;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile long totalBytes;
+    private volatile long resumedFromLine;
+    private volatile long processedThisRun;
+
+    // Written by the import thread only; read for progress
+    private volatile long offset;
+    private volatile long lines;
+    private volatile long imported;
+    private volatile long alreadyPresent;
+    private volatile long conflicts;
+    private volatile long invalid;
+    private volatile long rejectsLength;
+    private volatile List<String> respNodes = List.of();
+    private volatile Map<String, Long> respLengths = new LinkedHashMap<>();
+
+    public LinkImporter(ObjectProvider<UrlShortenerService> urlShortenerService,
+                        ObjectProvider<BlocklistService> blocklistService,
+                        @Value("${app.import.directory:imports}") String directory,
+                        @Value("${app.import.batch-size:5000}") int batchSize,
+                        @Value("${app.import.parallelism:0}") int parallelism) {
+        this.urlShortenerService = urlShortenerService;
+        this.blocklistService = blocklistService;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Start importing a file from the import directory on a background thread,
+     * resuming from its checkpoint if there is one
+     *
+     * @param fileName file name, relative to app.import.directory
+     * @return false if an import is running or the file or backend cannot be used; see getProgress
+     */
+    public synchronized boolean start(String fileName, Mode mode) {
+        if (state == State.RUNNING) {
+            return false;
+        }
+        try {
+            prepare(fileName, mode);
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            error = e.getMessage();
+            state = State.FAILED;
+            return false;
+        }
+        state = State.RUNNING;
+        stopRequested = false;
+        LinkImportTarget target = target();
+        Thread thread = new Thread(() -> run(target), "link-import");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Ask a running import to stop after its current chunk; a later start resumes it
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Resolve the file and backend and load the checkpoint, if any
+     */
+    void prepare(String fileName, Mode mode) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("No file given");
+        }
+        Path path = directory.resolve(fileName).normalize();
+        if (!path.startsWith(directory) || !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("No such file in " + directory + ": " + fileName);
+        }
+        LinkImportTarget target = target();
+        if (target == null) {
+            throw new IllegalStateException("The configured backend does not support imports");
+        }
+        this.file = path;
+        this.mode = mode;
+        this.targetName = target.getImportTargetName();
+        this.respNodes = mode == Mode.RESP ? List.copyOf(target.getMassInsertNodes()) : List.of();
+        this.totalBytes = Files.size(path);
+        this.error = null;
+        this.startedAt = System.currentTimeMillis();
+        this.finishedAt = 0;
+        this.processedThisRun = 0;
+        offset = 0;
+        lines = 0;
+        imported = 0;
+        alreadyPresent = 0;
+        conflicts = 0;
+        invalid = 0;
+        rejectsLength = 0;
+        respLengths = new LinkedHashMap<>();
+        loadCheckpoint();
+        resumedFromLine = lines;
+    }
+
+    /**
+     * Run the prepared import on the calling thread
+     */
+    void run(LinkImportTarget target) {
+        ImportRecordParser parser = new ImportRecordParser(blocklistService.getIfAvailable());
+        ForkJoinPool validators = new ForkJoinPool(parallelism);
+        Map<String, FileChannel> resp = new LinkedHashMap<>();
+        Map<String, OutputStream> respOut = new LinkedHashMap<>();
+        try (FileInputStream input = new FileInputStream(file.toFile());
+             FileChannel rejects = open(sibling(".rejects"), rejectsLength);
+             OutputStream rejectsOut = new BufferedOutputStream(Channels.newOutputStream(rejects))) {
+            if (mode == Mode.RESP) {
+                for (String part : respParts()) {
+                    FileChannel channel = open(respFile(part), respLengths.getOrDefault(part, 0L));
+                    resp.put(part, channel);
+                    respOut.put(part, new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                }
+            }
+            input.getChannel().position(offset);
+            LineReader reader = new LineReader(new BufferedInputStream(input, 1 << 16), offset);
+
+            Chunk chunk = readChunk(reader, lines);
+            CompletableFuture<List<ImportRecordParser.Result>> validated = validate(chunk, parser, validators);
+            while (!chunk.lines.isEmpty()) {
+                Chunk next = readChunk(reader, chunk.firstLine + chunk.lines.size());
+                CompletableFuture<List<ImportRecordParser.Result>> nextValidated = validate(next, parser, validators);
+
+                write(target, validated.join(), chunk, rejectsOut, respOut);
+                rejectsOut.flush();
+                rejectsLength = rejects.position();
+                for (Map.Entry<String, OutputStream> out : respOut.entrySet()) {
+                    out.getValue().flush();
+                    respLengths.put(out.getKey(), resp.get(out.getKey()).position());
+                }
+                offset = chunk.endOffset;
+                lines = chunk.firstLine + chunk.lines.size();
+                saveCheckpoint();
+
+                if (stopRequested) {
+                    finish(State.STOPPED);
+                    return;
+                }
+                chunk = next;
+                validated = nextValidated;
+            }
+            Files.deleteIfExists(sibling(".checkpoint"));
+            finish(State.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+            finish(State.FAILED);
+        } finally {
+            for (OutputStream out : respOut.values()) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Everything checkpointed was flushed already
+                }
+            }
+            validators.shutdownNow();
+        }
+    }
+
+    private void write(LinkImportTarget target, List<ImportRecordParser.Result> results, Chunk chunk,
+                       OutputStream rejectsOut, Map<String, OutputStream> respOut) throws IOException {
+        List<ImportRecord> records = new ArrayList<>(results.size());
+        List<ImportRecordParser.Result> accepted = new ArrayList<>(results.size());
+        for (ImportRecordParser.Result result : results) {
+            if (result.getError() != null) {
+                invalid++;
+                reject(rejectsOut, result.getLineNumber(), null, result.getError());
+            } else if (!result.isSkipped()) {
+                records.add(result.getRecord());
+                accepted.add(result);
+            }
+        }
+        if (!respOut.isEmpty()) {
+            if (respNodes.isEmpty()) {
+                target.writeMassInsert(records, respOut.get(""));
+            } else {
+                for (String node : respNodes) {
+                    target.writeMassInsert(records, node, respOut.get(node));
+                }
+            }
+            imported += records.size();
+        } else if (!records.isEmpty()) {
+            List<LinkImportTarget.Outcome> outcomes = target.importLinks(records);
+            for (int i = 0; i < outcomes.size(); i++) {
+                switch (outcomes.get(i)) {
+                    case IMPORTED:
+                        imported++;
+                        break;
+                    case ALREADY_PRESENT:
+                        alreadyPresent++;
+                        break;
+                    default:
+                        conflicts++;
+                        reject(rejectsOut, accepted.get(i).getLineNumber(), records.get(i).getShortCode(),
+                            "Short code already taken");
+                        break;
+                }
+            }
+        }
+        processedThisRun += chunk.lines.size();
+    }
+
+    private static void reject(OutputStream out, long lineNumber, String shortCode, String reason) throws IOException {
+        out.write((lineNumber + "\t" + (shortCode == null ? "-" : shortCode) + "\t" + reason + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Chunk readChunk(LineReader reader, long firstLine) throws IOException {
+        List<String> chunkLines = new ArrayList<>(batchSize);
+        String line;
+        while (chunkLines.size() < batchSize && (line = reader.readLine()) != null) {
+            chunkLines.add(line);
+        }
+        return new Chunk(chunkLines, firstLine, reader.offset);
+    }
+
+    private static CompletableFuture<List<ImportRecordParser.Result>> validate(Chunk chunk, ImportRecordParser parser,
+                                                                              ForkJoinPool validators) {
+        return CompletableFuture.supplyAsync(() -> IntStream.range(0, chunk.lines.size())
+            .parallel()
+            .mapToObj(i -> parser.parse(chunk.lines.get(i), chunk.firstLine + i + 1))
+            .collect(Collectors.toList()), validators);
+    }
+
+    /**
+     * Open an output file positioned at the length recorded in the checkpoint,
+     * dropping whatever was written after it
+     */
+    private static FileChannel open(Path path, long length) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+        channel.truncate(length);
+        channel.position(length);
+        return channel;
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path checkpoint = sibling(".checkpoint");
+        if (!Files.exists(checkpoint)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        if (Long.parseLong(properties.getProperty("fileLength", "-1")) != totalBytes
+                || !mode.name().equals(properties.getProperty("mode"))
+                || !String.join(",", respNodes).equals(properties.getProperty("respNodes", ""))) {
+            throw new IllegalStateException("Checkpoint " + checkpoint.getFileName()
+                + " is for another file, mode or set of nodes; delete it to start over");
+        }
+        offset = Long.parseLong(properties.getProperty("offset"));
+        lines = Long.parseLong(properties.getProperty("lines"));
+        imported = Long.parseLong(properties.getProperty("imported"));
+        alreadyPresent = Long.parseLong(properties.getProperty("alreadyPresent"));
+        conflicts = Long.parseLong(properties.getProperty("conflicts"));
+        invalid = Long.parseLong(properties.getProperty("invalid"));
+        rejectsLength = Long.parseLong(properties.getProperty("rejectsLength"));
+        for (String part : respParts()) {
+            respLengths.put(part, Long.parseLong(properties.getProperty(respLengthKey(part), "0")));
+        }
+    }
+
+    /**
+     * Replace the checkpoint atomically, so a crash leaves the old one or the new one
+     */
+    private void saveCheckpoint() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("fileLength", Long.toString(totalBytes));
+        properties.setProperty("mode", mode.name());
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("lines", Long.toString(lines));
+        properties.setProperty("imported", Long.toString(imported));
+        properties.setProperty("alreadyPresent", Long.toString(alreadyPresent));
+        properties.setProperty("conflicts", Long.toString(conflicts));
+        properties.setProperty("invalid", Long.toString(invalid));
+        properties.setProperty("rejectsLength", Long.toString(rejectsLength));
+        properties.setProperty("respNodes", String.join(",", respNodes));
+        for (String part : respParts()) {
+            properties.setProperty(respLengthKey(part), Long.toString(respLengths.getOrDefault(part, 0L)));
+        }
+        Path checkpoint = sibling(".checkpoint");
+        Path temporary = sibling(".checkpoint.tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path sibling(String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * The RESP files of this import by part: one per node, or the single part ""
+     */
+    private List<String> respParts() {
+        return respNodes.isEmpty() ? List.of("") : respNodes;
+    }
+
+    private Path respFile(String part) {
+        return sibling(part.isEmpty() ? ".resp" : "." + part.replace(':', '_') + ".resp");
+    }
+
+    private static String respLengthKey(String part) {
+        return part.isEmpty() ? "respLength" : "respLength." + part;
+    }
+
+    private void finish(State result) {
+        finishedAt = System.currentTimeMillis();
+        state = result;
+        System.out.println("📥 Link import " + result + ": " + imported + " imported, " + alreadyPresent
+            + " already present, " + conflicts + " conflicts, " + invalid + " invalid in "
+            + (finishedAt - startedAt) + " ms" + (error == null ? "" : " (" + error + ")"));
+    }
+
+    /**
+     * The store behind the service decorators; imports into Redis skip the in-memory fallback
+     */
+    private LinkImportTarget target() {
+        UrlShortenerService service = urlShortenerService.getIfAvailable();
+        while (service != null && !(service instanceof LinkImportTarget)) {
+            if (service instanceof DelegatingUrlShortenerService) {
+                service = ((DelegatingUrlShortenerService) service).getDelegate();
+            } else if (service instanceof FailoverUrlShortenerService) {
+                service = ((FailoverUrlShortenerService) service).getPrimary();
+            } else {
+                service = null;
+            }
+        }
+        return (LinkImportTarget) service;
+    }
+
+    /**
+     * File, counters and throughput for the actuator endpoint
+     */
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("file", file == null ? null : file.getFileName().toString());
+        progress.put("mode", mode == null ? null : mode.name().toLowerCase(Locale.ROOT));
+        progress.put("target", targetName);
+        if (mode == Mode.RESP && file != null) {
+            progress.put("respFiles", respParts().stream()
+                .map(part -> respFile(part).getFileName().toString())
+                .collect(Collectors.toList()));
+        }
+        progress.put("lines", lines);
+        progress.put("imported", imported);
+        progress.put("alreadyPresent", alreadyPresent);
+        progress.put("conflicts", conflicts);
+        progress.put("invalid", invalid);
+        progress.put("bytesRead", offset);
+        progress.put("totalBytes", totalBytes);
+        progress.put("percent", totalBytes == 0 ? 0 : Math.round(1000.0 * offset / totalBytes) / 10.0);
+        progress.put("resumedFromLine", resumedFromLine);
+        long end = state == State.RUNNING ? System.currentTimeMillis() : finishedAt;
+        long elapsed = startedAt == 0 ? 0 : Math.max(0, end - startedAt);
+        progress.put("elapsedMs", elapsed);
+        progress.put("linesPerSecond", elapsed == 0 ? 0 : processedThisRun * 1000 / elapsed);
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private static final class Chunk {
+
+        private final List<String> lines;
+        private final long firstLine;
+        private final long endOffset;
+
+        Chunk(List<String> lines, long firstLine, long endOffset) {
+            this.lines = lines;
+            this.firstLine = firstLine;
+            this.endOffset = endOffset;
+        }
+    }
+
+    /**
+     * Reads UTF-8 lines and counts the bytes consumed, so the checkpoint can
+     * record an exact position to seek back to
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        private long offset;
+
+        LineReader(InputStream in, long offset) {
+            this.in = in;
+            this.offset = offset;
+        }
+
+        String readLine() throws IOException {
+            line.reset();
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    return decode();
+                }
+                line.write(b);
+            }
+            return line.size() == 0 ? null : decode();
+        }
+
+        private String decode() {
+            String text = line.toString(StandardCharsets.UTF_8);
+            return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.urlshortener.importer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes commands in the Redis protocol (RESP), the format redis-cli --pipe reads
+ *
+ * @author URL Shortener Team
+ */
+public final class RespWriter {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private RespWriter() {
+    }
+
+    /**
+     * Write one command as an array of bulk strings
+     *
+     * @param arguments command name and arguments; Strings are written as UTF-8
+     */
+    public static void writeCommand(OutputStream out, Object... arguments) throws IOException {
+        writeHeader(out, '*', arguments.length);
+        for (Object argument : arguments) {
+            byte[] bytes = argument instanceof byte[]
+                ? (byte[]) argument
+                : String.valueOf(argument).getBytes(StandardCharsets.UTF_8);
+            writeHeader(out, '$', bytes.length);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+    }
+
+    private static void writeHeader(OutputStream out, char type, int length) throws IOException {
+        out.write(type);
+        out.write(Integer.toString(length).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+}
@@ -0,0 +1,88 @@
+package com.urlshortener.ratelimit;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-client and global rate limiting for redirects and link creation.
+ * Redirects only touch the in-process token buckets; creates can also be
+ * checked against a cluster-wide Redis sliding window.
+ *
+ * @author URL Shortener Team
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final TokenBucketTable redirectClients;
+    private final StripedTokenBucket redirectGlobal;
+    private final TokenBucketTable shortenClients;
+    private final StripedTokenBucket shortenGlobal;
+    private final RedisSlidingWindowRateLimiter shortenCluster;
+    private final boolean trustForwardedFor;
+    private final Counter redirectRejections;
+    private final Counter shortenRejections;
+
+    public RateLimitFilter(TokenBucketTable redirectClients, StripedTokenBucket redirectGlobal,
+                           TokenBucketTable shortenClients, StripedTokenBucket shortenGlobal,
+                           RedisSlidingWindowRateLimiter shortenCluster, boolean trustForwardedFor,
+                           MeterRegistry meterRegistry) {
+        this.redirectClients = redirectClients;
+        this.redirectGlobal = redirectGlobal;
+        this.shortenClients = shortenClients;
+        this.shortenGlobal = shortenGlobal;
+        this.shortenCluster = shortenCluster;
+        this.trustForwardedFor = trustForwardedFor;
+        this.redirectRejections = meterRegistry.counter("ratelimit.rejected", "class", "redirect");
+        this.shortenRejections = meterRegistry.counter("ratelimit.rejected", "class", "create");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        TrafficClass trafficClass = TrafficClass.classify(request);
+        if (trafficClass == TrafficClass.REDIRECT) {
+            if (!redirectClients.tryAcquire(clientKey(request)) || !redirectGlobal.tryAcquire()) {
+                redirectRejections.increment();
+                reject(response, redirectClients.millisUntilRefill());
+                return;
+            }
+        } else if (trafficClass == TrafficClass.CREATE) {
+            String clientKey = clientKey(request);
+            if (!shortenClients.tryAcquire(clientKey) || !shortenGlobal.tryAcquire()) {
+                shortenRejections.increment();
+                reject(response, shortenClients.millisUntilRefill());
+                return;
+            }
+            if (shortenCluster != null && !shortenCluster.tryAcquire(clientKey)) {
+                shortenRejections.increment();
+                reject(response, shortenCluster.getWindowMillis());
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isEmpty()) {
+                int comma = forwardedFor.indexOf(',');
+                return comma < 0 ? forwardedFor : forwardedFor.substring(0, comma).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterMillis) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.urlshortener.ratelimit;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.Arrays;
+
+/**
+ * Cluster-wide sliding window limiter backed by Redis.
+ * Uses the two-window approximation: the previous window's count is weighted
+ * by how much of it still overlaps the sliding window. The check and the
+ * increment run in one script call. Redis errors fail open and pause the
+ * limiter briefly so an outage does not add a timeout to every request.
+ *
+ * @author URL Shortener Team
+ */
+public class RedisSlidingWindowRateLimiter {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+    private static final long FAILURE_BACKOFF_MILLIS = 5000;
+
+    private static final DefaultRedisScript<Long> SCRIPT = new DefaultRedisScript<>(
+        "local previous = tonumber(redis.call('GET', KEYS[2]) or '0') "
+            + "local current = tonumber(redis.call('GET', KEYS[1]) or '0') "
+            + "if previous * tonumber(ARGV[2]) + current >= tonumber(ARGV[1]) then return 0 end "
+            + "redis.call('INCR', KEYS[1]) "
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) "
+            + "return 1",
+        Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String name;
+    private final long limit;
+    private final long windowMillis;
+
+    private volatile long pausedUntil;
+
+    public RedisSlidingWindowRateLimiter(RedisTemplate<String, Object> redisTemplate, String name,
+                                         long limit, long windowMillis) {
+        this.redisTemplate = redisTemplate;
+        this.name = name;
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Count a request against the client's cluster-wide window
+     *
+     * @param clientKey client key
+     * @return false if the client is over its limit
+     */
+    public boolean tryAcquire(String clientKey) {
+        long now = System.currentTimeMillis();
+        if (now < pausedUntil) {
+            return true;
+        }
+        long window = now / windowMillis;
+        double previousWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+        String prefix = KEY_PREFIX + name + ":" + clientKey + ":";
+        try {
+            Long allowed = redisTemplate.execute(SCRIPT,
+                Arrays.asList(prefix + window, prefix + (window - 1)),
+                limit, previousWeight, windowMillis * 2);
+            return allowed == null || allowed == 1L;
+        } catch (RuntimeException e) {
+            pausedUntil = now + FAILURE_BACKOFF_MILLIS;
+            return true;
+        }
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+}
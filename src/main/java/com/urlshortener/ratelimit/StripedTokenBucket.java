@@ -0,0 +1,61 @@
+package com.urlshortener.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Global token bucket split into independent stripes so that request threads
+ * do not all CAS on the same cache line. Each stripe refills at rate / stripes;
+ * a thread whose stripe is empty tries one neighbour before giving up.
+ *
+ * @author URL Shortener Team
+ */
+public class StripedTokenBucket {
+
+    private static final int TOKEN_BITS = 26;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    /** Longs between stripes, keeps each stripe on its own cache line */
+    private static final int PAD = 8;
+
+    private final AtomicLongArray stripes;
+    private final int stripeMask;
+    private final long capacityUnits;
+    private final double unitsPerMilli;
+    private final long epochMillis;
+
+    public StripedTokenBucket(double ratePerSecond, int burst) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+        this.stripes = new AtomicLongArray(stripeCount * PAD);
+        this.stripeMask = stripeCount - 1;
+        this.capacityUnits = Math.min(TOKEN_MASK, Math.max(TokenBucketTable.UNIT, (long) burst * TokenBucketTable.UNIT / stripeCount));
+        this.unitsPerMilli = ratePerSecond * TokenBucketTable.UNIT / 1000.0 / stripeCount;
+        this.epochMillis = System.currentTimeMillis();
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.set(i * PAD, capacityUnits);
+        }
+    }
+
+    public boolean tryAcquire() {
+        long now = System.currentTimeMillis() - epochMillis;
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        return tryAcquire(stripe, now) || tryAcquire((stripe + 1) & stripeMask, now);
+    }
+
+    private boolean tryAcquire(int stripe, long now) {
+        int index = stripe * PAD;
+        while (true) {
+            long state = stripes.get(index);
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long refill = now > last ? (long) ((now - last) * unitsPerMilli) : 0;
+            long refillTime = refill > 0 ? now : last;
+            long available = Math.min(capacityUnits, tokens + refill);
+            if (available < TokenBucketTable.UNIT) {
+                return false;
+            }
+            long next = (refillTime << TOKEN_BITS) | (available - TokenBucketTable.UNIT);
+            if (stripes.compareAndSet(index, state, next)) {
+                return true;
+            }
+        }
+    }
+}
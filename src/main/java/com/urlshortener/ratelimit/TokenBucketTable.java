@@ -0,0 +1,155 @@
+package com.urlshortener.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free table of per-key token buckets.
+ * Each slot holds a 64-bit key hash and a packed bucket state
+ * (refill time in milliseconds and fixed-point tokens) updated with CAS;
+ * a slot changes keys only while its state is reserved.
+ * Memory is bounded by the table size: when a key's probe window is full,
+ * the least recently refilled bucket is evicted, so millions of distinct
+ * clients cost nothing beyond the preallocated arrays.
+ *
+ * @author URL Shortener Team
+ */
+public class TokenBucketTable {
+
+    /** Token fractions per whole token */
+    static final long UNIT = 1024;
+
+    private static final int TOKEN_BITS = 26;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final int PROBES = 4;
+    /** State of a slot whose key is being replaced; its refill time is never reached */
+    private static final long CLAIMING = -1;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray states;
+    private final int mask;
+    private final long capacityUnits;
+    private final double unitsPerMilli;
+    private final long epochMillis;
+
+    /**
+     * @param tableSize number of slots, rounded up to a power of two
+     * @param ratePerSecond tokens added per second
+     * @param burst bucket capacity in tokens
+     */
+    public TokenBucketTable(int tableSize, double ratePerSecond, int burst) {
+        long capacity = (long) burst * UNIT;
+        if (burst <= 0 || capacity > TOKEN_MASK) {
+            throw new IllegalArgumentException("Burst must be between 1 and " + (TOKEN_MASK / UNIT));
+        }
+        int size = Integer.highestOneBit(Math.max(PROBES, tableSize - 1)) << 1;
+        this.keys = new AtomicLongArray(size);
+        this.states = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacityUnits = capacity;
+        this.unitsPerMilli = ratePerSecond * UNIT / 1000.0;
+        this.epochMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Take one token from the key's bucket
+     *
+     * @param key client key
+     * @return true if the request is allowed
+     */
+    public boolean tryAcquire(String key) {
+        return tryAcquire(hash(key), System.currentTimeMillis() - epochMillis);
+    }
+
+    boolean tryAcquire(long keyHash, long now) {
+        int slot = slotFor(keyHash, now);
+        while (true) {
+            long state = states.get(slot);
+            // A claim reserves the state before it changes the key, so a state read
+            // before the key was checked belongs to this key's bucket
+            if (state == CLAIMING || keys.get(slot) != keyHash) {
+                Thread.onSpinWait();
+                slot = slotFor(keyHash, now);
+                continue;
+            }
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long refill = now > last ? (long) ((now - last) * unitsPerMilli) : 0;
+            long refillTime = refill > 0 ? now : last;
+            long available = Math.min(capacityUnits, tokens + refill);
+            if (available < UNIT) {
+                return false;
+            }
+            long next = (refillTime << TOKEN_BITS) | (available - UNIT);
+            if (states.compareAndSet(slot, state, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Milliseconds until the key's bucket holds a whole token again
+     */
+    public long millisUntilRefill() {
+        return unitsPerMilli <= 0 ? 1000 : (long) Math.ceil(UNIT / unitsPerMilli);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private int slotFor(long keyHash, long now) {
+        while (true) {
+            int home = (int) keyHash & mask;
+            int victim = home;
+            long victimTime = Long.MAX_VALUE;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (home + i) & mask;
+                long owner = keys.get(slot);
+                if (owner == keyHash || owner == 0 && claim(slot, 0, keyHash, now)) {
+                    return slot;
+                }
+                long refilled = states.get(slot) >>> TOKEN_BITS;
+                if (refilled < victimTime) {
+                    victimTime = refilled;
+                    victim = slot;
+                }
+            }
+            long owner = keys.get(victim);
+            if (owner == keyHash || claim(victim, owner, keyHash, now)) {
+                return victim;
+            }
+            // Lost a race for the slot, possibly to this same key; probe again
+        }
+    }
+
+    /**
+     * Take over a slot: reserve its state, swap the key, then publish a full bucket.
+     * Readers retry while the state is reserved, so no one consumes the evicted
+     * key's tokens or has a consumed token overwritten by the fresh bucket.
+     */
+    private boolean claim(int slot, long expectedOwner, long keyHash, long now) {
+        long state = states.get(slot);
+        if (state == CLAIMING || !states.compareAndSet(slot, state, CLAIMING)) {
+            return false;
+        }
+        if (!keys.compareAndSet(slot, expectedOwner, keyHash)) {
+            states.set(slot, state);
+            return false;
+        }
+        states.set(slot, (now << TOKEN_BITS) | capacityUnits);
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars; never returns the empty-slot marker 0
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 29;
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,102 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.bots.ClickSource;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves redirects from bots and prefetches without counting them as clicks.
+ * They are resolved like any other redirect, so near-cached links cost no
+ * backend call at all, but skip the event stream, click dimensions, dashboard
+ * and backend counters. Instead they are counted per link on this pod and
+ * reported as botClickCount; writing them anywhere would bring back the load
+ * this removes.
+ *
+ * @author URL Shortener Team
+ */
+public class BotFilteringUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final ConcurrentHashMap<String, LongAdder> botClicks = new ConcurrentHashMap<>();
+    private final int maxTrackedLinks;
+
+    /**
+     * @param maxTrackedLinks links whose bot clicks are counted; bot clicks on further links are only served
+     */
+    public BotFilteringUrlShortenerService(UrlShortenerService delegate, int maxTrackedLinks) {
+        super(delegate);
+        this.maxTrackedLinks = maxTrackedLinks;
+    }
+
+    @Override
+    public void trackClick(String shortCode, ClickContext context) {
+        if (isAutomated(context)) {
+            countBotClick(shortCode);
+        } else {
+            delegate.trackClick(shortCode, context);
+        }
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        if (!isAutomated(context)) {
+            return delegate.redirect(shortCode, context);
+        }
+        String originalUrl = delegate.getOriginalUrl(shortCode);
+        if (originalUrl != null) {
+            countBotClick(shortCode);
+        }
+        return originalUrl;
+    }
+
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        UrlAnalytics analytics = delegate.getUrlAnalytics(shortCode);
+        if (analytics != null) {
+            analytics.setBotClickCount(getBotClicks(shortCode));
+        }
+        return analytics;
+    }
+
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        List<UrlAnalytics> urls = delegate.queryUrls(query);
+        if (!botClicks.isEmpty()) {
+            for (UrlAnalytics analytics : urls) {
+                analytics.setBotClickCount(getBotClicks(analytics.getShortCode()));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Bot and prefetch redirects of a link served by this pod
+     */
+    public long getBotClicks(String shortCode) {
+        LongAdder clicks = botClicks.get(shortCode);
+        return clicks == null ? 0 : clicks.sum();
+    }
+
+    public int getTrackedLinks() {
+        return botClicks.size();
+    }
+
+    private static boolean isAutomated(ClickContext context) {
+        return context != null && context.getSource() != ClickSource.HUMAN;
+    }
+
+    private void countBotClick(String shortCode) {
+        LongAdder clicks = botClicks.get(shortCode);
+        if (clicks == null) {
+            if (botClicks.size() >= maxTrackedLinks) {
+                return;
+            }
+            clicks = botClicks.computeIfAbsent(shortCode, code -> new LongAdder());
+        }
+        clicks.increment();
+    }
+}
@@ -0,0 +1,305 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.cluster.ConsistentHashRing;
+import com.urlshortener.cluster.PeerClient;
+import com.urlshortener.cluster.PeerDiscovery;
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Peer-to-peer replicated URL Shortener Service for multi-pod deployments without Redis.
+ * Short codes are partitioned over the peers with consistent hashing; creates are
+ * replicated to the owning peers and lookups are forwarded to them. When the ring
+ * changes, each node hands its links to the owners they gained, and a node shutting
+ * down hands all of its links to the ring without it, so scale-downs and rolling
+ * updates that replace one pod at a time keep every link. Deactivations reach every
+ * peer, so no owner or remote hit cache keeps serving the link.
+ *
+ * @author URL Shortener Team
+ */
+public class ClusteredUrlShortenerService implements UrlShortenerService {
+
+    private final InMemoryUrlShortenerService localStore;
+    private final PeerDiscovery discovery;
+    private final PeerClient peerClient;
+    private final RemoteHitCache remoteHitCache;
+    private final int replicationFactor;
+    private final long replicationTimeoutMillis;
+
+    /** Links handed off per round of concurrent replica writes */
+    static final int HANDOFF_BATCH = 256;
+
+    private ConsistentHashRing balancedRing;
+
+    public ClusteredUrlShortenerService(InMemoryUrlShortenerService localStore,
+                                        PeerDiscovery discovery,
+                                        PeerClient peerClient,
+                                        RemoteHitCache remoteHitCache,
+                                        int replicationFactor,
+                                        long replicationTimeoutMillis) {
+        this.localStore = localStore;
+        this.discovery = discovery;
+        this.peerClient = peerClient;
+        this.remoteHitCache = remoteHitCache;
+        this.replicationFactor = replicationFactor;
+        this.replicationTimeoutMillis = replicationTimeoutMillis;
+        this.balancedRing = discovery.getRing();
+    }
+
+    /**
+     * Shorten URL and replicate it to the owning peers
+     */
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        ShortenUrlResponse response = localStore.shortenUrl(request);
+        String shortCode = response.getShortCode();
+        UrlAnalytics analytics = localStore.getUrlAnalytics(shortCode);
+
+        List<String> owners = owners(shortCode);
+        boolean selfOwner = owners.contains(self());
+        List<CompletableFuture<Boolean>> acks = new ArrayList<>();
+        for (String owner : owners) {
+            if (!owner.equals(self())) {
+                acks.add(peerClient.replicate(owner, analytics));
+            }
+        }
+
+        boolean replicated = acks.isEmpty();
+        for (CompletableFuture<Boolean> ack : acks) {
+            try {
+                replicated |= ack.get(replicationTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Peer did not answer in time, keep the local copy below
+            }
+        }
+
+        // Keep the link only on its owners once at least one peer has it
+        if (!selfOwner && replicated) {
+            localStore.evict(shortCode);
+            remoteHitCache.put(shortCode, response.getOriginalUrl());
+        }
+        return response;
+    }
+
+    /**
+     * Get original URL from the local partition, the remote hit cache or the owners
+     */
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        if (shortCode == null) {
+            return null;
+        }
+        String originalUrl = localStore.getOriginalUrl(shortCode);
+        if (originalUrl != null) {
+            return originalUrl;
+        }
+        originalUrl = remoteHitCache.get(shortCode);
+        if (originalUrl != null) {
+            return originalUrl;
+        }
+        for (String owner : owners(shortCode)) {
+            if (owner.equals(self())) {
+                continue;
+            }
+            originalUrl = peerClient.fetchUrl(owner, shortCode);
+            if (originalUrl != null) {
+                remoteHitCache.put(shortCode, originalUrl);
+                return originalUrl;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Track click on the primary owner so counts are not split across replicas
+     */
+    @Override
+    public void trackClick(String shortCode) {
+        String primary = discovery.getRing().primary(shortCode);
+        if (primary == null || primary.equals(self())) {
+            localStore.trackClick(shortCode);
+        } else {
+            peerClient.forwardClick(primary, shortCode);
+        }
+    }
+
+    /**
+     * Get analytics from the primary owner, falling back to replicas
+     */
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        for (String owner : owners(shortCode)) {
+            UrlAnalytics analytics = owner.equals(self())
+                ? localStore.getUrlAnalytics(shortCode)
+                : peerClient.fetchAnalytics(owner, shortCode);
+            if (analytics != null) {
+                return analytics;
+            }
+        }
+        return localStore.getUrlAnalytics(shortCode);
+    }
+
+    /**
+     * Summary of the links held by this node's partition
+     */
+    @Override
+    public AnalyticsSummary getAnalyticsSummary() {
+        return localStore.getAnalyticsSummary();
+    }
+
+    /**
+     * Top links of this node's partition
+     */
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        return localStore.queryUrls(query);
+    }
+
+    /**
+     * Visit the links held by this node's partition
+     */
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        localStore.forEachUrl(action);
+    }
+
+    /**
+     * Deactivate a link on every peer: its owners stop serving it and the others drop
+     * their cached copy
+     *
+     * @return true if any node held the link and deactivated it
+     */
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        boolean deactivated = deactivateLocal(shortCode);
+        List<CompletableFuture<Boolean>> acks = new ArrayList<>();
+        for (String peer : discovery.getRing().getNodes()) {
+            if (!peer.equals(self())) {
+                acks.add(peerClient.deactivate(peer, shortCode));
+            }
+        }
+        for (CompletableFuture<Boolean> ack : acks) {
+            deactivated |= await(ack);
+        }
+        return deactivated;
+    }
+
+    /**
+     * Deactivate a link in this node's partition and drop any cached remote copy
+     *
+     * @return true if this node held the link and deactivated it
+     */
+    public boolean deactivateLocal(String shortCode) {
+        remoteHitCache.invalidate(shortCode);
+        return localStore.deactivateUrl(shortCode);
+    }
+
+    /**
+     * Hand links to their new owners once discovery has rebuilt the ring
+     */
+    @Scheduled(initialDelayString = "${app.cluster.discovery-interval-ms:10000}",
+               fixedDelayString = "${app.cluster.discovery-interval-ms:10000}")
+    public synchronized void rebalanceIfRingChanged() {
+        ConsistentHashRing ring = discovery.getRing();
+        if (ring == balancedRing) {
+            return;
+        }
+        int copies = rebalance(balancedRing, ring);
+        balancedRing = ring;
+        System.out.println("🔀 Cluster ring now " + ring.getNodes().size() + " nodes, " + copies
+            + " link copies handed off");
+    }
+
+    /**
+     * Hand every link held here to the ring without this node before shutting down
+     */
+    @PreDestroy
+    public synchronized void handOff() {
+        ConsistentHashRing ring = discovery.getRing();
+        List<String> others = new ArrayList<>(ring.getNodes());
+        others.remove(self());
+        if (others.isEmpty()) {
+            return;
+        }
+        int copies = rebalance(ring, new ConsistentHashRing(others));
+        System.out.println("🔀 Cluster node leaving, " + copies + " link copies handed off");
+    }
+
+    /**
+     * Send the links held here to owners they gain from one ring to the next. A link
+     * this node no longer owns goes to all its new owners and is dropped here once one
+     * of them stored it; otherwise it stays until a later pass.
+     *
+     * @return number of copies the peers stored
+     */
+    int rebalance(ConsistentHashRing from, ConsistentHashRing to) {
+        List<UrlAnalytics> links = new ArrayList<>();
+        localStore.forEachLink(links::add);
+        int copies = 0;
+        for (int start = 0; start < links.size(); start += HANDOFF_BATCH) {
+            List<UrlAnalytics> batch = links.subList(start, Math.min(links.size(), start + HANDOFF_BATCH));
+            List<List<CompletableFuture<Boolean>>> acks = new ArrayList<>(batch.size());
+            List<Boolean> leaving = new ArrayList<>(batch.size());
+            for (UrlAnalytics link : batch) {
+                String shortCode = link.getShortCode();
+                List<String> previousOwners = from.owners(shortCode, replicationFactor);
+                List<String> owners = to.owners(shortCode, replicationFactor);
+                boolean leave = !owners.contains(self());
+                List<CompletableFuture<Boolean>> linkAcks = new ArrayList<>();
+                for (String owner : owners) {
+                    if (!owner.equals(self()) && (leave || !previousOwners.contains(owner))) {
+                        linkAcks.add(peerClient.replicate(owner, link));
+                    }
+                }
+                acks.add(linkAcks);
+                leaving.add(leave);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                boolean stored = false;
+                for (CompletableFuture<Boolean> ack : acks.get(i)) {
+                    if (await(ack)) {
+                        stored = true;
+                        copies++;
+                    }
+                }
+                if (leaving.get(i) && stored) {
+                    localStore.evict(batch.get(i).getShortCode());
+                }
+            }
+        }
+        return copies;
+    }
+
+    private boolean await(CompletableFuture<Boolean> ack) {
+        try {
+            return Boolean.TRUE.equals(ack.get(replicationTimeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            // Peer did not answer in time
+            return false;
+        }
+    }
+
+    private List<String> owners(String shortCode) {
+        ConsistentHashRing ring = discovery.getRing();
+        return ring.owners(shortCode, replicationFactor);
+    }
+
+    private String self() {
+        return discovery.getSelfUrl();
+    }
+}
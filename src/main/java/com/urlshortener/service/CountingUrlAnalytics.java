@@ -0,0 +1,105 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Analytics entry of the in-memory store, safe to click from many threads at once.
+ * Clicks are added to a LongAdder, whose cells spread a hot link's redirects over
+ * separate counters instead of racing on one int. The last access is kept as epoch
+ * millis that only move forward, written at most once per millisecond; its timestamp
+ * string is built when the entry is read rather than on every click.
+ *
+ * @author URL Shortener Team
+ */
+final class CountingUrlAnalytics extends UrlAnalytics {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final AtomicLongFieldUpdater<CountingUrlAnalytics> LAST_ACCESS =
+        AtomicLongFieldUpdater.newUpdater(CountingUrlAnalytics.class, "lastAccessMillis");
+
+    private final LongAdder clicks = new LongAdder();
+    private volatile long lastAccessMillis;
+    private transient volatile Stamp stamp;
+
+    CountingUrlAnalytics(String shortCode, String storedUrl, String shortUrl, String createdAt, int clickCount,
+                         String lastAccessedAt, boolean active) {
+        super(shortCode, storedUrl, shortUrl, createdAt, 0, lastAccessedAt, active);
+        clicks.add(clickCount);
+    }
+
+    /**
+     * Add clicks and move the last access forward to the given time, if it is later
+     */
+    void recordClicks(long count, long atMillis) {
+        clicks.add(count);
+        long last = lastAccessMillis;
+        while (atMillis > last && !LAST_ACCESS.compareAndSet(this, last, atMillis)) {
+            last = lastAccessMillis;
+        }
+    }
+
+    /**
+     * A plain copy with the counts as of now, for callers outside the store
+     *
+     * @param originalUrl the URL to show, decoded if the stored one is compressed
+     */
+    UrlAnalytics snapshot(String originalUrl) {
+        return new UrlAnalytics(getShortCode(), originalUrl, getShortUrl(), getCreatedAt(), getClickCount(),
+            getLastAccessedAt(), isActive());
+    }
+
+    @Override
+    public int getClickCount() {
+        return (int) Math.min(Integer.MAX_VALUE, clicks.sum());
+    }
+
+    /**
+     * Replace the count; clicks recorded at the same time may be lost
+     */
+    @Override
+    public void setClickCount(int clickCount) {
+        clicks.reset();
+        clicks.add(clickCount);
+    }
+
+    @Override
+    public String getLastAccessedAt() {
+        long last = lastAccessMillis;
+        if (last == 0) {
+            return super.getLastAccessedAt();
+        }
+        Stamp current = stamp;
+        if (current == null || current.millis != last) {
+            current = new Stamp(last, LocalDateTime.ofInstant(Instant.ofEpochMilli(last), ZoneId.systemDefault()).toString());
+            stamp = current;
+        }
+        return current.text;
+    }
+
+    @Override
+    public void setLastAccessedAt(String lastAccessedAt) {
+        super.setLastAccessedAt(lastAccessedAt);
+        lastAccessMillis = 0;
+    }
+
+    /**
+     * Last access time and its formatted string, replaced together
+     */
+    private static final class Stamp {
+
+        private final long millis;
+        private final String text;
+
+        Stamp(long millis, String text) {
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+}
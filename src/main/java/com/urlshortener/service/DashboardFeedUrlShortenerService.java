@@ -0,0 +1,49 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.DashboardFeed;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+
+/**
+ * Reports links created and clicks served on this pod to the live dashboard feed
+ *
+ * @author URL Shortener Team
+ */
+public class DashboardFeedUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final DashboardFeed dashboardFeed;
+
+    public DashboardFeedUrlShortenerService(UrlShortenerService delegate, DashboardFeed dashboardFeed) {
+        super(delegate);
+        this.dashboardFeed = dashboardFeed;
+    }
+
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        ShortenUrlResponse response = delegate.shortenUrl(request);
+        dashboardFeed.recordUrl(response);
+        return response;
+    }
+
+    @Override
+    public void trackClick(String shortCode) {
+        delegate.trackClick(shortCode);
+        dashboardFeed.recordClick(shortCode);
+    }
+
+    @Override
+    public void trackClick(String shortCode, ClickContext context) {
+        delegate.trackClick(shortCode, context);
+        dashboardFeed.recordClick(shortCode);
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        String originalUrl = delegate.redirect(shortCode, context);
+        if (originalUrl != null) {
+            dashboardFeed.recordClick(shortCode);
+        }
+        return originalUrl;
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Base class for services that wrap another UrlShortenerService.
+ * Every call is forwarded unchanged; subclasses override what they add to.
+ * Subclasses that add to clicks override redirect as well as trackClick.
+ *
+ * @author URL Shortener Team
+ */
+public abstract class DelegatingUrlShortenerService implements UrlShortenerService {
+
+    protected final UrlShortenerService delegate;
+
+    protected DelegatingUrlShortenerService(UrlShortenerService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        return delegate.shortenUrl(request);
+    }
+
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        return delegate.getOriginalUrl(shortCode);
+    }
+
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        return delegate.resolveUrls(shortCodes);
+    }
+
+    @Override
+    public void trackClick(String shortCode) {
+        delegate.trackClick(shortCode);
+    }
+
+    @Override
+    public void trackClick(String shortCode, ClickContext context) {
+        delegate.trackClick(shortCode, context);
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        return delegate.redirect(shortCode, context);
+    }
+
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        return delegate.getUrlAnalytics(shortCode);
+    }
+
+    @Override
+    public AnalyticsSummary getAnalyticsSummary() {
+        return delegate.getAnalyticsSummary();
+    }
+
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        return delegate.queryUrls(query);
+    }
+
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        delegate.forEachUrl(action);
+    }
+
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        return delegate.deactivateUrl(shortCode);
+    }
+
+    /**
+     * The wrapped service
+     */
+    public UrlShortenerService getDelegate() {
+        return delegate;
+    }
+}
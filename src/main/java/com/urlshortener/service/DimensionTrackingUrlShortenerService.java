@@ -0,0 +1,36 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.ClickDimensionStore;
+import com.urlshortener.dto.ClickContext;
+
+/**
+ * Records the dimensions of every click with context in the columnar store,
+ * then hands the click on to the wrapped service for counting
+ *
+ * @author URL Shortener Team
+ */
+public class DimensionTrackingUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final ClickDimensionStore clickDimensionStore;
+
+    public DimensionTrackingUrlShortenerService(UrlShortenerService delegate,
+                                                ClickDimensionStore clickDimensionStore) {
+        super(delegate);
+        this.clickDimensionStore = clickDimensionStore;
+    }
+
+    @Override
+    public void trackClick(String shortCode, ClickContext context) {
+        clickDimensionStore.record(shortCode, context);
+        delegate.trackClick(shortCode, context);
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        String originalUrl = delegate.redirect(shortCode, context);
+        if (originalUrl != null) {
+            clickDimensionStore.record(shortCode, context);
+        }
+        return originalUrl;
+    }
+}
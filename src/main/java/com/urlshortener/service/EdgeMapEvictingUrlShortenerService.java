@@ -0,0 +1,31 @@
+package com.urlshortener.service;
+
+import com.urlshortener.edge.EdgeMapExporter;
+
+/**
+ * Drops deactivated links from the edge redirect map, so the ingress stops
+ * answering them before the next export. Only the exporting instance holds the
+ * map; a deactivation on another replica is found by the exporter's next check.
+ *
+ * @author URL Shortener Team
+ */
+public class EdgeMapEvictingUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final EdgeMapExporter edgeMapExporter;
+
+    public EdgeMapEvictingUrlShortenerService(UrlShortenerService delegate, EdgeMapExporter edgeMapExporter) {
+        super(delegate);
+        this.edgeMapExporter = edgeMapExporter;
+    }
+
+    /**
+     * Evict whatever the outcome, since a link that was already inactive here may
+     * still be mapped
+     */
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        boolean deactivated = delegate.deactivateUrl(shortCode);
+        edgeMapExporter.evict(shortCode);
+        return deactivated;
+    }
+}
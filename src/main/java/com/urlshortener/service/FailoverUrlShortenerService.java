@@ -0,0 +1,382 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.failover.CircuitBreaker;
+import com.urlshortener.failover.WriteJournal;
+import com.urlshortener.importer.LinkImportTarget;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Circuit-breaking router between Redis and the local in-memory store.
+ * Live call errors and latencies trip the breaker, after which requests are served
+ * by the fallback without touching Redis. Writes accepted while degraded are journaled
+ * and replayed to Redis in batches once health probes succeed again, links with the
+ * clicks they took on the fallback store meanwhile, deactivations included. A replayed link whose code was
+ * taken in Redis during the outage stays in the fallback store and is counted as a
+ * replay conflict.
+ *
+ * @author URL Shortener Team
+ */
+public class FailoverUrlShortenerService implements UrlShortenerService {
+
+    private final RedisLinkService primary;
+    private final InMemoryUrlShortenerService fallback;
+    private final CircuitBreaker circuitBreaker;
+    private final WriteJournal journal;
+    private final long maxProbeNanos;
+    private final int recoveryProbes;
+    private final int replayBatchSize;
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private final AtomicLong replayConflicts = new AtomicLong();
+    private int healthyProbes;
+
+    public FailoverUrlShortenerService(RedisLinkService primary,
+                                       InMemoryUrlShortenerService fallback,
+                                       CircuitBreaker circuitBreaker,
+                                       WriteJournal journal,
+                                       long maxProbeNanos,
+                                       int recoveryProbes,
+                                       int replayBatchSize) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.circuitBreaker = circuitBreaker;
+        this.journal = journal;
+        this.maxProbeNanos = maxProbeNanos;
+        this.recoveryProbes = recoveryProbes;
+        this.replayBatchSize = replayBatchSize;
+    }
+
+    /**
+     * Shorten URL in Redis, or in the fallback store with a journal entry while degraded
+     */
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                return callPrimary(() -> primary.shortenUrl(request));
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // Redis failed, fall through to the fallback store
+            }
+        }
+        ShortenUrlResponse response = fallback.shortenUrl(request);
+        journal.recordCreate(fallback.getUrlAnalytics(response.getShortCode()));
+        return response;
+    }
+
+    /**
+     * Get original URL from Redis, falling back to links created while degraded
+     */
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                String originalUrl = callPrimary(() -> primary.getOriginalUrl(shortCode));
+                if (originalUrl != null) {
+                    return originalUrl;
+                }
+            } catch (RuntimeException e) {
+                // Redis failed, try the fallback store
+            }
+        }
+        return fallback.getOriginalUrl(shortCode);
+    }
+
+    /**
+     * Resolve in one Redis pipeline, adding links created while degraded
+     */
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                List<ResolvedLink> links = new ArrayList<>(callPrimary(() -> primary.resolveUrls(shortCodes)));
+                for (int i = 0; i < links.size(); i++) {
+                    if (!links.get(i).isFound()) {
+                        String originalUrl = fallback.getOriginalUrl(shortCodes.get(i));
+                        if (originalUrl != null) {
+                            links.set(i, ResolvedLink.active(shortCodes.get(i), originalUrl, null));
+                        }
+                    }
+                }
+                return links;
+            } catch (RuntimeException e) {
+                // Redis failed, resolve from the fallback store
+            }
+        }
+        return fallback.resolveUrls(shortCodes);
+    }
+
+    /**
+     * Track click in Redis, or journal it for replay while degraded
+     */
+    @Override
+    public void trackClick(String shortCode) {
+        if (fallback.holds(shortCode)) {
+            fallback.trackClick(shortCode);
+            return;
+        }
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                callPrimary(() -> {
+                    primary.trackClick(shortCode);
+                    return null;
+                });
+                return;
+            } catch (RuntimeException e) {
+                // Redis failed, journal the click below
+            }
+        }
+        journal.recordClick(shortCode);
+    }
+
+    /**
+     * Resolve and count in Redis, or in the fallback store for links created while degraded
+     */
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        if (!fallback.holds(shortCode) && circuitBreaker.allowsCalls()) {
+            try {
+                String originalUrl = callPrimary(() -> primary.redirect(shortCode, context));
+                if (originalUrl != null) {
+                    return originalUrl;
+                }
+            } catch (RuntimeException e) {
+                // Redis failed, try the fallback store
+            }
+        }
+        String originalUrl = fallback.getOriginalUrl(shortCode);
+        if (originalUrl != null) {
+            fallback.trackClick(shortCode);
+        }
+        return originalUrl;
+    }
+
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                UrlAnalytics analytics = callPrimary(() -> primary.getUrlAnalytics(shortCode));
+                if (analytics != null) {
+                    return analytics;
+                }
+            } catch (RuntimeException e) {
+                // Redis failed, try the fallback store
+            }
+        }
+        return fallback.getUrlAnalytics(shortCode);
+    }
+
+    @Override
+    public AnalyticsSummary getAnalyticsSummary() {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                return callPrimary(primary::getAnalyticsSummary);
+            } catch (RuntimeException e) {
+                // Redis failed, report what the fallback store holds
+            }
+        }
+        return fallback.getAnalyticsSummary();
+    }
+
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                return callPrimary(() -> primary.queryUrls(query));
+            } catch (RuntimeException e) {
+                // Redis failed, answer from the fallback store
+            }
+        }
+        return fallback.queryUrls(query);
+    }
+
+    /**
+     * Visit links in Redis, when reachable, and links created while degraded
+     */
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                primary.forEachUrl(action);
+            } catch (RuntimeException e) {
+                // Redis failed mid-scan, the next scan will cover the rest
+            }
+        }
+        fallback.forEachUrl(action);
+    }
+
+    /**
+     * Deactivate in both stores; while degraded, a link not held by the fallback store
+     * is journaled and deactivated in Redis on recovery, so it counts as deactivated
+     */
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        boolean deactivated = fallback.deactivateUrl(shortCode);
+        if (circuitBreaker.allowsCalls()) {
+            try {
+                return callPrimary(() -> primary.deactivateUrl(shortCode)) || deactivated;
+            } catch (RuntimeException e) {
+                // Redis failed, journal the deactivation below
+            }
+        }
+        if (fallback.holds(shortCode)) {
+            // Created while degraded: the replayed link carries its inactive flag
+            return deactivated;
+        }
+        journal.recordDeactivation(shortCode);
+        return true;
+    }
+
+    /**
+     * Probe Redis health. Trips the breaker on a failed or slow probe and, while open,
+     * closes it again after enough healthy probes and a successful journal replay.
+     */
+    @Scheduled(fixedDelayString = "${app.failover.probe-interval-ms:1000}")
+    public void probe() {
+        if (!probing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long rtt = primary.ping();
+            if (rtt > maxProbeNanos) {
+                healthyProbes = 0;
+                circuitBreaker.open();
+                return;
+            }
+            if (circuitBreaker.allowsCalls()) {
+                if (!journal.isEmpty()) {
+                    replayJournal();
+                }
+                return;
+            }
+            if (++healthyProbes >= recoveryProbes && replayJournal()) {
+                healthyProbes = 0;
+                circuitBreaker.close();
+            }
+        } catch (RuntimeException e) {
+            healthyProbes = 0;
+            circuitBreaker.open();
+        } finally {
+            probing.set(false);
+        }
+    }
+
+    /**
+     * Replay journaled writes to Redis in pipelined batches
+     *
+     * @return true once the journal is empty
+     */
+    boolean replayJournal() {
+        while (!journal.isEmpty()) {
+            List<UrlAnalytics> links = currentCounts(journal.drainCreates(replayBatchSize));
+            List<LinkImportTarget.Outcome> outcomes;
+            try {
+                outcomes = links.isEmpty() ? List.of() : primary.replayLinks(links);
+            } catch (RuntimeException e) {
+                journal.requeueCreates(links);
+                return false;
+            }
+            for (int i = 0; i < links.size(); i++) {
+                String shortCode = links.get(i).getShortCode();
+                if (outcomes.get(i) == LinkImportTarget.Outcome.CONFLICT) {
+                    replayConflicts.incrementAndGet();
+                    System.out.println("❌ Replay conflict: " + shortCode + " is taken in Redis, kept locally");
+                } else {
+                    carryOverClicks(links.get(i), fallback.evict(shortCode));
+                }
+            }
+
+            Map<String, Long> clicks = journal.drainClicks(replayBatchSize);
+            try {
+                primary.replayClicks(clicks);
+            } catch (RuntimeException e) {
+                journal.requeueClicks(clicks);
+                return false;
+            }
+
+            List<String> deactivations = journal.drainDeactivations(replayBatchSize);
+            for (int i = 0; i < deactivations.size(); i++) {
+                try {
+                    primary.deactivateUrl(deactivations.get(i));
+                } catch (RuntimeException e) {
+                    journal.requeueDeactivations(deactivations.subList(i, deactivations.size()));
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The journaled links as the fallback store holds them now, with the clicks and
+     * deactivations recorded while degraded rather than as they were created
+     */
+    private List<UrlAnalytics> currentCounts(List<UrlAnalytics> journaled) {
+        List<UrlAnalytics> links = new ArrayList<>(journaled.size());
+        for (UrlAnalytics link : journaled) {
+            UrlAnalytics current = fallback.getUrlAnalytics(link.getShortCode());
+            links.add(current == null ? link : current);
+        }
+        return links;
+    }
+
+    /**
+     * Journal the clicks a link took on the fallback store between its replay and its
+     * eviction, so they are added to Redis with the next click batch
+     */
+    private void carryOverClicks(UrlAnalytics replayed, UrlAnalytics evicted) {
+        if (evicted != null && evicted.getClickCount() > replayed.getClickCount()) {
+            journal.recordClicks(replayed.getShortCode(), evicted.getClickCount() - replayed.getClickCount());
+        }
+    }
+
+    public RedisLinkService getPrimary() {
+        return primary;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public WriteJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Links replayed while their code was already taken in Redis by another destination
+     */
+    public long getReplayConflicts() {
+        return replayConflicts.get();
+    }
+
+    private <T> T callPrimary(Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            circuitBreaker.recordSuccess(System.nanoTime() - start);
+            return result;
+        } catch (IllegalArgumentException e) {
+            circuitBreaker.recordSuccess(System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+}
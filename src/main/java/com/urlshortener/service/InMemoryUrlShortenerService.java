@@ -4,15 +4,33 @@ import com.urlshortener.dto.ShortenUrlRequest;
 import com.urlshortener.dto.ShortenUrlResponse;
 import com.urlshortener.dto.UrlAnalytics;
 import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.analytics.AnalyticsQueryEngine;
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.capacity.CapacitySample;
+import com.urlshortener.capacity.CapacitySource;
+import com.urlshortener.capacity.HeapSize;
+import com.urlshortener.compression.UrlCodec;
+import com.urlshortener.compression.UrlDictionary;
+import com.urlshortener.events.ClickCounterStore;
+import com.urlshortener.events.ClickTally;
+import com.urlshortener.importer.ImportRecord;
+import com.urlshortener.importer.LinkImportTarget;
 import com.urlshortener.util.ShortCodeGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.List;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -22,10 +40,27 @@ import java.util.stream.Collectors;
  * @author URL Shortener Team
  */
 @Service
-public class InMemoryUrlShortenerService implements UrlShortenerService {
+public class InMemoryUrlShortenerService implements UrlShortenerService, ClickCounterStore, CapacitySource,
+        LinkImportTarget {
 
     private final ConcurrentMap<String, Object> urlCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, UrlAnalytics> analyticsCache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CountingUrlAnalytics> analyticsCache = new ConcurrentHashMap<>();
+
+    private static final int COMMITTED_BATCHES_KEPT = 10000;
+    private final Map<String, Boolean> committedBatches = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > COMMITTED_BATCHES_KEPT;
+        }
+    };
+
+    @Autowired(required = false)
+    private BlocklistService blocklistService;
+
+    @Autowired(required = false)
+    private UrlCodec urlCodec;
+
+    private Iterator<Map.Entry<String, CountingUrlAnalytics>> capacityCursor;
     
     /**
      * Shorten URL and store in memory cache
@@ -37,23 +72,20 @@ public class InMemoryUrlShortenerService implements UrlShortenerService {
         if (!isValidUrl(originalUrl)) {
             throw new IllegalArgumentException("Invalid URL format");
         }
+        if (blocklistService != null && blocklistService.isBlocked(originalUrl)) {
+            throw new IllegalArgumentException("URL is blocked");
+        }
         
         // Generate short code
         String shortCode = new ShortCodeGenerator().generate();
         
-        // Store in cache
-        urlCache.put(shortCode, originalUrl);
+        // Store in cache, sharing one encoded string with the analytics entry
+        String storedUrl = urlCodec == null ? originalUrl : urlCodec.encode(originalUrl);
+        urlCache.put(shortCode, storedUrl);
         
         // Create analytics entry
-        UrlAnalytics analytics = new UrlAnalytics();
-        analytics.setShortCode(shortCode);
-        analytics.setOriginalUrl(originalUrl);
-        analytics.setShortUrl("http://localhost:8080/" + shortCode);
-        analytics.setCreatedAt(LocalDateTime.now().toString());
-        analytics.setClickCount(0);
-        analytics.setLastAccessedAt(null);
-        analytics.setActive(true);
-        analyticsCache.put(shortCode, analytics);
+        analyticsCache.put(shortCode, new CountingUrlAnalytics(shortCode, storedUrl,
+            "http://localhost:8080/" + shortCode, LocalDateTime.now().toString(), 0, null, true));
         
         ShortenUrlResponse response = new ShortenUrlResponse();
         response.setShortCode(shortCode);
@@ -74,19 +106,18 @@ public class InMemoryUrlShortenerService implements UrlShortenerService {
         }
         
         Object data = urlCache.get(shortCode);
-        if (data instanceof String) return (String) data;
+        if (data instanceof String) return decodeUrl((String) data);
         return null;
     }
     
     /**
-     * Track click for analytics
+     * Track click for analytics, without locking or allocating
      */
     @Override
     public void trackClick(String shortCode) {
-        UrlAnalytics analytics = analyticsCache.get(shortCode);
+        CountingUrlAnalytics analytics = analyticsCache.get(shortCode);
         if (analytics != null) {
-            analytics.setClickCount(analytics.getClickCount() + 1);
-                analytics.setLastAccessedAt(LocalDateTime.now().toString());
+            analytics.recordClicks(1, System.currentTimeMillis());
         }
     }
     
@@ -95,52 +126,236 @@ public class InMemoryUrlShortenerService implements UrlShortenerService {
      */
     @Override
     public UrlAnalytics getUrlAnalytics(String shortCode) {
-        return analyticsCache.get(shortCode);
+        return snapshot(analyticsCache.get(shortCode));
     }
     
+    /**
+     * Whether a link was created or stored here, without copying its analytics
+     */
+    public boolean holds(String shortCode) {
+        return shortCode != null && analyticsCache.containsKey(shortCode);
+    }
+
     /**
      * Get overall analytics summary
      */
     @Override
     public AnalyticsSummary getAnalyticsSummary() {
-        List<UrlAnalytics> allAnalytics = new ArrayList<>(analyticsCache.values());
-        
-        long totalUrls = allAnalytics.size();
-        long totalClicks = allAnalytics.stream().mapToLong(UrlAnalytics::getClickCount).sum();
-        
-        String today = LocalDateTime.now().toLocalDate().atStartOfDay().toString();
-        long todayUrls = allAnalytics.stream()
-            .filter(a -> a.getCreatedAt() != null && a.getCreatedAt().startsWith(today.substring(0, 10)))
-            .count();
-        long todayClicks = allAnalytics.stream()
-            .filter(a -> a.getLastAccessedAt() != null && a.getLastAccessedAt().startsWith(today.substring(0, 10)))
-            .mapToLong(UrlAnalytics::getClickCount)
-            .sum();
-        
-        // Top 5 URLs by click count
-        List<UrlAnalytics> topUrls = allAnalytics.stream()
-            .sorted(Comparator.comparingInt(UrlAnalytics::getClickCount).reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-        
-        // Recent 5 URLs
-        List<UrlAnalytics> recentUrls = allAnalytics.stream()
-            .sorted(Comparator.comparing(UrlAnalytics::getCreatedAt).reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-        
-        AnalyticsSummary summary = new AnalyticsSummary();
-        summary.setTotalUrls(totalUrls);
-        summary.setTotalClicks(totalClicks);
-        summary.setTodayUrls(todayUrls);
-        summary.setTodayClicks(todayClicks);
-        summary.setTopUrls(topUrls);
-        summary.setRecentUrls(recentUrls);
-        summary.setLastUpdated(LocalDateTime.now().toString());
-        
+        // One parallel pass: totals, today's counts and both tables
+        AnalyticsSummary summary = AnalyticsQueryEngine.summarize(analyticsCache.values(), LocalDate.now());
+        summary.setTopUrls(summary.getTopUrls().stream().map(this::snapshot).collect(Collectors.toList()));
+        summary.setRecentUrls(summary.getRecentUrls().stream().map(this::snapshot).collect(Collectors.toList()));
         return summary;
     }
 
+    /**
+     * Top links by a parallel pass over the analytics map with bounded heaps
+     */
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        return AnalyticsQueryEngine.query(analyticsCache.values(), query).stream()
+            .map(this::snapshot)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Visit every link held in memory
+     */
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        urlCache.forEach((shortCode, data) -> {
+            if (data instanceof String) {
+                action.accept(shortCode, decodeUrl((String) data));
+            }
+        });
+    }
+
+    /**
+     * Stop serving a link, keeping its analytics marked inactive
+     */
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        boolean removed = urlCache.remove(shortCode) != null;
+        UrlAnalytics analytics = analyticsCache.get(shortCode);
+        if (analytics != null) {
+            analytics.setActive(false);
+        }
+        return removed;
+    }
+
+    /**
+     * Add a batch of aggregated clicks, remembering recent batch ids to skip redeliveries
+     */
+    @Override
+    public boolean applyClicks(String batchId, Map<String, ClickTally> tallies) {
+        synchronized (committedBatches) {
+            if (committedBatches.putIfAbsent(batchId, Boolean.TRUE) != null) {
+                return false;
+            }
+        }
+        tallies.forEach((shortCode, tally) -> {
+            CountingUrlAnalytics analytics = analyticsCache.get(shortCode);
+            if (analytics != null) {
+                analytics.recordClicks(tally.getCount(), tally.getLastClickAt());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Store a link created elsewhere, keeping its short code and analytics. The
+     * destination is checked like a new link's, and a code already holding another
+     * destination is never overwritten. Storing the same link again keeps the higher
+     * click count and a deactivation, so copies handed between nodes converge.
+     *
+     * @param analytics the link to store
+     * @return false if the code already holds a different destination
+     * @throws IllegalArgumentException if the destination is invalid or blocked
+     */
+    public boolean storeReplica(UrlAnalytics analytics) {
+        String originalUrl = analytics.getOriginalUrl();
+        if (!isValidUrl(originalUrl)) {
+            throw new IllegalArgumentException("Invalid URL format");
+        }
+        if (blocklistService != null && blocklistService.isBlocked(originalUrl)) {
+            throw new IllegalArgumentException("URL is blocked");
+        }
+        String shortCode = analytics.getShortCode();
+        String storedUrl = urlCodec == null ? originalUrl : urlCodec.encode(originalUrl);
+        CountingUrlAnalytics existing = analyticsCache.putIfAbsent(shortCode, new CountingUrlAnalytics(shortCode,
+            storedUrl, analytics.getShortUrl(), analytics.getCreatedAt(), analytics.getClickCount(),
+            analytics.getLastAccessedAt(), analytics.isActive()));
+        if (existing != null) {
+            if (!originalUrl.equals(decodeUrl(existing.getOriginalUrl()))) {
+                return false;
+            }
+            long missing = (long) analytics.getClickCount() - existing.getClickCount();
+            if (missing > 0) {
+                existing.recordClicks(missing, 0);
+            }
+            if (!analytics.isActive() && existing.isActive()) {
+                deactivateUrl(shortCode);
+            }
+            return true;
+        }
+        if (analytics.isActive()) {
+            urlCache.put(shortCode, storedUrl);
+        }
+        return true;
+    }
+
+    /**
+     * Visit a copy of every link held in memory, inactive ones included
+     */
+    public void forEachLink(Consumer<UrlAnalytics> action) {
+        analyticsCache.values().forEach(analytics -> action.accept(snapshot(analytics)));
+    }
+
+    @Override
+    public String getImportTargetName() {
+        return "memory";
+    }
+
+    /**
+     * Claim each code through the analytics map so concurrent creates cannot take it
+     * half way. Memory has no expiry, so TTLs are not kept.
+     */
+    @Override
+    public List<Outcome> importLinks(List<ImportRecord> records) {
+        List<Outcome> outcomes = new ArrayList<>(records.size());
+        for (ImportRecord record : records) {
+            String shortCode = record.getShortCode();
+            String storedUrl = urlCodec == null ? record.getOriginalUrl() : urlCodec.encode(record.getOriginalUrl());
+            CountingUrlAnalytics analytics = new CountingUrlAnalytics(shortCode, storedUrl,
+                "http://localhost:8080/" + shortCode, record.getCreatedAt(), record.getClickCount(), null, true);
+            CountingUrlAnalytics existing = analyticsCache.putIfAbsent(shortCode, analytics);
+            if (existing == null && !urlCache.containsKey(shortCode)) {
+                urlCache.put(shortCode, storedUrl);
+                outcomes.add(Outcome.IMPORTED);
+            } else if (existing != null && record.getOriginalUrl().equals(decodeUrl(existing.getOriginalUrl()))) {
+                outcomes.add(Outcome.ALREADY_PRESENT);
+            } else {
+                if (existing == null) {
+                    analyticsCache.remove(shortCode, analytics);
+                }
+                outcomes.add(Outcome.CONFLICT);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Remove a link from this node's memory
+     *
+     * @param shortCode the short code
+     * @return the link's analytics as of its removal, or null if it was not here
+     */
+    public UrlAnalytics evict(String shortCode) {
+        urlCache.remove(shortCode);
+        return snapshot(analyticsCache.remove(shortCode));
+    }
+
+    @Override
+    public String getCapacityName() {
+        return "memory";
+    }
+
+    /**
+     * Exact counts from the maps, heap use of the JVM, and the estimated heap size of the
+     * next entries of a cursor that walks the store a few entries per call, starting over
+     * at the end. The stored URL and short code are shared by both maps, so they are
+     * counted once, with the URL entry.
+     */
+    @Override
+    public synchronized CapacitySample sampleCapacity(int count) {
+        Runtime runtime = Runtime.getRuntime();
+        CapacitySample sample = new CapacitySample(urlCache.size() + analyticsCache.size(), urlCache.size(),
+            analyticsCache.size(), runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+        boolean restarted = false;
+        for (int i = 0; i < count; i++) {
+            if (capacityCursor == null || !capacityCursor.hasNext()) {
+                if (restarted) {
+                    break;
+                }
+                capacityCursor = analyticsCache.entrySet().iterator();
+                restarted = true;
+                if (!capacityCursor.hasNext()) {
+                    break;
+                }
+            }
+            Map.Entry<String, CountingUrlAnalytics> entry = capacityCursor.next();
+            Object storedUrl = urlCache.get(entry.getKey());
+            if (storedUrl != null) {
+                sample.add(CapacitySample.Kind.URL, HeapSize.MAP_NODE + HeapSize.MAP_SLOT
+                    + HeapSize.of(entry.getKey()) + HeapSize.of(storedUrl.toString()), CapacitySample.NO_TTL);
+            }
+            UrlAnalytics analytics = entry.getValue();
+            sample.add(CapacitySample.Kind.ANALYTICS, HeapSize.MAP_NODE + HeapSize.MAP_SLOT + HeapSize.COUNTING_URL_ANALYTICS
+                + HeapSize.of(analytics.getShortUrl()) + HeapSize.of(analytics.getCreatedAt())
+                + HeapSize.of(analytics.getLastAccessedAt()), CapacitySample.NO_TTL);
+        }
+        return sample;
+    }
+
+    private String decodeUrl(String storedUrl) {
+        return urlCodec == null ? storedUrl : urlCodec.decode(storedUrl);
+    }
+
+    /**
+     * Analytics as callers see them: a copy with the counts as of now, carrying
+     * the decoded URL when the stored one is compressed
+     */
+    private UrlAnalytics snapshot(UrlAnalytics analytics) {
+        if (analytics == null) {
+            return null;
+        }
+        String originalUrl = analytics.getOriginalUrl();
+        if (urlCodec != null && originalUrl != null && UrlDictionary.isEncoded(originalUrl)) {
+            originalUrl = urlCodec.decode(originalUrl);
+        }
+        return ((CountingUrlAnalytics) analytics).snapshot(originalUrl);
+    }
+
     /**
      * Validate URL format
      */
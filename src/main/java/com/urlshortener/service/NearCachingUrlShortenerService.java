@@ -0,0 +1,108 @@
+package com.urlshortener.service;
+
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves redirects for recently resolved links from a small local cache,
+ * in front of a remote store such as Redis. Entries expire after the cache TTL,
+ * which bounds how long a link deactivated on another pod keeps redirecting here.
+ *
+ * @author URL Shortener Team
+ */
+public class NearCachingUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final RemoteHitCache nearCache;
+
+    public NearCachingUrlShortenerService(UrlShortenerService delegate, RemoteHitCache nearCache) {
+        super(delegate);
+        this.nearCache = nearCache;
+    }
+
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        ShortenUrlResponse response = delegate.shortenUrl(request);
+        nearCache.put(response.getShortCode(), response.getOriginalUrl());
+        return response;
+    }
+
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        String originalUrl = nearCache.get(shortCode);
+        if (originalUrl != null) {
+            return originalUrl;
+        }
+        originalUrl = delegate.getOriginalUrl(shortCode);
+        if (originalUrl != null) {
+            nearCache.put(shortCode, originalUrl);
+        }
+        return originalUrl;
+    }
+
+    /**
+     * Count the click of a cached link, or resolve and count in one call below
+     */
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        String originalUrl = nearCache.get(shortCode);
+        if (originalUrl != null) {
+            delegate.trackClick(shortCode, context);
+            return originalUrl;
+        }
+        originalUrl = delegate.redirect(shortCode, context);
+        if (originalUrl != null) {
+            nearCache.put(shortCode, originalUrl);
+        }
+        return originalUrl;
+    }
+
+    /**
+     * Answer cached links whose expiry is known locally and resolve the rest
+     * with one call to the wrapped service, caching what it returns
+     */
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        ResolvedLink[] links = new ResolvedLink[shortCodes.size()];
+        List<String> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < links.length; i++) {
+            String shortCode = shortCodes.get(i);
+            String originalUrl = nearCache.get(shortCode);
+            long expiresAt = nearCache.getExpiresAt(shortCode);
+            if (originalUrl != null && expiresAt != RemoteHitCache.UNKNOWN_EXPIRY) {
+                links[i] = ResolvedLink.active(shortCode, originalUrl,
+                    expiresAt == RemoteHitCache.NO_EXPIRY ? null : Instant.ofEpochMilli(expiresAt));
+            } else {
+                misses.add(shortCode);
+                missIndexes.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<ResolvedLink> resolved = delegate.resolveUrls(misses);
+            for (int j = 0; j < resolved.size(); j++) {
+                ResolvedLink link = resolved.get(j);
+                links[missIndexes.get(j)] = link;
+                if (link.isActive()) {
+                    nearCache.put(link.getShortCode(), link.getOriginalUrl(), link.getExpiresAt() == null
+                        ? RemoteHitCache.NO_EXPIRY : link.getExpiresAt().toEpochMilli());
+                } else {
+                    nearCache.invalidate(link.getShortCode());
+                }
+            }
+        }
+        return List.of(links);
+    }
+
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        nearCache.invalidate(shortCode);
+        return delegate.deactivateUrl(shortCode);
+    }
+}
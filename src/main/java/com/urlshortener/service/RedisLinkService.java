@@ -0,0 +1,53 @@
+package com.urlshortener.service;
+
+import com.urlshortener.capacity.CapacitySource;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.events.ClickCounterStore;
+import com.urlshortener.importer.LinkImportTarget;
+import com.urlshortener.warmup.LinkWarmupSource;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Links held in Redis, on a single node or sharded over several. Besides serving
+ * requests it is the store behind the failover journal, the click aggregator,
+ * sliding expiration, warm-up, capacity sampling and imports.
+ *
+ * @author URL Shortener Team
+ */
+public interface RedisLinkService extends UrlShortenerService, ClickCounterStore, LinkWarmupSource,
+        CapacitySource, LinkImportTarget {
+
+    /**
+     * Measure a PING round trip to Redis
+     *
+     * @return round trip time in nanoseconds, the slowest node's when sharded
+     * @throws RuntimeException if Redis does not answer
+     */
+    long ping();
+
+    /**
+     * Store links created elsewhere, keeping their codes and analytics. A code already
+     * taken in Redis is left alone and reported.
+     *
+     * @param links links to store
+     * @return one outcome per link, in the same order
+     */
+    List<LinkImportTarget.Outcome> replayLinks(List<UrlAnalytics> links);
+
+    /**
+     * Add click counts accumulated elsewhere to the stored analytics, keeping the TTLs
+     *
+     * @param clicks click count per short code
+     */
+    void replayClicks(Map<String, Long> clicks);
+
+    /**
+     * Push out the expiry of links to ttlSeconds from now. Only raises TTLs, so links
+     * without expiry stay without.
+     *
+     * @return number of keys whose TTL was extended
+     */
+    int extendExpiry(List<String> shortCodes, long ttlSeconds);
+}
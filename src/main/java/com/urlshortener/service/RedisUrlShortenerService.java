@@ -1,35 +1,268 @@
 package com.urlshortener.service;
 
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.analytics.AnalyticsQueryEngine;
+import com.urlshortener.analytics.TopK;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
 import com.urlshortener.dto.ShortenUrlRequest;
 import com.urlshortener.dto.ShortenUrlResponse;
 import com.urlshortener.dto.UrlAnalytics;
 import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.capacity.CapacitySample;
+import com.urlshortener.compression.UrlCodec;
+import com.urlshortener.events.ClickTally;
+import com.urlshortener.expiry.SlidingExpiration;
+import com.urlshortener.importer.ImportRecord;
+import com.urlshortener.importer.LinkImportTarget;
+import com.urlshortener.importer.RespWriter;
 import com.urlshortener.util.ShortCodeGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.stereotype.Service;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Redis-based URL Shortener Service
- * Uses Redis for persistent, scalable caching
+ * Uses Redis for persistent, scalable caching.
+ * Created by RedisConfig, for one node or for each shard of a sharded setup.
  * 
  * @author URL Shortener Team
  */
-@Service
-public class RedisUrlShortenerService implements UrlShortenerService {
+public class RedisUrlShortenerService implements RedisLinkService {
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final ShortCodeGenerator shortCodeGenerator;
     
     private static final String URL_KEY_PREFIX = "url:";
     private static final String ANALYTICS_KEY_PREFIX = "analytics:";
+    private static final int DEFAULT_TTL_DAYS = 1;
+    private static final int SCAN_BATCH_SIZE = 1000;
+    private static final String CLICK_BATCH_KEY_PREFIX = "clickbatch:";
+    private static final long CLICK_BATCH_TTL_SECONDS = 24 * 60 * 60;
+
+    /**
+     * Marks the batch id committed and adds each count to its analytics JSON in place,
+     * all in one atomic step. KEYS: batch marker, analytics keys.
+     * ARGV: marker TTL, then count and last access time per analytics key.
+     */
+    private static final DefaultRedisScript<Long> APPLY_CLICKS_SCRIPT = new DefaultRedisScript<>(
+        "if not redis.call('SET', KEYS[1], '1', 'NX', 'EX', ARGV[1]) then return 0 end "
+            + "for i = 2, #KEYS do "
+            + "  local raw = redis.call('GET', KEYS[i]) "
+            + "  if raw then "
+            + "    local analytics = cjson.decode(raw) "
+            + "    analytics.clickCount = (tonumber(analytics.clickCount) or 0) + tonumber(ARGV[2 * i - 2]) "
+            + "    analytics.lastAccessedAt = ARGV[2 * i - 1] "
+            + "    redis.call('SET', KEYS[i], cjson.encode(analytics), 'KEEPTTL') "
+            + "  end "
+            + "end "
+            + "return 1",
+        Long.class);
+
+    /**
+     * Adds each count to its analytics JSON in place, keeping the TTL; missing keys are
+     * skipped. KEYS: analytics keys. ARGV: last access time, then the count per key.
+     */
+    private static final DefaultRedisScript<Long> ADD_CLICKS_SCRIPT = new DefaultRedisScript<>(
+        "for i = 1, #KEYS do "
+            + "  local raw = redis.call('GET', KEYS[i]) "
+            + "  if raw then "
+            + "    local analytics = cjson.decode(raw) "
+            + "    analytics.clickCount = (tonumber(analytics.clickCount) or 0) + tonumber(ARGV[i + 1]) "
+            + "    analytics.lastAccessedAt = ARGV[1] "
+            + "    redis.call('SET', KEYS[i], cjson.encode(analytics), 'KEEPTTL') "
+            + "  end "
+            + "end "
+            + "return #KEYS",
+        Long.class);
+
+    /**
+     * Stores a new link and its analytics with one TTL unless either key already exists.
+     * KEYS: url key, analytics key. ARGV: url JSON, analytics JSON, TTL seconds (0 for none).
+     */
+    private static final DefaultRedisScript<Long> CREATE_LINK_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1], KEYS[2]) > 0 then return 0 end "
+            + "if tonumber(ARGV[3]) > 0 then "
+            + "  redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3]) "
+            + "  redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3]) "
+            + "else "
+            + "  redis.call('SET', KEYS[1], ARGV[1]) "
+            + "  redis.call('SET', KEYS[2], ARGV[2]) "
+            + "end "
+            + "return 1",
+        Long.class);
+
+    /**
+     * Stores an imported link under its own code unless the code is taken. Returns 1 if
+     * stored, 2 if the code already holds the same url, 0 if it holds something else.
+     * KEYS: url key, analytics key. ARGV: url JSON, analytics JSON, TTL seconds (0 for none).
+     */
+    private static final DefaultRedisScript<Long> IMPORT_LINK_SCRIPT = new DefaultRedisScript<>(
+        "local existing = redis.call('GET', KEYS[1]) "
+            + "if existing then if existing == ARGV[1] then return 2 end return 0 end "
+            + "if redis.call('EXISTS', KEYS[2]) > 0 then return 0 end "
+            + "if tonumber(ARGV[3]) > 0 then "
+            + "  redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3]) "
+            + "  redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3]) "
+            + "else "
+            + "  redis.call('SET', KEYS[1], ARGV[1]) "
+            + "  redis.call('SET', KEYS[2], ARGV[2]) "
+            + "end "
+            + "return 1",
+        Long.class);
+
+    /**
+     * Returns the url JSON and, if the link exists, adds one click to its analytics.
+     * KEYS: url key, analytics key. ARGV: last access time.
+     */
+    private static final DefaultRedisScript<String> REDIRECT_SCRIPT = new DefaultRedisScript<>(
+        "local url = redis.call('GET', KEYS[1]) "
+            + "if not url then return false end "
+            + "local raw = redis.call('GET', KEYS[2]) "
+            + "if raw then "
+            + "  local analytics = cjson.decode(raw) "
+            + "  analytics.clickCount = (tonumber(analytics.clickCount) or 0) + 1 "
+            + "  analytics.lastAccessedAt = ARGV[1] "
+            + "  redis.call('SET', KEYS[2], cjson.encode(analytics), 'KEEPTTL') "
+            + "end "
+            + "return url",
+        String.class);
+
+    /**
+     * Adds one click to an analytics entry in place. KEYS: analytics key. ARGV: last access time.
+     */
+    private static final DefaultRedisScript<Long> TRACK_CLICK_SCRIPT = new DefaultRedisScript<>(
+        "local raw = redis.call('GET', KEYS[1]) "
+            + "if not raw then return 0 end "
+            + "local analytics = cjson.decode(raw) "
+            + "analytics.clickCount = (tonumber(analytics.clickCount) or 0) + 1 "
+            + "analytics.lastAccessedAt = ARGV[1] "
+            + "redis.call('SET', KEYS[1], cjson.encode(analytics), 'KEEPTTL') "
+            + "return 1",
+        Long.class);
+
+    /**
+     * Raises the TTL of each key to ARGV[1] milliseconds if it currently expires sooner.
+     * Keys without a TTL and missing keys are left alone. KEYS: url and analytics keys.
+     */
+    private static final DefaultRedisScript<Long> EXTEND_EXPIRY_SCRIPT = new DefaultRedisScript<>(
+        "local extended = 0 "
+            + "for i = 1, #KEYS do "
+            + "  local ttl = redis.call('PTTL', KEYS[i]) "
+            + "  if ttl > 0 and ttl < tonumber(ARGV[1]) then "
+            + "    redis.call('PEXPIRE', KEYS[i], ARGV[1]) "
+            + "    extended = extended + 1 "
+            + "  end "
+            + "end "
+            + "return extended",
+        Long.class);
+
+    /**
+     * Picks ARGV[1] random keys and returns key, MEMORY USAGE and PTTL for each, flattened.
+     * Keys may repeat; a key that expired between the calls reports a PTTL of -2.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SAMPLE_KEYS_SCRIPT = new DefaultRedisScript<>(
+        "local sampled = {} "
+            + "for i = 1, tonumber(ARGV[1]) do "
+            + "  local key = redis.call('RANDOMKEY') "
+            + "  if not key then break end "
+            + "  sampled[#sampled + 1] = key "
+            + "  sampled[#sampled + 1] = tostring(redis.call('MEMORY', 'USAGE', key) or 0) "
+            + "  sampled[#sampled + 1] = tostring(redis.call('PTTL', key)) "
+            + "end "
+            + "return sampled",
+        List.class);
+
+    /**
+     * Snapshots a link for a move: DUMP and PTTL of both keys and the click count the
+     * analytics held at that moment. KEYS: url key, analytics key.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SNAPSHOT_LINK_SCRIPT = new DefaultRedisScript<>(
+        "local raw = redis.call('GET', KEYS[2]) "
+            + "local clicks = -1 "
+            + "if raw then clicks = tonumber(cjson.decode(raw).clickCount) or 0 end "
+            + "return {redis.call('DUMP', KEYS[1]), redis.call('PTTL', KEYS[1]), "
+            + "  redis.call('DUMP', KEYS[2]), redis.call('PTTL', KEYS[2]), clicks}",
+        List.class);
+
+    /**
+     * Restores the keys of a moved link that are not present yet, with their remaining
+     * TTL in milliseconds (0 for none). KEYS: url key, analytics key. ARGV: url dump,
+     * url TTL, analytics dump, analytics TTL; an empty dump skips its key. Returns a
+     * bitmask: 1 url restored, 2 analytics restored, 4 url already present, 8 analytics
+     * already present. Both keys are written here, so Jedis keeps the reply in the
+     * pipeline and TTLs are not limited to an int.
+     */
+    private static final DefaultRedisScript<Long> RESTORE_LINK_SCRIPT = new DefaultRedisScript<>(
+        "local result = 0 "
+            + "for i = 1, 2 do "
+            + "  local dump = ARGV[2 * i - 1] "
+            + "  if dump ~= '' then "
+            + "    if redis.call('EXISTS', KEYS[i]) == 1 then "
+            + "      result = result + 4 * i "
+            + "    else "
+            + "      redis.call('RESTORE', KEYS[i], ARGV[2 * i], dump) "
+            + "      result = result + i "
+            + "    end "
+            + "  end "
+            + "end "
+            + "return result",
+        Long.class);
+
+    /**
+     * Deletes both keys of a moved link and returns the click count its analytics held
+     * at that moment, or -1 if there were none. KEYS: url key, analytics key.
+     */
+    private static final DefaultRedisScript<Long> DRAIN_LINK_SCRIPT = new DefaultRedisScript<>(
+        "local raw = redis.call('GET', KEYS[2]) "
+            + "redis.call('DEL', KEYS[1], KEYS[2]) "
+            + "if not raw then return -1 end "
+            + "return tonumber(cjson.decode(raw).clickCount) or 0",
+        Long.class);
+
+    private static final int MAX_CREATE_ATTEMPTS = 5;
+    private static final RedisSerializer<String> URL_SERIALIZER = new Jackson2JsonRedisSerializer<>(String.class);
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private BlocklistService blocklistService;
+    private SlidingExpiration slidingExpiration;
+    private UrlCodec urlCodec;
+    private boolean scriptsEnabled = true;
 
     @Autowired
     public RedisUrlShortenerService(RedisTemplate<String, Object> redisTemplate, 
@@ -42,41 +275,43 @@ public class RedisUrlShortenerService implements UrlShortenerService {
      * Shorten URL and store in Redis
      */
     public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
-        System.out.println("🔍 RedisUrlShortenerService.shortenUrl called");
         String originalUrl = request.getUrl();
         
         // Validate URL
         if (!isValidUrl(originalUrl)) {
             throw new IllegalArgumentException("Invalid URL format");
         }
+        if (blocklistService != null && blocklistService.isBlocked(originalUrl)) {
+            throw new IllegalArgumentException("URL is blocked");
+        }
+        
+        // Set default TTL to 1 day (Redis will handle expiration)
+        long ttlSeconds = DEFAULT_TTL_DAYS * 24 * 60 * 60; // Convert days to seconds
+        
+        if (scriptsEnabled) {
+            return createWithScript(originalUrl, ttlSeconds);
+        }
         
         // Generate short code
         String shortCode = shortCodeGenerator.generate();
-        System.out.println("🔍 Generated shortCode: " + shortCode);
-        
-        // Set default TTL to 1 day (Redis will handle expiration)
-        int defaultExpirationDays = 1;
-        long ttlSeconds = defaultExpirationDays * 24 * 60 * 60; // Convert days to seconds
         
         // Store in Redis - simplified approach
         String urlKey = URL_KEY_PREFIX + shortCode;
         String analyticsKey = ANALYTICS_KEY_PREFIX + shortCode;
         
-        System.out.println("🔍 Storing URL in Redis with key: " + urlKey);
-        redisTemplate.opsForValue().set(urlKey, originalUrl);
+        String storedUrl = encodeUrl(originalUrl);
+        redisTemplate.opsForValue().set(urlKey, storedUrl);
         
         // Create and store analytics
-        System.out.println("🔍 Creating analytics object");
         UrlAnalytics analytics = new UrlAnalytics();
         analytics.setShortCode(shortCode);
-        analytics.setOriginalUrl(originalUrl);
+        analytics.setOriginalUrl(storedUrl);
         analytics.setShortUrl("http://localhost:8080/" + shortCode);
         analytics.setCreatedAt(LocalDateTime.now().toString());
         analytics.setClickCount(0);
         analytics.setLastAccessedAt(null);
         analytics.setActive(true);
         
-        System.out.println("🔍 Storing analytics in Redis with key: " + analyticsKey);
         redisTemplate.opsForValue().set(analyticsKey, analytics);
         
         // Set TTL if specified
@@ -86,7 +321,6 @@ public class RedisUrlShortenerService implements UrlShortenerService {
         }
         
         // Create response
-        System.out.println("🔍 Creating response");
         ShortenUrlResponse response = new ShortenUrlResponse();
         response.setShortCode(shortCode);
         response.setShortUrl("http://localhost:8080/" + shortCode);
@@ -94,29 +328,103 @@ public class RedisUrlShortenerService implements UrlShortenerService {
         response.setCreatedAt(LocalDateTime.now());
         response.setActive(true);
         
-        System.out.println("✅ RedisUrlShortenerService.shortenUrl SUCCESS");
         return response;
     }
     
+    /**
+     * Store a new link in one script call, drawing a new short code on collision
+     */
+    private ShortenUrlResponse createWithScript(String originalUrl, long ttlSeconds) {
+        RedisSerializer<Object> valueSerializer = valueSerializer();
+        String storedUrl = encodeUrl(originalUrl);
+        for (int attempt = 0; attempt < MAX_CREATE_ATTEMPTS; attempt++) {
+            String shortCode = shortCodeGenerator.generate();
+            LocalDateTime createdAt = LocalDateTime.now();
+            UrlAnalytics analytics = new UrlAnalytics(shortCode, storedUrl, "http://localhost:8080/" + shortCode,
+                createdAt.toString(), 0, null, true);
+            Long created = redisTemplate.execute(CREATE_LINK_SCRIPT, StringRedisSerializer.UTF_8, LONG_SERIALIZER,
+                List.of(URL_KEY_PREFIX + shortCode, ANALYTICS_KEY_PREFIX + shortCode),
+                new String(valueSerializer.serialize(storedUrl), StandardCharsets.UTF_8),
+                new String(valueSerializer.serialize(analytics), StandardCharsets.UTF_8),
+                Long.toString(ttlSeconds));
+            if (created != null && created == 1L) {
+                ShortenUrlResponse response = new ShortenUrlResponse();
+                response.setShortCode(shortCode);
+                response.setShortUrl(analytics.getShortUrl());
+                response.setOriginalUrl(originalUrl);
+                response.setCreatedAt(createdAt);
+                response.setActive(true);
+                return response;
+            }
+        }
+        throw new IllegalStateException("No free short code after " + MAX_CREATE_ATTEMPTS + " attempts");
+    }
+    
     /**
      * Get original URL by short code from Redis
      */
     @Override
     public String getOriginalUrl(String shortCode) {
         String urlKey = URL_KEY_PREFIX + shortCode;
-        String originalUrl = (String) redisTemplate.opsForValue().get(urlKey);
+        String originalUrl = decodeUrl((String) redisTemplate.opsForValue().get(urlKey));
         
         // Simple approach - if key exists and has TTL, it's valid
         // Redis will automatically expire the key when TTL is reached
+        if (originalUrl != null) {
+            touch(shortCode);
+        }
         return originalUrl;
     }
     
+    /**
+     * Resolve many short codes with one pipeline: GET and PTTL of each url: key,
+     * and EXISTS of its analytics: key to tell deactivated links from unknown ones
+     */
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        List<ResolvedLink> links = new ArrayList<>(shortCodes.size());
+        if (shortCodes.isEmpty()) {
+            return links;
+        }
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String shortCode : shortCodes) {
+                byte[] urlKey = StringRedisSerializer.UTF_8.serialize(URL_KEY_PREFIX + shortCode);
+                connection.stringCommands().get(urlKey);
+                connection.keyCommands().pTtl(urlKey);
+                connection.keyCommands().exists(StringRedisSerializer.UTF_8.serialize(ANALYTICS_KEY_PREFIX + shortCode));
+            }
+            return null;
+        });
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < shortCodes.size(); i++) {
+            String shortCode = shortCodes.get(i);
+            Object originalUrl = replies.get(3 * i);
+            Object ttlMillis = replies.get(3 * i + 1);
+            if (originalUrl instanceof String) {
+                Instant expiresAt = ttlMillis instanceof Long && (Long) ttlMillis > 0
+                    ? Instant.ofEpochMilli(now + (Long) ttlMillis) : null;
+                links.add(ResolvedLink.active(shortCode, decodeUrl((String) originalUrl), expiresAt));
+            } else if (Boolean.TRUE.equals(replies.get(3 * i + 2))) {
+                links.add(ResolvedLink.inactive(shortCode));
+            } else {
+                links.add(ResolvedLink.notFound(shortCode));
+            }
+        }
+        return links;
+    }
+    
     /**
      * Track click for analytics
      */
     @Override
     public void trackClick(String shortCode) {
         String analyticsKey = ANALYTICS_KEY_PREFIX + shortCode;
+        touch(shortCode);
+        if (scriptsEnabled) {
+            redisTemplate.execute(TRACK_CLICK_SCRIPT, StringRedisSerializer.UTF_8, LONG_SERIALIZER,
+                List.of(analyticsKey), LocalDateTime.now().toString());
+            return;
+        }
         UrlAnalytics analytics = (UrlAnalytics) redisTemplate.opsForValue().get(analyticsKey);
         if (analytics != null) {
             analytics.setClickCount(analytics.getClickCount() + 1);
@@ -125,13 +433,30 @@ public class RedisUrlShortenerService implements UrlShortenerService {
         }
     }
     
+    /**
+     * Resolve and count the click in one script call
+     */
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        if (!scriptsEnabled) {
+            return RedisLinkService.super.redirect(shortCode, context);
+        }
+        String originalUrl = decodeUrl(redisTemplate.execute(REDIRECT_SCRIPT, StringRedisSerializer.UTF_8,
+            URL_SERIALIZER, List.of(URL_KEY_PREFIX + shortCode, ANALYTICS_KEY_PREFIX + shortCode),
+            LocalDateTime.now().toString()));
+        if (originalUrl != null) {
+            touch(shortCode);
+        }
+        return originalUrl;
+    }
+    
     /**
      * Get analytics for a specific URL
      */
     @Override
     public UrlAnalytics getUrlAnalytics(String shortCode) {
         String analyticsKey = ANALYTICS_KEY_PREFIX + shortCode;
-        return (UrlAnalytics) redisTemplate.opsForValue().get(analyticsKey);
+        return decodeUrl((UrlAnalytics) redisTemplate.opsForValue().get(analyticsKey));
     }
     
     /**
@@ -139,52 +464,612 @@ public class RedisUrlShortenerService implements UrlShortenerService {
      */
     @Override
     public AnalyticsSummary getAnalyticsSummary() {
-        // Get all analytics keys
-        String pattern = ANALYTICS_KEY_PREFIX + "*";
-        List<String> keys = new ArrayList<>(redisTemplate.keys(pattern));
-        
-        List<UrlAnalytics> allAnalytics = new ArrayList<>();
-        for (String key : keys) {
-            UrlAnalytics analytics = (UrlAnalytics) redisTemplate.opsForValue().get(key);
-            if (analytics != null) {
-                allAnalytics.add(analytics);
+        // One pass over analytics: keys, a page of MGETs at a time
+        AnalyticsQueryEngine.SummaryAccumulator summary = new AnalyticsQueryEngine.SummaryAccumulator(LocalDate.now());
+        forEachAnalytics(summary::add);
+        AnalyticsSummary result = summary.toSummary();
+        result.getTopUrls().forEach(this::decodeUrl);
+        result.getRecentUrls().forEach(this::decodeUrl);
+        return result;
+    }
+
+    /**
+     * Top links by one pass over analytics: keys into a bounded heap
+     */
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        TopK top = new TopK(query);
+        forEachAnalytics(top::offer);
+        List<UrlAnalytics> links = top.drain();
+        links.forEach(this::decodeUrl);
+        return links;
+    }
+
+    /**
+     * Visit every analytics entry, still encoded, scanning in batches of MGETs
+     */
+    private void forEachAnalytics(Consumer<UrlAnalytics> action) {
+        scanShortCodes(SCAN_BATCH_SIZE, shortCodes -> {
+            for (Object value : multiGet(ANALYTICS_KEY_PREFIX, shortCodes)) {
+                if (value instanceof UrlAnalytics) {
+                    action.accept((UrlAnalytics) value);
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Visit every link, scanning url: keys in batches of MGETs
+     */
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        ScanOptions options = ScanOptions.scanOptions()
+            .match(URL_KEY_PREFIX + "*")
+            .count(SCAN_BATCH_SIZE)
+            .build();
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == SCAN_BATCH_SIZE) {
+                    visitUrls(batch, action);
+                    batch.clear();
+                }
             }
         }
-        
-        long totalUrls = allAnalytics.size();
-        long totalClicks = allAnalytics.stream().mapToLong(UrlAnalytics::getClickCount).sum();
-        
-        String today = LocalDateTime.now().toLocalDate().atStartOfDay().toString();
-        long todayUrls = allAnalytics.stream()
-            .filter(a -> a.getCreatedAt() != null && a.getCreatedAt().startsWith(today.substring(0, 10)))
-            .count();
-        long todayClicks = allAnalytics.stream()
-            .filter(a -> a.getLastAccessedAt() != null && a.getLastAccessedAt().startsWith(today.substring(0, 10)))
-            .mapToLong(UrlAnalytics::getClickCount)
-            .sum();
-        
-        // Top 5 URLs by click count
-        List<UrlAnalytics> topUrls = allAnalytics.stream()
-            .sorted(Comparator.comparingInt(UrlAnalytics::getClickCount).reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-        
-        // Recent 5 URLs
-        List<UrlAnalytics> recentUrls = allAnalytics.stream()
-            .sorted(Comparator.comparing(UrlAnalytics::getCreatedAt).reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-        
-        AnalyticsSummary summary = new AnalyticsSummary();
-        summary.setTotalUrls(totalUrls);
-        summary.setTotalClicks(totalClicks);
-        summary.setTodayUrls(todayUrls);
-        summary.setTodayClicks(todayClicks);
-        summary.setTopUrls(topUrls);
-        summary.setRecentUrls(recentUrls);
-        summary.setLastUpdated(LocalDateTime.now().toString());
-        
-        return summary;
+        visitUrls(batch, action);
+    }
+
+    /**
+     * Delete the url: key and mark the analytics inactive, keeping their TTL
+     */
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        Boolean removed = redisTemplate.delete(URL_KEY_PREFIX + shortCode);
+        String analyticsKey = ANALYTICS_KEY_PREFIX + shortCode;
+        UrlAnalytics analytics = (UrlAnalytics) redisTemplate.opsForValue().get(analyticsKey);
+        if (analytics != null) {
+            analytics.setActive(false);
+            Long ttl = redisTemplate.getExpire(analyticsKey, TimeUnit.SECONDS);
+            if (ttl != null && ttl > 0) {
+                redisTemplate.opsForValue().set(analyticsKey, analytics, ttl, TimeUnit.SECONDS);
+            } else {
+                redisTemplate.opsForValue().set(analyticsKey, analytics);
+            }
+        }
+        return Boolean.TRUE.equals(removed);
+    }
+
+    private void visitUrls(List<String> keys, BiConsumer<String, String> action) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            Object value = values == null ? null : values.get(i);
+            if (value instanceof String) {
+                action.accept(keys.get(i).substring(URL_KEY_PREFIX.length()), decodeUrl((String) value));
+            }
+        }
+    }
+
+    /**
+     * Page through analytics: keys with SCAN
+     */
+    @Override
+    public void scanShortCodes(int batchSize, Predicate<List<String>> batchHandler) {
+        ScanOptions options = ScanOptions.scanOptions()
+            .match(ANALYTICS_KEY_PREFIX + "*")
+            .count(batchSize)
+            .build();
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next().substring(ANALYTICS_KEY_PREFIX.length()));
+                if (batch.size() == batchSize) {
+                    if (!batchHandler.test(batch)) {
+                        return;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchHandler.test(batch);
+        }
+    }
+
+    /**
+     * Read many analytics entries with one MGET
+     */
+    @Override
+    public List<UrlAnalytics> getAnalyticsBatch(List<String> shortCodes) {
+        List<Object> values = multiGet(ANALYTICS_KEY_PREFIX, shortCodes);
+        List<UrlAnalytics> analytics = new ArrayList<>(shortCodes.size());
+        for (Object value : values) {
+            analytics.add(value instanceof UrlAnalytics ? decodeUrl((UrlAnalytics) value) : null);
+        }
+        return analytics;
+    }
+
+    /**
+     * Read many original URLs with one MGET
+     */
+    @Override
+    public List<String> getOriginalUrls(List<String> shortCodes) {
+        List<Object> values = multiGet(URL_KEY_PREFIX, shortCodes);
+        List<String> urls = new ArrayList<>(shortCodes.size());
+        for (Object value : values) {
+            urls.add(value instanceof String ? decodeUrl((String) value) : null);
+        }
+        return urls;
+    }
+
+    private List<Object> multiGet(String prefix, List<String> shortCodes) {
+        List<String> keys = new ArrayList<>(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            keys.add(prefix + shortCode);
+        }
+        List<Object> values = keys.isEmpty() ? null : redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            values = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                values.add(null);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Measure a PING round trip to Redis
+     *
+     * @return round trip time in nanoseconds
+     * @throws RuntimeException if Redis does not answer
+     */
+    @Override
+    public long ping() {
+        long start = System.nanoTime();
+        redisTemplate.execute((RedisCallback<String>) connection -> connection.ping());
+        return System.nanoTime() - start;
+    }
+
+    @Override
+    public String getCapacityName() {
+        return "redis";
+    }
+
+    /**
+     * Key count and memory from DBSIZE and INFO, plus MEMORY USAGE and PTTL of random keys.
+     * Links and analytics are not counted exactly: the monitor estimates them from the
+     * sampled key prefixes, since counting would mean a full SCAN.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CapacitySample sampleCapacity(int count) {
+        Long keys = redisTemplate.execute((RedisCallback<Long>) connection -> connection.serverCommands().dbSize());
+        Properties memory = redisTemplate.execute((RedisCallback<Properties>) connection ->
+            connection.serverCommands().info("memory"));
+        CapacitySample sample = new CapacitySample(keys == null ? 0 : keys, -1, -1,
+            memoryProperty(memory, "used_memory"), memoryProperty(memory, "maxmemory"));
+        List<String> sampled = redisTemplate.execute(SAMPLE_KEYS_SCRIPT, StringRedisSerializer.UTF_8,
+            (RedisSerializer) StringRedisSerializer.UTF_8, List.of(), Integer.toString(count));
+        if (sampled == null) {
+            return sample;
+        }
+        for (int i = 0; i + 2 < sampled.size(); i += 3) {
+            long ttl = Long.parseLong(sampled.get(i + 2));
+            if (ttl == -2) {
+                continue;
+            }
+            String key = sampled.get(i);
+            CapacitySample.Kind kind = key.startsWith(URL_KEY_PREFIX) ? CapacitySample.Kind.URL
+                : key.startsWith(ANALYTICS_KEY_PREFIX) ? CapacitySample.Kind.ANALYTICS
+                : CapacitySample.Kind.OTHER;
+            sample.add(kind, Long.parseLong(sampled.get(i + 1)), ttl < 0 ? CapacitySample.NO_TTL : ttl);
+        }
+        return sample;
+    }
+
+    private static long memoryProperty(Properties memory, String name) {
+        String value = memory == null ? null : memory.getProperty(name);
+        return value == null ? 0 : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Store links created elsewhere through the import script, in one pipelined round
+     * trip, keeping their codes and analytics. A code already taken in Redis is left
+     * alone and reported. Each link expires when it would have had it been created here.
+     *
+     * @param links links to store
+     * @return one outcome per link, in the same order
+     */
+    @Override
+    public List<LinkImportTarget.Outcome> replayLinks(List<UrlAnalytics> links) {
+        List<byte[][]> calls = new ArrayList<>(links.size());
+        long ttlSeconds = DEFAULT_TTL_DAYS * 24 * 60 * 60;
+        for (UrlAnalytics link : links) {
+            String shortCode = link.getShortCode();
+            String storedUrl = encodeUrl(link.getOriginalUrl());
+            UrlAnalytics analytics = new UrlAnalytics(shortCode, storedUrl, link.getShortUrl(),
+                link.getCreatedAt(), link.getClickCount(), link.getLastAccessedAt(), link.isActive());
+            calls.add(new byte[][] {
+                StringRedisSerializer.UTF_8.serialize(URL_KEY_PREFIX + shortCode),
+                StringRedisSerializer.UTF_8.serialize(ANALYTICS_KEY_PREFIX + shortCode),
+                valueSerializer().serialize(storedUrl),
+                valueSerializer().serialize(analytics),
+                StringRedisSerializer.UTF_8.serialize(Long.toString(remainingTtlSeconds(link, ttlSeconds)))
+            });
+        }
+        return importAll(calls);
+    }
+
+    /**
+     * Seconds left of the TTL a link got when created at its createdAt, at least one
+     */
+    private static long remainingTtlSeconds(UrlAnalytics link, long ttlSeconds) {
+        try {
+            long age = Duration.between(LocalDateTime.parse(link.getCreatedAt()), LocalDateTime.now()).getSeconds();
+            return Math.max(1, ttlSeconds - Math.max(0, age));
+        } catch (RuntimeException e) {
+            return ttlSeconds;
+        }
+    }
+
+    @Override
+    public String getImportTargetName() {
+        return "redis";
+    }
+
+    /**
+     * Store imported links with one pipeline: SCRIPT LOAD, then EVALSHA of the import
+     * script per link, so each code is claimed atomically without a round trip per link
+     */
+    @Override
+    public List<LinkImportTarget.Outcome> importLinks(List<ImportRecord> records) {
+        List<byte[][]> calls = new ArrayList<>(records.size());
+        for (ImportRecord record : records) {
+            calls.add(new byte[][] {
+                StringRedisSerializer.UTF_8.serialize(URL_KEY_PREFIX + record.getShortCode()),
+                StringRedisSerializer.UTF_8.serialize(ANALYTICS_KEY_PREFIX + record.getShortCode()),
+                urlValue(record),
+                analyticsValue(record),
+                StringRedisSerializer.UTF_8.serialize(Long.toString(record.getTtlSeconds()))
+            });
+        }
+        return importAll(calls);
+    }
+
+    /**
+     * Run the import script once per call in one pipeline: SCRIPT LOAD, then EVALSHA each
+     *
+     * @param calls keys and arguments of each call
+     * @return one outcome per call, in the same order
+     */
+    private List<LinkImportTarget.Outcome> importAll(List<byte[][]> calls) {
+        List<LinkImportTarget.Outcome> outcomes = new ArrayList<>(calls.size());
+        if (calls.isEmpty()) {
+            return outcomes;
+        }
+        List<Object> replies = evalEach(IMPORT_LINK_SCRIPT, ReturnType.INTEGER, calls);
+        for (int i = 0; i < calls.size(); i++) {
+            Object reply = replies.get(i);
+            long result = reply instanceof Long ? (Long) reply : 0;
+            outcomes.add(result == 1 ? LinkImportTarget.Outcome.IMPORTED
+                : result == 2 ? LinkImportTarget.Outcome.ALREADY_PRESENT
+                : LinkImportTarget.Outcome.CONFLICT);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Run a two-key script once per call in one pipeline: SCRIPT LOAD, then EVALSHA each
+     *
+     * @param calls keys and arguments of each call
+     * @return the raw reply of each call, in the same order
+     */
+    private List<Object> evalEach(DefaultRedisScript<?> script, ReturnType returnType, List<byte[][]> calls) {
+        byte[] source = StringRedisSerializer.UTF_8.serialize(script.getScriptAsString());
+        String sha = script.getSha1();
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptLoad(source);
+            for (byte[][] keysAndArgs : calls) {
+                connection.scriptingCommands().evalSha(sha, returnType, 2, keysAndArgs);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        return replies.subList(1, replies.size());
+    }
+
+    /**
+     * Write SET ... NX for both keys of each link; existing codes are left alone by Redis
+     * but, unlike importLinks, not reported
+     */
+    @Override
+    public void writeMassInsert(List<ImportRecord> records, OutputStream out) throws IOException {
+        for (ImportRecord record : records) {
+            writeSetIfAbsent(out, URL_KEY_PREFIX + record.getShortCode(), urlValue(record), record.getTtlSeconds());
+            writeSetIfAbsent(out, ANALYTICS_KEY_PREFIX + record.getShortCode(), analyticsValue(record),
+                record.getTtlSeconds());
+        }
+    }
+
+    private static void writeSetIfAbsent(OutputStream out, String key, byte[] value, long ttlSeconds)
+            throws IOException {
+        if (ttlSeconds > 0) {
+            RespWriter.writeCommand(out, "SET", key, value, "NX", "EX", ttlSeconds);
+        } else {
+            RespWriter.writeCommand(out, "SET", key, value, "NX");
+        }
+    }
+
+    private byte[] urlValue(ImportRecord record) {
+        return valueSerializer().serialize(encodeUrl(record.getOriginalUrl()));
+    }
+
+    private byte[] analyticsValue(ImportRecord record) {
+        String shortCode = record.getShortCode();
+        return valueSerializer().serialize(new UrlAnalytics(shortCode, encodeUrl(record.getOriginalUrl()),
+            "http://localhost:8080/" + shortCode, record.getCreatedAt(), record.getClickCount(), null, true));
+    }
+
+    /**
+     * Add click counts accumulated elsewhere to the stored analytics in one script call,
+     * so clicks counted here meanwhile are kept and so are the TTLs
+     *
+     * @param clicks click count per short code
+     */
+    @Override
+    public void replayClicks(Map<String, Long> clicks) {
+        if (clicks.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(clicks.size());
+        List<String> args = new ArrayList<>(clicks.size() + 1);
+        args.add(LocalDateTime.now().toString());
+        clicks.forEach((shortCode, count) -> {
+            keys.add(ANALYTICS_KEY_PREFIX + shortCode);
+            args.add(Long.toString(count));
+        });
+        redisTemplate.execute(ADD_CLICKS_SCRIPT, StringRedisSerializer.UTF_8, LONG_SERIALIZER, keys, args.toArray());
+    }
+
+    /**
+     * Add a batch of aggregated clicks in one script call, at most once per batch id
+     */
+    @Override
+    public boolean applyClicks(String batchId, Map<String, ClickTally> tallies) {
+        List<String> keys = new ArrayList<>(tallies.size() + 1);
+        List<String> args = new ArrayList<>(tallies.size() * 2 + 1);
+        keys.add(CLICK_BATCH_KEY_PREFIX + batchId);
+        args.add(Long.toString(CLICK_BATCH_TTL_SECONDS));
+        tallies.forEach((shortCode, tally) -> {
+            touch(shortCode);
+            keys.add(ANALYTICS_KEY_PREFIX + shortCode);
+            args.add(Long.toString(tally.getCount()));
+            args.add(LocalDateTime.ofInstant(Instant.ofEpochMilli(tally.getLastClickAt()),
+                ZoneId.systemDefault()).toString());
+        });
+        Long applied = redisTemplate.execute(APPLY_CLICKS_SCRIPT, StringRedisSerializer.UTF_8,
+            new GenericToStringSerializer<>(Long.class), keys, args.toArray());
+        return applied != null && applied == 1L;
+    }
+
+    /**
+     * Load the request-path scripts into the Redis script cache ahead of the first request.
+     * Calls use EVALSHA and resend the script on NOSCRIPT, so a restarted Redis reloads them on use.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadScripts() {
+        if (!scriptsEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (DefaultRedisScript<?> script : List.of(CREATE_LINK_SCRIPT, REDIRECT_SCRIPT, TRACK_CLICK_SCRIPT)) {
+                    connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Redis unreachable, scripts are loaded on first use instead
+        }
+    }
+
+    /**
+     * Switch between the script calls and the multi-command path
+     */
+    @Value("${app.redis.scripts.enabled:true}")
+    public void setScriptsEnabled(boolean scriptsEnabled) {
+        this.scriptsEnabled = scriptsEnabled;
+    }
+
+    @Autowired(required = false)
+    public void setBlocklistService(BlocklistService blocklistService) {
+        this.blocklistService = blocklistService;
+    }
+
+    @Autowired(required = false)
+    public void setSlidingExpiration(SlidingExpiration slidingExpiration) {
+        this.slidingExpiration = slidingExpiration;
+    }
+
+    @Autowired(required = false)
+    public void setUrlCodec(UrlCodec urlCodec) {
+        this.urlCodec = urlCodec;
+    }
+
+    /**
+     * Push out the expiry of links to ttlSeconds from now, in one script call.
+     * Only raises TTLs, so links without expiry stay without.
+     *
+     * @return number of keys whose TTL was extended
+     */
+    @Override
+    public int extendExpiry(List<String> shortCodes, long ttlSeconds) {
+        if (shortCodes.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(shortCodes.size() * 2);
+        for (String shortCode : shortCodes) {
+            keys.add(URL_KEY_PREFIX + shortCode);
+            keys.add(ANALYTICS_KEY_PREFIX + shortCode);
+        }
+        Long extended = redisTemplate.execute(EXTEND_EXPIRY_SCRIPT, StringRedisSerializer.UTF_8, LONG_SERIALIZER,
+            keys, Long.toString(TimeUnit.SECONDS.toMillis(ttlSeconds)));
+        return extended == null ? 0 : extended.intValue();
+    }
+
+    private String encodeUrl(String originalUrl) {
+        return urlCodec == null ? originalUrl : urlCodec.encode(originalUrl);
+    }
+
+    private String decodeUrl(String storedUrl) {
+        return urlCodec == null ? storedUrl : urlCodec.decode(storedUrl);
+    }
+
+    private UrlAnalytics decodeUrl(UrlAnalytics analytics) {
+        if (analytics != null) {
+            analytics.setOriginalUrl(decodeUrl(analytics.getOriginalUrl()));
+        }
+        return analytics;
+    }
+
+    private void touch(String shortCode) {
+        if (slidingExpiration != null) {
+            slidingExpiration.touch(shortCode);
+        }
+    }
+
+    /**
+     * Move links to another node. Each link is snapshotted here in one script call, so
+     * its two keys and click count belong together, then restored there by a script
+     * that reports per key whether it restored it or found it present, then deleted
+     * here by a second script that reads the click count one last time. Only links
+     * whose keys are all confirmed on the target are deleted; the others stay here and
+     * are reported once the confirmed ones are done. Clicks counted here between the two scripts are added to the moved
+     * analytics; clicks after the restore already go to the new owner. Keys that
+     * already exist on the target were written after the move began and are kept.
+     *
+     * @param shortCodes links to move
+     * @param target service of the node that owns them now
+     * @return number of keys moved
+     * @throws IllegalStateException if some links could not be restored on the target
+     */
+    @SuppressWarnings("unchecked")
+    public int moveLinks(List<String> shortCodes, RedisUrlShortenerService target) {
+        if (shortCodes.isEmpty()) {
+            return 0;
+        }
+        List<byte[][]> calls = new ArrayList<>(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            calls.add(new byte[][] {
+                StringRedisSerializer.UTF_8.serialize(URL_KEY_PREFIX + shortCode),
+                StringRedisSerializer.UTF_8.serialize(ANALYTICS_KEY_PREFIX + shortCode)
+            });
+        }
+        List<Object> snapshots = evalEach(SNAPSHOT_LINK_SCRIPT, ReturnType.MULTI, calls);
+
+        List<byte[][]> restores = new ArrayList<>(calls.size());
+        List<Integer> restoredIndexes = new ArrayList<>(calls.size());
+        List<Integer> expected = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            List<Object> snapshot = (List<Object>) snapshots.get(i);
+            byte[][] restore = {calls.get(i)[0], calls.get(i)[1], new byte[0], new byte[0], new byte[0], new byte[0]};
+            int keys = 0;
+            for (int k = 0; k < 2; k++) {
+                Object dump = snapshot.get(2 * k);
+                Object ttl = snapshot.get(2 * k + 1);
+                if (dump instanceof byte[] && ttl instanceof Long && (Long) ttl != -2) {
+                    restore[2 + 2 * k] = (byte[]) dump;
+                    restore[3 + 2 * k] = StringRedisSerializer.UTF_8.serialize(Long.toString(Math.max(0, (Long) ttl)));
+                    keys |= 1 << k;
+                }
+            }
+            if (keys != 0) {
+                restores.add(restore);
+                restoredIndexes.add(i);
+                expected.add(keys);
+            }
+        }
+        if (restores.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> restored;
+        try {
+            restored = target.evalEach(RESTORE_LINK_SCRIPT, ReturnType.INTEGER, restores);
+        } catch (RedisPipelineException e) {
+            // Failed restores come back as exceptions in place; their links are not drained
+            List<Object> results = e.getPipelineResult();
+            restored = results.subList(Math.min(1, results.size()), results.size());
+        }
+
+        List<byte[][]> drains = new ArrayList<>(restores.size());
+        List<String> drainedCodes = new ArrayList<>(restores.size());
+        Map<String, Long> copiedClicks = new LinkedHashMap<>();
+        int moved = 0;
+        List<String> failed = new ArrayList<>();
+        for (int j = 0; j < restores.size(); j++) {
+            Object reply = j < restored.size() ? restored.get(j) : null;
+            if (!(reply instanceof Long)) {
+                failed.add(shortCodes.get(restoredIndexes.get(j)) + (reply instanceof Exception
+                    ? " (" + ((Exception) reply).getMessage() + ")" : ""));
+                continue;
+            }
+            long result = (Long) reply;
+            int keys = expected.get(j);
+            // Each key we sent is confirmed either restored (bit k) or present (bit k + 2)
+            if ((((result | result >> 2) & keys) != keys)) {
+                failed.add(shortCodes.get(restoredIndexes.get(j)));
+                continue;
+            }
+            int i = restoredIndexes.get(j);
+            String shortCode = shortCodes.get(i);
+            drains.add(calls.get(i));
+            drainedCodes.add(shortCode);
+            moved += Integer.bitCount(keys);
+            if ((result & 2) != 0) {
+                copiedClicks.put(shortCode, (Long) ((List<Object>) snapshots.get(i)).get(4));
+            }
+        }
+        if (!drains.isEmpty()) {
+            drainMoved(drains, drainedCodes, copiedClicks, target);
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException(failed.size() + " links could not be restored on the target and stay here: "
+                + String.join(", ", failed.subList(0, Math.min(5, failed.size()))));
+        }
+        return moved;
+    }
+
+    /**
+     * Delete moved links here and add the clicks they took since their snapshot there
+     */
+    private void drainMoved(List<byte[][]> drains, List<String> drainedCodes, Map<String, Long> copiedClicks,
+                            RedisUrlShortenerService target) {
+        List<Object> drained = evalEach(DRAIN_LINK_SCRIPT, ReturnType.INTEGER, drains);
+        Map<String, Long> clicksDuringMove = new LinkedHashMap<>();
+        for (int i = 0; i < drains.size(); i++) {
+            String shortCode = drainedCodes.get(i);
+            Long copied = copiedClicks.get(shortCode);
+            Object finalClicks = drained.get(i);
+            if (copied != null && finalClicks instanceof Long && (Long) finalClicks > copied) {
+                clicksDuringMove.put(shortCode, (Long) finalClicks - copied);
+            }
+        }
+        if (!clicksDuringMove.isEmpty()) {
+            target.replayClicks(clicksDuringMove);
+        }
+    }
+
+    RedisConnectionFactory getConnectionFactory() {
+        return redisTemplate == null ? null : redisTemplate.getConnectionFactory();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
     }
 
     /**
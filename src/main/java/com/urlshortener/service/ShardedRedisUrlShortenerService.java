@@ -0,0 +1,633 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.analytics.AnalyticsQueryEngine;
+import com.urlshortener.analytics.TopK;
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.capacity.CapacitySample;
+import com.urlshortener.cluster.ConsistentHashRing;
+import com.urlshortener.compression.UrlCodec;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.events.ClickTally;
+import com.urlshortener.expiry.SlidingExpiration;
+import com.urlshortener.importer.ImportRecord;
+import com.urlshortener.util.ShortCodeGenerator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads links over several standalone Redis nodes with a consistent hash ring.
+ * Both keys of a short code live on the node that owns the code, so every per-link
+ * call, including the scripts, goes to exactly one node. Batch lookups and aggregate
+ * queries fan out to the nodes in parallel.
+ * While nodes are being added or removed, the ring from before the change is kept as
+ * the previous ring: lookups that miss on the new owner are retried on the previous one
+ * until the ShardMigrator has moved the links.
+ * Each node is served by a RedisUrlShortenerService of its own; this class only routes
+ * and merges, and holds no connection itself.
+ *
+ * @author URL Shortener Team
+ */
+public class ShardedRedisUrlShortenerService implements RedisLinkService {
+
+    private final Map<String, RedisUrlShortenerService> shards;
+    private final ConsistentHashRing ring;
+    private final ConsistentHashRing previousRing;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ExecutorService fanOut;
+
+    /**
+     * @param shards service per node, for every node of the current and previous ring
+     * @param nodes nodes of the current ring
+     * @param previousNodes nodes of the ring before the last change, empty when not migrating
+     * @param shortCodeGenerator generator used to pick the node of a new link
+     * @param parallelism threads for fan-out calls
+     */
+    public ShardedRedisUrlShortenerService(Map<String, RedisUrlShortenerService> shards,
+                                           List<String> nodes,
+                                           List<String> previousNodes,
+                                           ShortCodeGenerator shortCodeGenerator,
+                                           int parallelism) {
+        this.ring = new ConsistentHashRing(nodes);
+        this.previousRing = previousNodes.isEmpty() || previousNodes.equals(nodes)
+            ? null : new ConsistentHashRing(previousNodes);
+        for (String node : allNodes()) {
+            if (!shards.containsKey(node)) {
+                throw new IllegalArgumentException("No Redis connection for shard " + node);
+            }
+        }
+        this.shards = new LinkedHashMap<>(shards);
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.fanOut = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "redis-shard-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Build a shard per template; each shard draws only short codes the ring places on it
+     */
+    public static ShardedRedisUrlShortenerService create(Map<String, RedisTemplate<String, Object>> templates,
+                                                         List<String> nodes,
+                                                         List<String> previousNodes,
+                                                         ShortCodeGenerator shortCodeGenerator,
+                                                         int parallelism) {
+        ConsistentHashRing ring = new ConsistentHashRing(nodes);
+        Map<String, RedisUrlShortenerService> shards = new LinkedHashMap<>();
+        templates.forEach((node, template) ->
+            shards.put(node, new RedisUrlShortenerService(template, new OwnedShortCodeGenerator(ring, node))));
+        return new ShardedRedisUrlShortenerService(shards, nodes, previousNodes, shortCodeGenerator, parallelism);
+    }
+
+    /**
+     * Store the link on the owner of a random short code, so nodes fill in ring proportion
+     */
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        return shard(ring.primary(shortCodeGenerator.generate())).shortenUrl(request);
+    }
+
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        return onOwner(shortCode, shard -> shard.getOriginalUrl(shortCode));
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        return onOwner(shortCode, shard -> shard.redirect(shortCode, context));
+    }
+
+    @Override
+    public void trackClick(String shortCode) {
+        String previous = previousOwner(shortCode);
+        RedisUrlShortenerService owner = shard(ring.primary(shortCode));
+        if (previous != null && owner.getUrlAnalytics(shortCode) == null) {
+            shard(previous).trackClick(shortCode);
+        } else {
+            owner.trackClick(shortCode);
+        }
+    }
+
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        return onOwner(shortCode, shard -> shard.getUrlAnalytics(shortCode));
+    }
+
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        boolean deactivated = shard(ring.primary(shortCode)).deactivateUrl(shortCode);
+        String previous = previousOwner(shortCode);
+        if (previous != null) {
+            deactivated |= shard(previous).deactivateUrl(shortCode);
+        }
+        return deactivated;
+    }
+
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        return perOwner(shortCodes, RedisUrlShortenerService::resolveUrls, link -> !link.isFound());
+    }
+
+    @Override
+    public List<UrlAnalytics> getAnalyticsBatch(List<String> shortCodes) {
+        return perOwner(shortCodes, RedisUrlShortenerService::getAnalyticsBatch, analytics -> analytics == null);
+    }
+
+    @Override
+    public List<String> getOriginalUrls(List<String> shortCodes) {
+        return perOwner(shortCodes, RedisUrlShortenerService::getOriginalUrls, url -> url == null);
+    }
+
+    /**
+     * Merge the summaries of all nodes, fetched in parallel
+     */
+    @Override
+    public AnalyticsSummary getAnalyticsSummary() {
+        List<AnalyticsSummary> summaries = fanOut(allNodes(), RedisUrlShortenerService::getAnalyticsSummary);
+        AnalyticsSummary merged = new AnalyticsSummary();
+        List<UrlAnalytics> top = new ArrayList<>();
+        List<UrlAnalytics> recent = new ArrayList<>();
+        for (AnalyticsSummary summary : summaries) {
+            merged.setTotalUrls(merged.getTotalUrls() + summary.getTotalUrls());
+            merged.setTotalClicks(merged.getTotalClicks() + summary.getTotalClicks());
+            merged.setTodayUrls(merged.getTodayUrls() + summary.getTodayUrls());
+            merged.setTodayClicks(merged.getTodayClicks() + summary.getTodayClicks());
+            if (summary.getTopUrls() != null) {
+                top.addAll(summary.getTopUrls());
+            }
+            if (summary.getRecentUrls() != null) {
+                recent.addAll(summary.getRecentUrls());
+            }
+        }
+        merged.setTopUrls(top.stream()
+            .sorted(Comparator.comparingInt(UrlAnalytics::getClickCount).reversed())
+            .limit(AnalyticsQueryEngine.SUMMARY_TABLE_SIZE)
+            .collect(Collectors.toList()));
+        merged.setRecentUrls(recent.stream()
+            .sorted(Comparator.comparing(UrlAnalytics::getCreatedAt,
+                Comparator.nullsLast(Comparator.<String>reverseOrder())))
+            .limit(AnalyticsQueryEngine.SUMMARY_TABLE_SIZE)
+            .collect(Collectors.toList()));
+        merged.setLastUpdated(LocalDateTime.now().toString());
+        return merged;
+    }
+
+    /**
+     * Each node answers the query in parallel; their top links are merged into one heap
+     */
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        TopK top = new TopK(query);
+        for (List<UrlAnalytics> links : fanOut(allNodes(), shard -> shard.queryUrls(query))) {
+            links.forEach(top::offer);
+        }
+        return top.drain();
+    }
+
+    /**
+     * Visit the nodes one after another; callers' actions are not thread-safe
+     */
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        for (String node : allNodes()) {
+            shard(node).forEachUrl(action);
+        }
+    }
+
+    @Override
+    public void scanShortCodes(int batchSize, Predicate<List<String>> batchHandler) {
+        boolean[] stopped = new boolean[1];
+        for (String node : allNodes()) {
+            shard(node).scanShortCodes(batchSize, batch -> {
+                stopped[0] = !batchHandler.test(batch);
+                return !stopped[0];
+            });
+            if (stopped[0]) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ping every node in parallel
+     *
+     * @return slowest round trip in nanoseconds
+     * @throws RuntimeException if any node does not answer
+     */
+    @Override
+    public long ping() {
+        long slowest = 0;
+        for (long rtt : fanOut(allNodes(), RedisUrlShortenerService::ping)) {
+            slowest = Math.max(slowest, rtt);
+        }
+        return slowest;
+    }
+
+    @Override
+    public String getCapacityName() {
+        return "redis";
+    }
+
+    /**
+     * Sample every node in parallel, splitting the count between them, and add up the totals.
+     * The memory limit is the sum of the nodes' limits, or none if any node has none.
+     */
+    @Override
+    public CapacitySample sampleCapacity(int count) {
+        List<String> nodes = allNodes();
+        int perNode = Math.max(1, count / nodes.size());
+        List<CapacitySample> samples = fanOut(nodes, shard -> shard.sampleCapacity(perNode));
+        long keys = 0;
+        long used = 0;
+        long max = 0;
+        boolean limited = true;
+        for (CapacitySample sample : samples) {
+            keys += sample.getTotalKeys();
+            used += sample.getUsedBytes();
+            max += sample.getMaxBytes();
+            limited &= sample.getMaxBytes() > 0;
+        }
+        CapacitySample merged = new CapacitySample(keys, -1, -1, used, limited ? max : 0);
+        samples.forEach(sample -> merged.getEntries().addAll(sample.getEntries()));
+        return merged;
+    }
+
+    @Override
+    public List<Outcome> replayLinks(List<UrlAnalytics> links) {
+        return perOwnerOutcomes(links, UrlAnalytics::getShortCode, RedisUrlShortenerService::replayLinks);
+    }
+
+    @Override
+    public String getImportTargetName() {
+        return "redis";
+    }
+
+    /**
+     * Import each link on the node that owns its code. Codes are checked on their
+     * current owner only, so run imports outside a shard migration.
+     */
+    @Override
+    public List<Outcome> importLinks(List<ImportRecord> records) {
+        return perOwnerOutcomes(records, ImportRecord::getShortCode, RedisUrlShortenerService::importLinks);
+    }
+
+    /**
+     * Hand each node the items it owns, in parallel, and put the outcomes back in order
+     */
+    private <T> List<Outcome> perOwnerOutcomes(List<T> items, Function<T, String> shortCodeOf,
+                                               BiFunction<RedisUrlShortenerService, List<T>, List<Outcome>> call) {
+        Map<String, List<Integer>> byOwner = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            byOwner.computeIfAbsent(ring.primary(shortCodeOf.apply(items.get(i))), node -> new ArrayList<>()).add(i);
+        }
+        List<List<Outcome>> answers = fanOut(byOwner.keySet(), shard -> {
+            List<T> owned = new ArrayList<>();
+            byOwner.get(nodeOf(shard)).forEach(i -> owned.add(items.get(i)));
+            return call.apply(shard, owned);
+        });
+        List<Outcome> outcomes = new ArrayList<>(Collections.nCopies(items.size(), (Outcome) null));
+        int n = 0;
+        for (List<Integer> indexes : byOwner.values()) {
+            List<Outcome> answer = answers.get(n++);
+            for (int j = 0; j < indexes.size(); j++) {
+                outcomes.set(indexes.get(j), answer.get(j));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * A single protocol file cannot target several nodes; write one per node instead
+     */
+    @Override
+    public void writeMassInsert(List<ImportRecord> records, OutputStream out) {
+        throw new UnsupportedOperationException("Sharded Redis needs one mass-insert file per node");
+    }
+
+    /**
+     * One file per node of the current ring, like importLinks
+     */
+    @Override
+    public List<String> getMassInsertNodes() {
+        return ring.getNodes();
+    }
+
+    @Override
+    public void writeMassInsert(List<ImportRecord> records, String node, OutputStream out) throws IOException {
+        List<ImportRecord> owned = new ArrayList<>();
+        for (ImportRecord record : records) {
+            if (node.equals(ring.primary(record.getShortCode()))) {
+                owned.add(record);
+            }
+        }
+        if (!owned.isEmpty()) {
+            shard(node).writeMassInsert(owned, out);
+        }
+    }
+
+    @Override
+    public void replayClicks(Map<String, Long> clicks) {
+        Map<String, Map<String, Long>> byOwner = new LinkedHashMap<>();
+        clicks.forEach((shortCode, count) ->
+            byOwner.computeIfAbsent(ring.primary(shortCode), node -> new LinkedHashMap<>()).put(shortCode, count));
+        fanOut(byOwner.keySet(), shard -> {
+            shard.replayClicks(byOwner.get(nodeOf(shard)));
+            return null;
+        });
+    }
+
+    /**
+     * Apply each node's share of the batch under a per-node batch id, so a redelivered
+     * batch is skipped on the nodes that already committed their share
+     */
+    @Override
+    public boolean applyClicks(String batchId, Map<String, ClickTally> tallies) {
+        Map<String, Map<String, ClickTally>> byOwner = new LinkedHashMap<>();
+        tallies.forEach((shortCode, tally) ->
+            byOwner.computeIfAbsent(ring.primary(shortCode), node -> new LinkedHashMap<>()).put(shortCode, tally));
+        boolean applied = false;
+        for (boolean nodeApplied : fanOut(byOwner.keySet(), shard ->
+                shard.applyClicks(batchId + "@" + nodeOf(shard), byOwner.get(nodeOf(shard))))) {
+            applied |= nodeApplied;
+        }
+        return applied;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadScripts() {
+        shards.values().forEach(RedisUrlShortenerService::preloadScripts);
+    }
+
+    @Value("${app.redis.scripts.enabled:true}")
+    public void setScriptsEnabled(boolean scriptsEnabled) {
+        shards.values().forEach(shard -> shard.setScriptsEnabled(scriptsEnabled));
+    }
+
+    @Autowired(required = false)
+    public void setBlocklistService(BlocklistService blocklistService) {
+        shards.values().forEach(shard -> shard.setBlocklistService(blocklistService));
+    }
+
+    @Autowired(required = false)
+    public void setSlidingExpiration(SlidingExpiration slidingExpiration) {
+        shards.values().forEach(shard -> shard.setSlidingExpiration(slidingExpiration));
+    }
+
+    @Autowired(required = false)
+    public void setUrlCodec(UrlCodec urlCodec) {
+        shards.values().forEach(shard -> shard.setUrlCodec(urlCodec));
+    }
+
+    /**
+     * Extend on each owner in parallel, and on previous owners for links not moved yet
+     */
+    @Override
+    public int extendExpiry(List<String> shortCodes, long ttlSeconds) {
+        Map<String, List<String>> byOwner = new LinkedHashMap<>();
+        for (String shortCode : shortCodes) {
+            byOwner.computeIfAbsent(ring.primary(shortCode), node -> new ArrayList<>()).add(shortCode);
+            String previous = previousOwner(shortCode);
+            if (previous != null) {
+                byOwner.computeIfAbsent(previous, node -> new ArrayList<>()).add(shortCode);
+            }
+        }
+        int extended = 0;
+        for (int nodeExtended : fanOut(byOwner.keySet(), shard ->
+                shard.extendExpiry(byOwner.get(nodeOf(shard)), ttlSeconds))) {
+            extended += nodeExtended;
+        }
+        return extended;
+    }
+
+    /**
+     * Node that owns a short code in the current ring
+     */
+    public String ownerOf(String shortCode) {
+        return ring.primary(shortCode);
+    }
+
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Nodes of the ring before the last change, empty when not migrating
+     */
+    public List<String> getPreviousNodes() {
+        return previousRing == null ? Collections.emptyList() : previousRing.getNodes();
+    }
+
+    /**
+     * Nodes of the current and the previous ring
+     */
+    public List<String> allNodes() {
+        Set<String> nodes = new LinkedHashSet<>(ring.getNodes());
+        if (previousRing != null) {
+            nodes.addAll(previousRing.getNodes());
+        }
+        return new ArrayList<>(nodes);
+    }
+
+    public RedisUrlShortenerService getShard(String node) {
+        return shard(node);
+    }
+
+    @PreDestroy
+    public void close() {
+        fanOut.shutdownNow();
+        for (RedisUrlShortenerService shard : shards.values()) {
+            if (shard.getConnectionFactory() instanceof DisposableBean) {
+                try {
+                    ((DisposableBean) shard.getConnectionFactory()).destroy();
+                } catch (Exception e) {
+                    // Shutting down anyway
+                }
+            }
+        }
+    }
+
+    private RedisUrlShortenerService shard(String node) {
+        RedisUrlShortenerService shard = shards.get(node);
+        if (shard == null) {
+            throw new IllegalStateException("No Redis shard " + node);
+        }
+        return shard;
+    }
+
+    private String nodeOf(RedisUrlShortenerService shard) {
+        for (Map.Entry<String, RedisUrlShortenerService> entry : shards.entrySet()) {
+            if (entry.getValue() == shard) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unknown Redis shard");
+    }
+
+    /**
+     * Owner in the previous ring, or null when it is the current owner or not migrating
+     */
+    private String previousOwner(String shortCode) {
+        if (previousRing == null) {
+            return null;
+        }
+        String previous = previousRing.primary(shortCode);
+        return previous == null || previous.equals(ring.primary(shortCode)) ? null : previous;
+    }
+
+    /**
+     * Call the owner of a short code, then its previous owner if the link is not there yet
+     */
+    private <T> T onOwner(String shortCode, Function<RedisUrlShortenerService, T> call) {
+        T result = call.apply(shard(ring.primary(shortCode)));
+        if (result == null) {
+            String previous = previousOwner(shortCode);
+            if (previous != null) {
+                result = call.apply(shard(previous));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Split a batch by owner, call the owners in parallel and put the answers back in
+     * request order; misses are retried on their previous owners while migrating
+     */
+    private <T> List<T> perOwner(List<String> shortCodes,
+                                 BiFunction<RedisUrlShortenerService, List<String>, List<T>> call,
+                                 Predicate<T> missing) {
+        List<T> results = new ArrayList<>(Collections.nCopies(shortCodes.size(), null));
+        List<Integer> all = new ArrayList<>(shortCodes.size());
+        for (int i = 0; i < shortCodes.size(); i++) {
+            all.add(i);
+        }
+        callOwners(shortCodes, all, ring, call, results);
+        if (previousRing != null) {
+            List<Integer> retry = new ArrayList<>();
+            for (int i = 0; i < shortCodes.size(); i++) {
+                if (missing.test(results.get(i)) && previousOwner(shortCodes.get(i)) != null) {
+                    retry.add(i);
+                }
+            }
+            if (!retry.isEmpty()) {
+                List<T> previousResults = new ArrayList<>(results);
+                callOwners(shortCodes, retry, previousRing, call, previousResults);
+                for (int i : retry) {
+                    if (!missing.test(previousResults.get(i))) {
+                        results.set(i, previousResults.get(i));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private <T> void callOwners(List<String> shortCodes, List<Integer> indexes, ConsistentHashRing owners,
+                                BiFunction<RedisUrlShortenerService, List<String>, List<T>> call,
+                                List<T> results) {
+        Map<String, List<Integer>> byOwner = new LinkedHashMap<>();
+        for (int i : indexes) {
+            byOwner.computeIfAbsent(owners.primary(shortCodes.get(i)), node -> new ArrayList<>()).add(i);
+        }
+        List<List<T>> answers = fanOut(byOwner.keySet(), shard -> {
+            List<String> codes = new ArrayList<>();
+            byOwner.get(nodeOf(shard)).forEach(i -> codes.add(shortCodes.get(i)));
+            return call.apply(shard, codes);
+        });
+        int n = 0;
+        for (List<Integer> ownerIndexes : byOwner.values()) {
+            List<T> answer = answers.get(n++);
+            for (int j = 0; j < ownerIndexes.size(); j++) {
+                results.set(ownerIndexes.get(j), answer.get(j));
+            }
+        }
+    }
+
+    /**
+     * Run a call on several nodes in parallel
+     *
+     * @return the answers, in node order
+     */
+    private <T> List<T> fanOut(Iterable<String> nodes, Function<RedisUrlShortenerService, T> call) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (String node : nodes) {
+            RedisUrlShortenerService shard = shard(node);
+            futures.add(fanOut.submit(() -> call.apply(shard)));
+        }
+        List<T> answers = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                answers.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for Redis shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Redis shard call failed", e.getCause());
+        }
+        return answers;
+    }
+
+    /**
+     * Draws random short codes until one falls on its node, so a shard only creates
+     * links it owns. Takes about as many draws as there are nodes.
+     */
+    private static final class OwnedShortCodeGenerator extends ShortCodeGenerator {
+
+        private static final int MAX_DRAWS = 10000;
+
+        private final ConsistentHashRing ring;
+        private final String node;
+
+        OwnedShortCodeGenerator(ConsistentHashRing ring, String node) {
+            this.ring = ring;
+            this.node = node;
+        }
+
+        @Override
+        public String generate() {
+            for (int i = 0; i < MAX_DRAWS; i++) {
+                String shortCode = super.generate();
+                if (node.equals(ring.primary(shortCode))) {
+                    return shortCode;
+                }
+            }
+            throw new IllegalStateException("Shard " + node + " owns no short codes");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.events.ClickCounterStore;
+import com.urlshortener.events.ClickTally;
+import com.urlshortener.storage.StorageBackend;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+
+/**
+ * URL Shortener Service over a storage backend, so a backend written against the
+ * storage SPI gets the same decorators as the built-in ones. Calls wait for the
+ * backend's futures; failures are rethrown as the backend raised them.
+ *
+ * @author URL Shortener Team
+ */
+public class StorageUrlShortenerService implements UrlShortenerService, ClickCounterStore {
+
+    private final StorageBackend backend;
+
+    public StorageUrlShortenerService(StorageBackend backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        return join(backend.links().create(request));
+    }
+
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        ResolvedLink link = join(backend.links().resolve(shortCode));
+        return link.isActive() ? link.getOriginalUrl() : null;
+    }
+
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        return join(backend.links().resolveAll(shortCodes));
+    }
+
+    @Override
+    public void trackClick(String shortCode) {
+        join(backend.clicks().recordClick(shortCode));
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        return join(backend.redirect(shortCode));
+    }
+
+    @Override
+    public boolean applyClicks(String batchId, Map<String, ClickTally> tallies) {
+        return join(backend.clicks().recordClicks(batchId, tallies));
+    }
+
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        return join(backend.analytics().get(shortCode));
+    }
+
+    @Override
+    public AnalyticsSummary getAnalyticsSummary() {
+        return join(backend.analytics().summarize());
+    }
+
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        return join(backend.analytics().query(query));
+    }
+
+    @Override
+    public void forEachUrl(BiConsumer<String, String> action) {
+        backend.links().forEachLink(action);
+    }
+
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        return join(backend.links().deactivate(shortCode));
+    }
+
+    public StorageBackend getBackend() {
+        return backend;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
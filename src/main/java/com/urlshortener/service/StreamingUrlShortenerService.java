@@ -0,0 +1,47 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.events.ClickEvent;
+import com.urlshortener.events.ClickEventPublisher;
+
+/**
+ * Sends clicks to the click event stream instead of updating counters inline.
+ * Counters are updated by the aggregator; when the publish buffer is full the
+ * click is counted by the wrapped service directly.
+ *
+ * @author URL Shortener Team
+ */
+public class StreamingUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final ClickEventPublisher publisher;
+
+    public StreamingUrlShortenerService(UrlShortenerService delegate, ClickEventPublisher publisher) {
+        super(delegate);
+        this.publisher = publisher;
+        publisher.setFallback(delegate);
+    }
+
+    @Override
+    public void trackClick(String shortCode) {
+        trackClick(shortCode, null);
+    }
+
+    @Override
+    public void trackClick(String shortCode, ClickContext context) {
+        if (!publisher.publish(ClickEvent.of(shortCode, context))) {
+            delegate.trackClick(shortCode);
+        }
+    }
+
+    /**
+     * Only resolve through the wrapped service; the click goes to the stream
+     */
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        String originalUrl = delegate.getOriginalUrl(shortCode);
+        if (originalUrl != null) {
+            trackClick(shortCode, context);
+        }
+        return originalUrl;
+    }
+}
@@ -0,0 +1,99 @@
+package com.urlshortener.service;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.tracing.Span;
+import com.urlshortener.tracing.Tracer;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records a "service.&lt;method&gt;" span around each call of the wrapped service,
+ * marked as failed when the call throws
+ *
+ * @author URL Shortener Team
+ */
+public class TracingUrlShortenerService extends DelegatingUrlShortenerService {
+
+    private final Tracer tracer;
+
+    public TracingUrlShortenerService(UrlShortenerService delegate, Tracer tracer) {
+        super(delegate);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request) {
+        return traced("service.shortenUrl", () -> delegate.shortenUrl(request));
+    }
+
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        return traced("service.getOriginalUrl", () -> delegate.getOriginalUrl(shortCode));
+    }
+
+    @Override
+    public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        return traced("service.resolveUrls", () -> delegate.resolveUrls(shortCodes));
+    }
+
+    @Override
+    public void trackClick(String shortCode) {
+        traced("service.trackClick", () -> delegate.trackClick(shortCode));
+    }
+
+    @Override
+    public void trackClick(String shortCode, ClickContext context) {
+        traced("service.trackClick", () -> delegate.trackClick(shortCode, context));
+    }
+
+    @Override
+    public String redirect(String shortCode, ClickContext context) {
+        return traced("service.redirect", () -> delegate.redirect(shortCode, context));
+    }
+
+    @Override
+    public UrlAnalytics getUrlAnalytics(String shortCode) {
+        return traced("service.getUrlAnalytics", () -> delegate.getUrlAnalytics(shortCode));
+    }
+
+    @Override
+    public AnalyticsSummary getAnalyticsSummary() {
+        return traced("service.getAnalyticsSummary", () -> delegate.getAnalyticsSummary());
+    }
+
+    @Override
+    public List<UrlAnalytics> queryUrls(AnalyticsQuery query) {
+        return traced("service.queryUrls", () -> delegate.queryUrls(query));
+    }
+
+    @Override
+    public boolean deactivateUrl(String shortCode) {
+        return traced("service.deactivateUrl", () -> delegate.deactivateUrl(shortCode));
+    }
+
+    private <T> T traced(String name, Supplier<T> call) {
+        Span span = tracer.start(name);
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            span.error();
+            throw e;
+        } finally {
+            span.close();
+        }
+    }
+
+    private void traced(String name, Runnable call) {
+        traced(name, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
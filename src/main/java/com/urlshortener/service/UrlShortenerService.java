@@ -1,10 +1,17 @@
 package com.urlshortener.service;
 
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ResolvedLink;
 import com.urlshortener.dto.ShortenUrlRequest;
 import com.urlshortener.dto.ShortenUrlResponse;
 import com.urlshortener.dto.UrlAnalytics;
 import com.urlshortener.dto.AnalyticsSummary;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
 /**
  * Interface for URL Shortener Service
  * 
@@ -29,6 +36,29 @@ public interface UrlShortenerService {
      */
     String getOriginalUrl(String shortCode);
     
+    /**
+     * Resolve many short codes in one call, without tracking clicks.
+     * Backends with a remote store override this to answer in one round trip;
+     * the default looks the codes up one by one.
+     * 
+     * @param shortCodes The short codes, without duplicates
+     * @return One entry per short code, in the same order
+     */
+    default List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+        List<ResolvedLink> links = new ArrayList<>(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            String originalUrl = getOriginalUrl(shortCode);
+            if (originalUrl != null) {
+                links.add(ResolvedLink.active(shortCode, originalUrl, null));
+            } else if (getUrlAnalytics(shortCode) != null) {
+                links.add(ResolvedLink.inactive(shortCode));
+            } else {
+                links.add(ResolvedLink.notFound(shortCode));
+            }
+        }
+        return links;
+    }
+    
     /**
      * Track click for analytics
      * 
@@ -36,6 +66,33 @@ public interface UrlShortenerService {
      */
     void trackClick(String shortCode);
     
+    /**
+     * Track click together with the request context it came from.
+     * Backends without per-dimension storage only count the click.
+     * 
+     * @param shortCode The short code that was clicked
+     * @param context Referrer, user-agent family, country and device of the click
+     */
+    default void trackClick(String shortCode, ClickContext context) {
+        trackClick(shortCode);
+    }
+    
+    /**
+     * Resolve a short code for a redirect and count the click if it resolves.
+     * Backends with a remote store override this to do both in one round trip.
+     * 
+     * @param shortCode The short code from the redirect
+     * @param context Referrer, user-agent family, country and device of the click
+     * @return Original URL or null if not found
+     */
+    default String redirect(String shortCode, ClickContext context) {
+        String originalUrl = getOriginalUrl(shortCode);
+        if (originalUrl != null) {
+            trackClick(shortCode, context);
+        }
+        return originalUrl;
+    }
+    
     /**
      * Get analytics for a specific URL
      * 
@@ -50,4 +107,29 @@ public interface UrlShortenerService {
      * @return AnalyticsSummary
      */
     AnalyticsSummary getAnalyticsSummary();
+
+    /**
+     * Find the top links by clicks, creation or last access, optionally only
+     * those created or accessed after a given time
+     * 
+     * @param query Order, number of links and filters
+     * @return Up to query.getLimit() links, best first
+     */
+    List<UrlAnalytics> queryUrls(AnalyticsQuery query);
+
+    /**
+     * Visit every stored link. Backends page through their data,
+     * so this is meant for background jobs, not request threads.
+     * 
+     * @param action receives the short code and original URL of each link
+     */
+    void forEachUrl(BiConsumer<String, String> action);
+
+    /**
+     * Stop serving a link while keeping its analytics
+     * 
+     * @param shortCode The short code
+     * @return true if the link existed and was deactivated
+     */
+    boolean deactivateUrl(String shortCode);
 }
@@ -0,0 +1,177 @@
+package com.urlshortener.sharding;
+
+import com.urlshortener.service.RedisLinkService;
+import com.urlshortener.service.RedisUrlShortenerService;
+import com.urlshortener.service.ShardedRedisUrlShortenerService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves links to their new owner after Redis nodes were added or removed.
+ * Every node is scanned in small batches and the links the ring now places elsewhere
+ * are copied with DUMP/RESTORE from a per-link snapshot and deleted once the new owner
+ * confirms them, with the clicks they took during the copy added there. A link whose
+ * restore failed stays on its old node and fails the migration, so it is run again
+ * before the previous ring is dropped. Batches pause in between
+ * so the move does not crowd out live traffic. Until a link has moved, the sharded service finds
+ * it through the previous ring, so reads keep working throughout.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class ShardMigrator {
+
+    /** Migration states reported through actuator */
+    public enum State { IDLE, RUNNING, COMPLETED, STOPPED, FAILED }
+
+    private final ObjectProvider<RedisLinkService> redisUrlShortenerService;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private volatile State state = State.IDLE;
+    private volatile boolean stopRequested;
+    private volatile String currentNode;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    public ShardMigrator(ObjectProvider<RedisLinkService> redisUrlShortenerService,
+                         @Value("${app.redis.migration.batch-size:200}") int batchSize,
+                         @Value("${app.redis.migration.pause-ms:10}") long pauseMillis) {
+        this.redisUrlShortenerService = redisUrlShortenerService;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Start a migration on a background thread
+     *
+     * @return false if one is already running or Redis is not sharded
+     */
+    public synchronized boolean start() {
+        if (state == State.RUNNING || sharded() == null) {
+            return false;
+        }
+        state = State.RUNNING;
+        stopRequested = false;
+        Thread thread = new Thread(this::run, "shard-migrator");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Ask a running migration to stop after its current batch; a later start resumes it
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Run the migration on the calling thread
+     */
+    void run() {
+        ShardedRedisUrlShortenerService service = sharded();
+        if (service == null) {
+            state = State.IDLE;
+            return;
+        }
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        error = null;
+        scanned.set(0);
+        moved.set(0);
+        try {
+            for (String node : service.allNodes()) {
+                currentNode = node;
+                RedisUrlShortenerService source = service.getShard(node);
+                source.scanShortCodes(batchSize, shortCodes -> {
+                    scanned.addAndGet(shortCodes.size());
+                    moveBatch(service, node, source, shortCodes);
+                    return !stopRequested;
+                });
+                if (stopRequested) {
+                    finish(State.STOPPED);
+                    return;
+                }
+            }
+            finish(State.COMPLETED);
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            finish(State.FAILED);
+        }
+    }
+
+    private void moveBatch(ShardedRedisUrlShortenerService service, String node,
+                           RedisUrlShortenerService source, List<String> shortCodes) {
+        Map<String, List<String>> byOwner = new LinkedHashMap<>();
+        for (String shortCode : shortCodes) {
+            String owner = service.ownerOf(shortCode);
+            if (!owner.equals(node)) {
+                byOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(shortCode);
+            }
+        }
+        if (byOwner.isEmpty()) {
+            return;
+        }
+        byOwner.forEach((owner, codes) -> moved.addAndGet(source.moveLinks(codes, service.getShard(owner))));
+        if (pauseMillis > 0) {
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopRequested = true;
+            }
+        }
+    }
+
+    private void finish(State result) {
+        finishedAt = System.currentTimeMillis();
+        currentNode = null;
+        state = result;
+        System.out.println("🔀 Shard migration " + result + ": " + moved.get() + " keys moved, "
+            + scanned.get() + " links scanned in " + (finishedAt - startedAt) + " ms");
+    }
+
+    private ShardedRedisUrlShortenerService sharded() {
+        RedisLinkService service = redisUrlShortenerService.getIfAvailable();
+        return service instanceof ShardedRedisUrlShortenerService ? (ShardedRedisUrlShortenerService) service : null;
+    }
+
+    /**
+     * Ring layout and migration progress for the actuator endpoint
+     */
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        ShardedRedisUrlShortenerService service = sharded();
+        progress.put("sharded", service != null);
+        if (service != null) {
+            progress.put("nodes", service.getNodes());
+            progress.put("previousNodes", service.getPreviousNodes());
+        }
+        progress.put("state", state);
+        progress.put("currentNode", currentNode);
+        progress.put("scanned", scanned.get());
+        progress.put("moved", moved.get());
+        long end = state == State.RUNNING ? System.currentTimeMillis() : finishedAt;
+        progress.put("elapsedMs", startedAt == 0 ? 0 : end - startedAt);
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+
+    public State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,43 @@
+package com.urlshortener.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for Redis shards at /actuator/shards: GET shows the ring and
+ * migration progress, POST starts moving links to their new owners, DELETE stops it
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final ShardMigrator shardMigrator;
+
+    public ShardsEndpoint(ShardMigrator shardMigrator) {
+        this.shardMigrator = shardMigrator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        return shardMigrator.getProgress();
+    }
+
+    @WriteOperation
+    public Map<String, Object> migrate() {
+        shardMigrator.start();
+        return shardMigrator.getProgress();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        shardMigrator.stop();
+        return shardMigrator.getProgress();
+    }
+}
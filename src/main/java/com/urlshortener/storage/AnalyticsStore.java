@@ -0,0 +1,33 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read side of click accounting: per-link analytics and reports over all links
+ *
+ * @author URL Shortener Team
+ */
+public interface AnalyticsStore {
+
+    /**
+     * Analytics of one link, or null if there is no such link
+     */
+    CompletableFuture<UrlAnalytics> get(String shortCode);
+
+    /**
+     * Top links by clicks, creation or last access
+     *
+     * @return up to query.getLimit() links, best first
+     */
+    CompletableFuture<List<UrlAnalytics>> query(AnalyticsQuery query);
+
+    /**
+     * Totals, today's activity and the top and recent tables
+     */
+    CompletableFuture<AnalyticsSummary> summarize();
+}
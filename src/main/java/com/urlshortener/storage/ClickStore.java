@@ -0,0 +1,29 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.events.ClickTally;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage of click counts, written apart from link lookups so a store can take
+ * clicks off the redirect path and apply them in batches
+ *
+ * @author URL Shortener Team
+ */
+public interface ClickStore {
+
+    /**
+     * Count one click; unknown short codes are ignored
+     */
+    CompletableFuture<Void> recordClick(String shortCode);
+
+    /**
+     * Add a batch of folded clicks, at most once per batch id
+     *
+     * @param batchId id derived from the clicks of the batch
+     * @param tallies clicks per short code
+     * @return false if the batch had already been applied
+     */
+    CompletableFuture<Boolean> recordClicks(String batchId, Map<String, ClickTally> tallies);
+}
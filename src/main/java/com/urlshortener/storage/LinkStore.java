@@ -0,0 +1,56 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage of links: creating them and resolving short codes. Lookups return futures
+ * so a remote store can pipeline many of them on one connection; a store that answers
+ * from memory completes them before returning.
+ *
+ * @author URL Shortener Team
+ */
+public interface LinkStore {
+
+    /**
+     * Store a new link under a short code the store chooses
+     *
+     * @return the stored link; fails with IllegalArgumentException if the URL is invalid or blocked
+     */
+    CompletableFuture<ShortenUrlResponse> create(ShortenUrlRequest request);
+
+    /**
+     * Resolve one short code, without counting a click
+     */
+    default CompletableFuture<ResolvedLink> resolve(String shortCode) {
+        return resolveAll(List.of(shortCode)).thenApply(links -> links.get(0));
+    }
+
+    /**
+     * Resolve many short codes, in one round trip where the store allows it
+     *
+     * @param shortCodes the short codes, without duplicates
+     * @return one entry per short code, in the same order
+     */
+    CompletableFuture<List<ResolvedLink>> resolveAll(List<String> shortCodes);
+
+    /**
+     * Stop serving a link while keeping its analytics
+     *
+     * @return true if the link existed and was deactivated
+     */
+    CompletableFuture<Boolean> deactivate(String shortCode);
+
+    /**
+     * Visit every stored link; blocks while paging through the store, so it is
+     * meant for background jobs
+     *
+     * @param action receives the short code and original URL of each link
+     */
+    void forEachLink(BiConsumer<String, String> action);
+}
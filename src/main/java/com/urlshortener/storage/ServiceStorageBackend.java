@@ -0,0 +1,238 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.events.ClickCounterStore;
+import com.urlshortener.events.ClickTally;
+import com.urlshortener.service.UrlShortenerService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Storage backend over one of the blocking services, such as the Redis or in-memory
+ * store. Calls run on the given executor; a store that answers from memory uses
+ * {@link #inline} so its futures complete on the calling thread. Batch lookups and
+ * batched clicks go to the service's own batch methods, which Redis pipelines.
+ * Single lookups made while another batch is in flight are coalesced into the next
+ * {@code resolveUrls} call. Every other call, redirects included, is one blocking
+ * service call on an executor thread, so the futures only free the caller.
+ *
+ * @author URL Shortener Team
+ */
+public class ServiceStorageBackend implements StorageBackend, LinkStore, ClickStore, AnalyticsStore {
+
+    private static final Executor CALLER = Runnable::run;
+
+    /**
+     * Most short codes resolved in one coalesced call
+     */
+    static final int MAX_LOOKUP_BATCH = 256;
+
+    private final String name;
+    private final UrlShortenerService service;
+    private final ClickCounterStore clickCounterStore;
+    private final Executor executor;
+    private final Queue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * @param clickCounterStore store that batched clicks are committed to, usually the service itself
+     * @param executor runs the blocking calls
+     */
+    public ServiceStorageBackend(String name, UrlShortenerService service, ClickCounterStore clickCounterStore,
+                                 Executor executor) {
+        this.name = name;
+        this.service = service;
+        this.clickCounterStore = clickCounterStore;
+        this.executor = executor;
+    }
+
+    /**
+     * Backend for a service that never blocks, running calls on the caller's thread
+     */
+    public static <T extends UrlShortenerService & ClickCounterStore> ServiceStorageBackend inline(String name,
+                                                                                                  T service) {
+        return new ServiceStorageBackend(name, service, service, CALLER);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Remote unless built with {@link #inline}
+     */
+    @Override
+    public boolean isRemote() {
+        return executor != CALLER;
+    }
+
+    @Override
+    public LinkStore links() {
+        return this;
+    }
+
+    @Override
+    public ClickStore clicks() {
+        return this;
+    }
+
+    @Override
+    public AnalyticsStore analytics() {
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<String> redirect(String shortCode) {
+        return call(() -> service.redirect(shortCode, null));
+    }
+
+    @Override
+    public CompletableFuture<ShortenUrlResponse> create(ShortenUrlRequest request) {
+        return call(() -> service.shortenUrl(request));
+    }
+
+    /**
+     * Queue the lookup and start a drain unless one is running, which picks it up
+     * with every other lookup queued by then
+     */
+    @Override
+    public CompletableFuture<ResolvedLink> resolve(String shortCode) {
+        CompletableFuture<ResolvedLink> future = new CompletableFuture<>();
+        pendingLookups.add(new PendingLookup(shortCode, future));
+        startDrain();
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<ResolvedLink>> resolveAll(List<String> shortCodes) {
+        return call(() -> service.resolveUrls(shortCodes));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deactivate(String shortCode) {
+        return call(() -> service.deactivateUrl(shortCode));
+    }
+
+    @Override
+    public void forEachLink(BiConsumer<String, String> action) {
+        service.forEachUrl(action);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClick(String shortCode) {
+        return call(() -> {
+            service.trackClick(shortCode);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> recordClicks(String batchId, Map<String, ClickTally> tallies) {
+        return call(() -> clickCounterStore.applyClicks(batchId, tallies));
+    }
+
+    @Override
+    public CompletableFuture<UrlAnalytics> get(String shortCode) {
+        return call(() -> service.getUrlAnalytics(shortCode));
+    }
+
+    @Override
+    public CompletableFuture<List<UrlAnalytics>> query(AnalyticsQuery query) {
+        return call(() -> service.queryUrls(query));
+    }
+
+    @Override
+    public CompletableFuture<AnalyticsSummary> summarize() {
+        return call(service::getAnalyticsSummary);
+    }
+
+    /**
+     * Start a drain unless one is running. When the executor rejects it, every lookup
+     * queued so far fails, not only the caller's, since lookups queued behind the
+     * rejected drain were counting on it; lookups queued meanwhile get another try.
+     */
+    private void startDrain() {
+        while (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drainLookups);
+                return;
+            } catch (RejectedExecutionException e) {
+                PendingLookup lookup;
+                while ((lookup = pendingLookups.poll()) != null) {
+                    lookup.future.completeExceptionally(e);
+                }
+                draining.set(false);
+                if (pendingLookups.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drainLookups() {
+        do {
+            Map<String, List<CompletableFuture<ResolvedLink>>> batch;
+            while (!(batch = pollLookups()).isEmpty()) {
+                resolveBatch(batch);
+            }
+            draining.set(false);
+        } while (!pendingLookups.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Take up to MAX_LOOKUP_BATCH distinct short codes off the queue
+     */
+    private Map<String, List<CompletableFuture<ResolvedLink>>> pollLookups() {
+        Map<String, List<CompletableFuture<ResolvedLink>>> batch = new LinkedHashMap<>();
+        PendingLookup lookup;
+        while (batch.size() < MAX_LOOKUP_BATCH && (lookup = pendingLookups.poll()) != null) {
+            batch.computeIfAbsent(lookup.shortCode, shortCode -> new ArrayList<>()).add(lookup.future);
+        }
+        return batch;
+    }
+
+    private void resolveBatch(Map<String, List<CompletableFuture<ResolvedLink>>> batch) {
+        List<String> shortCodes = new ArrayList<>(batch.keySet());
+        try {
+            List<ResolvedLink> links = service.resolveUrls(shortCodes);
+            for (int i = 0; i < shortCodes.size(); i++) {
+                ResolvedLink link = links.get(i);
+                batch.get(shortCodes.get(i)).forEach(future -> future.complete(link));
+            }
+        } catch (RuntimeException e) {
+            batch.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+        }
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    private static final class PendingLookup {
+
+        final String shortCode;
+        final CompletableFuture<ResolvedLink> future;
+
+        PendingLookup(String shortCode, CompletableFuture<ResolvedLink> future) {
+            this.shortCode = shortCode;
+            this.future = future;
+        }
+    }
+}
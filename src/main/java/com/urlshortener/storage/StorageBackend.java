@@ -0,0 +1,49 @@
+package com.urlshortener.storage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A storage backend, split into its link, click and analytics stores. Declaring a
+ * bean of this type makes UrlShortenerConfig serve from it instead of Redis or memory,
+ * behind the near cache when the backend is remote. Every implementation is expected
+ * to pass the storage conformance kit in the tests.
+ * <p>
+ * The futures only say a call may complete later. Whether calls share round trips
+ * is up to the backend: one that wraps a blocking client in {@code supplyAsync}
+ * still holds a thread and a connection per call, and only the batch methods save
+ * round trips.
+ *
+ * @author URL Shortener Team
+ */
+public interface StorageBackend {
+
+    /**
+     * Name shown in logs and benchmark reports
+     */
+    String getName();
+
+    /**
+     * Whether lookups leave the process, so redirects are worth caching locally
+     */
+    default boolean isRemote() {
+        return true;
+    }
+
+    LinkStore links();
+
+    ClickStore clicks();
+
+    AnalyticsStore analytics();
+
+    /**
+     * Resolve a short code for a redirect and count the click if it resolves.
+     * Stores that can do both in one round trip override this.
+     *
+     * @return the original URL, or null if the link is unknown or inactive
+     */
+    default CompletableFuture<String> redirect(String shortCode) {
+        return links().resolve(shortCode).thenCompose(link -> link.isActive()
+            ? clicks().recordClick(shortCode).thenApply(ignored -> link.getOriginalUrl())
+            : CompletableFuture.completedFuture(null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.urlshortener.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends traces to a local file as JSON lines, flushed once per batch
+ *
+ * @author URL Shortener Team
+ */
+public class FileTraceSink implements TraceSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private Writer writer;
+
+    public FileTraceSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void export(List<TraceRecord> traces) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (TraceRecord trace : traces) {
+                writer.write(objectMapper.writeValueAsString(trace));
+                writer.write('\n');
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write traces to " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+            writer = null;
+        }
+    }
+}
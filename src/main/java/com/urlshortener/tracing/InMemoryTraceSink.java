@@ -0,0 +1,38 @@
+package com.urlshortener.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent traces in memory, for the tracing endpoint and for tests
+ *
+ * @author URL Shortener Team
+ */
+public class InMemoryTraceSink implements TraceSink {
+
+    private final int capacity;
+    private final Deque<TraceRecord> traces = new ArrayDeque<>();
+
+    public InMemoryTraceSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void export(List<TraceRecord> batch) {
+        for (TraceRecord trace : batch) {
+            if (traces.size() == capacity) {
+                traces.removeLast();
+            }
+            traces.addFirst(trace);
+        }
+    }
+
+    /**
+     * Kept traces, newest first
+     */
+    public synchronized List<TraceRecord> getTraces() {
+        return new ArrayList<>(traces);
+    }
+}
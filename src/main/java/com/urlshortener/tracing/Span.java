@@ -0,0 +1,44 @@
+package com.urlshortener.tracing;
+
+/**
+ * Handle of an open span; closing it records the end time. Handles are preallocated
+ * per thread and reused, so they must not be kept after they are closed.
+ * Requests that are not being traced get the shared no-op handle.
+ *
+ * @author URL Shortener Team
+ */
+public final class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(null, -1);
+
+    private final TraceBuffer buffer;
+    private final int index;
+
+    Span(TraceBuffer buffer, int index) {
+        this.buffer = buffer;
+        this.index = index;
+    }
+
+    /**
+     * Whether this span is recorded, so callers can skip building tags otherwise
+     */
+    public boolean isRecording() {
+        return buffer != null;
+    }
+
+    /**
+     * Mark the span as failed
+     */
+    public void error() {
+        if (buffer != null) {
+            buffer.errors[index] = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (buffer != null) {
+            buffer.close(index);
+        }
+    }
+}
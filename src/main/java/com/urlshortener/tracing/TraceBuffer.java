@@ -0,0 +1,95 @@
+package com.urlshortener.tracing;
+
+/**
+ * Spans of the trace running on one thread, kept in preallocated arrays so that
+ * recording a trace that is then discarded allocates nothing
+ *
+ * @author URL Shortener Team
+ */
+final class TraceBuffer {
+
+    static final int MAX_ATTRIBUTES = 8;
+
+    final Tracer tracer;
+    final String[] names;
+    final int[] parents;
+    final long[] starts;
+    final long[] ends;
+    final boolean[] errors;
+    final String[] attributes = new String[2 * MAX_ATTRIBUTES];
+    private final Span[] spans;
+
+    int size;
+    int current = -1;
+    int attributeCount;
+    int truncated;
+    boolean active;
+    boolean headSampled;
+    boolean error;
+    String traceId;
+    long startMillis;
+
+    TraceBuffer(Tracer tracer, int maxSpans) {
+        this.tracer = tracer;
+        this.names = new String[maxSpans];
+        this.parents = new int[maxSpans];
+        this.starts = new long[maxSpans];
+        this.ends = new long[maxSpans];
+        this.errors = new boolean[maxSpans];
+        this.spans = new Span[maxSpans];
+        for (int i = 0; i < maxSpans; i++) {
+            spans[i] = new Span(this, i);
+        }
+    }
+
+    Span open(String name) {
+        if (size == names.length) {
+            truncated++;
+            return Span.NOOP;
+        }
+        int index = size++;
+        names[index] = name;
+        parents[index] = current;
+        errors[index] = false;
+        ends[index] = 0;
+        starts[index] = System.nanoTime();
+        current = index;
+        return spans[index];
+    }
+
+    void close(int index) {
+        if (!active || index >= size || ends[index] != 0) {
+            return;
+        }
+        ends[index] = System.nanoTime();
+        current = parents[index];
+        if (index == 0) {
+            tracer.finish(this);
+        }
+    }
+
+    void tag(String key, String value) {
+        if (attributeCount < MAX_ATTRIBUTES) {
+            attributes[2 * attributeCount] = key;
+            attributes[2 * attributeCount + 1] = value;
+            attributeCount++;
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < size; i++) {
+            names[i] = null;
+        }
+        for (int i = 0; i < 2 * attributeCount; i++) {
+            attributes[i] = null;
+        }
+        size = 0;
+        current = -1;
+        attributeCount = 0;
+        truncated = 0;
+        active = false;
+        headSampled = false;
+        error = false;
+        traceId = null;
+    }
+}
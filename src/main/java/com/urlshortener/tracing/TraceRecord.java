@@ -0,0 +1,138 @@
+package com.urlshortener.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A finished, sampled trace as handed to the sinks. Span times are in microseconds
+ * from the start of the root span.
+ *
+ * @author URL Shortener Team
+ */
+public class TraceRecord {
+
+    private final String traceId;
+    private final String reason;
+    private final long startedAt;
+    private final long durationMicros;
+    private final Map<String, String> attributes;
+    private final List<SpanRecord> spans;
+    private final int truncatedSpans;
+
+    public TraceRecord(String traceId, String reason, long startedAt, long durationMicros,
+                       Map<String, String> attributes, List<SpanRecord> spans, int truncatedSpans) {
+        this.traceId = traceId;
+        this.reason = reason;
+        this.startedAt = startedAt;
+        this.durationMicros = durationMicros;
+        this.attributes = attributes;
+        this.spans = spans;
+        this.truncatedSpans = truncatedSpans;
+    }
+
+    /**
+     * Copy a finished trace out of its thread's buffer; spans still open end with the root
+     */
+    static TraceRecord of(TraceBuffer buffer, String reason) {
+        long origin = buffer.starts[0];
+        long rootEnd = buffer.ends[0];
+        List<SpanRecord> spans = new ArrayList<>(buffer.size);
+        for (int i = 0; i < buffer.size; i++) {
+            long end = buffer.ends[i] == 0 ? rootEnd : buffer.ends[i];
+            spans.add(new SpanRecord(buffer.names[i], buffer.parents[i], micros(buffer.starts[i] - origin),
+                micros(end - buffer.starts[i]), buffer.errors[i]));
+        }
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < buffer.attributeCount; i++) {
+            attributes.put(buffer.attributes[2 * i], buffer.attributes[2 * i + 1]);
+        }
+        String traceId = buffer.traceId != null ? buffer.traceId : newTraceId();
+        return new TraceRecord(traceId, reason, buffer.startMillis, micros(rootEnd - origin),
+            Collections.unmodifiableMap(attributes), Collections.unmodifiableList(spans), buffer.truncated);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Why the trace was kept: head, error or latency
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public List<SpanRecord> getSpans() {
+        return spans;
+    }
+
+    public int getTruncatedSpans() {
+        return truncatedSpans;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+
+    /**
+     * One span of a trace; parent is the index of the enclosing span, -1 for the root
+     */
+    public static final class SpanRecord {
+
+        private final String name;
+        private final int parent;
+        private final long startMicros;
+        private final long durationMicros;
+        private final boolean error;
+
+        public SpanRecord(String name, int parent, long startMicros, long durationMicros, boolean error) {
+            this.name = name;
+            this.parent = parent;
+            this.startMicros = startMicros;
+            this.durationMicros = durationMicros;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParent() {
+            return parent;
+        }
+
+        public long getStartMicros() {
+            return startMicros;
+        }
+
+        public long getDurationMicros() {
+            return durationMicros;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.urlshortener.tracing;
+
+import java.util.List;
+
+/**
+ * Destination of sampled traces. Called from the exporter thread only, with batches
+ * of finished traces; a failing export drops that batch.
+ * Declare a TraceSink bean to replace the configured one.
+ *
+ * @author URL Shortener Team
+ */
+public interface TraceSink {
+
+    /**
+     * Export a batch of finished traces
+     */
+    void export(List<TraceRecord> traces);
+
+    /**
+     * Release resources at shutdown
+     */
+    default void close() {
+    }
+}
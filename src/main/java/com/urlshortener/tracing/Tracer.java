@@ -0,0 +1,217 @@
+package com.urlshortener.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process tracer for request stages. Spans are recorded per thread into reusable
+ * buffers; when the root span ends the trace is kept if it was head-sampled, failed,
+ * or took longer than the tail latency, and discarded otherwise. Kept traces are
+ * queued and exported to the sink in batches from a background flush, so the request
+ * path never waits on the sink. Spans opened on other threads are not part of the trace.
+ *
+ * @author URL Shortener Team
+ */
+public class Tracer {
+
+    private static final int EXPORT_BATCH_SIZE = 256;
+
+    private final TraceSink sink;
+    private final boolean enabled;
+    private final double headSampleRate;
+    private final long tailLatencyNanos;
+    private final boolean tailOnError;
+    private final BlockingQueue<TraceRecord> queue;
+    private final ThreadLocal<TraceBuffer> buffers;
+
+    private final Counter headSampled;
+    private final Counter errorSampled;
+    private final Counter latencySampled;
+    private final Counter discarded;
+    private final Counter dropped;
+    private final Counter exportFailures;
+
+    /**
+     * @param headSampleRate share of traces kept regardless of how they end
+     * @param tailLatencyMillis keep traces at least this slow, 0 to disable
+     * @param tailOnError keep traces that failed
+     * @param maxSpans spans recorded per trace; further spans are counted only
+     * @param queueSize kept traces waiting for export; more are dropped
+     */
+    public Tracer(TraceSink sink, MeterRegistry meterRegistry, boolean enabled, double headSampleRate,
+                  long tailLatencyMillis, boolean tailOnError, int maxSpans, int queueSize) {
+        this.sink = sink;
+        this.enabled = enabled;
+        this.headSampleRate = headSampleRate;
+        this.tailLatencyNanos = TimeUnit.MILLISECONDS.toNanos(tailLatencyMillis);
+        this.tailOnError = tailOnError;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.buffers = ThreadLocal.withInitial(() -> new TraceBuffer(this, maxSpans));
+        this.headSampled = meterRegistry.counter("tracing.traces", "outcome", "head");
+        this.errorSampled = meterRegistry.counter("tracing.traces", "outcome", "error");
+        this.latencySampled = meterRegistry.counter("tracing.traces", "outcome", "latency");
+        this.discarded = meterRegistry.counter("tracing.traces", "outcome", "discarded");
+        this.dropped = meterRegistry.counter("tracing.dropped");
+        this.exportFailures = meterRegistry.counter("tracing.export.failures");
+    }
+
+    /**
+     * Start a trace on this thread, or a child span if one is already running
+     *
+     * @param traceParent W3C traceparent header of the caller, or null; its trace id is kept
+     *        and its sampled flag forces head sampling
+     */
+    public Span startTrace(String name, String traceParent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        TraceBuffer buffer = buffers.get();
+        if (buffer.active) {
+            return buffer.open(name);
+        }
+        String traceId = null;
+        boolean head = false;
+        if (traceParent != null && traceParent.length() == 55 && traceParent.charAt(2) == '-'
+                && traceParent.charAt(35) == '-' && traceParent.charAt(52) == '-') {
+            traceId = traceParent.substring(3, 35);
+            head = (Character.digit(traceParent.charAt(54), 16) & 1) == 1;
+        }
+        head |= headSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < headSampleRate;
+        if (!head && tailLatencyNanos <= 0 && !tailOnError) {
+            return Span.NOOP;
+        }
+        buffer.active = true;
+        buffer.headSampled = head;
+        buffer.traceId = traceId;
+        buffer.startMillis = System.currentTimeMillis();
+        return buffer.open(name);
+    }
+
+    /**
+     * Start a child of the current span, if this thread is running a trace
+     */
+    public Span start(String name) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        TraceBuffer buffer = buffers.get();
+        return buffer.active ? buffer.open(name) : Span.NOOP;
+    }
+
+    /**
+     * Attach an attribute to the trace running on this thread
+     */
+    public void tag(String key, String value) {
+        if (enabled) {
+            TraceBuffer buffer = buffers.get();
+            if (buffer.active) {
+                buffer.tag(key, value);
+            }
+        }
+    }
+
+    /**
+     * Mark the trace running on this thread as failed, so tail sampling keeps it
+     */
+    public void markError() {
+        if (enabled) {
+            TraceBuffer buffer = buffers.get();
+            if (buffer.active) {
+                buffer.error = true;
+            }
+        }
+    }
+
+    /**
+     * Called when the root span ends: decide whether to keep the trace, then reuse the buffer
+     */
+    void finish(TraceBuffer buffer) {
+        try {
+            String reason;
+            if (buffer.headSampled) {
+                reason = "head";
+                headSampled.increment();
+            } else if (buffer.error && tailOnError) {
+                reason = "error";
+                errorSampled.increment();
+            } else if (tailLatencyNanos > 0 && buffer.ends[0] - buffer.starts[0] >= tailLatencyNanos) {
+                reason = "latency";
+                latencySampled.increment();
+            } else {
+                discarded.increment();
+                return;
+            }
+            if (!queue.offer(TraceRecord.of(buffer, reason))) {
+                dropped.increment();
+            }
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Export queued traces to the sink in batches
+     *
+     * @return traces exported
+     */
+    @Scheduled(fixedDelayString = "${app.tracing.export-interval-ms:1000}")
+    public synchronized int flush() {
+        int exported = 0;
+        List<TraceRecord> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        while (queue.drainTo(batch, EXPORT_BATCH_SIZE) > 0) {
+            try {
+                sink.export(batch);
+                exported += batch.size();
+            } catch (RuntimeException e) {
+                // Sink unavailable, drop the batch rather than hold requests' memory
+                exportFailures.increment();
+            }
+            batch.clear();
+        }
+        return exported;
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        sink.close();
+    }
+
+    /**
+     * Sampling settings and counts for the tracing endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("headSampleRate", headSampleRate);
+        stats.put("tailLatencyMs", TimeUnit.NANOSECONDS.toMillis(tailLatencyNanos));
+        stats.put("tailOnError", tailOnError);
+        stats.put("headSampled", (long) headSampled.count());
+        stats.put("errorSampled", (long) errorSampled.count());
+        stats.put("latencySampled", (long) latencySampled.count());
+        stats.put("discarded", (long) discarded.count());
+        stats.put("dropped", (long) dropped.count());
+        stats.put("queued", queue.size());
+        stats.put("sink", sink.getClass().getSimpleName());
+        return stats;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TraceSink getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,35 @@
+package com.urlshortener.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting sampling counts and, with the memory sink, the most
+ * recent traces at /actuator/tracing
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "tracing")
+public class TracingEndpoint {
+
+    private final Tracer tracer;
+
+    public TracingEndpoint(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> traces() {
+        Map<String, Object> report = new LinkedHashMap<>(tracer.getStats());
+        if (tracer.getSink() instanceof InMemoryTraceSink) {
+            tracer.flush();
+            report.put("traces", ((InMemoryTraceSink) tracer.getSink()).getTraces());
+        }
+        return report;
+    }
+}
@@ -0,0 +1,85 @@
+package com.urlshortener.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens the root span of each request ahead of every other filter, plus a "filters"
+ * span that the dispatch filter closes once the filter chain, security included,
+ * has let the request through. Requests answered with a 5xx are marked failed, except
+ * 503s: those are shed load, and keeping a trace of each would add work under overload.
+ *
+ * @author URL Shortener Team
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    static final String FILTERS_SPAN = TracingFilter.class.getName() + ".filters";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Span root = tracer.startTrace("http", request.getHeader("traceparent"));
+        if (root.isRecording()) {
+            tracer.tag("method", request.getMethod());
+            tracer.tag("path", request.getRequestURI());
+            request.setAttribute(FILTERS_SPAN, tracer.start("filters"));
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            tracer.markError();
+            throw e;
+        } finally {
+            if (root.isRecording()) {
+                tracer.tag("status", Integer.toString(response.getStatus()));
+                if (response.getStatus() >= 500 && response.getStatus() != 503) {
+                    tracer.markError();
+                }
+            }
+            root.close();
+        }
+    }
+
+    /**
+     * Ends the "filters" span and wraps the rest of the request, from the dispatcher
+     * servlet through the controller, in a "dispatch" span
+     */
+    public static class DispatchFilter extends OncePerRequestFilter {
+
+        private final Tracer tracer;
+
+        public DispatchFilter(Tracer tracer) {
+            this.tracer = tracer;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            Object filters = request.getAttribute(FILTERS_SPAN);
+            if (filters instanceof Span) {
+                ((Span) filters).close();
+                request.removeAttribute(FILTERS_SPAN);
+            }
+            Span dispatch = tracer.start("dispatch");
+            try {
+                filterChain.doFilter(request, response);
+            } catch (IOException | ServletException | RuntimeException e) {
+                dispatch.error();
+                throw e;
+            } finally {
+                dispatch.close();
+            }
+        }
+    }
+}
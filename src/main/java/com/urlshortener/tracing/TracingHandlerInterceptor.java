@@ -0,0 +1,49 @@
+package com.urlshortener.tracing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Records a "controller" span around the handler method and tags the trace with
+ * the controller and method that served it
+ *
+ * @author URL Shortener Team
+ */
+public class TracingHandlerInterceptor implements HandlerInterceptor {
+
+    private static final String CONTROLLER_SPAN = TracingHandlerInterceptor.class.getName() + ".controller";
+
+    private final Tracer tracer;
+
+    public TracingHandlerInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Span span = tracer.start("controller");
+        if (span.isRecording()) {
+            if (handler instanceof HandlerMethod) {
+                HandlerMethod method = (HandlerMethod) handler;
+                tracer.tag("handler", method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+            }
+            request.setAttribute(CONTROLLER_SPAN, span);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object span = request.getAttribute(CONTROLLER_SPAN);
+        if (span instanceof Span) {
+            if (ex != null) {
+                ((Span) span).error();
+            }
+            ((Span) span).close();
+            request.removeAttribute(CONTROLLER_SPAN);
+        }
+    }
+}
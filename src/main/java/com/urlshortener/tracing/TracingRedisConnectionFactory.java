@@ -0,0 +1,118 @@
+package com.urlshortener.tracing;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connection factory whose connections record a "redis.&lt;command&gt;" span around each
+ * command, including commands reached through keyCommands(), stringCommands() and the
+ * other command groups. In a pipeline the round trip is the closePipeline span.
+ *
+ * @author URL Shortener Team
+ */
+public class TracingRedisConnectionFactory implements RedisConnectionFactory, DisposableBean {
+
+    private static final Set<String> UNTRACED = Set.of("close", "isClosed", "isPipelined", "isQueueing",
+        "getNativeConnection", "openPipeline", "toString", "hashCode", "equals");
+
+    private static final Map<Method, String> SPAN_NAMES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Class<?>[]> INTERFACES = new ConcurrentHashMap<>();
+
+    private final RedisConnectionFactory delegate;
+    private final Tracer tracer;
+
+    public TracingRedisConnectionFactory(RedisConnectionFactory delegate, Tracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        return traced(delegate.getConnection());
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        return delegate.getClusterConnection();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return delegate.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return delegate.getSentinelConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegate.translateExceptionIfPossible(ex);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean) {
+            ((DisposableBean) delegate).destroy();
+        }
+    }
+
+    public RedisConnectionFactory getDelegate() {
+        return delegate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T traced(T target) {
+        Class<?>[] interfaces = INTERFACES.computeIfAbsent(target.getClass(), type ->
+            Arrays.stream(ClassUtils.getAllInterfacesForClass(type))
+                .filter(candidate -> Modifier.isPublic(candidate.getModifiers()))
+                .toArray(Class<?>[]::new));
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces,
+            (proxy, method, args) -> invoke(target, method, args));
+    }
+
+    private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        Class<?> returnType = method.getReturnType();
+        if (returnType.isInterface() && returnType.getName().startsWith("org.springframework.data.redis.connection.")
+                && returnType.getSimpleName().endsWith("Commands")) {
+            // Command group accessor: trace the commands called on the group instead
+            Object commands = call(target, method, args);
+            return commands == null ? null : traced(commands);
+        }
+        if (UNTRACED.contains(method.getName()) || method.getDeclaringClass() == Object.class) {
+            return call(target, method, args);
+        }
+        Span span = tracer.start(SPAN_NAMES.computeIfAbsent(method, m -> "redis." + m.getName()));
+        try {
+            return call(target, method, args);
+        } catch (Throwable e) {
+            span.error();
+            throw e;
+        } finally {
+            span.close();
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
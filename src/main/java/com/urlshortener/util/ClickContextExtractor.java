@@ -0,0 +1,164 @@
+package com.urlshortener.util;
+
+import com.urlshortener.bots.ClickSource;
+import com.urlshortener.dto.ClickContext;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Derives low-cardinality click dimensions from request headers:
+ * referrer host, user-agent family, country and device type
+ *
+ * @author URL Shortener Team
+ */
+public final class ClickContextExtractor {
+
+    /** Referrer of clicks that arrive without a Referer header */
+    public static final String DIRECT = "(direct)";
+
+    /** Country headers set by common CDNs and GeoIP-enabled ingresses */
+    private static final String[] COUNTRY_HEADERS = {"CF-IPCountry", "CloudFront-Viewer-Country", "X-Country-Code"};
+
+    private ClickContextExtractor() {}
+
+    /**
+     * Build the click context of a redirect request
+     */
+    public static ClickContext extract(HttpServletRequest request) {
+        String userAgent = request.getHeader("User-Agent");
+        return new ClickContext(
+            System.currentTimeMillis(),
+            referrerHost(request.getHeader("Referer")),
+            userAgentFamily(userAgent),
+            country(request),
+            device(userAgent));
+    }
+
+    /**
+     * Build the click context of a redirect request already classified by the
+     * bot filter, whose verdict replaces the built-in bot check
+     */
+    public static ClickContext extract(HttpServletRequest request, ClickSource source) {
+        String userAgent = request.getHeader("User-Agent");
+        boolean human = source == ClickSource.HUMAN;
+        ClickContext context = new ClickContext(
+            System.currentTimeMillis(),
+            referrerHost(request.getHeader("Referer")),
+            human ? browserFamily(userAgent) : "Bot",
+            country(request),
+            human ? deviceType(userAgent) : "bot");
+        context.setSource(source);
+        return context;
+    }
+
+    /**
+     * Host of the referring page without "www.", or "(direct)"
+     */
+    static String referrerHost(String referer) {
+        if (referer == null || referer.isEmpty()) {
+            return DIRECT;
+        }
+        int start = referer.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < referer.length()) {
+            char c = referer.charAt(end);
+            if (c == '/' || c == ':' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        int at = referer.lastIndexOf('@', end - 1);
+        if (at >= start) {
+            start = at + 1;
+        }
+        if (referer.startsWith("www.", start)) {
+            start += 4;
+        }
+        return start >= end ? DIRECT : referer.substring(start, end).toLowerCase();
+    }
+
+    /**
+     * Browser or client family; order matters because most user agents
+     * also claim to be the engines they derive from
+     */
+    static String userAgentFamily(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return "unknown";
+        }
+        if (isBot(userAgent)) {
+            return "Bot";
+        }
+        return browserFamily(userAgent);
+    }
+
+    private static String browserFamily(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return "unknown";
+        }
+        if (userAgent.contains("Edg/") || userAgent.contains("Edge/")) {
+            return "Edge";
+        }
+        if (userAgent.contains("OPR/") || userAgent.contains("Opera")) {
+            return "Opera";
+        }
+        if (userAgent.contains("SamsungBrowser")) {
+            return "Samsung Internet";
+        }
+        if (userAgent.contains("Firefox/") || userAgent.contains("FxiOS")) {
+            return "Firefox";
+        }
+        if (userAgent.contains("Chrome/") || userAgent.contains("CriOS")) {
+            return "Chrome";
+        }
+        if (userAgent.contains("Safari/")) {
+            return "Safari";
+        }
+        if (userAgent.contains("MSIE") || userAgent.contains("Trident/")) {
+            return "Internet Explorer";
+        }
+        if (userAgent.startsWith("curl/") || userAgent.startsWith("Wget/")) {
+            return "CLI";
+        }
+        return "Other";
+    }
+
+    static String device(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return "unknown";
+        }
+        if (isBot(userAgent)) {
+            return "bot";
+        }
+        return deviceType(userAgent);
+    }
+
+    private static String deviceType(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return "unknown";
+        }
+        if (userAgent.contains("iPad") || userAgent.contains("Tablet")
+                || (userAgent.contains("Android") && !userAgent.contains("Mobile"))) {
+            return "tablet";
+        }
+        if (userAgent.contains("Mobi") || userAgent.contains("iPhone") || userAgent.contains("Android")) {
+            return "mobile";
+        }
+        return "desktop";
+    }
+
+    static String country(HttpServletRequest request) {
+        for (String header : COUNTRY_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null && value.length() == 2) {
+                return value.toUpperCase();
+            }
+        }
+        return "unknown";
+    }
+
+    private static boolean isBot(String userAgent) {
+        String lower = userAgent.toLowerCase();
+        return lower.contains("bot") || lower.contains("spider") || lower.contains("crawl")
+            || lower.contains("preview") || lower.contains("facebookexternalhit");
+    }
+}
@@ -0,0 +1,66 @@
+package com.urlshortener.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Coarse classes of incoming traffic, used to apply per-class limits
+ *
+ * @author URL Shortener Team
+ */
+public enum TrafficClass {
+
+    /** GET /{shortCode} */
+    REDIRECT,
+    /** POST /shorten and other link-creating calls */
+    CREATE,
+    /** Analytics pages and APIs */
+    ANALYTICS,
+    /** Actuator and internal cluster endpoints */
+    ADMIN,
+    /** Everything else: web pages, static resources */
+    OTHER;
+
+    /**
+     * Classify a request by method and path without allocating
+     *
+     * @param request the incoming request
+     * @return its traffic class
+     */
+    public static TrafficClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (path == null || path.isEmpty()) {
+            return OTHER;
+        }
+        if ("POST".equals(method) && "/shorten".equals(path)) {
+            return CREATE;
+        }
+        if (path.startsWith("/api/analytics") || "/analytics".equals(path)) {
+            return ANALYTICS;
+        }
+        if (path.startsWith("/actuator") || path.startsWith("/internal/")) {
+            return ADMIN;
+        }
+        if ("GET".equals(method) && isShortCodePath(path)) {
+            return REDIRECT;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Whether the path is a single alphanumeric segment that is not a page
+     */
+    static boolean isShortCodePath(String path) {
+        int length = path.length();
+        if (length < 2 || path.charAt(0) != '/') {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            char c = path.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return !"/about".equals(path) && !"/analytics".equals(path) && !"/shorten".equals(path);
+    }
+}
@@ -0,0 +1,269 @@
+package com.urlshortener.warmup;
+
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.dto.UrlAnalytics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the most-clicked and most-recent links into the local near cache before
+ * the pod reports ready, so a fresh pod does not send all of its first requests
+ * to Redis. Analytics and URLs are read in MGET batches on a small thread pool,
+ * and the whole run stops at its time budget. The scan for candidates may use only
+ * scan-budget-percent of it, so a large keyspace cannot leave nothing for loading:
+ * a scan cut short loads the best links it has seen so far.
+ *
+ * @author URL Shortener Team
+ */
+@Component
+public class LinkWarmup {
+
+    /** Warm-up states reported through actuator */
+    public enum State { PENDING, RUNNING, COMPLETED, BUDGET_EXCEEDED, SKIPPED, FAILED }
+
+    private static final Comparator<UrlAnalytics> BY_CLICKS =
+        Comparator.comparingInt(UrlAnalytics::getClickCount);
+    private static final Comparator<UrlAnalytics> BY_CREATED_AT =
+        Comparator.comparing(UrlAnalytics::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ObjectProvider<LinkWarmupSource> source;
+    private final RemoteHitCache nearCache;
+    private final boolean enabled;
+    private final int topClicked;
+    private final int mostRecent;
+    private final int batchSize;
+    private final int parallelism;
+    private final long budgetMillis;
+    private final int scanBudgetPercent;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private volatile State state = State.PENDING;
+    private volatile int candidates;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    public LinkWarmup(ObjectProvider<LinkWarmupSource> source,
+                      RemoteHitCache linkNearCache,
+                      @Value("${app.warmup.enabled:true}") boolean enabled,
+                      @Value("${app.near-cache.enabled:true}") boolean nearCacheEnabled,
+                      @Value("${app.warmup.top-clicked:20000}") int topClicked,
+                      @Value("${app.warmup.most-recent:5000}") int mostRecent,
+                      @Value("${app.warmup.batch-size:500}") int batchSize,
+                      @Value("${app.warmup.parallelism:4}") int parallelism,
+                      @Value("${app.warmup.budget-ms:20000}") long budgetMillis,
+                      @Value("${app.warmup.scan-budget-percent:70}") int scanBudgetPercent) {
+        this.source = source;
+        this.nearCache = linkNearCache;
+        this.enabled = enabled && nearCacheEnabled;
+        this.topClicked = topClicked;
+        this.mostRecent = mostRecent;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.budgetMillis = budgetMillis;
+        this.scanBudgetPercent = Math.max(1, Math.min(100, scanBudgetPercent));
+    }
+
+    /**
+     * Start warming once the context is up; readiness waits for it through the health group
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "link-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Run the warm-up on the calling thread
+     */
+    public synchronized void run() {
+        startedAt = System.currentTimeMillis();
+        LinkWarmupSource warmupSource = source.getIfAvailable();
+        if (!enabled || warmupSource == null || nearCache == null) {
+            finish(State.SKIPPED);
+            return;
+        }
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        long scanDeadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis * scanBudgetPercent / 100);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "link-warmup-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            boolean[] scanComplete = new boolean[1];
+            List<String> selected = selectCandidates(warmupSource, pool, scanDeadline, scanComplete);
+            candidates = selected.size();
+            boolean complete = loadUrls(warmupSource, pool, selected, deadline) && scanComplete[0];
+            finish(complete && System.nanoTime() < deadline ? State.COMPLETED : State.BUDGET_EXCEEDED);
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            finish(State.FAILED);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Scan analytics in parallel MGET batches, keeping the top links by clicks and by creation time.
+     * Reads still queued at the deadline are cancelled so they do not hold up the loading.
+     */
+    private List<String> selectCandidates(LinkWarmupSource warmupSource, ExecutorService pool, long deadline,
+                                          boolean[] complete) {
+        PriorityQueue<UrlAnalytics> hottest = new PriorityQueue<>(BY_CLICKS);
+        PriorityQueue<UrlAnalytics> newest = new PriorityQueue<>(BY_CREATED_AT);
+        List<Future<?>> reads = new ArrayList<>();
+        warmupSource.scanShortCodes(batchSize, shortCodes -> {
+            reads.add(pool.submit(() -> {
+                List<UrlAnalytics> batch = warmupSource.getAnalyticsBatch(shortCodes);
+                synchronized (hottest) {
+                    for (UrlAnalytics analytics : batch) {
+                        if (analytics != null && analytics.isActive()) {
+                            offer(hottest, analytics, topClicked);
+                            offer(newest, analytics, mostRecent);
+                        }
+                    }
+                }
+                scanned.addAndGet(shortCodes.size());
+            }));
+            return System.nanoTime() < deadline;
+        });
+        complete[0] = System.nanoTime() < deadline && awaitAll(reads, deadline);
+        if (!complete[0]) {
+            reads.forEach(read -> read.cancel(true));
+        }
+        synchronized (hottest) {
+            Set<String> selected = new LinkedHashSet<>();
+            List<UrlAnalytics> ordered = new ArrayList<>(hottest);
+            ordered.sort(BY_CLICKS.reversed());
+            ordered.forEach(analytics -> selected.add(analytics.getShortCode()));
+            newest.forEach(analytics -> selected.add(analytics.getShortCode()));
+            return new ArrayList<>(selected);
+        }
+    }
+
+    /**
+     * Fetch original URLs of the selected links in parallel MGET batches, hottest first
+     *
+     * @return false if the budget ran out first
+     */
+    private boolean loadUrls(LinkWarmupSource warmupSource, ExecutorService pool, List<String> selected,
+                             long deadline) {
+        List<Future<?>> reads = new ArrayList<>();
+        for (int from = 0; from < selected.size(); from += batchSize) {
+            List<String> shortCodes = selected.subList(from, Math.min(from + batchSize, selected.size()));
+            reads.add(pool.submit(() -> {
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+                List<String> urls = warmupSource.getOriginalUrls(shortCodes);
+                for (int i = 0; i < shortCodes.size(); i++) {
+                    if (urls.get(i) != null) {
+                        nearCache.put(shortCodes.get(i), urls.get(i));
+                        loaded.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        return awaitAll(reads, deadline);
+    }
+
+    private static void offer(PriorityQueue<UrlAnalytics> heap, UrlAnalytics analytics, int limit) {
+        if (limit <= 0) {
+            return;
+        }
+        if (heap.size() < limit) {
+            heap.add(analytics);
+        } else if (heap.comparator().compare(analytics, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(analytics);
+        }
+    }
+
+    /**
+     * Wait for submitted reads until the deadline
+     *
+     * @return true if all of them finished in time
+     */
+    private static boolean awaitAll(List<Future<?>> reads, long deadline) {
+        for (Future<?> read : reads) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                if (remaining <= 0) {
+                    return false;
+                }
+                read.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Warm-up read failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return true;
+    }
+
+    private void finish(State result) {
+        finishedAt = System.currentTimeMillis();
+        state = result;
+        if (result != State.SKIPPED) {
+            System.out.println("🔥 Link warm-up " + result + ": " + loaded.get() + " links cached, "
+                + scanned.get() + " scanned in " + (finishedAt - startedAt) + " ms");
+        }
+    }
+
+    /**
+     * Whether the pod may report ready: warm-up finished, ran out of budget or was skipped
+     */
+    public boolean isDone() {
+        return state != State.PENDING && state != State.RUNNING;
+    }
+
+    /**
+     * Progress snapshot for the actuator endpoint and health indicator
+     */
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("scanned", scanned.get());
+        progress.put("candidates", candidates);
+        progress.put("loaded", loaded.get());
+        long end = isDone() ? finishedAt : System.currentTimeMillis();
+        progress.put("elapsedMs", startedAt == 0 ? 0 : end - startedAt);
+        progress.put("budgetMs", budgetMillis);
+        progress.put("nearCacheSize", nearCache == null ? 0 : nearCache.size());
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+
+    public State getState() {
+        return state;
+    }
+}
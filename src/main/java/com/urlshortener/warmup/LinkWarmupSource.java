@@ -0,0 +1,36 @@
+package com.urlshortener.warmup;
+
+import com.urlshortener.dto.UrlAnalytics;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Backend reads used to warm local caches at startup
+ *
+ * @author URL Shortener Team
+ */
+public interface LinkWarmupSource {
+
+    /**
+     * Page through the short codes of all stored links
+     *
+     * @param batchSize codes per batch
+     * @param batchHandler receives each batch; returning false stops the scan
+     */
+    void scanShortCodes(int batchSize, Predicate<List<String>> batchHandler);
+
+    /**
+     * Read the analytics of many links in one round trip
+     *
+     * @return analytics in request order, null for links that no longer exist
+     */
+    List<UrlAnalytics> getAnalyticsBatch(List<String> shortCodes);
+
+    /**
+     * Read the original URLs of many links in one round trip
+     *
+     * @return URLs in request order, null for links that no longer exist
+     */
+    List<String> getOriginalUrls(List<String> shortCodes);
+}
@@ -0,0 +1,28 @@
+package com.urlshortener.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting warm-up progress at /actuator/warmup
+ *
+ * @author URL Shortener Team
+ */
+@Component
+@Endpoint(id = "warmup")
+public class WarmupEndpoint {
+
+    private final LinkWarmup linkWarmup;
+
+    public WarmupEndpoint(LinkWarmup linkWarmup) {
+        this.linkWarmup = linkWarmup;
+    }
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return linkWarmup.getProgress();
+    }
+}
@@ -0,0 +1,26 @@
+package com.urlshortener.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the readiness group out of service until the link warm-up is done
+ *
+ * @author URL Shortener Team
+ */
+@Component("warmup")
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final LinkWarmup linkWarmup;
+
+    public WarmupHealthIndicator(LinkWarmup linkWarmup) {
+        this.linkWarmup = linkWarmup;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = linkWarmup.isDone() ? Health.up() : Health.outOfService();
+        return builder.withDetails(linkWarmup.getProgress()).build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.urlshortener.accesslog;
+
+import com.urlshortener.util.TrafficClass;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for the access log: line layout, sanitising, dropping when full, rolling
+ * and allocation on the recording path
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Access Log Tests")
+class AccessLogTest {
+
+    private static final long TIME = Instant.parse("2024-05-01T12:00:00.123Z").toEpochMilli();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should write a recorded request as one tab-separated line")
+    void shouldWriteRecordAsLine() throws IOException {
+        // Given
+        AccessLog accessLog = new AccessLog(directory, 16, 4096, 5, 1000, null);
+
+        // When
+        accessLog.record(TIME, TrafficClass.CREATE, "POST", 302, 2_210_999, "10.0.0.7", "/shorten",
+            "xyz789", "https://example.com/b?x=1");
+        accessLog.record(TIME, TrafficClass.REDIRECT, "GET", 404, 418_000, "10.0.0.7", "/abc123", null, null);
+        accessLog.close();
+
+        // Then
+        assertEquals(List.of(
+            "2024-05-01T12:00:00.123Z\tcreate\tPOST\t302\t2210\t10.0.0.7\t/shorten\txyz789\thttps://example.com/b?x=1",
+            "2024-05-01T12:00:00.123Z\tredirect\tGET\t404\t418\t10.0.0.7\t/abc123\t-\t-"), readLines());
+        assertEquals(2, accessLog.getRecorded());
+        assertEquals(2, accessLog.getWritten());
+    }
+
+    @Test
+    @DisplayName("Should replace control and non-ASCII characters and cut long fields")
+    void shouldSanitiseFields() throws IOException {
+        // Given
+        AccessLog accessLog = new AccessLog(directory, 16, 4096, 5, 1000, null);
+        String longDestination = "https://example.com/" + "a".repeat(500);
+
+        // When
+        accessLog.record(TIME, TrafficClass.CREATE, "BREW", 400, 0, "10.0.0.7", "/shorten", null,
+            "https://example.com/\n\tcafé");
+        accessLog.record(TIME, TrafficClass.CREATE, "POST", 302, 0, "10.0.0.7", "/shorten", "abc", longDestination);
+        accessLog.close();
+
+        // Then - one line per record, whatever the fields held
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith("\tOTHER\t400\t0\t10.0.0.7\t/shorten\t-\thttps://example.com/??caf?"),
+            lines.get(0));
+        String[] fields = lines.get(1).split("\t");
+        assertEquals(9, fields.length);
+        assertTrue(longDestination.startsWith(fields[8]));
+        assertTrue(fields[8].length() < longDestination.length());
+    }
+
+    @Test
+    @DisplayName("Should drop and count records when the writer falls behind instead of blocking")
+    void shouldDropWhenFull() throws IOException {
+        // Given - a writer that has not been started
+        AccessLog accessLog = new AccessLog(directory, 8, 4096, 5, 1000, null);
+
+        // When
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (accessLog.record(TIME, TrafficClass.REDIRECT, "GET", 302, 0, "10.0.0.7", "/code" + i, null, null)) {
+                accepted++;
+            }
+        }
+        accessLog.close();
+
+        // Then - the first records are kept in order
+        assertEquals(8, accepted);
+        assertEquals(12, accessLog.getDropped());
+        List<String> lines = readLines();
+        assertEquals(8, lines.size());
+        assertTrue(lines.get(0).contains("\t/code0\t"));
+        assertTrue(lines.get(7).contains("\t/code7\t"));
+    }
+
+    @Test
+    @DisplayName("Should format timestamps like java.time in UTC")
+    void shouldFormatTimestamps() {
+        // Given
+        DateTimeFormatter expected = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .withZone(ZoneOffset.UTC);
+        Random random = new Random(42);
+        byte[] out = new byte[32];
+        long[] edges = {0, 951_782_400_000L, 4_107_542_399_999L, Instant.parse("2024-02-29T23:59:59.999Z").toEpochMilli()};
+
+        for (int i = 0; i < 10_000 + edges.length; i++) {
+            // Given - years 1970 to 9999
+            long millis = i < edges.length ? edges[i] : Math.floorMod(random.nextLong(), 253_402_300_800_000L);
+
+            // When
+            int length = AccessLog.formatTimestamp(millis, out, 0);
+
+            // Then
+            assertEquals(expected.format(Instant.ofEpochMilli(millis)),
+                new String(out, 0, length, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    @DisplayName("Should roll into new segments and keep only the newest files")
+    void shouldRollAndKeepMaxFiles() throws IOException {
+        // Given - segments of about eight lines each
+        AccessLog accessLog = new AccessLog(directory, 1024, 1024, 3, 1000, null);
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            accessLog.record(TIME, TrafficClass.REDIRECT, "GET", 302, 0, "10.0.0.7", "/code" + i, null,
+                "https://example.com/" + i);
+            if (i % 10 == 0) {
+                accessLog.drain(Integer.MAX_VALUE);
+            }
+        }
+        accessLog.close();
+
+        // Then - the newest records survive, every file ends on a whole line
+        List<Path> files = logFiles();
+        assertEquals(3, files.size());
+        for (Path file : files) {
+            assertTrue(Files.size(file) <= 1024);
+            assertTrue(Files.readString(file).endsWith("\n"));
+        }
+        List<String> lines = readLines();
+        assertTrue(lines.get(lines.size() - 1).contains("\t/code199\t"));
+        assertEquals(200, accessLog.getWritten());
+    }
+
+    @Test
+    @DisplayName("Should not allocate when recording a request")
+    void shouldNotAllocateOnRecord() throws IOException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        // Given - warmed up so the recording path is compiled
+        AccessLog accessLog = new AccessLog(directory, 1024, 1 << 20, 2, 1000, null);
+        String destination = "https://www.example.com/some/long/path?with=query&and=more";
+        for (int i = 0; i < 20_000; i++) {
+            accessLog.record(TIME, TrafficClass.REDIRECT, "GET", 302, 1000, "10.0.0.7", "/abc123", "abc123", destination);
+            if (i % 512 == 0) {
+                accessLog.drain(Integer.MAX_VALUE);
+            }
+        }
+        accessLog.drain(Integer.MAX_VALUE);
+        long threadId = Thread.currentThread().getId();
+
+        // When
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            accessLog.record(TIME, TrafficClass.REDIRECT, "GET", 302, 1000, "10.0.0.7", "/abc123", "abc123", destination);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        accessLog.close();
+
+        // Then - nothing per record; a little slack for the measurement itself
+        assertTrue(allocated < 1000, "allocated " + allocated + " bytes for 1000 records");
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("access-")).sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private List<String> readLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path file : logFiles()) {
+            lines.addAll(Files.readAllLines(file, StandardCharsets.US_ASCII));
+        }
+        return lines;
+    }
+}
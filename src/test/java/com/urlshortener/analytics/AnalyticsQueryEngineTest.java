@@ -0,0 +1,139 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.UrlAnalytics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AnalyticsQueryEngine and TopK
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Analytics Query Engine Tests")
+class AnalyticsQueryEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 15, 12, 0);
+
+    @Test
+    @DisplayName("Should find the same top links in parallel as a full sort does")
+    void shouldMatchFullSort() {
+        // Given
+        Map<String, UrlAnalytics> links = randomLinks(AnalyticsQueryEngine.PARALLEL_THRESHOLD * 5);
+        LocalDateTime cutoff = NOW.minusDays(3);
+
+        // When
+        List<UrlAnalytics> top = AnalyticsQueryEngine.query(links.values(),
+            new AnalyticsQuery(AnalyticsQuery.Order.CLICKS, 50));
+        List<UrlAnalytics> recent = AnalyticsQueryEngine.query(links.values(),
+            new AnalyticsQuery(AnalyticsQuery.Order.ACCESSED, 25, cutoff, null));
+
+        // Then
+        assertEquals(codes(links.values().stream()
+            .sorted(Comparator.comparingInt(UrlAnalytics::getClickCount).reversed()
+                .thenComparing(UrlAnalytics::getShortCode))
+            .limit(50)
+            .collect(Collectors.toList())), codes(top));
+        assertEquals(codes(links.values().stream()
+            .filter(a -> a.getLastAccessedAt() != null)
+            .filter(a -> !LocalDateTime.parse(a.getCreatedAt()).isBefore(cutoff))
+            .sorted(Comparator.comparing(UrlAnalytics::getLastAccessedAt).reversed()
+                .thenComparing(UrlAnalytics::getShortCode))
+            .limit(25)
+            .collect(Collectors.toList())), codes(recent));
+    }
+
+    @Test
+    @DisplayName("Should filter by creation and access time and leave out links never clicked")
+    void shouldFilterByTime() {
+        // Given
+        List<UrlAnalytics> links = List.of(
+            link("old", 50, NOW.minusDays(10), NOW.minusHours(1)),
+            link("new", 5, NOW.minusHours(2), NOW.minusMinutes(5)),
+            link("idle", 99, NOW.minusHours(3), null),
+            link("edge", 7, NOW.minusDays(1), NOW.minusDays(1)));
+
+        // When
+        List<UrlAnalytics> created = AnalyticsQueryEngine.query(links,
+            new AnalyticsQuery(AnalyticsQuery.Order.CLICKS, 10, NOW.minusDays(1), null));
+        List<UrlAnalytics> accessed = AnalyticsQueryEngine.query(links,
+            new AnalyticsQuery(AnalyticsQuery.Order.ACCESSED, 10));
+        List<UrlAnalytics> newest = AnalyticsQueryEngine.query(links,
+            new AnalyticsQuery(AnalyticsQuery.Order.CREATED, 2, null, NOW.minusHours(2)));
+
+        // Then
+        assertEquals(List.of("idle", "edge", "new"), codes(created));
+        assertEquals(List.of("new", "old", "edge"), codes(accessed));
+        assertEquals(List.of("new", "old"), codes(newest));
+        assertEquals(AnalyticsQuery.Order.CREATED, AnalyticsQuery.Order.fromParameter("recent"));
+        assertThrows(IllegalArgumentException.class, () -> AnalyticsQuery.Order.fromParameter("size"));
+        assertThrows(IllegalArgumentException.class,
+            () -> new AnalyticsQuery(AnalyticsQuery.Order.CLICKS, AnalyticsQuery.MAX_LIMIT + 1));
+    }
+
+    @Test
+    @DisplayName("Should summarize totals, today's activity and both tables in one pass")
+    void shouldSummarize() {
+        // Given
+        Map<String, UrlAnalytics> links = randomLinks(AnalyticsQueryEngine.PARALLEL_THRESHOLD * 2);
+        LocalDate today = NOW.toLocalDate();
+
+        // When
+        AnalyticsSummary summary = AnalyticsQueryEngine.summarize(links.values(), today);
+
+        // Then
+        String startOfDay = today.atStartOfDay().toString();
+        assertEquals(links.size(), summary.getTotalUrls());
+        assertEquals(links.values().stream().mapToLong(UrlAnalytics::getClickCount).sum(), summary.getTotalClicks());
+        assertEquals(links.values().stream()
+            .filter(a -> a.getCreatedAt().startsWith(startOfDay.substring(0, 10))).count(), summary.getTodayUrls());
+        assertEquals(links.values().stream()
+            .filter(a -> a.getLastAccessedAt() != null && a.getLastAccessedAt().startsWith(startOfDay.substring(0, 10)))
+            .mapToLong(UrlAnalytics::getClickCount).sum(), summary.getTodayClicks());
+        assertEquals(AnalyticsQueryEngine.SUMMARY_TABLE_SIZE, summary.getTopUrls().size());
+        assertEquals(AnalyticsQueryEngine.SUMMARY_TABLE_SIZE, summary.getRecentUrls().size());
+        int maxClicks = links.values().stream().mapToInt(UrlAnalytics::getClickCount).max().orElse(0);
+        assertEquals(maxClicks, summary.getTopUrls().get(0).getClickCount());
+        String newest = links.values().stream().map(UrlAnalytics::getCreatedAt).max(String::compareTo).orElse(null);
+        assertEquals(newest, summary.getRecentUrls().get(0).getCreatedAt());
+    }
+
+    /**
+     * Links created over the last week with skewed click counts; a third never clicked
+     */
+    private static Map<String, UrlAnalytics> randomLinks(int count) {
+        Random random = new Random(42);
+        Map<String, UrlAnalytics> links = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime created = NOW.minusSeconds(random.nextInt(7 * 24 * 3600)).withNano(random.nextInt(1000) * 1000);
+            LocalDateTime accessed = i % 3 == 0 ? null : created.plusSeconds(random.nextInt(3600));
+            int clicks = accessed == null ? 0 : (int) Math.pow(random.nextInt(1000), 1.5);
+            String shortCode = "c" + i;
+            links.put(shortCode, link(shortCode, clicks, created, accessed));
+        }
+        return links;
+    }
+
+    private static UrlAnalytics link(String shortCode, int clicks, LocalDateTime created, LocalDateTime accessed) {
+        return new UrlAnalytics(shortCode, "https://example.com/" + shortCode, "http://localhost:8080/" + shortCode,
+            created.toString(), clicks, accessed == null ? null : accessed.toString(), true);
+    }
+
+    private static List<String> codes(List<UrlAnalytics> links) {
+        List<String> codes = new ArrayList<>(links.size());
+        links.forEach(link -> codes.add(link.getShortCode()));
+        return codes;
+    }
+}
@@ -0,0 +1,83 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.dto.ClickContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ClickDimensionStore
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Click Dimension Store Tests")
+class ClickDimensionStoreTest {
+
+    private ClickContext click(long timestamp, String referrer, String country) {
+        return new ClickContext(timestamp, referrer, "Chrome", country, "mobile");
+    }
+
+    @Test
+    @DisplayName("Should group clicks of one link by dimension, highest first")
+    void shouldGroupClicksByDimension() {
+        // Given
+        ClickDimensionStore store = new ClickDimensionStore(168);
+        long now = System.currentTimeMillis();
+        store.record("abc123", click(now, "google.com", "DE"));
+        store.record("abc123", click(now, "t.co", "US"));
+        store.record("abc123", click(now - ClickDimensionStore.BUCKET_MILLIS, "t.co", "US"));
+        store.record("abc123", click(now, null, "US"));
+        store.record("other1", click(now, "google.com", "FR"));
+
+        // When
+        Map<String, Long> byReferrer = store.groupBy("abc123", ClickDimension.REFERRER, 24, 10);
+        Map<String, Long> byCountry = store.groupBy("abc123", ClickDimension.COUNTRY, 1, 10);
+
+        // Then
+        assertEquals("t.co", byReferrer.keySet().iterator().next());
+        assertEquals(2L, byReferrer.get("t.co"));
+        assertEquals(1L, byReferrer.get("google.com"));
+        assertEquals(1L, byReferrer.get("unknown"));
+        assertEquals(2L, byCountry.get("US"));
+        assertEquals(1L, byCountry.get("DE"));
+        assertNull(byCountry.get("FR"));
+        assertEquals(5, store.getRowCount());
+    }
+
+    @Test
+    @DisplayName("Should fold values beyond the dictionary capacity into (other)")
+    void shouldFoldOverflowIntoOther() {
+        // Given
+        ClickDimensionStore store = new ClickDimensionStore(168);
+        long now = System.currentTimeMillis();
+        int devices = ClickDimension.DEVICE.maxId() + 5;
+        for (int i = 0; i < devices; i++) {
+            store.record("abc123", new ClickContext(now, "t.co", "Chrome", "US", "device-" + i));
+        }
+
+        // When
+        Map<String, Long> byDevice = store.groupBy("abc123", ClickDimension.DEVICE, 1, 100);
+
+        // Then
+        assertEquals(ClickDimension.DEVICE.maxId() + 1, byDevice.size());
+        assertEquals(5L, byDevice.get(ClickDictionary.OTHER));
+        assertEquals(1L, byDevice.get("device-0"));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown dimensions and out-of-range windows")
+    void shouldRejectInvalidQueries() {
+        // Given
+        ClickDimensionStore store = new ClickDimensionStore(24);
+
+        // When & Then
+        assertEquals(ClickDimension.USER_AGENT, ClickDimension.fromParameter("ua"));
+        assertThrows(IllegalArgumentException.class, () -> ClickDimension.fromParameter("color"));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.groupBy("abc123", ClickDimension.REFERRER, 25, 10));
+        assertTrue(store.groupBy("missing", ClickDimension.REFERRER, 24, 10).isEmpty());
+    }
+}
@@ -0,0 +1,221 @@
+package com.urlshortener.analytics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.service.DashboardFeedUrlShortenerService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.UrlShortenerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the live dashboard feed
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Dashboard Feed Tests")
+class DashboardFeedTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private InMemoryUrlShortenerService store;
+    private SimpleMeterRegistry meterRegistry;
+    private DashboardFeed feed;
+    private String shortCode;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryUrlShortenerService();
+        meterRegistry = new SimpleMeterRegistry();
+        feed = feed(32);
+        ShortenUrlRequest request = new ShortenUrlRequest();
+        request.setUrl("https://www.example.com");
+        shortCode = store.shortenUrl(request).getShortCode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    private DashboardFeed feed(int bufferSize) {
+        return feed(bufferSize, 60000);
+    }
+
+    private DashboardFeed feed(int bufferSize, long sendTimeoutMillis) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("urlShortenerService", store);
+        return new DashboardFeed(beanFactory.getBeanProvider(UrlShortenerService.class), objectMapper,
+            meterRegistry, bufferSize, 100, 50, 60000, 60000, 1, sendTimeoutMillis);
+    }
+
+    @Test
+    @DisplayName("Should coalesce clicks into one delta shared by all subscribers")
+    void shouldCoalesceClicksIntoOneDelta() throws Exception {
+        // Given
+        RecordingEmitter first = new RecordingEmitter(null);
+        RecordingEmitter second = new RecordingEmitter(null);
+        feed.subscribe(first);
+        feed.subscribe(second);
+        first.await(1);
+        second.await(1);
+        UrlShortenerService service = new DashboardFeedUrlShortenerService(store, feed);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            service.trackClick(shortCode);
+        }
+        feed.tick();
+
+        // Then
+        first.await(2);
+        second.await(2);
+        assertEquals(first.events.get(1), second.events.get(1));
+        JsonNode delta = first.json(1);
+        assertEquals("delta", first.name(1));
+        assertEquals(3, delta.get("clicks").get(shortCode).asLong());
+        assertEquals(3, delta.get("totalClicks").asLong());
+        assertEquals(first.json(0).get("sequence").asLong() + 1, delta.get("sequence").asLong());
+        assertFalse(delta.has("topUrls"));
+        assertEquals(3, store.getUrlAnalytics(shortCode).getClickCount());
+    }
+
+    @Test
+    @DisplayName("Should resync a slow subscriber with a snapshot instead of growing its buffer")
+    void shouldResyncSlowSubscriber() throws Exception {
+        // Given
+        feed.close();
+        feed = feed(2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        feed.subscribe(slow);
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            feed.recordClick(shortCode);
+            feed.tick();
+        }
+        release.countDown();
+
+        // Then
+        slow.awaitLast("snapshot", 6);
+        assertTrue(slow.events.size() < 6);
+        assertEquals(1.0, meterRegistry.counter("dashboard.subscriber.resyncs").count());
+    }
+
+    @Test
+    @DisplayName("Should drop a viewer whose write blocks past the send timeout without stalling the others")
+    void shouldDropStuckSubscriber() throws Exception {
+        // Given - one sender thread, held by a viewer that stops reading
+        feed.close();
+        feed = feed(32, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter(release);
+        feed.subscribe(stuck);
+        assertTrue(stuck.sending.await(5, TimeUnit.SECONDS));
+        RecordingEmitter waiting = new RecordingEmitter(null);
+        feed.subscribe(waiting);
+
+        // When
+        Thread.sleep(150);
+        feed.tick();
+
+        // Then
+        waiting.await(1);
+        assertEquals("snapshot", waiting.name(0));
+        assertEquals(1, feed.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.counter("dashboard.subscriber.send-timeouts").count());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should not record anything while nobody is watching")
+    void shouldIgnoreActivityWithoutSubscribers() throws Exception {
+        // Given
+        feed.recordClick(shortCode);
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        feed.subscribe(emitter);
+        emitter.await(1);
+
+        // When
+        feed.tick();
+
+        // Then
+        assertEquals(1, emitter.events.size());
+        assertEquals("snapshot", emitter.name(0));
+        assertEquals(1, feed.getSubscriberCount());
+    }
+
+    /**
+     * Emitter that records what would be written to the client
+     */
+    private class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+        }
+
+        String name(int index) {
+            String event = events.get(index);
+            return event.substring("event:".length(), event.indexOf('\n'));
+        }
+
+        JsonNode json(int index) throws IOException {
+            String event = events.get(index);
+            return objectMapper.readTree(event.substring(event.indexOf("data:") + "data:".length()));
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(events.size() >= count, "expected " + count + " events but got " + events);
+        }
+
+        void awaitLast(String name, long sequence) throws Exception {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline) {
+                int last = events.size() - 1;
+                if (last >= 0 && name.equals(name(last)) && json(last).get("sequence").asLong() == sequence) {
+                    return;
+                }
+                Thread.sleep(10);
+            }
+            fail("expected a final " + name + " at sequence " + sequence + " but got " + events);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.urlshortener.blocklist;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BlocklistIndex and BlocklistService
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Blocklist Index Tests")
+class BlocklistIndexTest {
+
+    private BlocklistIndex build(String... entries) throws Exception {
+        BlocklistIndexBuilder builder = new BlocklistIndexBuilder();
+        for (String entry : entries) {
+            builder.add(entry);
+        }
+        return BlocklistIndex.wrap(ByteBuffer.wrap(builder.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should block listed domains and their subdomains only")
+    void shouldBlockDomainsAndSubdomains() throws Exception {
+        // Given
+        BlocklistIndex index = build("evil.com", "phish.example.org", "# comment", "");
+
+        // When & Then
+        assertTrue(index.isBlocked("https://evil.com"));
+        assertTrue(index.isBlocked("http://login.EVIL.com/account?x=1"));
+        assertTrue(index.isBlocked("https://user@evil.com:8443/"));
+        assertTrue(index.isBlocked("https://a.phish.example.org/"));
+        assertFalse(index.isBlocked("https://notevil.com/"));
+        assertFalse(index.isBlocked("https://evil.com.example.net/"));
+        assertFalse(index.isBlocked("https://example.org/"));
+        assertEquals(2, index.getDomainCount());
+    }
+
+    @Test
+    @DisplayName("Should block URL prefixes at path boundaries")
+    void shouldBlockUrlPrefixes() throws Exception {
+        // Given
+        BlocklistIndex index = build("https://docs.example.com/shared/phish/", "files.example.com/download.exe");
+
+        // When & Then
+        assertTrue(index.isBlocked("https://docs.example.com/shared/phish/page?id=1"));
+        assertTrue(index.isBlocked("http://DOCS.example.com:8080/shared/phish/"));
+        assertTrue(index.isBlocked("https://files.example.com/download.exe"));
+        assertFalse(index.isBlocked("https://docs.example.com/shared/other/"));
+        assertFalse(index.isBlocked("https://docs.example.com/shared/phishing"));
+        assertFalse(index.isBlocked("https://files.example.com/download.exe.txt"));
+    }
+
+    @Test
+    @DisplayName("Should hot reload a replaced index file")
+    void shouldHotReloadIndexFile(@TempDir Path dir) throws Exception {
+        // Given
+        Path indexFile = dir.resolve("blocklist.idx");
+        new BlocklistIndexBuilder().add("evil.com").write(indexFile);
+        BlocklistService service = new BlocklistService(indexFile.toString());
+        assertTrue(service.isBlocked("https://evil.com/"));
+        assertFalse(service.isBlocked("https://bad.net/"));
+
+        // When
+        new BlocklistIndexBuilder().add("bad.net").write(indexFile);
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        // Then
+        assertTrue(service.reloadIfChanged());
+        assertFalse(service.isBlocked("https://evil.com/"));
+        assertTrue(service.isBlocked("https://bad.net/"));
+        assertEquals(2, service.getGeneration());
+    }
+
+    @Test
+    @DisplayName("Should allow everything without an index")
+    void shouldAllowEverythingWithoutIndex() {
+        // Given
+        BlocklistService service = new BlocklistService("");
+
+        // When & Then
+        assertFalse(service.isBlocked("https://evil.com/"));
+        assertEquals(0, service.getGeneration());
+    }
+}
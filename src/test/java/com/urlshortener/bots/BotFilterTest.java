@@ -0,0 +1,245 @@
+package com.urlshortener.bots;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.service.BotFilteringUrlShortenerService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.util.ClickContextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bot rules, classifier and click filter
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Bot Filter Tests")
+class BotFilterTest {
+
+    private static final String CHROME = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+        + "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+    private static final String SLACK = "Slackbot-LinkExpanding 1.0 (+https://api.slack.com/robots)";
+    private static final String FACEBOOK = "facebookexternalhit/1.1 (+http://www.facebook.com/externalhit_uatext.php)";
+
+    private static MockHttpServletRequest request(String userAgent, String... headers) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc123");
+        if (userAgent != null) {
+            request.addHeader("User-Agent", userAgent);
+        }
+        for (int i = 0; i < headers.length; i += 2) {
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("Should match every pattern anywhere in the user agent, ignoring case")
+    void shouldMatchPatternsAnywhere() {
+        // Given - overlapping patterns that only a correct automaton finds
+        BotRules rules = BotRules.parse(List.of("ua he", "ua she", "ua hers", "ua abcd", "ua bc x"));
+
+        // When & Then
+        assertTrue(rules.matchesUserAgent("uSHErs"));
+        assertTrue(rules.matchesUserAgent("xxabcabcd"));
+        assertTrue(rules.matchesUserAgent("ABC X"));
+        assertTrue(rules.matchesUserAgent("the end"));
+        assertFalse(rules.matchesUserAgent("abcabc"));
+        assertFalse(rules.matchesUserAgent("s h e"));
+        assertFalse(rules.matchesUserAgent("shé"));
+        assertFalse(BotRules.EMPTY.matchesUserAgent(SLACK));
+        assertEquals(5, rules.getUserAgentPatternCount());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed rules and ship defaults that know common bots")
+    void shouldParseRules() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> BotRules.parse(List.of("agent bot")));
+        assertThrows(IllegalArgumentException.class, () -> BotRules.parse(List.of("header Purpose")));
+        assertThrows(IllegalArgumentException.class, () -> BotRules.parse(List.of("ua café")));
+        BotRules defaults = BotRules.defaults();
+        assertTrue(defaults.matchesUserAgent(SLACK));
+        assertTrue(defaults.matchesUserAgent(FACEBOOK));
+        assertTrue(defaults.matchesUserAgent("Googlebot/2.1 (+http://www.google.com/bot.html)"));
+        assertFalse(defaults.matchesUserAgent(CHROME));
+        assertFalse(defaults.matchesUserAgent("curl/8.4.0"));
+    }
+
+    @Test
+    @DisplayName("Should classify prefetch headers, bot user agents and human clicks")
+    void shouldClassifyRequests() {
+        // Given
+        BotClassifier classifier = new BotClassifier("", 64, null);
+
+        // When & Then
+        assertEquals(ClickSource.HUMAN, classifier.classify(request(CHROME)));
+        assertEquals(ClickSource.HUMAN, classifier.classify(request(null)));
+        assertEquals(ClickSource.BOT, classifier.classify(request(SLACK)));
+        assertEquals(ClickSource.PREFETCH, classifier.classify(request(CHROME, "Sec-Purpose", "prefetch;prerender")));
+        assertEquals(ClickSource.PREFETCH, classifier.classify(request(CHROME, "X-Moz", "Prefetch")));
+        assertEquals(ClickSource.HUMAN, classifier.classify(request(CHROME, "Purpose", "navigate")));
+        assertEquals(3, classifier.getClassified(ClickSource.HUMAN));
+        assertEquals(1, classifier.getClassified(ClickSource.BOT));
+        assertEquals(2, classifier.getClassified(ClickSource.PREFETCH));
+    }
+
+    @Test
+    @DisplayName("Should cache verdicts per user agent until the rules change")
+    void shouldCacheVerdicts() {
+        // Given
+        BotClassifier classifier = new BotClassifier("", 64, null);
+        assertFalse(classifier.isBot(new String(CHROME)));
+        long misses = classifier.getCacheMisses();
+
+        // When - equal user agents arrive as new strings on every request
+        for (int i = 0; i < 100; i++) {
+            assertFalse(classifier.isBot(new String(CHROME)));
+        }
+        long afterHits = classifier.getCacheMisses();
+        classifier.setRules(BotRules.parse(List.of("ua chrome/")));
+
+        // Then
+        assertEquals(misses, afterHits);
+        assertTrue(classifier.isBot(CHROME));
+        assertEquals(misses + 1, classifier.getCacheMisses());
+    }
+
+    @Test
+    @DisplayName("Should hot-reload a replaced rules file and keep the old rules if it is broken")
+    void shouldReloadRulesFile(@TempDir Path directory) throws Exception {
+        // Given
+        Path rulesFile = directory.resolve("bot-rules.txt");
+        Files.writeString(rulesFile, "ua slackbot\n");
+        BotClassifier classifier = new BotClassifier(rulesFile.toString(), 64, null);
+        assertTrue(classifier.isBot(SLACK));
+        assertFalse(classifier.isBot(FACEBOOK));
+
+        // When - a new version, then a broken one
+        Files.writeString(rulesFile, "# unfurlers only\nua facebookexternalhit\n");
+        Files.setLastModifiedTime(rulesFile, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+        boolean reloaded = classifier.reloadIfChanged();
+        boolean unchanged = classifier.reloadIfChanged();
+        Files.writeString(rulesFile, "nonsense\n");
+        Files.setLastModifiedTime(rulesFile, FileTime.fromMillis(System.currentTimeMillis() + 4000));
+        boolean broken = classifier.reloadIfChanged();
+
+        // Then
+        assertTrue(reloaded);
+        assertFalse(unchanged);
+        assertFalse(broken);
+        assertFalse(classifier.isBot(SLACK));
+        assertTrue(classifier.isBot(FACEBOOK));
+    }
+
+    @Test
+    @DisplayName("Should serve bot redirects without counting them as clicks")
+    void shouldServeBotsWithoutCountingClicks() {
+        // Given
+        InMemoryUrlShortenerService store = new InMemoryUrlShortenerService();
+        BotFilteringUrlShortenerService service = new BotFilteringUrlShortenerService(store, 100);
+        String shortCode = store.shortenUrl(new ShortenUrlRequest("https://www.example.com/page")).getShortCode();
+        BotClassifier classifier = new BotClassifier("", 64, null);
+
+        // When
+        for (MockHttpServletRequest request : List.of(request(SLACK), request(CHROME, "Sec-Purpose", "prefetch"),
+                request(CHROME))) {
+            ClickContext context = ClickContextExtractor.extract(request, classifier.classify(request));
+            assertEquals("https://www.example.com/page", service.redirect(shortCode, context));
+        }
+        ClickContext bot = ClickContextExtractor.extract(request(SLACK), ClickSource.BOT);
+        service.trackClick(shortCode, bot);
+
+        // Then
+        UrlAnalytics analytics = service.getUrlAnalytics(shortCode);
+        assertEquals(1, analytics.getClickCount());
+        assertEquals(3, analytics.getBotClickCount());
+        assertEquals("Bot", bot.getUserAgentFamily());
+        assertNull(service.redirect("nope00", bot));
+        assertEquals(1, service.getTrackedLinks());
+    }
+
+    @Test
+    @DisplayName("Should leave the bot click count out of stored analytics while it is zero")
+    void shouldNotStoreZeroBotClicks() throws Exception {
+        // Given
+        ObjectMapper mapper = new ObjectMapper();
+        UrlAnalytics stored = new UrlAnalytics("abc123", "https://www.example.com/", "http://localhost/abc123",
+            "2024-05-01T12:00:00", 5, null, true);
+        UrlAnalytics reported = new UrlAnalytics();
+        reported.setBotClickCount(7);
+
+        // When & Then
+        assertFalse(mapper.writeValueAsString(stored).contains("botClickCount"));
+        assertTrue(mapper.writeValueAsString(reported).contains("\"botClickCount\":7"));
+    }
+
+    @Test
+    @DisplayName("Should stop counting bot clicks of new links past the limit but keep serving them")
+    void shouldBoundTrackedLinks() {
+        // Given
+        InMemoryUrlShortenerService store = new InMemoryUrlShortenerService();
+        BotFilteringUrlShortenerService service = new BotFilteringUrlShortenerService(store, 2);
+        ClickContext bot = ClickContextExtractor.extract(request(SLACK), ClickSource.BOT);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            String shortCode = store.shortenUrl(new ShortenUrlRequest("https://www.example.com/" + i)).getShortCode();
+            assertNotNull(service.redirect(shortCode, bot));
+        }
+
+        // Then
+        assertEquals(2, service.getTrackedLinks());
+    }
+
+    @Test
+    @DisplayName("Benchmark: classification cost per redirect")
+    @EnabledIfSystemProperty(named = "botfilter.benchmark", matches = "true")
+    void benchmark() {
+        // Given - a typical mix of distinct user agents
+        BotClassifier classifier = new BotClassifier("", 4096, null);
+        BotRules rules = BotRules.defaults();
+        String[] userAgents = new String[256];
+        for (int i = 0; i < userAgents.length; i++) {
+            userAgents[i] = (i % 10 == 0 ? SLACK : CHROME) + " build/" + i;
+        }
+        int operations = 5_000_000;
+        for (int i = 0; i < operations; i++) {
+            classifier.isBot(userAgents[i & 255]);
+        }
+
+        // When - fresh strings, as each request brings its own header value
+        String[] copies = new String[userAgents.length];
+        int bots = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            if ((i & 255) == 0) {
+                for (int j = 0; j < copies.length; j++) {
+                    copies[j] = new String(userAgents[j]);
+                }
+            }
+            bots += classifier.isBot(copies[i & 255]) ? 1 : 0;
+        }
+        long cached = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            bots += rules.matchesUserAgent(userAgents[i & 255]) ? 1 : 0;
+        }
+        long scanned = System.nanoTime();
+
+        // Then
+        assertTrue(bots > 0);
+        System.out.printf("cached verdict: %.1f ns, automaton scan: %.1f ns (%d states)%n",
+            (double) (cached - start) / operations, (double) (scanned - cached) / operations, rules.getStateCount());
+    }
+}
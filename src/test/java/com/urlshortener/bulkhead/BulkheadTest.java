@@ -0,0 +1,147 @@
+package com.urlshortener.bulkhead;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for Bulkhead, BulkheadFilter and BulkheadRedisConnectionFactory
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Bulkhead Tests")
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should queue up to the queue length and reject beyond it")
+    void shouldQueueThenReject() throws Exception {
+        // Given
+        Bulkhead bulkhead = new Bulkhead(TrafficClass.ANALYTICS, 1, 1, 5000, 1, meterRegistry);
+        assertTrue(bulkhead.tryEnter());
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(bulkhead::tryEnter);
+        awaitQueued(bulkhead, 1);
+
+        // When
+        boolean overflow = bulkhead.tryEnter();
+        bulkhead.exit();
+
+        // Then
+        assertFalse(overflow);
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.getActive());
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1, bulkhead.getRejections());
+        assertEquals(1.0, meterRegistry.get("bulkhead.saturation").tag("class", "analytics").gauge().value());
+        assertEquals(1, meterRegistry.get("bulkhead.wait").tag("class", "analytics").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should reject a queued request once its wait runs out")
+    void shouldRejectAfterMaxWait() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead(TrafficClass.CREATE, 1, 5, 20, 1, meterRegistry);
+        Bulkhead noQueue = new Bulkhead(TrafficClass.ADMIN, 1, 0, 1000, 1, meterRegistry);
+        bulkhead.tryEnter();
+        noQueue.tryEnter();
+
+        // When
+        long start = System.nanoTime();
+        boolean admitted = bulkhead.tryEnter();
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertFalse(admitted);
+        assertTrue(waitedMillis >= 15, "gave up after " + waitedMillis + " ms");
+        assertFalse(noQueue.tryEnter());
+        assertEquals(1, bulkhead.getRejections());
+        assertEquals(1, noQueue.getRejections());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    @DisplayName("Should answer with 503 when the class is full while other classes still get through")
+    void shouldIsolateClasses() throws Exception {
+        // Given
+        Bulkheads bulkheads = new Bulkheads(List.of(
+            new Bulkhead(TrafficClass.REDIRECT, 1, 0, 0, 1, meterRegistry),
+            new Bulkhead(TrafficClass.ANALYTICS, 1, 0, 0, 1, meterRegistry)), meterRegistry);
+        BulkheadFilter filter = new BulkheadFilter(bulkheads, 2);
+        MockHttpServletResponse analytics = new MockHttpServletResponse();
+        MockHttpServletResponse redirect = new MockHttpServletResponse();
+        MockHttpServletResponse page = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/analytics/summary"), new MockHttpServletResponse(),
+            (request, response) -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/analytics/top"), analytics,
+                    (r, s) -> fail("not rejected"));
+                filter.doFilter(new MockHttpServletRequest("GET", "/abc123"), redirect,
+                    (r, s) -> ((MockHttpServletResponse) s).setStatus(302));
+                filter.doFilter(new MockHttpServletRequest("GET", "/about"), page,
+                    (r, s) -> ((MockHttpServletResponse) s).setStatus(200));
+            });
+
+        // Then
+        assertEquals(503, analytics.getStatus());
+        assertEquals("2", analytics.getHeader("Retry-After"));
+        assertEquals(302, redirect.getStatus());
+        assertEquals(200, page.getStatus());
+        assertEquals(0, bulkheads.get(TrafficClass.ANALYTICS).getActive());
+        assertEquals(1, bulkheads.get(TrafficClass.ANALYTICS).getRejections());
+        assertNull(bulkheads.get(TrafficClass.OTHER));
+    }
+
+    @Test
+    @DisplayName("Should route Redis connections to the pool of the class being served")
+    void shouldRouteConnectionsByClass() throws Exception {
+        // Given
+        Bulkheads bulkheads = new Bulkheads(List.of(
+            new Bulkhead(TrafficClass.REDIRECT, 4, 0, 0, 1, meterRegistry),
+            new Bulkhead(TrafficClass.ANALYTICS, 4, 0, 0, 1, meterRegistry)), meterRegistry);
+        RedisConnectionFactory shared = mock(RedisConnectionFactory.class);
+        RedisConnectionFactory redirectPool = mock(RedisConnectionFactory.class);
+        RedisConnectionFactory analyticsPool = mock(RedisConnectionFactory.class);
+        BulkheadRedisConnectionFactory factory = new BulkheadRedisConnectionFactory(
+            Map.of(TrafficClass.REDIRECT, redirectPool, TrafficClass.ANALYTICS, analyticsPool), shared);
+        BulkheadFilter filter = new BulkheadFilter(bulkheads, 1);
+        RedisConnectionFactory[] routed = new RedisConnectionFactory[3];
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/abc123"), new MockHttpServletResponse(),
+            (request, response) -> {
+                routed[0] = factory.route();
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/analytics/summary"),
+                    new MockHttpServletResponse(), (r, s) -> routed[1] = factory.route());
+                routed[2] = factory.route();
+            });
+
+        // Then
+        assertSame(redirectPool, routed[0]);
+        assertSame(analyticsPool, routed[1]);
+        assertSame(redirectPool, routed[2]);
+        assertSame(shared, factory.route());
+        assertNull(Bulkheads.current());
+    }
+
+    private static void awaitQueued(Bulkhead bulkhead, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.getQueued() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, bulkhead.getQueued());
+    }
+}
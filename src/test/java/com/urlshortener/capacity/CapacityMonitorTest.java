@@ -0,0 +1,115 @@
+package com.urlshortener.capacity;
+
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CapacityMonitor
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Capacity Monitor Tests")
+class CapacityMonitorTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    @DisplayName("Should report exact counts and sampled heap sizes of the in-memory store")
+    @SuppressWarnings("unchecked")
+    void shouldReportInMemoryStore() {
+        // Given
+        InMemoryUrlShortenerService inMemory = new InMemoryUrlShortenerService();
+        for (int i = 0; i < 10; i++) {
+            inMemory.shortenUrl(new ShortenUrlRequest("https://www.example.com/page/" + i));
+        }
+        CapacityMonitor monitor = monitor(Map.of("inMemory", inMemory));
+
+        // When
+        monitor.sample(0);
+        monitor.sample(1000);
+        Map<String, Object> report = backend(monitor, "memory");
+
+        // Then
+        assertEquals(10L, report.get("links"));
+        assertEquals(10L, report.get("analytics"));
+        assertEquals(false, report.get("estimatedCounts"));
+        assertEquals(16, report.get("sampledEntries"));
+        long bytesPerUrl = (long) ((Map<String, Object>) report.get("bytesPerUrl")).get("mean");
+        assertTrue(bytesPerUrl > "https://www.example.com/page/0".length());
+        assertEquals(100.0, ((Map<String, Object>) report.get("ttl")).get("noExpiry"));
+        assertTrue((long) report.get("maxBytes") > 0);
+    }
+
+    @Test
+    @DisplayName("Should estimate counts from sampled keys and project growth to the memory limit")
+    @SuppressWarnings("unchecked")
+    void shouldEstimateAndProject() {
+        // Given
+        AtomicLong keys = new AtomicLong();
+        CapacitySource redis = mock(CapacitySource.class);
+        when(redis.getCapacityName()).thenReturn("redis");
+        when(redis.sampleCapacity(anyInt())).thenAnswer(invocation -> new CapacitySample(keys.get(), -1, -1,
+                keys.get() * 150, 10_000_000)
+            .add(CapacitySample.Kind.URL, 100, TimeUnit.HOURS.toMillis(2))
+            .add(CapacitySample.Kind.ANALYTICS, 200, TimeUnit.HOURS.toMillis(2)));
+        CapacityMonitor monitor = monitor(Map.of("redis", redis));
+
+        // When
+        for (int day = 0; day < 3; day++) {
+            keys.set(2000L * (day + 1));
+            monitor.sample(day * DAY);
+        }
+        Map<String, Object> report = backend(monitor, "redis");
+
+        // Then
+        assertEquals(3000L, report.get("links"));
+        assertEquals(true, report.get("estimatedCounts"));
+        assertEquals(300L, report.get("bytesPerLink"));
+        assertEquals(100.0, ((Map<String, Object>) report.get("ttl")).get("1hTo6h"));
+        Map<String, Object> projection = (Map<String, Object>) report.get("projection");
+        assertEquals(1000L, projection.get("linksPerDay"));
+        assertEquals(300_000L, projection.get("bytesPerDay"));
+        assertEquals(30.3, projection.get("daysUntilFull"));
+        assertEquals(33_333L, projection.get("linksAtLimit"));
+    }
+
+    @Test
+    @DisplayName("Should keep sampling other backends when one fails")
+    void shouldIsolateFailingSource() {
+        // Given
+        CapacitySource broken = mock(CapacitySource.class);
+        when(broken.getCapacityName()).thenReturn("redis");
+        when(broken.sampleCapacity(anyInt())).thenThrow(new IllegalStateException("Redis is down"));
+        CapacityMonitor monitor = monitor(Map.of("broken", broken, "inMemory", new InMemoryUrlShortenerService()));
+
+        // When
+        monitor.sample(0);
+
+        // Then
+        assertEquals("Redis is down", backend(monitor, "redis").get("error"));
+        assertEquals(0L, backend(monitor, "memory").get("links"));
+    }
+
+    private static CapacityMonitor monitor(Map<String, Object> sources) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        sources.forEach(beanFactory::addBean);
+        return new CapacityMonitor(beanFactory.getBeanProvider(CapacitySource.class), true, 4, 1000,
+            TimeUnit.HOURS.toMillis(1), 100);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> backend(CapacityMonitor monitor, String name) {
+        return (Map<String, Object>) ((Map<String, Object>) monitor.report().get("backends")).get(name);
+    }
+}
@@ -0,0 +1,114 @@
+package com.urlshortener.compression;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UrlDictionary and UrlCodec
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("URL Dictionary Tests")
+class UrlDictionaryTest {
+
+    private static final String[] HOSTS = {
+        "https://www.acme-shop.com/", "https://blog.acme-shop.com/", "https://www.youtube.com/watch?v=",
+        "https://docs.google.com/document/d/", "https://www.example.org/"
+    };
+    private static final String[] SOURCES = {"newsletter", "facebook", "twitter", "linkedin", "partner"};
+
+    static List<String> corpus(int size) {
+        Random random = new Random(42);
+        List<String> urls = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder url = new StringBuilder(HOSTS[random.nextInt(HOSTS.length)]);
+            url.append(random.nextBoolean() ? "products/" : "campaigns/spring-sale/")
+                .append(Long.toString(random.nextLong() & 0xFFFFFFFL, 36));
+            if (random.nextInt(4) > 0) {
+                url.append("?utm_source=").append(SOURCES[random.nextInt(SOURCES.length)])
+                    .append("&utm_medium=email&utm_campaign=spring-sale-").append(2024 + random.nextInt(3))
+                    .append("&utm_content=").append(random.nextInt(100));
+            }
+            urls.add(url.toString());
+        }
+        return urls;
+    }
+
+    @Test
+    @DisplayName("Should decode exactly what was encoded")
+    void shouldRoundTrip() {
+        // Given
+        UrlDictionary dictionary = UrlDictionary.defaults();
+        List<String> urls = new ArrayList<>(corpus(200));
+        urls.add("https://www.example.com/café/þÿ\u0080?q=%E2%82%AC");
+        urls.add("https://例え.jp/パス?utm_source=x");
+        urls.add("ÿ!https://odd");
+        urls.add("");
+
+        // When & Then
+        for (String url : urls) {
+            String stored = dictionary.encode(url);
+            String decoded = UrlDictionary.isEncoded(stored) ? dictionary.decode(stored) : stored;
+            assertEquals(url, decoded);
+        }
+        assertTrue(UrlDictionary.isEncoded(dictionary.encode("https://www.example.com/?utm_source=newsletter")));
+    }
+
+    @Test
+    @DisplayName("Should train a dictionary that beats the built-in one")
+    void shouldTrainDictionary() {
+        // Given
+        List<String> sample = corpus(5000);
+        List<String> unseen = corpus(20000).subList(10000, 20000);
+
+        // When
+        UrlDictionary trained = UrlDictionary.train(2, sample, UrlDictionary.MAX_ENTRIES);
+        Map<String, Object> builtIn = UrlCodec.measure(UrlDictionary.defaults(), unseen);
+        Map<String, Object> savings = UrlCodec.measure(trained, unseen);
+
+        // Then
+        System.out.println("URL dictionary savings, built-in: " + builtIn);
+        System.out.println("URL dictionary savings, trained: " + savings);
+        assertEquals(2, trained.getVersion());
+        assertTrue(trained.getEntries().size() <= UrlDictionary.MAX_ENTRIES);
+        assertTrue((double) savings.get("redisSavedPercent") > (double) builtIn.get("redisSavedPercent"));
+        assertTrue((double) savings.get("redisSavedPercent") > 40);
+        assertTrue((double) savings.get("heapSavedPercent") > 40);
+        for (String url : unseen.subList(0, 100)) {
+            assertEquals(url, trained.decode(trained.encode(url)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should pass stored values through and reject unknown versions")
+    void shouldDecodeByVersion() {
+        // Given
+        ObjectProvider<RedisTemplate<String, Object>> noRedis = new StaticListableBeanFactory()
+            .getBeanProvider(ResolvableType.forClassWithGenerics(RedisTemplate.class, String.class, Object.class));
+        UrlCodec codec = new UrlCodec(noRedis, true, 0);
+        String url = "https://www.example.com/products/1?utm_source=newsletter";
+        UrlDictionary trained = UrlDictionary.train(7, corpus(1000), 50);
+
+        // When
+        String stored = codec.encode(url);
+
+        // Then
+        assertTrue(UrlDictionary.isEncoded(stored));
+        assertTrue(stored.length() < url.length());
+        assertEquals(url, codec.decode(stored));
+        assertEquals(url, codec.decode(url));
+        assertNull(codec.decode(null));
+        assertThrows(IllegalStateException.class, () -> codec.decode(trained.encode(url)));
+    }
+}
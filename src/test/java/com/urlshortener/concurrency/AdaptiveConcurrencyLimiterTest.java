@@ -0,0 +1,141 @@
+package com.urlshortener.concurrency;
+
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter and ConcurrencyLimitFilter
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Adaptive Concurrency Limiter Tests")
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Map<TrafficClass, Double> SHARES = Map.of(
+        TrafficClass.REDIRECT, 1.0, TrafficClass.CREATE, 0.7, TrafficClass.ANALYTICS, 0.5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should grow the limit while latency holds and shrink it when latency rises")
+    void shouldFollowLatency() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 10, 1000);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            now = saturate(limiter, 10, now);
+        }
+        int healthyLimit = limiter.getLimit();
+        for (int i = 0; i < 5; i++) {
+            now = saturate(limiter, 50, now);
+        }
+
+        // Then
+        assertTrue(healthyLimit > 100, "limit did not grow: " + healthyLimit);
+        assertTrue(limiter.getLimit() < 40, "limit did not shrink: " + limiter.getLimit());
+        assertEquals((double) limiter.getLimit(), meterRegistry.get("concurrency.limit").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should keep the limit at its floor and leave it alone without load")
+    void shouldRespectBoundsAndIdle() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 20, 1000);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            now = saturate(limiter, 10L << i, now);
+        }
+        int floor = limiter.getLimit();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(TrafficClass.REDIRECT));
+            now += TimeUnit.MILLISECONDS.toNanos(100);
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), now);
+        }
+
+        // Then
+        assertEquals(20, floor);
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should shed creates and analytics before redirects")
+    void shouldPrioritizeRedirects() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 10, 1000);
+
+        // When
+        int creates = acquireAll(limiter, TrafficClass.CREATE);
+        int redirects = acquireAll(limiter, TrafficClass.REDIRECT);
+
+        // Then
+        assertEquals(70, creates);
+        assertEquals(30, redirects);
+        assertFalse(limiter.tryAcquire(TrafficClass.ANALYTICS));
+        assertTrue(limiter.tryAcquire(TrafficClass.ADMIN));
+        assertEquals(100, limiter.getInFlight());
+        assertEquals(1, limiter.getRejections(TrafficClass.CREATE));
+        assertEquals(1, limiter.getRejections(TrafficClass.REDIRECT));
+        assertEquals(1, limiter.getRejections(TrafficClass.ANALYTICS));
+    }
+
+    @Test
+    @DisplayName("Should answer shed requests with 503 and Retry-After but never shed admin traffic")
+    void shouldShedWithRetryAfter() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, 2);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        MockHttpServletResponse health = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/abc123"), new MockHttpServletResponse(),
+            (request, response) -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/xyz789"), shed, (r, s) -> fail("not shed"));
+                filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health,
+                    (r, s) -> ((MockHttpServletResponse) s).setStatus(200));
+            });
+
+        // Then
+        assertEquals(503, shed.getStatus());
+        assertEquals("2", shed.getHeader("Retry-After"));
+        assertEquals(200, health.getStatus());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(SHARES, initial, min, max, 1.0, 1.5, 10, 100, meterRegistry);
+    }
+
+    /**
+     * Fill the limit with redirects, then complete them all with the given latency in the next interval
+     */
+    private static long saturate(AdaptiveConcurrencyLimiter limiter, long rttMillis, long now) {
+        int admitted = acquireAll(limiter, TrafficClass.REDIRECT);
+        long next = now + TimeUnit.MILLISECONDS.toNanos(100);
+        for (int i = 0; i < admitted; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), next);
+        }
+        return next;
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter, TrafficClass trafficClass) {
+        int admitted = 0;
+        while (limiter.tryAcquire(trafficClass)) {
+            admitted++;
+        }
+        return admitted;
+    }
+}
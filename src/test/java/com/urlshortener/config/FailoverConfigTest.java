@@ -0,0 +1,96 @@
+package com.urlshortener.config;
+
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.failover.CircuitBreaker;
+import com.urlshortener.importer.LinkImportTarget;
+import com.urlshortener.service.FailoverUrlShortenerService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.RedisUrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Context tests for the failover configuration: the router is a bean whose health
+ * probe runs on the scheduler
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Failover Config Tests")
+class FailoverConfigTest {
+
+    private final RedisUrlShortenerService redis = mock(RedisUrlShortenerService.class);
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(SchedulingConfig.class, FailoverConfig.class)
+        .withBean(RedisUrlShortenerService.class, () -> redis)
+        .withBean(InMemoryUrlShortenerService.class)
+        .withPropertyValues("app.failover.probe-interval-ms=20", "app.failover.recovery-probes=2");
+
+    @Configuration
+    @EnableScheduling
+    static class SchedulingConfig {
+    }
+
+    @Test
+    @DisplayName("Should trip and close the breaker from scheduled probes, replaying the journal")
+    void shouldRecoverFromScheduledProbes() {
+        // Given - Redis down
+        AtomicBoolean up = new AtomicBoolean();
+        when(redis.ping()).thenAnswer(invocation -> {
+            if (!up.get()) {
+                throw new RedisConnectionFailureException("down");
+            }
+            return TimeUnit.MILLISECONDS.toNanos(1);
+        });
+        when(redis.replayLinks(anyList())).thenAnswer(invocation ->
+            Collections.nCopies(invocation.<List<?>>getArgument(0).size(), LinkImportTarget.Outcome.IMPORTED));
+
+        contextRunner.run(context -> {
+            FailoverUrlShortenerService failover = context.getBean(FailoverUrlShortenerService.class);
+            CircuitBreaker circuitBreaker = failover.getCircuitBreaker();
+            assertTrue(await(() -> circuitBreaker.getState() == CircuitBreaker.State.OPEN));
+            failover.shortenUrl(new ShortenUrlRequest("https://www.example.com"));
+            assertEquals(1, failover.getJournal().size());
+
+            // When - Redis answers again, with no calls other than the scheduler's
+            up.set(true);
+
+            // Then
+            assertTrue(await(() -> circuitBreaker.getState() == CircuitBreaker.State.CLOSED));
+            assertTrue(failover.getJournal().isEmpty());
+            verify(redis).replayLinks(anyList());
+        });
+    }
+
+    @Test
+    @DisplayName("Should not define the router when failover is disabled")
+    void shouldNotDefineRouterWhenDisabled() {
+        contextRunner.withPropertyValues("app.failover.enabled=false")
+            .run(context -> assertTrue(context.getBeansOfType(FailoverUrlShortenerService.class).isEmpty()));
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
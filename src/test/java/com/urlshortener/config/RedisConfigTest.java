@@ -0,0 +1,51 @@
+package com.urlshortener.config;
+
+import com.urlshortener.bulkhead.Bulkhead;
+import com.urlshortener.bulkhead.Bulkheads;
+import com.urlshortener.util.TrafficClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RedisConfig
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Redis Config Tests")
+class RedisConfigTest {
+
+    @Test
+    @DisplayName("Should close the bulkhead pools it built when the context shuts down")
+    @SuppressWarnings("unchecked")
+    void shouldCloseBulkheadPools() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Bulkheads bulkheads = new Bulkheads(List.of(
+            new Bulkhead(TrafficClass.REDIRECT, 4, 4, 100, 2, meterRegistry),
+            new Bulkhead(TrafficClass.ADMIN, 1, 1, 100, 1, meterRegistry)), meterRegistry);
+        RedisConfig config = new RedisConfig();
+        ReflectionTestUtils.setField(config, "bulkheads", bulkheads);
+        RedisConnectionFactory shared = mock(RedisConnectionFactory.class);
+        config.redisTemplate(shared);
+        List<JedisConnectionFactory> pools =
+            List.copyOf((List<JedisConnectionFactory>) ReflectionTestUtils.getField(config, "ownedFactories"));
+        pools.forEach(pool -> assertTrue(pool.isRunning()));
+
+        // When
+        config.destroy();
+
+        // Then
+        assertEquals(2, pools.size());
+        pools.forEach(pool -> assertFalse(pool.isRunning()));
+        verifyNoInteractions(shared);
+    }
+}
@@ -0,0 +1,246 @@
+package com.urlshortener.edge;
+
+import com.urlshortener.blocklist.BlocklistIndex;
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.compression.UrlCodec;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.expiry.SlidingExpiration;
+import com.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the edge redirect map export
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Edge Map Exporter Tests")
+class EdgeMapExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private UrlShortenerService service;
+    private BlocklistService blocklist;
+    private SlidingExpiration slidingExpiration;
+    private final List<UrlAnalytics> ranked = new ArrayList<>();
+    private final List<ResolvedLink> resolved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = mock(UrlShortenerService.class);
+        when(service.queryUrls(any())).thenReturn(ranked);
+        when(service.resolveUrls(anyList())).thenAnswer(invocation -> new ArrayList<>(resolved));
+        AnalyticsSummary summary = new AnalyticsSummary();
+        summary.setTotalClicks(1000);
+        when(service.getAnalyticsSummary()).thenReturn(summary);
+        blocklist = new BlocklistService("");
+        slidingExpiration = mock(SlidingExpiration.class);
+    }
+
+    private void link(String shortCode, int clicks, String originalUrl, Instant expiresAt) {
+        ranked.add(new UrlAnalytics(shortCode, originalUrl, "http://localhost:8080/" + shortCode,
+            "2024-05-01T12:00:00", clicks, null, true));
+        resolved.add(ResolvedLink.active(shortCode, originalUrl, expiresAt));
+    }
+
+    private EdgeMapExporter exporter() {
+        return exporter(null);
+    }
+
+    private EdgeMapExporter exporter(EdgeMapPublisher publisher) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("urlShortenerService", service);
+        beanFactory.addBean("blocklistService", blocklist);
+        beanFactory.addBean("slidingExpiration", slidingExpiration);
+        if (publisher != null) {
+            beanFactory.addBean("edgeMapPublisher", publisher);
+        }
+        return new EdgeMapExporter(beanFactory.getBeanProvider(UrlShortenerService.class),
+            beanFactory.getBeanProvider(BlocklistService.class), beanFactory.getBeanProvider(UrlCodec.class),
+            beanFactory.getBeanProvider(SlidingExpiration.class), beanFactory.getBeanProvider(EdgeMapPublisher.class),
+            directory.toString(), 100, 10, 3600,
+            "url-shortener-edge-map", "ingress-nginx", "edge_target");
+    }
+
+    @Test
+    @DisplayName("Should map hot, safe, long-lived links and report their share of clicks")
+    void shouldExportHotLinks() throws IOException {
+        // Given
+        Instant later = Instant.now().plus(2, ChronoUnit.DAYS);
+        link("hot1", 500, "https://www.example.com/a?x=1&y=2", null);
+        link("hot2", 200, "https://www.example.com/b", later);
+        link("soon", 150, "https://www.example.com/c", Instant.now().plus(10, ChronoUnit.MINUTES));
+        link("dolla", 100, "https://www.example.com/$host", null);
+        link("cold", 5, "https://www.example.com/d", null);
+        resolved.set(3, ResolvedLink.active("dolla", "https://www.example.com/$host", null));
+        resolved.remove(4);
+
+        // When
+        EdgeMap map = exporter().export();
+
+        // Then
+        assertEquals(List.of("hot1", "hot2"), new ArrayList<>(map.getEntries().keySet()));
+        assertEquals(0.7, map.getClickShare(), 1e-9);
+        String nginx = Files.readString(directory.resolve(EdgeMap.MAP_FILE));
+        assertTrue(nginx.startsWith("# version 1\n"));
+        assertTrue(nginx.contains("map $uri $edge_target {\n    default \"\";\n"));
+        assertTrue(nginx.contains("    /hot1 \"https://www.example.com/a?x=1&y=2\"; # 500 clicks\n"));
+        assertTrue(nginx.contains("    /hot2 \"https://www.example.com/b\"; # 200 clicks, expires " + later));
+        assertFalse(nginx.contains("soon") || nginx.contains("$host") || nginx.contains("cold"));
+        String configMap = Files.readString(directory.resolve(EdgeMapExporter.CONFIG_MAP_FILE));
+        assertTrue(configMap.contains("  namespace: ingress-nginx\n"));
+        assertTrue(configMap.contains("    url-shortener/edge-map-version: \"1\"\n"));
+        assertTrue(configMap.contains("  edge-map.conf: |\n    # version 1\n"));
+        assertTrue(configMap.contains("\n        /hot1 \"https://www.example.com/a?x=1&y=2\";"));
+    }
+
+    @Test
+    @DisplayName("Should write a new version only when redirects change, evicting links before they expire")
+    void shouldVersionIncrementally() throws IOException {
+        // Given
+        link("hot1", 500, "https://www.example.com/a", null);
+        link("hot2", 200, "https://www.example.com/b", Instant.now().plus(3, ChronoUnit.HOURS));
+        EdgeMapExporter exporter = exporter();
+        exporter.export();
+
+        // When - more clicks only, then hot2 nears its expiry
+        ranked.set(0, new UrlAnalytics("hot1", "https://www.example.com/a", null, null, 900, null, true));
+        EdgeMap unchanged = exporter.export();
+        resolved.set(1, ResolvedLink.active("hot2", "https://www.example.com/b",
+            Instant.now().plus(30, ChronoUnit.MINUTES)));
+        EdgeMap evicted = exporter.export();
+
+        // Then
+        assertEquals(1, unchanged.getVersion());
+        assertEquals(2, evicted.getVersion());
+        assertEquals(List.of("hot1"), new ArrayList<>(evicted.getEntries().keySet()));
+        Map<String, Object> status = exporter.getStatus();
+        assertEquals(0, ((Map<?, ?>) status.get("lastExport")).get("added"));
+        assertEquals(1, ((Map<?, ?>) status.get("lastExport")).get("removed"));
+        assertEquals(0.9, ((Map<?, ?>) status.get("estimatedCoverage")).get("clickShare"));
+        assertTrue(Files.readString(directory.resolve(EdgeMap.MAP_FILE)).startsWith("# version 2\n"));
+    }
+
+    @Test
+    @DisplayName("Should continue the version sequence after a restart and drop deactivated links")
+    void shouldContinueVersionsAfterRestart() throws IOException {
+        // Given
+        link("hot1", 500, "https://www.example.com/a", null);
+        link("hot2", 200, "https://www.example.com/b", null);
+        exporter().export();
+
+        // When - a new instance, after hot2 was deactivated
+        resolved.set(1, ResolvedLink.inactive("hot2"));
+        EdgeMapExporter restarted = exporter();
+        EdgeMap map = restarted.export();
+
+        // Then
+        assertEquals(2, map.getVersion());
+        assertEquals(List.of("hot1"), new ArrayList<>(map.getEntries().keySet()));
+        assertEquals(Map.of("inactive", 1, "expiring", 0, "unsafe", 0, "blocked", 0),
+            ((Map<?, ?>) restarted.getStatus().get("lastExport")).get("skipped"));
+    }
+
+    @Test
+    @DisplayName("Should drop a deactivated link at once and export early when the blocklist changes")
+    void shouldNotGoStaleBetweenRuns() throws IOException {
+        // Given
+        link("hot1", 500, "https://www.example.com/a", null);
+        link("hot2", 200, "https://www.example.com/b", null);
+        link("hot3", 100, "https://www.example.com/c", null);
+        EdgeMapExporter exporter = exporter();
+        exporter.export();
+
+        // When - hot2 is deactivated, then a new blocklist arrives
+        boolean evicted = exporter.evict("hot2");
+        boolean evictedAgain = exporter.evict("hot2");
+        String nginx = Files.readString(directory.resolve(EdgeMap.MAP_FILE));
+        exporter.exportIfStale();
+        long exportsBefore = (long) exporter.getStatus().get("exports");
+        resolved.set(1, ResolvedLink.inactive("hot2"));
+        blocklist.setIndex(BlocklistIndex.EMPTY);
+        exporter.exportIfStale();
+
+        // Then
+        assertTrue(evicted);
+        assertFalse(evictedAgain);
+        assertTrue(nginx.startsWith("# version 2\n"));
+        assertFalse(nginx.contains("hot2"));
+        assertEquals(0.6, exporter.getCurrent().getClickShare(), 1e-9);
+        assertEquals(1L, exportsBefore);
+        assertEquals(2L, exporter.getStatus().get("exports"));
+        assertEquals(1L, exporter.getStatus().get("evictions"));
+        assertEquals(2, exporter.getCurrent().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should export only while holding the lease and publish every version, evictions included")
+    void shouldExportFromLeaseHolderOnly() throws IOException {
+        // Given
+        link("hot1", 500, "https://www.example.com/a", null);
+        link("hot2", 200, "https://www.example.com/b", null);
+        EdgeMapPublisher publisher = mock(EdgeMapPublisher.class);
+        when(publisher.claim()).thenReturn(false, true, true, true, false);
+        EdgeMapExporter exporter = exporter(publisher);
+
+        // When - standby, then takes the lease over, then hot2 is deactivated on another replica
+        exporter.scheduledExport();
+        String standby = (String) exporter.getStatus().get("exporter");
+        exporter.exportIfStale();
+        resolved.set(1, ResolvedLink.inactive("hot2"));
+        exporter.exportIfStale();
+        EdgeMap afterDeactivation = exporter.getCurrent();
+        exporter.exportIfStale();
+        exporter.scheduledExport();
+
+        // Then
+        assertEquals("standby", standby);
+        assertEquals(List.of("hot1"), new ArrayList<>(afterDeactivation.getEntries().keySet()));
+        verify(publisher).publish(argThat(map -> map.getVersion() == 1), eq("edge_target"));
+        verify(publisher).publish(argThat(map -> map.getVersion() == 2), eq("edge_target"));
+        assertEquals("standby", exporter.getStatus().get("exporter"));
+        assertNull(exporter.getCurrent());
+        assertFalse(exporter.evict("hot1"));
+        assertThrows(IllegalStateException.class, exporter::export);
+    }
+
+    @Test
+    @DisplayName("Should touch mapped links for sliding expiration on every run")
+    void shouldTouchMappedLinks() throws IOException {
+        // Given
+        link("hot1", 500, "https://www.example.com/a", null);
+        link("cold", 5, "https://www.example.com/b", null);
+        resolved.remove(1);
+        EdgeMapExporter exporter = exporter();
+
+        // When
+        exporter.export();
+        exporter.export();
+
+        // Then
+        verify(slidingExpiration, times(2)).touch("hot1");
+        verify(slidingExpiration, never()).touch("cold");
+    }
+}
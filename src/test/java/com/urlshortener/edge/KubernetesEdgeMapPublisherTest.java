@@ -0,0 +1,154 @@
+package com.urlshortener.edge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for publishing the edge map through the Kubernetes API, against a
+ * small stand-in for the API server
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Kubernetes Edge Map Publisher Tests")
+class KubernetesEdgeMapPublisherTest {
+
+    private static final String LEASE = "/apis/coordination.k8s.io/v1/namespaces/url-shortener/leases";
+    private static final String CONFIG_MAP = "/api/v1/namespaces/ingress-nginx/configmaps/ingress-nginx-controller";
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> requests = new ArrayList<>();
+    private HttpServer server;
+    private volatile String lease;
+    private volatile String patch;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        Files.writeString(directory.resolve("token"), "secret\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Keeps one lease, rejecting writes that carry a stale resourceVersion
+     */
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(method + " " + path + " " + exchange.getRequestHeaders().getFirst("Authorization"));
+        int status;
+        String reply = "{}";
+        if (path.equals(LEASE + "/edge") && method.equals("GET")) {
+            status = lease == null ? 404 : 200;
+            reply = lease == null ? reply : lease;
+        } else if (path.equals(LEASE) && method.equals("POST")) {
+            status = lease == null ? 201 : 409;
+            lease = lease == null ? withVersion(body, 1) : lease;
+        } else if (path.equals(LEASE + "/edge") && method.equals("PUT")) {
+            int current = objectMapper.readTree(lease).path("metadata").path("resourceVersion").asInt();
+            boolean fresh = objectMapper.readTree(body).path("metadata").path("resourceVersion").asInt() == current;
+            status = fresh ? 200 : 409;
+            lease = fresh ? withVersion(body, current + 1) : lease;
+        } else if (path.equals(CONFIG_MAP) && method.equals("PATCH")) {
+            status = 200;
+            patch = body;
+        } else {
+            status = 404;
+        }
+        byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private String withVersion(String body, int version) throws IOException {
+        JsonNode node = objectMapper.readTree(body);
+        ((ObjectNode) node.path("metadata")).put("resourceVersion", Integer.toString(version));
+        return objectMapper.writeValueAsString(node);
+    }
+
+    private KubernetesEdgeMapPublisher publisher(String identity) {
+        return new KubernetesEdgeMapPublisher(HttpClient.newHttpClient(), objectMapper,
+            URI.create("http://127.0.0.1:" + server.getAddress().getPort()), directory.resolve("token"),
+            "url-shortener", "edge", 90, identity, "ingress-nginx", "ingress-nginx-controller", "http-snippet");
+    }
+
+    @Test
+    @DisplayName("Should let one replica hold the lease until it runs out")
+    void shouldElectOneExporter() throws IOException {
+        // Given
+        KubernetesEdgeMapPublisher first = publisher("pod-a");
+        KubernetesEdgeMapPublisher second = publisher("pod-b");
+
+        // When
+        boolean created = first.claim();
+        boolean contested = second.claim();
+        boolean renewed = first.claim();
+        JsonNode held = objectMapper.readTree(lease);
+        ((ObjectNode) held.path("spec")).put("renewTime", "2024-05-01T12:00:00.000000Z");
+        lease = objectMapper.writeValueAsString(held);
+        boolean takenOver = second.claim();
+
+        // Then
+        assertTrue(created);
+        assertFalse(contested);
+        assertTrue(renewed);
+        assertTrue(takenOver);
+        JsonNode spec = objectMapper.readTree(lease).path("spec");
+        assertEquals("pod-b", spec.path("holderIdentity").asText());
+        assertEquals(1, spec.path("leaseTransitions").asInt());
+        assertEquals(90, spec.path("leaseDurationSeconds").asInt());
+        assertTrue(spec.path("renewTime").asText().matches("\\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{6}Z"));
+        assertEquals("GET " + LEASE + "/edge Bearer secret", requests.get(0));
+        assertFalse(first.claim());
+    }
+
+    @Test
+    @DisplayName("Should write the map into the controller ConfigMap with its version")
+    void shouldPublishIntoControllerConfigMap() throws IOException {
+        // Given
+        LinkedHashMap<String, EdgeMap.Entry> entries = new LinkedHashMap<>();
+        entries.put("hot1", new EdgeMap.Entry("https://www.example.com/a", 500, null));
+        EdgeMap map = new EdgeMap(7, Instant.parse("2024-05-01T12:00:00Z"), entries, 0.5);
+
+        // When
+        publisher("pod-a").publish(map, "edge_target");
+
+        // Then
+        JsonNode sent = objectMapper.readTree(patch);
+        assertEquals("7", sent.path("metadata").path("annotations").path(EdgeMap.VERSION_ANNOTATION).asText());
+        assertEquals(map.toNginx("edge_target"), sent.path("data").path("http-snippet").asText());
+        assertEquals("PATCH " + CONFIG_MAP + " Bearer secret", requests.get(0));
+    }
+}
@@ -0,0 +1,161 @@
+package com.urlshortener.events;
+
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.StreamingUrlShortenerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the click event stream and aggregator
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Click Aggregator Tests")
+class ClickAggregatorTest {
+
+    private LocalClickEventStream stream;
+    private InMemoryUrlShortenerService store;
+    private ClickEventPublisher publisher;
+    private String shortCode;
+
+    @BeforeEach
+    void setUp() {
+        stream = new LocalClickEventStream(1000);
+        store = new InMemoryUrlShortenerService();
+        publisher = new ClickEventPublisher(stream, 100, 10, new SimpleMeterRegistry());
+        ShortenUrlRequest request = new ShortenUrlRequest();
+        request.setUrl("https://www.example.com");
+        shortCode = store.shortenUrl(request).getShortCode();
+    }
+
+    private ClickAggregator aggregator(String consumer, ClickCounterStore counterStore) {
+        return new ClickAggregator(stream, counterStore, consumer, 10, 100, 0, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should count streamed clicks only once aggregated")
+    void shouldCountStreamedClicksWhenAggregated() {
+        // Given
+        StreamingUrlShortenerService service = new StreamingUrlShortenerService(store, publisher);
+        for (int i = 0; i < 25; i++) {
+            service.trackClick(shortCode);
+        }
+        assertEquals(0, store.getUrlAnalytics(shortCode).getClickCount());
+
+        // When
+        publisher.flush();
+        int processed = aggregator("worker-1", store).poll();
+
+        // Then
+        assertEquals(25, processed);
+        assertEquals(25, store.getUrlAnalytics(shortCode).getClickCount());
+        assertNotNull(store.getUrlAnalytics(shortCode).getLastAccessedAt());
+        assertEquals(0, stream.lag());
+        assertEquals(0, stream.pending());
+    }
+
+    @Test
+    @DisplayName("Should not count a redelivered batch twice")
+    void shouldSkipRedeliveredBatch() {
+        // Given a worker that commits its batch but dies before acknowledging it
+        for (int i = 0; i < 5; i++) {
+            publisher.publish(ClickEvent.of(shortCode, null));
+        }
+        publisher.flush();
+        ClickCounterStore crashAfterCommit = (batchId, tallies) -> {
+            store.applyClicks(batchId, tallies);
+            throw new IllegalStateException("crashed before ack");
+        };
+        aggregator("worker-1", crashAfterCommit).poll();
+        assertEquals(5, store.getUrlAnalytics(shortCode).getClickCount());
+        assertEquals(5, stream.pending());
+
+        // When another worker claims the stale batch
+        int processed = aggregator("worker-2", store).poll();
+
+        // Then
+        assertEquals(5, processed);
+        assertEquals(5, store.getUrlAnalytics(shortCode).getClickCount());
+        assertEquals(0, stream.pending());
+    }
+
+    @Test
+    @DisplayName("Should sweep idle consumers once per claim interval")
+    void shouldSweepIdleConsumersPerClaimInterval() {
+        // Given
+        int[] sweeps = {0};
+        LocalClickEventStream sweeping = new LocalClickEventStream(10) {
+            @Override
+            public int removeIdleConsumers(String consumer, long minIdleMillis) {
+                sweeps[0]++;
+                return 0;
+            }
+        };
+        ClickAggregator aggregator = new ClickAggregator(sweeping, store, "worker-1", 10, 100, 60_000,
+            new SimpleMeterRegistry());
+
+        // When
+        aggregator.poll();
+        aggregator.poll();
+
+        // Then
+        assertEquals(1, sweeps[0]);
+    }
+
+    @Test
+    @DisplayName("Should re-read its own pending batch after a failed commit")
+    void shouldRetryPendingBatchAfterFailure() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(ClickEvent.of(shortCode, null));
+        }
+        publisher.flush();
+        boolean[] fail = {true};
+        ClickAggregator aggregator = aggregator("worker-1", (batchId, tallies) -> {
+            if (fail[0]) {
+                throw new IllegalStateException("store unavailable");
+            }
+            return store.applyClicks(batchId, tallies);
+        });
+        assertEquals(0, aggregator.poll());
+
+        // When
+        fail[0] = false;
+        int processed = aggregator.poll();
+
+        // Then
+        assertEquals(3, processed);
+        assertEquals(3, store.getUrlAnalytics(shortCode).getClickCount());
+    }
+
+    @Test
+    @DisplayName("Should count clicks inline when the stream refuses them")
+    void shouldFallBackWhenStreamIsFull() {
+        // Given
+        LocalClickEventStream tiny = new LocalClickEventStream(2);
+        ClickEventPublisher tinyPublisher = new ClickEventPublisher(tiny, 100, 10, new SimpleMeterRegistry());
+        StreamingUrlShortenerService service = new StreamingUrlShortenerService(store, tinyPublisher);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            service.trackClick(shortCode);
+        }
+        tinyPublisher.flush();
+
+        // Then
+        assertEquals(3, store.getUrlAnalytics(shortCode).getClickCount());
+        assertEquals(2, tiny.lag());
+        List<ClickEvent> delivered = tiny.readNew("worker-1", 10);
+        assertEquals(shortCode, delivered.get(0).getShortCode());
+        assertTrue(store.applyClicks("batch", Map.of()));
+        assertFalse(store.applyClicks("batch", Map.of()));
+    }
+}
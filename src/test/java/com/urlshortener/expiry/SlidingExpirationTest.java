@@ -0,0 +1,101 @@
+package com.urlshortener.expiry;
+
+import com.urlshortener.service.RedisLinkService;
+import com.urlshortener.service.RedisUrlShortenerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SlidingExpiration
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Sliding Expiration Tests")
+class SlidingExpirationTest {
+
+    private RedisUrlShortenerService redis;
+    private SlidingExpiration slidingExpiration;
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(RedisUrlShortenerService.class);
+        when(redis.extendExpiry(anyList(), anyLong())).thenAnswer(invocation -> {
+            List<String> batch = new ArrayList<>(invocation.getArgument(0));
+            batches.add(batch);
+            return 2 * batch.size();
+        });
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("redisUrlShortenerService", redis);
+        slidingExpiration = new SlidingExpiration(beanFactory.getBeanProvider(RedisLinkService.class),
+            new SimpleMeterRegistry(), 3600, 60000, 2, 1000);
+    }
+
+    @Test
+    @DisplayName("Should extend each used link once in batches")
+    void shouldBatchAndDeduplicate() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            slidingExpiration.touch("abc");
+            slidingExpiration.touch("def");
+        }
+        slidingExpiration.touch("ghi");
+
+        // When
+        int extended = slidingExpiration.flush();
+
+        // Then
+        assertEquals(6, extended);
+        assertEquals(2, batches.size());
+        Set<String> codes = new HashSet<>();
+        batches.forEach(codes::addAll);
+        assertEquals(Set.of("abc", "def", "ghi"), codes);
+        verify(redis, times(2)).extendExpiry(anyList(), eq(3600L));
+    }
+
+    @Test
+    @DisplayName("Should not extend a link again within the refresh interval")
+    void shouldSkipRecentlyExtended() {
+        // Given
+        slidingExpiration.touch("abc");
+        slidingExpiration.flush();
+
+        // When
+        slidingExpiration.touch("abc");
+
+        // Then
+        assertEquals(0, slidingExpiration.getPendingCount());
+        assertEquals(0, slidingExpiration.flush());
+        verify(redis, times(1)).extendExpiry(anyList(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should note a link again after a failed flush")
+    void shouldRetryAfterFailure() {
+        // Given
+        slidingExpiration.touch("abc");
+        doThrow(new RedisConnectionFailureException("down")).when(redis).extendExpiry(anyList(), anyLong());
+        assertEquals(0, slidingExpiration.flush());
+
+        // When
+        slidingExpiration.touch("abc");
+
+        // Then
+        assertEquals(1, slidingExpiration.getPendingCount());
+    }
+}
@@ -0,0 +1,201 @@
+package com.urlshortener.importer;
+
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LinkImporter and ImportRecordParser
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Link Importer Tests")
+class LinkImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should take the destination from between the first and last three fields")
+    void shouldParseDestinationsWithCommas() {
+        // Given
+        ImportRecordParser parser = new ImportRecordParser(null);
+
+        // When
+        ImportRecordParser.Result record = parser.parse("abc123,https://example.com/a?x=1,2,3,2023-04-01T10:15:30,42,60", 2);
+        ImportRecordParser.Result tabbed = parser.parse("xyz\thttps://example.com/b\t\t\t", 3);
+        ImportRecordParser.Result header = parser.parse("code,destination,createdAt,clicks,ttl", 1);
+        ImportRecordParser.Result badCode = parser.parse("ab-c,https://example.com,,0,0", 4);
+        ImportRecordParser.Result badUrl = parser.parse("abc,ftp://example.com,,0,0", 5);
+
+        // Then
+        assertEquals("abc123", record.getRecord().getShortCode());
+        assertEquals("https://example.com/a?x=1,2,3", record.getRecord().getOriginalUrl());
+        assertEquals("2023-04-01T10:15:30", record.getRecord().getCreatedAt());
+        assertEquals(42, record.getRecord().getClickCount());
+        assertEquals(60, record.getRecord().getTtlSeconds());
+        assertEquals("https://example.com/b", tabbed.getRecord().getOriginalUrl());
+        assertEquals(0, tabbed.getRecord().getTtlSeconds());
+        assertTrue(header.isSkipped());
+        assertNotNull(badCode.getError());
+        assertNotNull(badUrl.getError());
+    }
+
+    @Test
+    @DisplayName("Should import new codes and report invalid lines and conflicts")
+    void shouldImportAndRejectConflicts() throws IOException {
+        // Given - one code already taken by another link
+        InMemoryUrlShortenerService service = new InMemoryUrlShortenerService();
+        service.importLinks(List.of(new ImportRecord("taken", "https://other.example.com", "2023-01-01T00:00", 0, 0)));
+        Files.write(directory.resolve("links.csv"), List.of(
+            "code,destination,createdAt,clicks,ttl",
+            "aaa,https://example.com/a,2023-04-01T10:15:30,5,0",
+            "bad code,https://example.com/b,,0,0",
+            "taken,https://example.com/c,,0,0",
+            "ddd,https://example.com/d,,,"), StandardCharsets.UTF_8);
+        LinkImporter importer = importer(service, 2);
+
+        // When
+        importer.prepare("links.csv", LinkImporter.Mode.WRITE);
+        importer.run(service);
+
+        // Then
+        Map<String, Object> progress = importer.getProgress();
+        assertEquals(LinkImporter.State.COMPLETED, importer.getState());
+        assertEquals(2L, progress.get("imported"));
+        assertEquals(1L, progress.get("invalid"));
+        assertEquals(1L, progress.get("conflicts"));
+        assertEquals("https://example.com/a", service.getOriginalUrl("aaa"));
+        assertEquals(5, service.getUrlAnalytics("aaa").getClickCount());
+        assertEquals("https://other.example.com", service.getOriginalUrl("taken"));
+        List<String> rejects = Files.readAllLines(directory.resolve("links.csv.rejects"));
+        assertEquals(2, rejects.size());
+        assertTrue(rejects.get(0).startsWith("3\t-\t"));
+        assertTrue(rejects.get(1).startsWith("4\ttaken\t"));
+        assertFalse(Files.exists(directory.resolve("links.csv.checkpoint")));
+    }
+
+    @Test
+    @DisplayName("Should resume after a crash from the last checkpoint")
+    void shouldResumeFromCheckpoint() throws IOException {
+        // Given - the second batch is stored but the run dies before checkpointing it
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            lines.append("code").append(i).append(",https://example.com/").append(i).append(",,0,0\n");
+        }
+        Files.writeString(directory.resolve("links.csv"), lines);
+        CrashingService service = new CrashingService(2);
+        LinkImporter first = importer(service, 3);
+        first.prepare("links.csv", LinkImporter.Mode.WRITE);
+        first.run(service);
+        assertEquals(LinkImporter.State.FAILED, first.getState());
+        assertTrue(Files.exists(directory.resolve("links.csv.checkpoint")));
+
+        // When
+        service.crashOnBatch = -1;
+        LinkImporter second = importer(service, 3);
+        second.prepare("links.csv", LinkImporter.Mode.WRITE);
+        second.run(service);
+
+        // Then - the batch in flight at the crash is found already present
+        Map<String, Object> progress = second.getProgress();
+        assertEquals(LinkImporter.State.COMPLETED, second.getState());
+        assertEquals(3L, progress.get("resumedFromLine"));
+        assertEquals(7L, progress.get("imported"));
+        assertEquals(3L, progress.get("alreadyPresent"));
+        assertEquals(10L, progress.get("lines"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("https://example.com/" + i, service.getOriginalUrl("code" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write one RESP file per node for a sharded backend")
+    void shouldWriteRespFilePerNode() throws IOException {
+        // Given - codes starting with a belong to the first node, the rest to the second
+        Files.write(directory.resolve("links.csv"), List.of(
+            "aaa,https://example.com/a,,0,0",
+            "bbb,https://example.com/b,,0,0",
+            "abc,https://example.com/c,,0,0"), StandardCharsets.UTF_8);
+        ShardedService service = new ShardedService();
+        LinkImporter importer = importer(service, 2);
+
+        // When
+        importer.prepare("links.csv", LinkImporter.Mode.RESP);
+        importer.run(service);
+
+        // Then
+        assertEquals(LinkImporter.State.COMPLETED, importer.getState());
+        assertEquals(3L, importer.getProgress().get("imported"));
+        assertEquals(List.of("links.csv.redis-a_6379.resp", "links.csv.redis-b_6379.resp"),
+            importer.getProgress().get("respFiles"));
+        assertEquals(List.of("aaa", "abc"), Files.readAllLines(directory.resolve("links.csv.redis-a_6379.resp")));
+        assertEquals(List.of("bbb"), Files.readAllLines(directory.resolve("links.csv.redis-b_6379.resp")));
+        assertFalse(Files.exists(directory.resolve("links.csv.resp")));
+        assertNull(service.getOriginalUrl("aaa"));
+    }
+
+    private LinkImporter importer(UrlShortenerService service, int batchSize) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("urlShortenerService", service);
+        return new LinkImporter(beanFactory.getBeanProvider(UrlShortenerService.class),
+            beanFactory.getBeanProvider(BlocklistService.class), directory.toString(), batchSize, 2);
+    }
+
+    /**
+     * Stores one batch and then fails, like a process killed between write and checkpoint
+     */
+    private static class CrashingService extends InMemoryUrlShortenerService {
+
+        private int crashOnBatch;
+        private int batches;
+
+        CrashingService(int crashOnBatch) {
+            this.crashOnBatch = crashOnBatch;
+        }
+
+        @Override
+        public List<Outcome> importLinks(List<ImportRecord> records) {
+            List<Outcome> outcomes = super.importLinks(records);
+            if (++batches == crashOnBatch) {
+                throw new IllegalStateException("Connection lost");
+            }
+            return outcomes;
+        }
+    }
+
+    /**
+     * Splits mass-insert output over two nodes by the first letter of the code,
+     * writing one code per line
+     */
+    private static class ShardedService extends InMemoryUrlShortenerService {
+
+        @Override
+        public List<String> getMassInsertNodes() {
+            return List.of("redis-a:6379", "redis-b:6379");
+        }
+
+        @Override
+        public void writeMassInsert(List<ImportRecord> records, String node, OutputStream out) throws IOException {
+            for (ImportRecord record : records) {
+                if (node.startsWith("redis-a") == record.getShortCode().startsWith("a")) {
+                    out.write((record.getShortCode() + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+}
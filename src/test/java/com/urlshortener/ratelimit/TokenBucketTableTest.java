@@ -0,0 +1,132 @@
+package com.urlshortener.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenBucketTable
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Token Bucket Table Tests")
+class TokenBucketTableTest {
+
+    @Test
+    @DisplayName("Should allow a burst and then reject until refill")
+    void shouldAllowBurstThenReject() {
+        // Given
+        TokenBucketTable table = new TokenBucketTable(1024, 10, 5);
+        long key = TokenBucketTable.hash("10.0.0.1");
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            assertTrue(table.tryAcquire(key, 0));
+        }
+        assertFalse(table.tryAcquire(key, 0));
+        assertFalse(table.tryAcquire(key, 50));
+        assertTrue(table.tryAcquire(key, 100));
+        assertFalse(table.tryAcquire(key, 100));
+    }
+
+    @Test
+    @DisplayName("Should keep clients independent")
+    void shouldKeepClientsIndependent() {
+        // Given
+        TokenBucketTable table = new TokenBucketTable(1024, 1, 1);
+
+        // When & Then
+        assertTrue(table.tryAcquire(TokenBucketTable.hash("10.0.0.1"), 0));
+        assertFalse(table.tryAcquire(TokenBucketTable.hash("10.0.0.1"), 0));
+        assertTrue(table.tryAcquire(TokenBucketTable.hash("10.0.0.2"), 0));
+    }
+
+    @Test
+    @DisplayName("Should stay bounded with many more clients than slots")
+    void shouldStayBoundedWithManyClients() {
+        // Given
+        TokenBucketTable table = new TokenBucketTable(1024, 1, 1);
+
+        // When
+        for (int i = 0; i < 1_000_000; i++) {
+            assertTrue(table.tryAcquire(TokenBucketTable.hash("client-" + i), i));
+        }
+
+        // Then
+        assertEquals(1024, table.capacity());
+    }
+
+    @Test
+    @DisplayName("Should not over-admit under contention")
+    void shouldNotOverAdmitUnderContention() throws InterruptedException {
+        // Given
+        TokenBucketTable table = new TokenBucketTable(1024, 0.001, 1000);
+        long key = TokenBucketTable.hash("10.0.0.1");
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (table.tryAcquire(key, 0)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1000, allowed.get());
+    }
+
+    @Test
+    @DisplayName("Should give each key its own bucket while slots are evicted concurrently")
+    void shouldNotShareBucketsUnderEvictionRaces() throws InterruptedException {
+        // Given - far more keys than slots, all refilled at the same time
+        TokenBucketTable table = new TokenBucketTable(8, 0.001, 1);
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When - every key takes its single token right after claiming a slot
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20_000; i++) {
+                    if (!table.tryAcquire(TokenBucketTable.hash("client-" + thread + "-" + i), 0)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then - a fresh key never finds a bucket another key already drained
+        assertEquals(0, rejected.get());
+        assertTrue(table.tryAcquire(TokenBucketTable.hash("late-client"), 0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.UrlAnalytics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures click tracking on one hot in-memory link from 1 to 64 threads, against
+ * the same clicks on a plain UrlAnalytics behind a lock, which is the cheapest way the
+ * old read-modify-write could have been made correct. Skipped unless run with
+ * -Dclick.benchmark=true; clicks per thread come from click.benchmark.operations.
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Click Counter Benchmark")
+@EnabledIfSystemProperty(named = "click.benchmark", matches = "true")
+class ClickCounterBenchmarkTest {
+
+    private static final int OPERATIONS = Integer.getInteger("click.benchmark.operations", 1_000_000);
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Test
+    @DisplayName("Should scale click tracking on one link with the number of threads")
+    void compareWithLockedCounter() throws Exception {
+        // Warm up both paths
+        runCounters(4, OPERATIONS / 10);
+        runLocked(4, OPERATIONS / 10);
+
+        double single = 0;
+        for (int threads : THREADS) {
+            // When
+            double counters = runCounters(threads, OPERATIONS);
+            double locked = runLocked(threads, OPERATIONS);
+
+            // Then
+            if (threads == 1) {
+                single = counters;
+            }
+            System.out.printf("%2d threads: counters %8.1f Mclicks/s (%4.1fx one thread), locked %8.1f Mclicks/s%n",
+                threads, counters, counters / single, locked);
+        }
+    }
+
+    /**
+     * @return million clicks per second through the service
+     */
+    private static double runCounters(int threads, int operations) throws Exception {
+        InMemoryUrlShortenerService service = new InMemoryUrlShortenerService();
+        String shortCode = service.shortenUrl(new ShortenUrlRequest("https://www.example.com/hot")).getShortCode();
+        long start = System.nanoTime();
+        InMemoryClickStressTest.runTogether(threads, thread -> {
+            for (int i = 0; i < operations; i++) {
+                service.trackClick(shortCode);
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        assertEquals((long) threads * operations, service.getUrlAnalytics(shortCode).getClickCount());
+        return (double) threads * operations / elapsed * 1000;
+    }
+
+    private static double runLocked(int threads, int operations) throws Exception {
+        UrlAnalytics analytics = new UrlAnalytics("hot", "https://www.example.com/hot", "http://localhost:8080/hot",
+            LocalDateTime.now().toString(), 0, null, true);
+        long start = System.nanoTime();
+        InMemoryClickStressTest.runTogether(threads, thread -> {
+            for (int i = 0; i < operations; i++) {
+                synchronized (analytics) {
+                    analytics.setClickCount(analytics.getClickCount() + 1);
+                    analytics.setLastAccessedAt(LocalDateTime.now().toString());
+                }
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        assertEquals(threads * operations, analytics.getClickCount());
+        return (double) threads * operations / elapsed * 1000;
+    }
+}
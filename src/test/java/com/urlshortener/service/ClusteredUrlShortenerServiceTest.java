@@ -0,0 +1,274 @@
+package com.urlshortener.service;
+
+import com.urlshortener.blocklist.BlocklistIndexBuilder;
+import com.urlshortener.blocklist.BlocklistService;
+import com.urlshortener.cluster.ConsistentHashRing;
+import com.urlshortener.cluster.PeerClient;
+import com.urlshortener.cluster.PeerDiscovery;
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ClusteredUrlShortenerService, running several nodes
+ * in one JVM over a loopback peer transport
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Clustered URL Shortener Service Tests")
+class ClusteredUrlShortenerServiceTest {
+
+    private static final List<String> PEERS = List.of(
+        "http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+
+    private final Map<String, InMemoryUrlShortenerService> stores = new HashMap<>();
+    private final Map<String, ClusteredUrlShortenerService> nodes = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        PeerClient loopback = new LoopbackPeerClient();
+        for (String peer : PEERS) {
+            InMemoryUrlShortenerService store = new InMemoryUrlShortenerService();
+            Set<String> others = new LinkedHashSet<>(PEERS);
+            others.remove(peer);
+            PeerDiscovery discovery = new PeerDiscovery(peer, others, "", 0);
+            stores.put(peer, store);
+            nodes.put(peer, new ClusteredUrlShortenerService(store, discovery, loopback,
+                new RemoteHitCache(100, TimeUnit.SECONDS.toNanos(60)), 2, 500));
+        }
+    }
+
+    @Test
+    @DisplayName("Should resolve a link created on another node")
+    void shouldResolveLinkCreatedOnAnotherNode() {
+        // Given
+        ShortenUrlResponse response = nodes.get(PEERS.get(0))
+            .shortenUrl(new ShortenUrlRequest("https://www.example.com"));
+
+        // When & Then
+        for (String peer : PEERS) {
+            assertEquals("https://www.example.com", nodes.get(peer).getOriginalUrl(response.getShortCode()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should store links only on their owners")
+    void shouldStoreLinksOnlyOnOwners() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(PEERS);
+
+        for (int i = 0; i < 50; i++) {
+            // When
+            String shortCode = nodes.get(PEERS.get(i % PEERS.size()))
+                .shortenUrl(new ShortenUrlRequest("https://www.example.com/" + i)).getShortCode();
+
+            // Then
+            List<String> owners = ring.owners(shortCode, 2);
+            for (String peer : PEERS) {
+                boolean stored = stores.get(peer).getOriginalUrl(shortCode) != null;
+                assertEquals(owners.contains(peer), stored, "placement of " + shortCode + " on " + peer);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should count clicks on the primary owner")
+    void shouldCountClicksOnPrimaryOwner() {
+        // Given
+        String shortCode = nodes.get(PEERS.get(0))
+            .shortenUrl(new ShortenUrlRequest("https://www.example.com")).getShortCode();
+
+        // When
+        for (String peer : PEERS) {
+            nodes.get(peer).trackClick(shortCode);
+        }
+
+        // Then
+        String primary = new ConsistentHashRing(PEERS).primary(shortCode);
+        assertEquals(3, stores.get(primary).getUrlAnalytics(shortCode).getClickCount());
+    }
+
+    @Test
+    @DisplayName("Should keep placement stable when a node joins")
+    void shouldKeepPlacementStableWhenNodeJoins() {
+        // Given
+        ConsistentHashRing before = new ConsistentHashRing(PEERS);
+        List<String> grown = new java.util.ArrayList<>(PEERS);
+        grown.add("http://localhost:8084");
+        ConsistentHashRing after = new ConsistentHashRing(grown);
+
+        // When
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            String key = "code" + i;
+            if (!before.primary(key).equals(after.primary(key))) {
+                moved++;
+            }
+        }
+
+        // Then - roughly a quarter of the keys should move to the new node
+        assertTrue(moved > 1500 && moved < 3500, "moved " + moved);
+    }
+
+    @Test
+    @DisplayName("Should refuse replicas that are invalid, blocked or would take over another link")
+    void shouldRefuseUnsafeReplicas(@TempDir Path directory) throws Exception {
+        // Given
+        Path indexFile = directory.resolve("blocklist.idx");
+        new BlocklistIndexBuilder().add("evil.com").write(indexFile);
+        InMemoryUrlShortenerService store = stores.get(PEERS.get(0));
+        ReflectionTestUtils.setField(store, "blocklistService", new BlocklistService(indexFile.toString()));
+        String shortCode = store.shortenUrl(new ShortenUrlRequest("https://www.example.com/")).getShortCode();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> store.storeReplica(replica("abc123", "javascript:alert(1)")));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.storeReplica(replica("abc123", "https://evil.com/login")));
+        assertFalse(store.storeReplica(replica(shortCode, "https://attacker.example.net/")));
+        assertTrue(store.storeReplica(replica(shortCode, "https://www.example.com/")));
+        assertTrue(store.storeReplica(replica("abc123", "https://www.example.org/")));
+        assertEquals("https://www.example.com/", store.getOriginalUrl(shortCode));
+        assertEquals("https://www.example.org/", store.getOriginalUrl("abc123"));
+    }
+
+    @Test
+    @DisplayName("Should deactivate a link on every owner and drop cached copies elsewhere")
+    void shouldDeactivateOnEveryPeer() {
+        // Given - a link resolved everywhere, so non-owners cache it
+        String shortCode = nodes.get(PEERS.get(0))
+            .shortenUrl(new ShortenUrlRequest("https://www.example.com")).getShortCode();
+        PEERS.forEach(peer -> nodes.get(peer).getOriginalUrl(shortCode));
+        String nonOwner = PEERS.stream()
+            .filter(peer -> !new ConsistentHashRing(PEERS).owners(shortCode, 2).contains(peer))
+            .findFirst().orElseThrow();
+
+        // When - deactivated from the node that does not hold it
+        boolean deactivated = nodes.get(nonOwner).deactivateUrl(shortCode);
+
+        // Then
+        assertTrue(deactivated);
+        for (String peer : PEERS) {
+            assertNull(nodes.get(peer).getOriginalUrl(shortCode), "served by " + peer);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep every link on its owners when a node leaves")
+    void shouldHandOffLinksWhenNodeLeaves() {
+        // Given
+        List<String> shortCodes = new java.util.ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            shortCodes.add(nodes.get(PEERS.get(i % PEERS.size()))
+                .shortenUrl(new ShortenUrlRequest("https://www.example.com/" + i)).getShortCode());
+        }
+        String deactivated = shortCodes.get(0);
+        nodes.get(PEERS.get(1)).deactivateUrl(deactivated);
+        ConsistentHashRing before = new ConsistentHashRing(PEERS);
+        List<String> remaining = PEERS.subList(0, 2);
+        ConsistentHashRing after = new ConsistentHashRing(remaining);
+
+        // When - the last node shuts down, then the others see the smaller ring
+        nodes.get(PEERS.get(2)).handOff();
+        stores.remove(PEERS.get(2));
+        for (String peer : remaining) {
+            nodes.get(peer).rebalance(before, after);
+        }
+
+        // Then
+        for (String shortCode : shortCodes) {
+            for (String owner : after.owners(shortCode, 2)) {
+                assertTrue(stores.get(owner).holds(shortCode), shortCode + " on " + owner);
+                assertEquals(!shortCode.equals(deactivated), stores.get(owner).getOriginalUrl(shortCode) != null);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should move a link to a joining owner and drop it from the node that lost it")
+    void shouldRebalanceWhenNodeJoins() {
+        // Given
+        String joining = "http://localhost:8084";
+        InMemoryUrlShortenerService joiningStore = new InMemoryUrlShortenerService();
+        stores.put(joining, joiningStore);
+        List<String> shortCodes = new java.util.ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            shortCodes.add(nodes.get(PEERS.get(i % PEERS.size()))
+                .shortenUrl(new ShortenUrlRequest("https://www.example.com/" + i)).getShortCode());
+        }
+        List<String> grown = new java.util.ArrayList<>(PEERS);
+        grown.add(joining);
+        ConsistentHashRing before = new ConsistentHashRing(PEERS);
+        ConsistentHashRing after = new ConsistentHashRing(grown);
+
+        // When
+        for (String peer : PEERS) {
+            nodes.get(peer).rebalance(before, after);
+        }
+
+        // Then
+        for (String shortCode : shortCodes) {
+            List<String> owners = after.owners(shortCode, 2);
+            for (String peer : grown) {
+                assertEquals(owners.contains(peer), stores.get(peer).holds(shortCode), shortCode + " on " + peer);
+            }
+        }
+    }
+
+    private static UrlAnalytics replica(String shortCode, String originalUrl) {
+        return new UrlAnalytics(shortCode, originalUrl, "http://localhost:8080/" + shortCode,
+            "2024-05-01T12:00:00", 0, null, true);
+    }
+
+    /**
+     * Delivers peer calls straight to the target node's local store
+     */
+    private class LoopbackPeerClient implements PeerClient {
+
+        @Override
+        public String fetchUrl(String peer, String shortCode) {
+            return stores.get(peer).getOriginalUrl(shortCode);
+        }
+
+        @Override
+        public UrlAnalytics fetchAnalytics(String peer, String shortCode) {
+            return stores.get(peer).getUrlAnalytics(shortCode);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> replicate(String peer, UrlAnalytics analytics) {
+            UrlAnalytics copy = new UrlAnalytics(analytics.getShortCode(), analytics.getOriginalUrl(),
+                analytics.getShortUrl(), analytics.getCreatedAt(), analytics.getClickCount(),
+                analytics.getLastAccessedAt(), analytics.isActive());
+            return CompletableFuture.completedFuture(stores.get(peer).storeReplica(copy));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> deactivate(String peer, String shortCode) {
+            return CompletableFuture.completedFuture(nodes.get(peer).deactivateLocal(shortCode));
+        }
+
+        @Override
+        public void forwardClick(String peer, String shortCode) {
+            stores.get(peer).trackClick(shortCode);
+        }
+    }
+}
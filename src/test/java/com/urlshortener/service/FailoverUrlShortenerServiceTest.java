@@ -0,0 +1,266 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.ShortenUrlResponse;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.failover.CircuitBreaker;
+import com.urlshortener.failover.WriteJournal;
+import com.urlshortener.importer.LinkImportTarget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FailoverUrlShortenerService
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Failover URL Shortener Service Tests")
+class FailoverUrlShortenerServiceTest {
+
+    private RedisUrlShortenerService redis;
+    private InMemoryUrlShortenerService fallback;
+    private CircuitBreaker circuitBreaker;
+    private WriteJournal journal;
+    private FailoverUrlShortenerService service;
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(RedisUrlShortenerService.class);
+        fallback = new InMemoryUrlShortenerService();
+        circuitBreaker = new CircuitBreaker(10, 5, 0.5, 0.8, TimeUnit.MILLISECONDS.toNanos(250), 3);
+        journal = new WriteJournal(100);
+        service = new FailoverUrlShortenerService(redis, fallback, circuitBreaker, journal,
+            TimeUnit.MILLISECONDS.toNanos(100), 2, 10);
+    }
+
+    @Test
+    @DisplayName("Should stop calling Redis after consecutive failures")
+    void shouldFailFastAfterConsecutiveFailures() {
+        // Given
+        when(redis.getOriginalUrl(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertNull(service.getOriginalUrl("abc123"));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(redis, times(3)).getOriginalUrl("abc123");
+    }
+
+    @Test
+    @DisplayName("Should journal writes while degraded and replay them on recovery")
+    void shouldJournalAndReplayOnRecovery() {
+        // Given
+        when(redis.ping()).thenThrow(new RedisConnectionFailureException("down"));
+        service.probe();
+        ShortenUrlResponse response = service.shortenUrl(new ShortenUrlRequest("https://www.example.com"));
+        service.trackClick("existing");
+
+        // Then - served from the fallback and journaled
+        assertEquals("https://www.example.com", service.getOriginalUrl(response.getShortCode()));
+        assertEquals(2, journal.size());
+        verify(redis, never()).shortenUrl(any());
+
+        // When - Redis answers again
+        reset(redis);
+        when(redis.ping()).thenReturn(TimeUnit.MILLISECONDS.toNanos(1));
+        when(redis.replayLinks(anyList())).thenReturn(List.of(LinkImportTarget.Outcome.IMPORTED));
+        service.probe();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        service.probe();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(journal.isEmpty());
+        verify(redis).replayLinks(anyList());
+        verify(redis).replayClicks(anyMap());
+        assertNull(fallback.getOriginalUrl(response.getShortCode()));
+    }
+
+    @Test
+    @DisplayName("Should journal deactivations while degraded and apply them to Redis on recovery")
+    @SuppressWarnings("unchecked")
+    void shouldReplayDeactivationsOnRecovery() {
+        // Given - degraded, a Redis link and a link created on the fallback are deactivated
+        when(redis.ping()).thenThrow(new RedisConnectionFailureException("down"));
+        service.probe();
+        ShortenUrlResponse response = service.shortenUrl(new ShortenUrlRequest("https://www.example.com"));
+        boolean journaled = service.deactivateUrl("existing");
+        boolean local = service.deactivateUrl(response.getShortCode());
+        assertEquals(2, journal.size());
+        verify(redis, never()).deactivateUrl(anyString());
+
+        // When - Redis answers again, failing the first deactivation
+        reset(redis);
+        when(redis.ping()).thenReturn(TimeUnit.MILLISECONDS.toNanos(1));
+        when(redis.replayLinks(anyList())).thenReturn(List.of(LinkImportTarget.Outcome.IMPORTED));
+        when(redis.deactivateUrl("existing")).thenThrow(new RedisConnectionFailureException("down")).thenReturn(true);
+        service.probe();
+        service.probe();
+        boolean replayedEarly = journal.isEmpty();
+        service.probe();
+
+        // Then
+        assertTrue(journaled);
+        assertTrue(local);
+        assertFalse(replayedEarly);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(journal.isEmpty());
+        verify(redis, times(2)).deactivateUrl("existing");
+        ArgumentCaptor<List<UrlAnalytics>> replayed = ArgumentCaptor.forClass(List.class);
+        verify(redis).replayLinks(replayed.capture());
+        assertFalse(replayed.getValue().get(0).isActive());
+    }
+
+    @Test
+    @DisplayName("Should replay a degraded link with its outage clicks and carry over clicks taken during replay")
+    @SuppressWarnings("unchecked")
+    void shouldReplayClicksTakenWhileDegraded() {
+        // Given - a link created and clicked three times while Redis was down
+        when(redis.ping()).thenThrow(new RedisConnectionFailureException("down"));
+        service.probe();
+        String shortCode = service.shortenUrl(new ShortenUrlRequest("https://www.example.com")).getShortCode();
+        for (int i = 0; i < 3; i++) {
+            service.redirect(shortCode, null);
+        }
+
+        // When - two more clicks land on the fallback while the link is being replayed
+        reset(redis);
+        when(redis.ping()).thenReturn(TimeUnit.MILLISECONDS.toNanos(1));
+        when(redis.replayLinks(anyList())).thenAnswer(invocation -> {
+            fallback.trackClick(shortCode);
+            fallback.trackClick(shortCode);
+            return List.of(LinkImportTarget.Outcome.IMPORTED);
+        });
+        service.probe();
+        service.probe();
+
+        // Then
+        ArgumentCaptor<List<UrlAnalytics>> replayed = ArgumentCaptor.forClass(List.class);
+        verify(redis).replayLinks(replayed.capture());
+        assertEquals(3, replayed.getValue().get(0).getClickCount());
+        verify(redis).replayClicks(Map.of(shortCode, 2L));
+        assertTrue(journal.isEmpty());
+        assertFalse(fallback.holds(shortCode));
+    }
+
+    @Test
+    @DisplayName("Should keep a replayed link locally when its code was taken in Redis meanwhile")
+    void shouldKeepConflictingLinkLocally() {
+        // Given
+        when(redis.ping()).thenThrow(new RedisConnectionFailureException("down"));
+        service.probe();
+        ShortenUrlResponse response = service.shortenUrl(new ShortenUrlRequest("https://www.example.com"));
+
+        // When
+        reset(redis);
+        when(redis.ping()).thenReturn(TimeUnit.MILLISECONDS.toNanos(1));
+        when(redis.replayLinks(anyList())).thenReturn(List.of(LinkImportTarget.Outcome.CONFLICT));
+        service.probe();
+        service.probe();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, service.getReplayConflicts());
+        assertEquals("https://www.example.com", fallback.getOriginalUrl(response.getShortCode()));
+        assertEquals("https://www.example.com", service.redirect(response.getShortCode(), null));
+    }
+
+    @Test
+    @DisplayName("Should redirect in one Redis call and serve degraded links from the fallback")
+    void shouldRedirectThroughRedisOrFallback() {
+        // Given
+        when(redis.redirect(eq("remote"), any())).thenReturn("https://www.example.com/remote");
+        ShortenUrlResponse local = fallback.shortenUrl(new ShortenUrlRequest("https://www.example.com/local"));
+
+        // When & Then
+        assertEquals("https://www.example.com/remote", service.redirect("remote", null));
+        assertEquals("https://www.example.com/local", service.redirect(local.getShortCode(), null));
+        assertEquals(1, fallback.getUrlAnalytics(local.getShortCode()).getClickCount());
+        verify(redis, never()).redirect(eq(local.getShortCode()), any());
+        verify(redis, never()).trackClick(anyString());
+    }
+
+    @Test
+    @DisplayName("Should trip on slow calls")
+    void shouldTripOnSlowCalls() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(500));
+        }
+
+        // Then
+        assertFalse(circuitBreaker.allowsCalls());
+    }
+
+    @Test
+    @DisplayName("Should pass invalid URL errors through without tripping")
+    void shouldNotTripOnInvalidUrl() {
+        // Given
+        when(redis.shortenUrl(any())).thenThrow(new IllegalArgumentException("Invalid URL format"));
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class,
+                () -> service.shortenUrl(new ShortenUrlRequest("invalid-url")));
+        }
+        assertTrue(circuitBreaker.allowsCalls());
+    }
+
+    @Test
+    @DisplayName("Should not lose clicks journaled while a replay drains the journal")
+    void shouldNotLoseClicksDrainedConcurrently() throws InterruptedException {
+        // Given
+        WriteJournal clicks = new WriteJournal(1000);
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> recorders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            recorders.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    clicks.recordClick("code" + (i & 7));
+                }
+                done.countDown();
+            }));
+        }
+        AtomicBoolean draining = new AtomicBoolean(true);
+        long[] drained = new long[1];
+        Thread replayer = new Thread(() -> {
+            while (draining.get()) {
+                clicks.drainClicks(3).values().forEach(count -> drained[0] += count);
+            }
+        });
+
+        // When
+        replayer.start();
+        recorders.forEach(Thread::start);
+        done.await();
+        draining.set(false);
+        replayer.join();
+        clicks.drainClicks(100).values().forEach(count -> drained[0] += count);
+
+        // Then
+        assertEquals((long) threads * perThread, drained[0]);
+        assertTrue(clicks.isEmpty());
+    }
+}
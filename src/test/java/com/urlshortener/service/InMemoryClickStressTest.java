@@ -0,0 +1,138 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.events.ClickTally;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrency stress tests for the in-memory click counters: many threads start
+ * together on one hot link and every increment must be counted
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("In-Memory Click Stress Tests")
+class InMemoryClickStressTest {
+
+    private static final int THREADS = 16;
+    private static final int CLICKS_PER_THREAD = 20000;
+
+    @RepeatedTest(3)
+    @DisplayName("Should not lose clicks on one link tracked from many threads")
+    void shouldNotLoseConcurrentClicks() throws Exception {
+        // Given
+        InMemoryUrlShortenerService service = new InMemoryUrlShortenerService();
+        String shortCode = service.shortenUrl(new ShortenUrlRequest("https://www.example.com/hot")).getShortCode();
+
+        // When
+        runTogether(THREADS, thread -> {
+            for (int i = 0; i < CLICKS_PER_THREAD; i++) {
+                service.trackClick(shortCode);
+            }
+        });
+
+        // Then
+        assertEquals(THREADS * CLICKS_PER_THREAD, service.getUrlAnalytics(shortCode).getClickCount());
+        assertEquals(THREADS * (long) CLICKS_PER_THREAD, service.getAnalyticsSummary().getTotalClicks());
+    }
+
+    @Test
+    @DisplayName("Should count batched and single clicks applied at the same time")
+    void shouldCountBatchesAlongsideSingleClicks() throws Exception {
+        // Given
+        InMemoryUrlShortenerService service = new InMemoryUrlShortenerService();
+        String shortCode = service.shortenUrl(new ShortenUrlRequest("https://www.example.com/hot")).getShortCode();
+
+        // When - half the threads click, half apply batches of 10
+        runTogether(THREADS, thread -> {
+            for (int i = 0; i < 1000; i++) {
+                if (thread % 2 == 0) {
+                    service.trackClick(shortCode);
+                } else {
+                    ClickTally tally = mock(ClickTally.class);
+                    when(tally.getCount()).thenReturn(10L);
+                    when(tally.getLastClickAt()).thenReturn(System.currentTimeMillis());
+                    assertTrue(service.applyClicks(thread + "-" + i, Map.of(shortCode, tally)));
+                }
+            }
+        });
+
+        // Then
+        assertEquals(THREADS / 2 * 1000 + THREADS / 2 * 1000 * 10, service.getUrlAnalytics(shortCode).getClickCount());
+    }
+
+    @Test
+    @DisplayName("Should only move the last access time forward")
+    void shouldKeepLatestAccessTime() throws Exception {
+        // Given
+        CountingUrlAnalytics analytics = new CountingUrlAnalytics("abc", "https://www.example.com",
+            "http://localhost:8080/abc", LocalDateTime.now().toString(), 0, null, true);
+        long base = System.currentTimeMillis();
+
+        // When - threads report times out of order
+        runTogether(THREADS, thread -> {
+            for (int i = 0; i < 1000; i++) {
+                analytics.recordClicks(1, base + (i * 7919L + thread) % 5000);
+            }
+        });
+
+        // Then
+        long latest = base;
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < 1000; i++) {
+                latest = Math.max(latest, base + (i * 7919L + thread) % 5000);
+            }
+        }
+        UrlAnalytics snapshot = analytics.snapshot("https://www.example.com");
+        assertEquals(THREADS * 1000, snapshot.getClickCount());
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(latest), ZoneId.systemDefault()).toString(),
+            snapshot.getLastAccessedAt());
+    }
+
+    interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Start all threads on one latch so they contend from the first operation
+     */
+    static void runTogether(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
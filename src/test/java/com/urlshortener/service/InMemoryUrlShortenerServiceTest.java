@@ -1,10 +1,19 @@
 package com.urlshortener.service;
 
+import com.urlshortener.compression.UrlCodec;
+import com.urlshortener.compression.UrlDictionary;
 import com.urlshortener.dto.ShortenUrlRequest;
 import com.urlshortener.dto.ShortenUrlResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,4 +118,26 @@ class InMemoryUrlShortenerServiceTest {
         // Then
         assertNotEquals(response1.getShortCode(), response2.getShortCode());
     }
+
+    @Test
+    @DisplayName("Should store compressed URLs and return them decoded")
+    void shouldStoreCompressedUrls() {
+        // Given
+        ObjectProvider<RedisTemplate<String, Object>> noRedis = new StaticListableBeanFactory()
+            .getBeanProvider(ResolvableType.forClassWithGenerics(RedisTemplate.class, String.class, Object.class));
+        ReflectionTestUtils.setField(urlShortenerService, "urlCodec", new UrlCodec(noRedis, true, 0));
+        String url = "https://www.example.com/blog/post?utm_source=newsletter&utm_medium=email";
+
+        // When
+        String shortCode = urlShortenerService.shortenUrl(new ShortenUrlRequest(url)).getShortCode();
+
+        // Then
+        assertEquals(url, urlShortenerService.getOriginalUrl(shortCode));
+        assertEquals(url, urlShortenerService.getUrlAnalytics(shortCode).getOriginalUrl());
+        assertEquals(url, urlShortenerService.getAnalyticsSummary().getRecentUrls().get(0).getOriginalUrl());
+        urlShortenerService.forEachUrl((code, originalUrl) -> assertEquals(url, originalUrl));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stored = (Map<String, Object>) ReflectionTestUtils.getField(urlShortenerService, "urlCache");
+        assertTrue(UrlDictionary.isEncoded((String) stored.get(shortCode)));
+    }
 }
@@ -0,0 +1,107 @@
+package com.urlshortener.service;
+
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batch resolves through NearCachingUrlShortenerService
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Near Caching URL Shortener Service Tests")
+class NearCachingUrlShortenerServiceTest {
+
+    private InMemoryUrlShortenerService store;
+    private RemoteHitCache nearCache;
+    private List<List<String>> backendCalls;
+    private NearCachingUrlShortenerService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryUrlShortenerService();
+        nearCache = new RemoteHitCache(100, TimeUnit.MINUTES.toNanos(1));
+        backendCalls = new ArrayList<>();
+        UrlShortenerService recording = new DelegatingUrlShortenerService(store) {
+            @Override
+            public List<ResolvedLink> resolveUrls(List<String> shortCodes) {
+                backendCalls.add(shortCodes);
+                return delegate.resolveUrls(shortCodes);
+            }
+        };
+        service = new NearCachingUrlShortenerService(recording, nearCache);
+    }
+
+    private String shorten(String url) {
+        ShortenUrlRequest request = new ShortenUrlRequest();
+        request.setUrl(url);
+        return store.shortenUrl(request).getShortCode();
+    }
+
+    @Test
+    @DisplayName("Should resolve found, deactivated and unknown codes in request order")
+    void shouldResolveInRequestOrder() {
+        // Given
+        String active = shorten("https://www.example.com/a");
+        String deactivated = shorten("https://www.example.com/b");
+        store.deactivateUrl(deactivated);
+
+        // When
+        List<ResolvedLink> links = service.resolveUrls(List.of("missing", active, deactivated));
+
+        // Then
+        assertEquals(3, links.size());
+        assertEquals("missing", links.get(0).getShortCode());
+        assertFalse(links.get(0).isFound());
+        assertTrue(links.get(1).isActive());
+        assertEquals("https://www.example.com/a", links.get(1).getOriginalUrl());
+        assertTrue(links.get(2).isFound());
+        assertFalse(links.get(2).isActive());
+        assertNull(links.get(2).getOriginalUrl());
+        assertEquals(1, backendCalls.size());
+    }
+
+    @Test
+    @DisplayName("Should only send codes without a known expiry to the backend")
+    void shouldServeCachedLinksLocally() {
+        // Given
+        String first = shorten("https://www.example.com/a");
+        String second = shorten("https://www.example.com/b");
+        String third = shorten("https://www.example.com/c");
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        nearCache.put(first, "https://www.example.com/a", expiresAt.toEpochMilli());
+        service.getOriginalUrl(second);
+
+        // When
+        List<ResolvedLink> links = service.resolveUrls(List.of(first, second, third));
+        List<ResolvedLink> again = service.resolveUrls(List.of(first, second, third));
+
+        // Then
+        assertEquals(List.of(List.of(second, third)), backendCalls);
+        assertEquals(expiresAt.toEpochMilli(), links.get(0).getExpiresAt().toEpochMilli());
+        assertTrue(again.stream().allMatch(ResolvedLink::isActive));
+        assertEquals("https://www.example.com/c", again.get(2).getOriginalUrl());
+    }
+
+    @Test
+    @DisplayName("Should drop cached links once they expire")
+    void shouldDropExpiredLinks() {
+        // Given
+        String shortCode = shorten("https://www.example.com/a");
+        nearCache.put(shortCode, "https://www.example.com/a", System.currentTimeMillis() - 1);
+
+        // When & Then
+        assertNull(nearCache.get(shortCode));
+        assertEquals(RemoteHitCache.UNKNOWN_EXPIRY, nearCache.getExpiresAt(shortCode));
+    }
+}
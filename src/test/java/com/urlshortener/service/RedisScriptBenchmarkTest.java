@@ -0,0 +1,131 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.RedisConfig;
+import com.urlshortener.dto.ClickContext;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.util.ShortCodeGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the script calls of RedisUrlShortenerService with the multi-command path
+ * against a real Redis. Skipped unless run with -Dredis.benchmark=true; the host, port
+ * and database come from redis.host, redis.port and redis.database.
+ * Only the keys created by the benchmark are deleted afterwards.
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Redis Script Benchmark")
+@EnabledIfSystemProperty(named = "redis.benchmark", matches = "true")
+class RedisScriptBenchmarkTest {
+
+    private static final int OPERATIONS = Integer.getInteger("redis.benchmark.operations", 5000);
+
+    private JedisConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisUrlShortenerService service;
+    private final List<String> createdCodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+            System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379));
+        config.setDatabase(Integer.getInteger("redis.database", 0));
+        connectionFactory = new JedisConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+        service = new RedisUrlShortenerService(redisTemplate, new ShortCodeGenerator());
+    }
+
+    @AfterEach
+    void tearDown() {
+        List<String> keys = new ArrayList<>();
+        for (String shortCode : createdCodes) {
+            keys.add("url:" + shortCode);
+            keys.add("analytics:" + shortCode);
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("Should create and redirect with scripts at least as fast as with separate commands")
+    void compareScriptsWithMultiCommandPath() {
+        // Warm up both paths and the script cache
+        run(false, 200);
+        run(true, 200);
+
+        // When
+        long[] multiCommand = run(false, OPERATIONS);
+        long[] scripts = run(true, OPERATIONS);
+
+        // Then
+        report("multi-command", multiCommand);
+        report("scripts", scripts);
+        assertTrue(scripts[0] <= multiCommand[0] * 1.2, "create got slower with scripts");
+        assertTrue(scripts[1] <= multiCommand[1] * 1.2, "redirect got slower with scripts");
+    }
+
+    @Test
+    @DisplayName("Should count every scripted redirect and answer unknown codes with null")
+    void shouldCountScriptedRedirects() {
+        // Given
+        service.setScriptsEnabled(true);
+        String shortCode = create("https://www.example.com/counted");
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertEquals("https://www.example.com/counted", service.redirect(shortCode, null));
+        }
+
+        // Then
+        assertEquals(10, service.getUrlAnalytics(shortCode).getClickCount());
+        assertNotNull(service.getUrlAnalytics(shortCode).getLastAccessedAt());
+        assertTrue(redisTemplate.getExpire("url:" + shortCode) > 0);
+        assertNull(service.redirect("no-such-code", null));
+    }
+
+    /**
+     * @return nanoseconds spent on creates and on redirects
+     */
+    private long[] run(boolean scriptsEnabled, int operations) {
+        service.setScriptsEnabled(scriptsEnabled);
+        List<String> codes = new ArrayList<>(operations);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            codes.add(create("https://www.example.com/" + i));
+        }
+        long created = System.nanoTime();
+        ClickContext context = new ClickContext(System.currentTimeMillis(), "(direct)", "Chrome", "US", "desktop");
+        for (String shortCode : codes) {
+            assertNotNull(service.redirect(shortCode, context));
+        }
+        long redirected = System.nanoTime();
+        return new long[] {created - start, redirected - created};
+    }
+
+    private String create(String url) {
+        String shortCode = service.shortenUrl(new ShortenUrlRequest(url)).getShortCode();
+        createdCodes.add(shortCode);
+        return shortCode;
+    }
+
+    private static void report(String path, long[] nanos) {
+        System.out.printf("%-14s create %7.1f us/op, redirect %7.1f us/op (%d ops)%n", path,
+            nanos[0] / 1000.0 / OPERATIONS, nanos[1] / 1000.0 / OPERATIONS, OPERATIONS);
+    }
+}
@@ -0,0 +1,143 @@
+package com.urlshortener.service;
+
+import com.urlshortener.util.ShortCodeGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RedisUrlShortenerService
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Redis URL Shortener Service Tests")
+class RedisUrlShortenerServiceTest {
+
+    @Test
+    @DisplayName("Should move a link with its clicks and a TTL beyond an int of milliseconds")
+    @SuppressWarnings("unchecked")
+    void shouldMoveConfirmedLinks() {
+        // Given
+        RedisTemplate<String, Object> sourceTemplate = mock(RedisTemplate.class);
+        RedisTemplate<String, Object> targetTemplate = mock(RedisTemplate.class);
+        List<byte[][]> targetCalls = new ArrayList<>();
+        byte[] dump = {1, 2, 3};
+        List<List<Object>> sourceReplies = new ArrayList<>(List.of(
+            Arrays.asList("sha", Arrays.asList(dump, 90L * 24 * 3600 * 1000, dump, -1L, 4L)),
+            Arrays.asList("sha", 6L)));
+        when(sourceTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+            .thenAnswer(invocation -> sourceReplies.remove(0));
+        when(targetTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+            .thenAnswer(invocation -> {
+                invocation.<RedisCallback<Object>>getArgument(0).doInRedis(recording(targetCalls));
+                return Arrays.asList("sha", 3L);
+            });
+        RedisUrlShortenerService source = new RedisUrlShortenerService(sourceTemplate, new ShortCodeGenerator());
+        RedisUrlShortenerService target = spy(new RedisUrlShortenerService(targetTemplate, new ShortCodeGenerator()));
+        doNothing().when(target).replayClicks(anyMap());
+
+        // When
+        int moved = source.moveLinks(List.of("aaa"), target);
+
+        // Then
+        assertEquals(2, moved);
+        assertEquals("7776000000", text(targetCalls.get(0)[3]));
+        assertEquals("0", text(targetCalls.get(0)[5]));
+        verify(target).replayClicks(Map.of("aaa", 2L));
+    }
+
+    @Test
+    @DisplayName("Should drain only links whose restore is confirmed and carry clicks taken during the move")
+    @SuppressWarnings("unchecked")
+    void shouldDrainOnlyConfirmedRestores() {
+        // Given - aaa takes 3 clicks between snapshot and drain, bbb's analytics already
+        // exist on the target, ccc is gone, ddd has no analytics and a 30 day TTL, and
+        // eee's restore fails. Replies are what Jedis returns for pipelined scripts.
+        RedisTemplate<String, Object> sourceTemplate = mock(RedisTemplate.class);
+        RedisTemplate<String, Object> targetTemplate = mock(RedisTemplate.class);
+        List<byte[][]> sourceCalls = new ArrayList<>();
+        List<byte[][]> targetCalls = new ArrayList<>();
+        byte[] dump = {1, 2, 3};
+        long thirtyDays = 30L * 24 * 3600 * 1000;
+        List<List<Object>> sourceReplies = new ArrayList<>(List.of(
+            Arrays.asList("sha",
+                Arrays.asList(dump, 1000L, dump, 1000L, 5L),
+                Arrays.asList(dump, -1L, dump, -1L, 2L),
+                Arrays.asList(null, -2L, null, -2L, -1L),
+                Arrays.asList(dump, thirtyDays, null, -2L, -1L),
+                Arrays.asList(dump, -1L, dump, -1L, 0L)),
+            Arrays.asList("sha", 8L, 2L, -1L)));
+        when(sourceTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+            .thenAnswer(invocation -> {
+                invocation.<RedisCallback<Object>>getArgument(0).doInRedis(recording(sourceCalls));
+                return sourceReplies.remove(0);
+            });
+        when(targetTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+            .thenAnswer(invocation -> {
+                invocation.<RedisCallback<Object>>getArgument(0).doInRedis(recording(targetCalls));
+                throw new RedisPipelineException("ERR", Arrays.asList("sha", 3L, 9L, 1L,
+                    new InvalidDataAccessApiUsageException("ERR DUMP payload version or checksum are wrong")));
+            });
+        RedisUrlShortenerService source = new RedisUrlShortenerService(sourceTemplate, new ShortCodeGenerator());
+        RedisUrlShortenerService target = spy(new RedisUrlShortenerService(targetTemplate, new ShortCodeGenerator()));
+        doNothing().when(target).replayClicks(anyMap());
+
+        // When
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> source.moveLinks(List.of("aaa", "bbb", "ccc", "ddd", "eee"), target));
+
+        // Then - eee is reported after the others were drained
+        assertTrue(failure.getMessage().startsWith("1 links could not be restored"));
+        assertTrue(failure.getMessage().contains("eee"));
+        assertEquals(List.of("url:aaa", "url:bbb", "url:ddd", "url:eee"), firstKeys(targetCalls));
+        assertEquals("", text(targetCalls.get(2)[4]));
+        assertEquals(Long.toString(thirtyDays), text(targetCalls.get(2)[3]));
+        assertEquals("0", text(targetCalls.get(1)[3]));
+        assertEquals(List.of("url:aaa", "url:bbb", "url:ccc", "url:ddd", "url:eee", "url:aaa", "url:bbb", "url:ddd"),
+            firstKeys(sourceCalls));
+        verify(target).replayClicks(Map.of("aaa", 3L));
+    }
+
+    /**
+     * A connection that records the keys and arguments of each EVALSHA
+     */
+    private static RedisConnection recording(List<byte[][]> calls) {
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisScriptingCommands scripting = mock(RedisScriptingCommands.class);
+        when(connection.scriptingCommands()).thenReturn(scripting);
+        when(scripting.evalSha(anyString(), any(), anyInt(), any(byte[][].class))).thenAnswer(invocation -> {
+            calls.add((byte[][]) invocation.getRawArguments()[3]);
+            return null;
+        });
+        return connection;
+    }
+
+    private static List<String> firstKeys(List<byte[][]> calls) {
+        List<String> keys = new ArrayList<>();
+        calls.forEach(call -> keys.add(text(call[0])));
+        return keys;
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
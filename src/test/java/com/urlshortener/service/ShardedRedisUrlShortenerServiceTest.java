@@ -0,0 +1,186 @@
+package com.urlshortener.service;
+
+import com.urlshortener.cluster.ConsistentHashRing;
+import com.urlshortener.dto.AnalyticsSummary;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.importer.ImportRecord;
+import com.urlshortener.util.ShortCodeGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ShardedRedisUrlShortenerService
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Sharded Redis URL Shortener Service Tests")
+class ShardedRedisUrlShortenerServiceTest {
+
+    private static final List<String> NODES = List.of("redis-a:6379", "redis-b:6379", "redis-c:6379");
+    private static final List<String> OLD_NODES = List.of("redis-a:6379", "redis-b:6379");
+
+    private final ShortCodeGenerator generator = new ShortCodeGenerator();
+    private final Map<String, RedisUrlShortenerService> shards = new LinkedHashMap<>();
+    private ShardedRedisUrlShortenerService service;
+
+    private ShardedRedisUrlShortenerService create(List<String> previousNodes) {
+        for (String node : NODES) {
+            RedisUrlShortenerService shard = mock(RedisUrlShortenerService.class);
+            when(shard.getOriginalUrls(anyList())).thenAnswer(invocation -> {
+                List<String> codes = invocation.getArgument(0);
+                return codes.stream().map(code -> node + "/" + code).collect(Collectors.toList());
+            });
+            shards.put(node, shard);
+        }
+        service = new ShardedRedisUrlShortenerService(shards, NODES, previousNodes, generator, 4);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    @DisplayName("Should route a short code to its ring owner only")
+    void shouldRouteToOwner() {
+        // Given
+        create(List.of());
+        String owner = new ConsistentHashRing(NODES).primary("abc123");
+        when(shards.get(owner).getOriginalUrl("abc123")).thenReturn("https://www.example.com");
+
+        // When
+        String originalUrl = service.getOriginalUrl("abc123");
+
+        // Then
+        assertEquals("https://www.example.com", originalUrl);
+        assertEquals(owner, service.ownerOf("abc123"));
+        shards.forEach((node, shard) -> {
+            if (!node.equals(owner)) {
+                verify(shard, never()).getOriginalUrl(anyString());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should read from the previous owner until a link has moved")
+    void shouldFallBackToPreviousOwner() {
+        // Given - a code that moves to the new node
+        create(OLD_NODES);
+        ConsistentHashRing oldRing = new ConsistentHashRing(OLD_NODES);
+        String shortCode = moved(oldRing);
+        String previous = oldRing.primary(shortCode);
+        when(shards.get(previous).getOriginalUrl(shortCode)).thenReturn("https://www.example.com");
+
+        // When
+        String originalUrl = service.getOriginalUrl(shortCode);
+
+        // Then
+        assertEquals("https://www.example.com", originalUrl);
+        verify(shards.get("redis-c:6379")).getOriginalUrl(shortCode);
+        assertEquals(OLD_NODES, service.getPreviousNodes());
+    }
+
+    @Test
+    @DisplayName("Should fan a batch out per owner and keep the request order")
+    void shouldKeepBatchOrder() {
+        // Given
+        create(List.of());
+        List<String> shortCodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            shortCodes.add(generator.generate());
+        }
+
+        // When
+        List<String> urls = service.getOriginalUrls(shortCodes);
+
+        // Then
+        for (int i = 0; i < shortCodes.size(); i++) {
+            assertEquals(service.ownerOf(shortCodes.get(i)) + "/" + shortCodes.get(i), urls.get(i));
+        }
+        shards.values().forEach(shard -> verify(shard, times(1)).getOriginalUrls(anyList()));
+    }
+
+    @Test
+    @DisplayName("Should merge the analytics summaries of all nodes")
+    void shouldMergeSummaries() {
+        // Given
+        create(List.of());
+        int clicks = 10;
+        for (RedisUrlShortenerService shard : shards.values()) {
+            AnalyticsSummary summary = new AnalyticsSummary();
+            summary.setTotalUrls(2);
+            summary.setTotalClicks(clicks);
+            summary.setTopUrls(List.of(new UrlAnalytics("c" + clicks, "https://www.example.com",
+                "http://localhost:8080/c" + clicks, "2024-01-01T00:00:" + clicks, clicks, null, true)));
+            summary.setRecentUrls(summary.getTopUrls());
+            when(shard.getAnalyticsSummary()).thenReturn(summary);
+            clicks += 10;
+        }
+
+        // When
+        AnalyticsSummary merged = service.getAnalyticsSummary();
+
+        // Then
+        assertEquals(6, merged.getTotalUrls());
+        assertEquals(60, merged.getTotalClicks());
+        assertEquals(List.of("c30", "c20", "c10"),
+            merged.getTopUrls().stream().map(UrlAnalytics::getShortCode).collect(Collectors.toList()));
+        assertEquals("c30", merged.getRecentUrls().get(0).getShortCode());
+    }
+
+    @Test
+    @DisplayName("Should hand each node only its own links for a mass-insert file")
+    void shouldSplitMassInsertByOwner() throws IOException {
+        // Given
+        create(OLD_NODES);
+        List<ImportRecord> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            records.add(new ImportRecord(generator.generate(), "https://www.example.com/" + i, null, 0, 0));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        for (String node : service.getMassInsertNodes()) {
+            service.writeMassInsert(records, node, out);
+        }
+
+        // Then - one file per node of the current ring
+        assertEquals(NODES, service.getMassInsertNodes());
+        for (String node : NODES) {
+            List<ImportRecord> owned = records.stream()
+                .filter(record -> service.ownerOf(record.getShortCode()).equals(node))
+                .collect(Collectors.toList());
+            if (!owned.isEmpty()) {
+                verify(shards.get(node)).writeMassInsert(eq(owned), same(out));
+            }
+        }
+        assertThrows(UnsupportedOperationException.class, () -> service.writeMassInsert(records, out));
+    }
+
+    private String moved(ConsistentHashRing oldRing) {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES);
+        while (true) {
+            String shortCode = generator.generate();
+            if (!ring.primary(shortCode).equals(oldRing.primary(shortCode))) {
+                return shortCode;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.sharding;
+
+import com.urlshortener.cluster.ConsistentHashRing;
+import com.urlshortener.service.RedisLinkService;
+import com.urlshortener.service.RedisUrlShortenerService;
+import com.urlshortener.service.ShardedRedisUrlShortenerService;
+import com.urlshortener.util.ShortCodeGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ShardMigrator
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Shard Migrator Tests")
+class ShardMigratorTest {
+
+    private static final List<String> NODES = List.of("redis-a:6379", "redis-b:6379", "redis-c:6379");
+    private static final List<String> OLD_NODES = List.of("redis-a:6379", "redis-b:6379");
+
+    @Test
+    @DisplayName("Should move only the links whose owner changed")
+    @SuppressWarnings("unchecked")
+    void shouldMoveLinksToNewOwner() {
+        // Given - links placed by the old ring
+        ConsistentHashRing oldRing = new ConsistentHashRing(OLD_NODES);
+        ConsistentHashRing ring = new ConsistentHashRing(NODES);
+        ShortCodeGenerator generator = new ShortCodeGenerator();
+        Map<String, List<String>> stored = new LinkedHashMap<>();
+        NODES.forEach(node -> stored.put(node, new ArrayList<>()));
+        for (int i = 0; i < 300; i++) {
+            String shortCode = generator.generate();
+            stored.get(oldRing.primary(shortCode)).add(shortCode);
+        }
+        Map<String, RedisUrlShortenerService> shards = new LinkedHashMap<>();
+        for (String node : NODES) {
+            RedisUrlShortenerService shard = mock(RedisUrlShortenerService.class);
+            doAnswer(invocation -> {
+                ((Predicate<List<String>>) invocation.getArgument(1)).test(stored.get(node));
+                return null;
+            }).when(shard).scanShortCodes(anyInt(), any());
+            when(shard.moveLinks(anyList(), any())).thenAnswer(invocation -> 2 * ((List<?>) invocation.getArgument(0)).size());
+            shards.put(node, shard);
+        }
+        ShardedRedisUrlShortenerService service =
+            new ShardedRedisUrlShortenerService(shards, NODES, OLD_NODES, generator, 2);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("redisUrlShortenerService", service);
+        ShardMigrator migrator = new ShardMigrator(beanFactory.getBeanProvider(RedisLinkService.class), 100, 0);
+
+        // When
+        migrator.run();
+
+        // Then
+        long expected = 0;
+        for (String node : OLD_NODES) {
+            List<String> leaving = new ArrayList<>();
+            for (String shortCode : stored.get(node)) {
+                if (!ring.primary(shortCode).equals(node)) {
+                    leaving.add(shortCode);
+                }
+            }
+            expected += leaving.size();
+            if (!leaving.isEmpty()) {
+                verify(shards.get(node)).moveLinks(eq(leaving), eq(shards.get("redis-c:6379")));
+            }
+        }
+        assertTrue(expected > 0);
+        verify(shards.get("redis-c:6379"), never()).moveLinks(anyList(), any());
+        assertEquals(ShardMigrator.State.COMPLETED, migrator.getState());
+        assertEquals(2 * expected, migrator.getProgress().get("moved"));
+        assertEquals(300L, migrator.getProgress().get("scanned"));
+        service.close();
+    }
+}
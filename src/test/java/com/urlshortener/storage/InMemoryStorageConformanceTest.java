@@ -0,0 +1,18 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+
+/**
+ * Storage conformance kit run against the in-memory store
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("In-Memory Storage Conformance")
+class InMemoryStorageConformanceTest extends StorageConformanceKit {
+
+    @Override
+    protected StorageBackend createBackend() {
+        return ServiceStorageBackend.inline("memory", new InMemoryUrlShortenerService());
+    }
+}
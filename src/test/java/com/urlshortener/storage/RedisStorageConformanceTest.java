@@ -0,0 +1,62 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.config.RedisConfig;
+import com.urlshortener.service.RedisUrlShortenerService;
+import com.urlshortener.util.ShortCodeGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Storage conformance kit run against a real Redis. Skipped unless run with
+ * -Dredis.conformance=true; the host, port and database come from redis.host,
+ * redis.port and redis.database. Only the keys created by the tests are deleted.
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Redis Storage Conformance")
+@EnabledIfSystemProperty(named = "redis.conformance", matches = "true")
+class RedisStorageConformanceTest extends StorageConformanceKit {
+
+    private JedisConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private ExecutorService executor;
+
+    @Override
+    protected StorageBackend createBackend() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+            System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379));
+        config.setDatabase(Integer.getInteger("redis.database", 0));
+        connectionFactory = new JedisConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+        executor = Executors.newFixedThreadPool(8);
+        RedisUrlShortenerService service = new RedisUrlShortenerService(redisTemplate, new ShortCodeGenerator());
+        return new ServiceStorageBackend("redis", service, service, executor);
+    }
+
+    @Override
+    protected void cleanUp(List<String> shortCodes) {
+        List<String> keys = new ArrayList<>();
+        for (String shortCode : shortCodes) {
+            keys.add("url:" + shortCode);
+            keys.add("analytics:" + shortCode);
+        }
+        try {
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+        } finally {
+            executor.shutdownNow();
+            connectionFactory.destroy();
+        }
+    }
+}
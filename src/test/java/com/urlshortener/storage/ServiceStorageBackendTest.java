@@ -0,0 +1,120 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.events.ClickCounterStore;
+import com.urlshortener.service.InMemoryUrlShortenerService;
+import com.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ServiceStorageBackend
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Service Storage Backend Tests")
+class ServiceStorageBackendTest {
+
+    @Test
+    @DisplayName("Should coalesce lookups queued behind a drain into one batch call")
+    void shouldCoalesceQueuedLookups() {
+        // Given - an executor that runs tasks only when asked
+        UrlShortenerService service = mock(UrlShortenerService.class);
+        when(service.resolveUrls(List.of("aaa", "bbb"))).thenReturn(List.of(
+            ResolvedLink.active("aaa", "https://www.example.com/a", null),
+            ResolvedLink.notFound("bbb")));
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        ServiceStorageBackend backend = new ServiceStorageBackend("remote", service,
+            mock(ClickCounterStore.class), tasks::add);
+
+        // When
+        CompletableFuture<ResolvedLink> first = backend.resolve("aaa");
+        CompletableFuture<ResolvedLink> second = backend.resolve("bbb");
+        CompletableFuture<ResolvedLink> third = backend.resolve("aaa");
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+
+        // Then
+        verify(service).resolveUrls(List.of("aaa", "bbb"));
+        assertEquals("https://www.example.com/a", first.join().getOriginalUrl());
+        assertFalse(second.join().isActive());
+        assertSame(first.join(), third.join());
+        assertTrue(backend.isRemote());
+    }
+
+    @Test
+    @DisplayName("Should fail every queued lookup when the batch call fails")
+    void shouldFailQueuedLookupsTogether() {
+        // Given
+        UrlShortenerService service = mock(UrlShortenerService.class);
+        when(service.resolveUrls(anyList())).thenThrow(new IllegalStateException("down"));
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        ServiceStorageBackend backend = new ServiceStorageBackend("remote", service,
+            mock(ClickCounterStore.class), tasks::add);
+
+        // When
+        CompletableFuture<ResolvedLink> first = backend.resolve("aaa");
+        CompletableFuture<ResolvedLink> second = backend.resolve("bbb");
+        tasks.poll().run();
+
+        // Then
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        CompletableFuture<ResolvedLink> retry = backend.resolve("ccc");
+        assertEquals(1, tasks.size());
+        assertFalse(retry.isDone());
+    }
+
+    @Test
+    @DisplayName("Should fail every lookup queued behind a drain the executor rejects")
+    void shouldFailQueuedLookupsWhenDrainIsRejected() {
+        // Given - another lookup is queued while the first one's drain is being submitted
+        UrlShortenerService service = mock(UrlShortenerService.class);
+        ServiceStorageBackend[] backend = new ServiceStorageBackend[1];
+        List<CompletableFuture<ResolvedLink>> queued = new ArrayList<>();
+        int[] submissions = new int[1];
+        backend[0] = new ServiceStorageBackend("remote", service, mock(ClickCounterStore.class), task -> {
+            if (submissions[0]++ == 0) {
+                queued.add(backend[0].resolve("bbb"));
+            }
+            throw new RejectedExecutionException("saturated");
+        });
+
+        // When
+        CompletableFuture<ResolvedLink> first = backend[0].resolve("aaa");
+        CompletableFuture<ResolvedLink> retry = backend[0].resolve("ccc");
+
+        // Then
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(queued.get(0).isCompletedExceptionally());
+        assertTrue(retry.isCompletedExceptionally());
+        assertEquals(2, submissions[0]);
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Should resolve inline lookups on the calling thread")
+    void shouldResolveInlineLookupsImmediately() {
+        // Given
+        ServiceStorageBackend backend = ServiceStorageBackend.inline("memory", new InMemoryUrlShortenerService());
+
+        // When
+        CompletableFuture<ResolvedLink> link = backend.resolve("missing");
+
+        // Then
+        assertTrue(link.isDone());
+        assertFalse(link.join().isActive());
+        assertFalse(backend.isRemote());
+    }
+}
@@ -0,0 +1,264 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.analytics.AnalyticsQuery;
+import com.urlshortener.dto.ResolvedLink;
+import com.urlshortener.dto.ShortenUrlRequest;
+import com.urlshortener.dto.UrlAnalytics;
+import com.urlshortener.events.ClickTally;
+import com.urlshortener.service.StorageUrlShortenerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conformance and performance tests every storage backend must pass. Extend it,
+ * return the backend from createBackend and delete what the tests created in
+ * cleanUp. The performance tests run with -Dstorage.benchmark=true and report
+ * operations per second, so backends can be compared on the same workload.
+ *
+ * @author URL Shortener Team
+ */
+public abstract class StorageConformanceKit {
+
+    private static final int BENCHMARK_OPERATIONS = Integer.getInteger("storage.benchmark.operations", 5000);
+    private static final int BATCH_SIZE = 100;
+
+    protected StorageBackend backend;
+    protected final List<String> createdCodes = new ArrayList<>();
+
+    protected abstract StorageBackend createBackend();
+
+    /**
+     * Remove the links the tests created from a shared store
+     */
+    protected void cleanUp(List<String> shortCodes) {
+    }
+
+    @BeforeEach
+    void setUpBackend() {
+        backend = createBackend();
+    }
+
+    @AfterEach
+    void tearDownBackend() {
+        cleanUp(createdCodes);
+    }
+
+    @Test
+    @DisplayName("Should resolve created links and report unknown codes as not found")
+    void shouldResolveCreatedLinks() {
+        // Given
+        String shortCode = create("https://www.example.com/resolve");
+
+        // When
+        ResolvedLink found = backend.links().resolve(shortCode).join();
+        ResolvedLink missing = backend.links().resolve(unknownCode()).join();
+
+        // Then
+        assertTrue(found.isFound());
+        assertTrue(found.isActive());
+        assertEquals("https://www.example.com/resolve", found.getOriginalUrl());
+        assertFalse(missing.isFound());
+        assertNull(missing.getOriginalUrl());
+    }
+
+    @Test
+    @DisplayName("Should resolve a batch in request order, telling inactive links from unknown ones")
+    void shouldResolveBatchesInOrder() {
+        // Given
+        String first = create("https://www.example.com/first");
+        String deactivated = create("https://www.example.com/deactivated");
+        String last = create("https://www.example.com/last");
+        assertTrue(backend.links().deactivate(deactivated).join());
+        String unknown = unknownCode();
+
+        // When
+        List<ResolvedLink> links = backend.links().resolveAll(List.of(last, unknown, deactivated, first)).join();
+
+        // Then
+        assertEquals(List.of(last, unknown, deactivated, first),
+            links.stream().map(ResolvedLink::getShortCode).collect(Collectors.toList()));
+        assertEquals("https://www.example.com/last", links.get(0).getOriginalUrl());
+        assertFalse(links.get(1).isFound());
+        assertTrue(links.get(2).isFound());
+        assertFalse(links.get(2).isActive());
+        assertEquals("https://www.example.com/first", links.get(3).getOriginalUrl());
+        assertFalse(backend.links().deactivate(unknown).join());
+    }
+
+    @Test
+    @DisplayName("Should fail creates of invalid URLs with IllegalArgumentException")
+    void shouldRejectInvalidUrls() {
+        // When
+        CompletableFuture<?> created = backend.links().create(new ShortenUrlRequest("not-a-url"));
+
+        // Then
+        CompletionException failure = assertThrows(CompletionException.class, created::join);
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+    }
+
+    @Test
+    @DisplayName("Should count clicks and redirects, and not redirect unknown codes")
+    void shouldCountClicksAndRedirects() {
+        // Given
+        String shortCode = create("https://www.example.com/clicks");
+
+        // When
+        backend.clicks().recordClick(shortCode).join();
+        backend.clicks().recordClick(shortCode).join();
+        String redirected = backend.redirect(shortCode).join();
+        String unknown = backend.redirect(unknownCode()).join();
+
+        // Then
+        assertEquals("https://www.example.com/clicks", redirected);
+        assertNull(unknown);
+        UrlAnalytics analytics = backend.analytics().get(shortCode).join();
+        assertEquals(3, analytics.getClickCount());
+        assertNotNull(analytics.getLastAccessedAt());
+        assertNull(backend.analytics().get(unknownCode()).join());
+    }
+
+    @Test
+    @DisplayName("Should apply a click batch once however often it is delivered")
+    void shouldApplyBatchesOnce() {
+        // Given
+        String shortCode = create("https://www.example.com/batch");
+        String batchId = "conformance-" + UUID.randomUUID();
+        Map<String, ClickTally> tallies = Map.of(shortCode, ClickTally.of(7, System.currentTimeMillis()));
+
+        // When
+        boolean first = backend.clicks().recordClicks(batchId, tallies).join();
+        boolean again = backend.clicks().recordClicks(batchId, tallies).join();
+
+        // Then
+        assertTrue(first);
+        assertFalse(again);
+        assertEquals(7, backend.analytics().get(shortCode).join().getClickCount());
+    }
+
+    @Test
+    @DisplayName("Should not lose clicks recorded concurrently")
+    void shouldCountConcurrentClicks() {
+        // Given
+        String shortCode = create("https://www.example.com/concurrent");
+
+        // When - many clicks in flight at once from several threads
+        List<CompletableFuture<Void>> clicks = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            clicks.add(CompletableFuture.supplyAsync(() -> backend.clicks().recordClick(shortCode))
+                .thenCompose(click -> click));
+        }
+        CompletableFuture.allOf(clicks.toArray(new CompletableFuture[0])).join();
+
+        // Then
+        assertEquals(400, backend.analytics().get(shortCode).join().getClickCount());
+    }
+
+    @Test
+    @DisplayName("Should rank links by clicks and include them in the summary and link scan")
+    void shouldQueryAndSummarize() {
+        // Given - three links with distinct click counts
+        String low = create("https://www.example.com/low");
+        String high = create("https://www.example.com/high");
+        String middle = create("https://www.example.com/middle");
+        long now = System.currentTimeMillis();
+        backend.clicks().recordClicks("conformance-" + UUID.randomUUID(), Map.of(
+            low, ClickTally.of(1, now), high, ClickTally.of(30, now), middle, ClickTally.of(20, now))).join();
+
+        // When
+        List<UrlAnalytics> top = backend.analytics()
+            .query(new AnalyticsQuery(AnalyticsQuery.Order.CLICKS, AnalyticsQuery.MAX_LIMIT)).join();
+        long totalUrls = backend.analytics().summarize().join().getTotalUrls();
+        Set<String> scanned = new HashSet<>();
+        backend.links().forEachLink((shortCode, originalUrl) -> scanned.add(shortCode));
+
+        // Then - ours in order among whatever else the store holds
+        List<String> ours = top.stream().map(UrlAnalytics::getShortCode)
+            .filter(List.of(low, high, middle)::contains).collect(Collectors.toList());
+        assertEquals(List.of(high, middle, low), ours);
+        assertTrue(totalUrls >= 3);
+        assertTrue(scanned.containsAll(List.of(low, high, middle)));
+    }
+
+    @Test
+    @DisplayName("Should serve through the blocking service facade")
+    void shouldServeThroughServiceFacade() {
+        // Given
+        StorageUrlShortenerService service = new StorageUrlShortenerService(backend);
+        String shortCode = service.shortenUrl(new ShortenUrlRequest("https://www.example.com/facade")).getShortCode();
+        createdCodes.add(shortCode);
+
+        // When
+        String redirected = service.redirect(shortCode, null);
+
+        // Then
+        assertEquals("https://www.example.com/facade", redirected);
+        assertEquals("https://www.example.com/facade", service.getOriginalUrl(shortCode));
+        assertEquals(1, service.getUrlAnalytics(shortCode).getClickCount());
+        assertThrows(IllegalArgumentException.class, () -> service.shortenUrl(new ShortenUrlRequest("nope")));
+        assertTrue(service.deactivateUrl(shortCode));
+        assertNull(service.getOriginalUrl(shortCode));
+    }
+
+    @Test
+    @DisplayName("Benchmark: single lookups against batched lookups and async clicks")
+    @EnabledIfSystemProperty(named = "storage.benchmark", matches = "true")
+    void benchmark() {
+        // Given
+        List<String> codes = new ArrayList<>(BENCHMARK_OPERATIONS);
+        for (int i = 0; i < BENCHMARK_OPERATIONS; i++) {
+            codes.add(create("https://www.example.com/benchmark/" + i));
+        }
+
+        // When
+        long start = System.nanoTime();
+        for (String shortCode : codes) {
+            assertTrue(backend.links().resolve(shortCode).join().isActive());
+        }
+        long single = System.nanoTime();
+        for (int i = 0; i < codes.size(); i += BATCH_SIZE) {
+            backend.links().resolveAll(codes.subList(i, Math.min(codes.size(), i + BATCH_SIZE))).join();
+        }
+        long batched = System.nanoTime();
+        List<CompletableFuture<Void>> clicks = new ArrayList<>(codes.size());
+        for (String shortCode : codes) {
+            clicks.add(backend.clicks().recordClick(shortCode));
+        }
+        CompletableFuture.allOf(clicks.toArray(new CompletableFuture[0])).join();
+        long clicked = System.nanoTime();
+
+        // Then
+        report("resolve", single - start);
+        report("resolveAll/" + BATCH_SIZE, batched - single);
+        report("recordClick", clicked - batched);
+    }
+
+    protected String create(String url) {
+        String shortCode = backend.links().create(new ShortenUrlRequest(url)).join().getShortCode();
+        createdCodes.add(shortCode);
+        return shortCode;
+    }
+
+    private static String unknownCode() {
+        return "zz" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+    }
+
+    private void report(String operation, long nanos) {
+        System.out.printf("%-10s %-16s %10.0f ops/s (%d ops)%n", backend.getName(), operation,
+            BENCHMARK_OPERATIONS * 1e9 / nanos, BENCHMARK_OPERATIONS);
+    }
+}
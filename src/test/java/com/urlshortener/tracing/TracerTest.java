@@ -0,0 +1,154 @@
+package com.urlshortener.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for Tracer, its sinks and the traced Redis connections
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Tracer Tests")
+class TracerTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private final InMemoryTraceSink sink = new InMemoryTraceSink(10);
+
+    @Test
+    @DisplayName("Should discard fast traces and keep slow and failed ones")
+    void shouldTailSample() throws InterruptedException {
+        // Given
+        Tracer tracer = tracer(0, 20);
+
+        // When
+        try (Span root = tracer.startTrace("http", null)) {
+            tracer.start("service.getOriginalUrl").close();
+        }
+        try (Span root = tracer.startTrace("http", null)) {
+            try (Span service = tracer.start("service.getOriginalUrl")) {
+                Thread.sleep(25);
+            }
+        }
+        try (Span root = tracer.startTrace("http", null)) {
+            tracer.markError();
+        }
+        tracer.flush();
+
+        // Then
+        List<TraceRecord> traces = sink.getTraces();
+        assertEquals(2, traces.size());
+        assertEquals("error", traces.get(0).getReason());
+        TraceRecord slow = traces.get(1);
+        assertEquals("latency", slow.getReason());
+        assertEquals(32, slow.getTraceId().length());
+        assertEquals(2, slow.getSpans().size());
+        assertEquals(0, slow.getSpans().get(1).getParent());
+        assertTrue(slow.getSpans().get(1).getDurationMicros() >= 20_000);
+        assertEquals(1L, tracer.getStats().get("discarded"));
+    }
+
+    @Test
+    @DisplayName("Should keep the caller's trace id and sampling decision")
+    void shouldFollowTraceParent() {
+        // Given
+        Tracer tracer = tracer(0, 0);
+
+        // When
+        try (Span root = tracer.startTrace("http", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")) {
+            tracer.tag("path", "/abc123");
+            try (Span filters = tracer.start("filters")) {
+                tracer.start("redis.evalSha").close();
+            }
+            tracer.start("dispatch").close();
+        }
+        try (Span root = tracer.startTrace("http", "00-" + TRACE_ID + "-00f067aa0ba902b7-00")) {
+            tracer.start("dispatch").close();
+        }
+        tracer.flush();
+
+        // Then
+        List<TraceRecord> traces = sink.getTraces();
+        assertEquals(1, traces.size());
+        TraceRecord trace = traces.get(0);
+        assertEquals(TRACE_ID, trace.getTraceId());
+        assertEquals("head", trace.getReason());
+        assertEquals("/abc123", trace.getAttributes().get("path"));
+        assertEquals(List.of(-1, 0, 1, 0), trace.getSpans().stream().map(TraceRecord.SpanRecord::getParent).toList());
+    }
+
+    @Test
+    @DisplayName("Should record a span per Redis command, including grouped commands")
+    void shouldTraceRedisCommands() {
+        // Given
+        Tracer tracer = tracer(1.0, 0);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(keyCommands.exists(any(byte[].class))).thenReturn(true);
+        when(connection.ping()).thenThrow(new IllegalStateException("down"));
+        RedisConnectionFactory factory = mock(RedisConnectionFactory.class);
+        when(factory.getConnection()).thenReturn(connection);
+        RedisConnection traced = new TracingRedisConnectionFactory(factory, tracer).getConnection();
+
+        // When
+        try (Span root = tracer.startTrace("http", null)) {
+            assertTrue(traced.keyCommands().exists("url:abc".getBytes()));
+            assertThrows(IllegalStateException.class, traced::ping);
+            traced.close();
+        }
+        tracer.flush();
+
+        // Then
+        TraceRecord trace = sink.getTraces().get(0);
+        assertEquals(List.of("http", "redis.exists", "redis.ping"),
+            trace.getSpans().stream().map(TraceRecord.SpanRecord::getName).toList());
+        assertTrue(trace.getSpans().get(2).isError());
+        verify(connection).close();
+    }
+
+    @Test
+    @DisplayName("Should append traces to a file as JSON lines")
+    void shouldWriteFileSink(@TempDir Path directory) throws Exception {
+        // Given
+        Path file = directory.resolve("traces.jsonl");
+        FileTraceSink fileSink = new FileTraceSink(file, new ObjectMapper());
+        Tracer tracer = new Tracer(fileSink, new SimpleMeterRegistry(), true, 1.0, 0, false, 4, 16);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            try (Span root = tracer.startTrace("http", null)) {
+                for (int span = 0; span < 5; span++) {
+                    tracer.start("service.trackClick").close();
+                }
+            }
+        }
+        tracer.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("head", first.get("reason").asText());
+        assertEquals(4, first.get("spans").size());
+        assertEquals(2, first.get("truncatedSpans").asInt());
+    }
+
+    private Tracer tracer(double headSampleRate, long tailLatencyMillis) {
+        return new Tracer(sink, new SimpleMeterRegistry(), true, headSampleRate, tailLatencyMillis, true, 16, 16);
+    }
+}
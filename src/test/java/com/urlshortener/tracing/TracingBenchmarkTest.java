@@ -0,0 +1,100 @@
+package com.urlshortener.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures what tracing adds to a redirect-shaped request: a root span, the filters,
+ * dispatch, controller and service spans, and one Redis command through a traced
+ * connection whose commands return at once. Skipped unless run with
+ * -Dtracing.benchmark=true; tracing.benchmark.requests sets the request count.
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Tracing Benchmark")
+@EnabledIfSystemProperty(named = "tracing.benchmark", matches = "true")
+class TracingBenchmarkTest {
+
+    private static final int REQUESTS = Integer.getInteger("tracing.benchmark.requests", 2_000_000);
+
+    private final RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] {RedisConnection.class},
+        (proxy, method, args) -> method.getName().equals("ping") ? "PONG" : null);
+
+    @Test
+    @DisplayName("Should add little to untraced requests")
+    void measureOverheadPerRequest() {
+        // Given
+        Tracer disabled = tracer(false, 0, 0, false);
+        Tracer headOnly = tracer(true, 0.01, 0, false);
+        Tracer tailOnly = tracer(true, 0, 250, true);
+        Tracer headAll = tracer(true, 1.0, 250, true);
+
+        // Warm up every path
+        for (Tracer tracer : new Tracer[] {disabled, headOnly, tailOnly, headAll}) {
+            run(tracer, REQUESTS / 4);
+        }
+
+        // When
+        long disabledNanos = run(disabled, REQUESTS);
+        long headOnlyNanos = run(headOnly, REQUESTS);
+        long tailOnlyNanos = run(tailOnly, REQUESTS);
+        long headAllNanos = run(headAll, REQUESTS / 10);
+
+        // Then
+        System.out.printf("📊 tracing disabled:             %6d ns/request%n", disabledNanos);
+        System.out.printf("📊 head sampling 1%%, no tail:    %6d ns/request%n", headOnlyNanos);
+        System.out.printf("📊 recorded, discarded (tail):   %6d ns/request%n", tailOnlyNanos);
+        System.out.printf("📊 every request kept (head=1):  %6d ns/request%n", headAllNanos);
+        assertTrue(tailOnlyNanos - disabledNanos < 5_000, "tracing an unsampled request costs over 5 µs");
+    }
+
+    private long run(Tracer tracer, int requests) {
+        RedisConnection traced = connection(tracer);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            try (Span root = tracer.startTrace("http", null)) {
+                if (root.isRecording()) {
+                    tracer.tag("method", "GET");
+                    tracer.tag("path", "/abc123");
+                }
+                tracer.start("filters").close();
+                try (Span dispatch = tracer.start("dispatch");
+                     Span controller = tracer.start("controller");
+                     Span service = tracer.start("service.redirect")) {
+                    traced.ping();
+                }
+                if (root.isRecording()) {
+                    tracer.tag("status", "302");
+                }
+            }
+            if ((i & 1023) == 0) {
+                tracer.flush();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        tracer.flush();
+        return elapsed / requests;
+    }
+
+    private RedisConnection connection(Tracer tracer) {
+        RedisConnectionFactory factory = mock(RedisConnectionFactory.class);
+        when(factory.getConnection()).thenReturn(connection);
+        return new TracingRedisConnectionFactory(factory, tracer).getConnection();
+    }
+
+    private static Tracer tracer(boolean enabled, double headSampleRate, long tailLatencyMillis,
+                                 boolean tailOnError) {
+        return new Tracer(new InMemoryTraceSink(100), new SimpleMeterRegistry(), enabled, headSampleRate,
+            tailLatencyMillis, tailOnError, 64, 4096);
+    }
+}
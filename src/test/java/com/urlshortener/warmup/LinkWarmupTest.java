@@ -0,0 +1,151 @@
+package com.urlshortener.warmup;
+
+import com.urlshortener.cluster.RemoteHitCache;
+import com.urlshortener.dto.UrlAnalytics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LinkWarmup
+ *
+ * @author URL Shortener Team
+ */
+@DisplayName("Link Warmup Tests")
+class LinkWarmupTest {
+
+    /**
+     * In-memory warm-up source with link i created at minute i and clicked (i % 100) times
+     */
+    private static class FakeSource implements LinkWarmupSource {
+        final Map<String, UrlAnalytics> links = new TreeMap<>();
+        volatile long readDelayMillis;
+
+        FakeSource(int count) {
+            for (int i = 0; i < count; i++) {
+                UrlAnalytics analytics = new UrlAnalytics();
+                analytics.setShortCode("c" + i);
+                analytics.setOriginalUrl("https://example.com/" + i);
+                analytics.setClickCount(i % 100);
+                analytics.setCreatedAt(String.format("2026-01-01T00:%05d", i));
+                analytics.setActive(true);
+                links.put(analytics.getShortCode(), analytics);
+            }
+        }
+
+        @Override
+        public void scanShortCodes(int batchSize, Predicate<List<String>> batchHandler) {
+            List<String> batch = new ArrayList<>();
+            for (String shortCode : links.keySet()) {
+                batch.add(shortCode);
+                if (batch.size() == batchSize) {
+                    if (!batchHandler.test(batch)) {
+                        return;
+                    }
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchHandler.test(batch);
+            }
+        }
+
+        @Override
+        public List<UrlAnalytics> getAnalyticsBatch(List<String> shortCodes) {
+            sleep();
+            List<UrlAnalytics> result = new ArrayList<>();
+            shortCodes.forEach(code -> result.add(links.get(code)));
+            return result;
+        }
+
+        @Override
+        public List<String> getOriginalUrls(List<String> shortCodes) {
+            sleep();
+            List<String> result = new ArrayList<>();
+            shortCodes.forEach(code -> result.add(links.get(code).getOriginalUrl()));
+            return result;
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(readDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private LinkWarmup warmup(FakeSource source, RemoteHitCache cache, long budgetMillis) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("source", source));
+        return new LinkWarmup(beans.getBeanProvider(LinkWarmupSource.class), cache, true, true,
+            10, 5, 50, 4, budgetMillis, 60);
+    }
+
+    @Test
+    @DisplayName("Should cache the most-clicked and most-recent links")
+    void shouldCacheHottestAndNewestLinks() {
+        // Given
+        FakeSource source = new FakeSource(1000);
+        RemoteHitCache cache = new RemoteHitCache(1000, TimeUnit.MINUTES.toNanos(1));
+        LinkWarmup warmup = warmup(source, cache, 10000);
+
+        // When
+        warmup.run();
+
+        // Then
+        assertEquals(LinkWarmup.State.COMPLETED, warmup.getState());
+        assertTrue(warmup.isDone());
+        assertEquals("https://example.com/999", cache.get("c999"));
+        assertEquals("https://example.com/99", cache.get("c99"));
+        assertEquals("https://example.com/995", cache.get("c995"));
+        assertNull(cache.get("c0"));
+        assertEquals(1000L, warmup.getProgress().get("scanned"));
+        assertEquals((long) cache.size(), warmup.getProgress().get("loaded"));
+    }
+
+    @Test
+    @DisplayName("Should stop scanning at its share of the budget and still load what it found")
+    void shouldStopAtBudget() {
+        // Given - 40 reads of 50 ms on 4 threads need 500 ms; the scan may use 240 ms of 400
+        FakeSource source = new FakeSource(2000);
+        source.readDelayMillis = 50;
+        RemoteHitCache cache = new RemoteHitCache(1000, TimeUnit.MINUTES.toNanos(1));
+        LinkWarmup warmup = warmup(source, cache, 400);
+
+        // When
+        warmup.run();
+
+        // Then
+        assertEquals(LinkWarmup.State.BUDGET_EXCEEDED, warmup.getState());
+        assertTrue(warmup.isDone());
+        assertTrue((long) warmup.getProgress().get("elapsedMs") < 5000);
+        assertTrue((long) warmup.getProgress().get("scanned") < 2000);
+        assertTrue((long) warmup.getProgress().get("loaded") > 0);
+        assertEquals((long) cache.size(), warmup.getProgress().get("loaded"));
+    }
+
+    @Test
+    @DisplayName("Should skip when disabled")
+    void shouldSkipWhenDisabled() {
+        // Given
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        LinkWarmup warmup = new LinkWarmup(beans.getBeanProvider(LinkWarmupSource.class),
+            new RemoteHitCache(10, 1), true, true, 10, 5, 50, 4, 1000, 60);
+
+        // When
+        warmup.run();
+
+        // Then
+        assertEquals(LinkWarmup.State.SKIPPED, warmup.getState());
+        assertTrue(warmup.isDone());
+    }
+}